@@ -0,0 +1,201 @@
+package com.example.programminggroupproject.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of a JSON tree.
+ * Field names are written once in a table at the start and referenced by index,
+ * so a list of rows does not repeat its column names; integers and lengths are varints.
+ * Layout: [name count][names...][value], where a value is a one-byte tag followed by its payload.
+ */
+final class BinaryJson {
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte ARRAY = 6;
+    private static final byte OBJECT = 7;
+    private static final byte DECIMAL = 8;
+
+    private BinaryJson() {
+    }
+
+    // ==================== ENCODING ====================
+
+    static byte[] encode(JsonNode root) {
+        Map<String, Integer> names = new HashMap<>();
+        List<String> nameTable = new ArrayList<>();
+        collectNames(root, names, nameTable);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        writeVarint(out, nameTable.size());
+        for (String name : nameTable) {
+            writeString(out, name);
+        }
+        writeValue(out, root, names);
+        return out.toByteArray();
+    }
+
+    private static void collectNames(JsonNode node, Map<String, Integer> names, List<String> nameTable) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (names.putIfAbsent(field.getKey(), nameTable.size()) == null) {
+                    nameTable.add(field.getKey());
+                }
+                collectNames(field.getValue(), names, nameTable);
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                collectNames(element, names, nameTable);
+            }
+        }
+    }
+
+    private static void writeValue(ByteArrayOutputStream out, JsonNode node, Map<String, Integer> names) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            out.write(NULL);
+        } else if (node.isBoolean()) {
+            out.write(node.booleanValue() ? TRUE : FALSE);
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            out.write(INTEGER);
+            long value = node.longValue();
+            writeVarlong(out, (value << 1) ^ (value >> 63));
+        } else if (node.isBigDecimal() || node.isBigInteger()) {
+            out.write(DECIMAL);
+            writeString(out, node.decimalValue().toPlainString());
+        } else if (node.isNumber()) {
+            out.write(DOUBLE);
+            long bits = Double.doubleToLongBits(node.doubleValue());
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (node.isArray()) {
+            out.write(ARRAY);
+            writeVarint(out, node.size());
+            for (JsonNode element : node) {
+                writeValue(out, element, names);
+            }
+        } else if (node.isObject()) {
+            out.write(OBJECT);
+            writeVarint(out, node.size());
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                writeVarint(out, names.get(field.getKey()));
+                writeValue(out, field.getValue(), names);
+            }
+        } else {
+            out.write(STRING);
+            writeString(out, node.asText());
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        writeVarlong(out, value & 0xffffffffL);
+    }
+
+    private static void writeVarlong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    // ==================== DECODING ====================
+
+    /**
+     * Decode a tree from the buffer's remaining bytes; the buffer's position is advanced
+     */
+    static JsonNode decode(ByteBuffer in) {
+        String[] names = new String[(int) readVarlong(in)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = readString(in);
+        }
+        return readValue(in, names);
+    }
+
+    private static JsonNode readValue(ByteBuffer in, String[] names) {
+        JsonNodeFactory nodes = JsonNodeFactory.instance;
+        byte tag = in.get();
+        switch (tag) {
+            case NULL:
+                return nodes.nullNode();
+            case FALSE:
+                return nodes.booleanNode(false);
+            case TRUE:
+                return nodes.booleanNode(true);
+            case INTEGER: {
+                long zigzag = readVarlong(in);
+                return nodes.numberNode((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            case DOUBLE:
+                return nodes.numberNode(Double.longBitsToDouble(in.getLong()));
+            case DECIMAL:
+                return nodes.numberNode(new BigDecimal(readString(in)));
+            case STRING:
+                return nodes.textNode(readString(in));
+            case ARRAY: {
+                int size = (int) readVarlong(in);
+                ArrayNode array = nodes.arrayNode(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readValue(in, names));
+                }
+                return array;
+            }
+            case OBJECT: {
+                int size = (int) readVarlong(in);
+                ObjectNode object = nodes.objectNode();
+                for (int i = 0; i < size; i++) {
+                    String name = names[(int) readVarlong(in)];
+                    object.set(name, readValue(in, names));
+                }
+                return object;
+            }
+            default:
+                throw new IllegalStateException("Corrupt snapshot: unknown tag " + tag);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) readVarlong(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarlong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Corrupt snapshot: varint too long");
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.programminggroupproject.cache;
+
+/**
+ * Snapshot of a cache's counters
+ */
+public record CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+
+    public long requests() {
+        return hits + misses;
+    }
+
+    /**
+     * @return Fraction of lookups served from memory, 0 if there were none
+     */
+    public double hitRatio() {
+        return requests() == 0 ? 0 : (double) hits / requests();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d hitRatio=%.1f%% evictions=%d expirations=%d size=%d",
+                hits, misses, hitRatio() * 100, evictions, expirations, size);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.programminggroupproject.cache;
+
+/**
+ * Count-min sketch with 4-bit counters, used to estimate how often a key has been
+ * accessed recently. Counters are halved once the number of recorded accesses
+ * reaches ten times the cache size, so old popularity fades out.
+ * Not thread-safe; callers synchronize.
+ */
+final class FrequencySketch {
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 16);
+    }
+
+    /**
+     * @return Estimated access count of the key, 0 to 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            frequency = Math.min(frequency, counter(hash, i));
+        }
+        return frequency;
+    }
+
+    /**
+     * Record an access to the key
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int offset = offsetOf(hash, i);
+            if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+                table[index] += 1L << offset;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private int counter(int hash, int i) {
+        return (int) ((table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xfL);
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += h >>> 32;
+        return (int) h & tableMask;
+    }
+
+    /** Each long holds 16 counters; each hash function uses its own quarter of them */
+    private int offsetOf(int hash, int i) {
+        return ((((hash >>> (i << 3)) & 3) << 2) + i) << 2;
+    }
+
+    /** Halve every counter (the aging step of TinyLFU) */
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions >>> 1);
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.programminggroupproject.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cache of raw PostgREST responses, keyed by table plus the canonicalized query
+ * parameters (sorted, so the same filter/order/limit built in a different order
+ * hits the same entry).
+ * Only tables given a TTL are cached. Any write to a table drops all of its
+ * entries, and the cache is bounded by the approximate memory its responses use,
+ * evicting the least recently used entries first.
+ * Responses are stored as JSON text, so every hit is deserialized into fresh
+ * objects and callers cannot corrupt the cache by editing results.
+ * <p>
+ * Separately, the last response of every query (cached table or not) is remembered
+ * regardless of TTL and writes, for stale-while-revalidate reads that show it while
+ * the fresh result is loading.
+ */
+public class QueryCache {
+
+    /** Default memory budget for cached responses */
+    private static final long DEFAULT_MAXIMUM_BYTES = 8L * 1024 * 1024;
+
+    /** Memory budget for last-known responses */
+    private static final long LAST_KNOWN_MAXIMUM_BYTES = 4L * 1024 * 1024;
+
+    /** Rough per-entry cost of the map node, key and bookkeeping */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private static QueryCache instance;
+
+    private final Map<String, Long> ttlNanosByTable = new HashMap<>();
+    private final Map<String, Long> generationByTable = new HashMap<>();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final LinkedHashMap<String, String> lastKnown = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long maximumBytes = DEFAULT_MAXIMUM_BYTES;
+    private long weightedBytes;
+    private long lastKnownBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    private record Entry(String table, String json, long expiresAt, int weight) {
+    }
+
+    private QueryCache() {
+    }
+
+    public static synchronized QueryCache getInstance() {
+        if (instance == null) {
+            instance = new QueryCache();
+        }
+        return instance;
+    }
+
+    // ==================== CONFIGURATION ====================
+
+    /**
+     * Cache reads of a table for the given time. Tables without a TTL are never cached.
+     */
+    public synchronized void setTimeToLive(String table, Duration timeToLive) {
+        ttlNanosByTable.put(table, timeToLive.toNanos());
+    }
+
+    public synchronized boolean isCached(String table) {
+        return ttlNanosByTable.containsKey(table);
+    }
+
+    /**
+     * @param maximumBytes Approximate memory budget for all cached responses
+     */
+    public synchronized void setMaximumBytes(long maximumBytes) {
+        this.maximumBytes = maximumBytes;
+        evictIfNeeded();
+    }
+
+    // ==================== LOOKUP ====================
+
+    /**
+     * @return The cached response body, or null if the table is not cached or there is no fresh entry
+     */
+    public synchronized String get(String table, Map<String, String> params) {
+        if (!ttlNanosByTable.containsKey(table)) {
+            return null;
+        }
+
+        String key = keyOf(table, params);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt() >= 0) {
+            remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.json();
+    }
+
+    /**
+     * @return Counter that changes whenever the table is written to; take it before issuing a read
+     */
+    public synchronized long generation(String table) {
+        return generationByTable.getOrDefault(table, 0L);
+    }
+
+    /**
+     * Cache a response, unless the table was written to since {@code generation} was taken
+     * (the response may predate that write)
+     * @return true if the response was cached
+     */
+    public synchronized boolean put(String table, Map<String, String> params, String json, long generation) {
+        Long ttlNanos = ttlNanosByTable.get(table);
+        if (ttlNanos == null || generation(table) != generation) {
+            return false;
+        }
+
+        String key = keyOf(table, params);
+        int weight = weightOf(key, json);
+        if (weight > maximumBytes) {
+            return false;
+        }
+
+        remove(key);
+        entries.put(key, new Entry(table, json, System.nanoTime() + ttlNanos, weight));
+        weightedBytes += weight;
+        evictIfNeeded();
+        return true;
+    }
+
+    // ==================== LAST KNOWN ====================
+
+    /**
+     * Remember the latest response of a query, whatever its table's cache settings
+     */
+    public synchronized void remember(String table, Map<String, String> params, String json) {
+        String key = keyOf(table, params);
+        int weight = weightOf(key, json);
+        if (weight > LAST_KNOWN_MAXIMUM_BYTES) {
+            return;
+        }
+
+        String previous = lastKnown.put(key, json);
+        if (previous != null) {
+            lastKnownBytes -= weightOf(key, previous);
+        }
+        lastKnownBytes += weight;
+
+        Iterator<Map.Entry<String, String>> it = lastKnown.entrySet().iterator();
+        while (lastKnownBytes > LAST_KNOWN_MAXIMUM_BYTES && it.hasNext()) {
+            Map.Entry<String, String> eldest = it.next();
+            lastKnownBytes -= weightOf(eldest.getKey(), eldest.getValue());
+            it.remove();
+        }
+    }
+
+    /**
+     * @return The latest response seen for this query, however old, or null if it never ran
+     */
+    public synchronized String getLastKnown(String table, Map<String, String> params) {
+        return lastKnown.get(keyOf(table, params));
+    }
+
+    // ==================== INVALIDATION ====================
+
+    /**
+     * Drop every cached response of a table; called for each write that reaches it
+     */
+    public synchronized void invalidateTable(String table) {
+        generationByTable.merge(table, 1L, Long::sum);
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.table().equals(table)) {
+                weightedBytes -= entry.weight();
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generationByTable.replaceAll((table, generation) -> generation + 1);
+        entries.clear();
+        weightedBytes = 0;
+    }
+
+    /**
+     * Drop everything including last-known responses; call at logout
+     */
+    public synchronized void clear() {
+        invalidateAll();
+        lastKnown.clear();
+        lastKnownBytes = 0;
+    }
+
+    // ==================== EVICTION ====================
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (weightedBytes > maximumBytes && it.hasNext()) {
+            weightedBytes -= it.next().getValue().weight();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(String key) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            weightedBytes -= previous.weight();
+        }
+    }
+
+    private static int weightOf(String key, String json) {
+        return 2 * (key.length() + json.length()) + ENTRY_OVERHEAD_BYTES;
+    }
+
+    /**
+     * Canonical form of a query: table and parameters sorted by name
+     */
+    static String keyOf(String table, Map<String, String> params) {
+        StringBuilder key = new StringBuilder(table).append('?');
+        if (params != null) {
+            new TreeMap<>(params).forEach((name, value) -> key.append(name).append('=').append(value).append('&'));
+        }
+        return key.toString();
+    }
+
+    // ==================== METRICS ====================
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, expirations, entries.size());
+    }
+
+    /**
+     * @return Approximate memory used by cached responses, in bytes
+     */
+    public synchronized long getWeightedBytes() {
+        return weightedBytes;
+    }
+
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        expirations = 0;
+    }
+}
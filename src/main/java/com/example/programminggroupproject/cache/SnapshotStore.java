@@ -0,0 +1,375 @@
+package com.example.programminggroupproject.cache;
+
+import com.example.programminggroupproject.model.LazyColumn;
+import com.example.programminggroupproject.model.LazyLoadable;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Persistent per-user cache of the working set shown on the main screens, so a fresh
+ * launch can render the last known data immediately and reconcile with the server after.
+ * <p>
+ * Each user has one current file, {@code ~/.car-servicinator/snapshots/<user id>.<generation>.bin},
+ * holding named segments (e.g. "vehicles", "shop_requests:&lt;shop id&gt;"), each a list of
+ * rows in the {@link BinaryJson} encoding. The file is memory-mapped when opened and segments
+ * are decoded straight from the mapping. Saving writes the next generation to a temporary
+ * name and moves it into place, on a background thread, so a crash never leaves a torn file;
+ * the file that is still mapped is never replaced (Windows refuses that), only deleted once
+ * a newer one is mapped, and older generations left behind are removed at the next open.
+ * <p>
+ * Rows are written from their fields, so saving never runs getters, and @LazyColumn values
+ * (e.g. request notes) are left out: they are not stored on disk, and rows read back are
+ * marked as pending for loadLazyColumns.
+ * <p>
+ * File layout: magic, version, segment count, then per segment
+ * [key][saved at millis][offset][length], followed by the segment data.
+ */
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x43535331; // "CSS1"
+    private static final int VERSION = 1;
+    private static final Pattern FILE_NAME = Pattern.compile("([0-9a-f-]+)\\.(?:(\\d+)\\.)?bin(\\.tmp)?");
+
+    private static SnapshotStore instance;
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // JSON names of the @LazyColumn fields of each model class
+    private final Map<Class<?>, List<String>> lazyColumns = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private UUID user;
+    private long generation;
+    private Path file;
+    private MappedByteBuffer mapped;
+    private final Map<String, Segment> segments = new LinkedHashMap<>();
+
+    /**
+     * Location of one segment: either inside the mapped file or, once replaced, in memory
+     */
+    private record Segment(long savedAtMillis, int offset, int length, byte[] pending) {
+    }
+
+    private SnapshotStore() {
+        this.directory = Paths.get(System.getProperty("user.home"), ".car-servicinator", "snapshots");
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        this.objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+    }
+
+    public static synchronized SnapshotStore getInstance() {
+        if (instance == null) {
+            instance = new SnapshotStore();
+        }
+        return instance;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Map the newest snapshot file of a user; call at login. A missing or unreadable file
+     * simply means there is nothing cached yet.
+     */
+    public synchronized void open(UUID userId) {
+        close();
+        user = userId;
+        generation = -1;
+        for (Path candidate : files(userId)) {
+            long candidateGeneration = generationOf(candidate);
+            if (candidateGeneration > generation && !candidate.toString().endsWith(".tmp")) {
+                generation = candidateGeneration;
+                file = candidate;
+            }
+        }
+        if (file == null) {
+            return;
+        }
+        try {
+            map();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable snapshot " + file + ": " + e.getMessage());
+            segments.clear();
+            mapped = null;
+        }
+        deleteAllBut(file);
+    }
+
+    /**
+     * Forget the current user's snapshot (the file stays on disk); call at logout
+     */
+    public synchronized void close() {
+        user = null;
+        file = null;
+        mapped = null;
+        segments.clear();
+    }
+
+    public synchronized boolean isOpen() {
+        return user != null;
+    }
+
+    private void map() throws IOException {
+        segments.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer header = mapped.duplicate();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("not a snapshot file or unsupported version");
+        }
+        int count = header.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] key = new byte[header.getShort() & 0xffff];
+            header.get(key);
+            long savedAt = header.getLong();
+            int offset = header.getInt();
+            int length = header.getInt();
+            if (offset < 0 || length < 0 || (long) offset + length > mapped.capacity()) {
+                throw new IOException("segment out of bounds");
+            }
+            segments.put(new String(key, StandardCharsets.UTF_8), new Segment(savedAt, offset, length, null));
+        }
+    }
+
+    // ==================== READ ====================
+
+    /**
+     * Read a segment saved by an earlier session
+     * @param key Segment name
+     * @param type Type of the list of rows
+     * @return The rows, or empty if the segment does not exist or cannot be decoded
+     */
+    public <T> Optional<List<T>> read(String key, TypeReference<List<T>> type) {
+        ByteBuffer data;
+        synchronized (this) {
+            Segment segment = segments.get(key);
+            if (segment == null) {
+                return Optional.empty();
+            }
+            data = segment.pending() != null
+                    ? ByteBuffer.wrap(segment.pending())
+                    : mapped.duplicate().position(segment.offset()).limit(segment.offset() + segment.length()).slice();
+        }
+        try {
+            JsonNode tree = BinaryJson.decode(data);
+            List<T> rows = objectMapper.readerFor(type).readValue(tree);
+            for (T row : rows) {
+                if (row instanceof LazyLoadable loadable) {
+                    loadable.setLazyColumnsPending(true);
+                }
+            }
+            return Optional.of(rows);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring corrupt snapshot segment " + key + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return When the segment was saved, or empty if it does not exist
+     */
+    public synchronized Optional<Instant> savedAt(String key) {
+        Segment segment = segments.get(key);
+        return segment == null ? Optional.empty() : Optional.of(Instant.ofEpochMilli(segment.savedAtMillis()));
+    }
+
+    // ==================== WRITE ====================
+
+    /**
+     * Replace a segment with freshly loaded rows and persist the file in the background.
+     * The rows are encoded immediately, so callers may keep modifying them afterwards.
+     */
+    public void save(String key, List<?> rows) {
+        byte[] encoded;
+        try {
+            ArrayNode tree = objectMapper.valueToTree(rows);
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i) != null && tree.get(i) instanceof ObjectNode row) {
+                    row.remove(lazyColumns.computeIfAbsent(rows.get(i).getClass(), SnapshotStore::lazyColumnsOf));
+                }
+            }
+            encoded = BinaryJson.encode(tree);
+        } catch (RuntimeException e) {
+            System.err.println("Error encoding snapshot segment " + key + ": " + e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            if (user == null) {
+                return;
+            }
+            segments.put(key, new Segment(System.currentTimeMillis(), 0, encoded.length, encoded));
+            UUID owner = user;
+            writer.execute(() -> persist(owner));
+        }
+    }
+
+    /**
+     * Write every segment to the user's next file generation, map it and delete the old one
+     */
+    private void persist(UUID owner) {
+        Map<String, byte[]> data = new LinkedHashMap<>();
+        Map<String, Long> savedAt = new LinkedHashMap<>();
+        Path target;
+        synchronized (this) {
+            // A later save already covers this one, or the user logged out
+            if (!owner.equals(user) || segments.values().stream().noneMatch(s -> s.pending() != null)) {
+                return;
+            }
+            generation++;
+            target = directory.resolve(owner + "." + generation + ".bin");
+            segments.forEach((key, segment) -> {
+                data.put(key, segment.pending() != null ? segment.pending() : copyOut(segment));
+                savedAt.put(key, segment.savedAtMillis());
+            });
+        }
+
+        try {
+            Files.createDirectories(directory);
+            int headerSize = 12;
+            for (String key : data.keySet()) {
+                headerSize += 2 + key.getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 4;
+            }
+            int total = headerSize + data.values().stream().mapToInt(bytes -> bytes.length).sum();
+
+            ByteBuffer out = ByteBuffer.allocate(total);
+            out.putInt(MAGIC).putInt(VERSION).putInt(data.size());
+            int offset = headerSize;
+            for (Map.Entry<String, byte[]> entry : data.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.putShort((short) key.length).put(key)
+                        .putLong(savedAt.get(entry.getKey()))
+                        .putInt(offset).putInt(entry.getValue().length);
+                offset += entry.getValue().length;
+            }
+            data.values().forEach(out::put);
+            out.flip();
+
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+            synchronized (this) {
+                // Segments saved while we were writing stay pending and get their own pass
+                boolean newerSave = segments.entrySet().stream().anyMatch(e ->
+                        e.getValue().pending() != null && e.getValue().pending() != data.get(e.getKey()));
+                if (owner.equals(user) && !newerSave) {
+                    file = target;
+                    map();
+                    deleteAllBut(target);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing snapshot " + target + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return JSON names of the class's @LazyColumn fields
+     */
+    private static List<String> lazyColumnsOf(Class<?> modelClass) {
+        List<String> names = new ArrayList<>();
+        for (Field field : modelClass.getDeclaredFields()) {
+            JsonProperty property = field.getAnnotation(JsonProperty.class);
+            if (field.isAnnotationPresent(LazyColumn.class)) {
+                names.add(property != null ? property.value() : field.getName());
+            }
+        }
+        return names;
+    }
+
+    // ==================== FILES ====================
+
+    private List<Path> files(UUID userId) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.filter(path -> {
+                Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+                return matcher.matches() && matcher.group(1).equals(userId.toString());
+            }).toList();
+        } catch (IOException e) {
+            System.err.println("Error listing snapshots in " + directory + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * @return The generation in the file name; 0 for files written before generations existed
+     */
+    private static long generationOf(Path path) {
+        Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+        return matcher.matches() && matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0;
+    }
+
+    /**
+     * Delete the user's other snapshot files, including temporary ones left by a crash. A file that is still mapped cannot be deleted
+     * on Windows until the mapping is collected; it is tried again at the next open.
+     */
+    private void deleteAllBut(Path current) {
+        for (Path old : files(user)) {
+            if (!old.equals(current)) {
+                try {
+                    Files.deleteIfExists(old);
+                } catch (IOException e) {
+                    // Still mapped
+                }
+            }
+        }
+    }
+
+    private byte[] copyOut(Segment segment) {
+        byte[] bytes = new byte[segment.length()];
+        mapped.duplicate().position(segment.offset()).get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.programminggroupproject.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded in-memory cache with expire-after-write, using W-TinyLFU eviction:
+ * new entries land in a small LRU window, and when the window overflows its oldest
+ * entry only replaces the main area's LRU victim if it has been used more often
+ * recently. One-off lookups therefore cannot flush out the rows that are read
+ * over and over.
+ * All operations are synchronized; entries are tiny and operations O(1).
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class TinyLfuCache<K, V> {
+
+    private final int maximumSize;
+    private final int windowCapacity;
+    private final long ttlNanos;
+    private final FrequencySketch sketch;
+
+    // Access-ordered, eldest first
+    private final LinkedHashMap<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Bumped by every put/invalidate, see writeStamp()
+    private long writeStamp;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * @param maximumSize Maximum number of entries
+     * @param timeToLive How long an entry stays valid after it was written
+     */
+    public TinyLfuCache(int maximumSize, Duration timeToLive) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.windowCapacity = Math.max(1, maximumSize / 100);
+        this.ttlNanos = timeToLive.toNanos();
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    // ==================== LOOKUP ====================
+
+    /**
+     * @return The cached value, or null if absent or expired
+     */
+    public synchronized V getIfPresent(K key) {
+        sketch.increment(key);
+
+        Entry<V> entry = window.get(key);
+        if (entry == null) {
+            entry = main.get(key);
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            window.remove(key);
+            main.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Insert or replace an entry; replacing keeps the entry where it is
+     */
+    public synchronized void put(K key, V value) {
+        writeStamp++;
+        Entry<V> entry = new Entry<>(value, System.nanoTime() + ttlNanos);
+        if (main.containsKey(key)) {
+            main.put(key, entry);
+            return;
+        }
+        window.put(key, entry);
+        evictIfNeeded();
+    }
+
+    /**
+     * Cache a value that was read from the server, unless any write went through
+     * this cache since {@code stamp} was taken. A read that raced with a write may
+     * have returned the old row, and caching it would hide the caller's own write.
+     * @param stamp Value of writeStamp() taken before the read was issued
+     * @return true if the value was cached
+     */
+    public synchronized boolean putIfUnchangedSince(K key, V value, long stamp) {
+        if (writeStamp != stamp) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Batch form of putIfUnchangedSince(): all entries are cached or none are
+     */
+    public synchronized boolean putAllIfUnchangedSince(Map<K, V> entries, long stamp) {
+        if (writeStamp != stamp) {
+            return false;
+        }
+        entries.forEach(this::put);
+        return true;
+    }
+
+    /**
+     * @return Counter that changes on every put or invalidation
+     */
+    public synchronized long writeStamp() {
+        return writeStamp;
+    }
+
+    public synchronized void invalidate(K key) {
+        writeStamp++;
+        window.remove(key);
+        main.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        writeStamp++;
+        window.clear();
+        main.clear();
+    }
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    // ==================== EVICTION ====================
+
+    /**
+     * Move window overflow into the main area, where the TinyLFU filter decides
+     * between the newcomer and the main area's least recently used entry
+     */
+    private void evictIfNeeded() {
+        while (window.size() > windowCapacity) {
+            Iterator<Map.Entry<K, Entry<V>>> it = window.entrySet().iterator();
+            Map.Entry<K, Entry<V>> candidate = it.next();
+            it.remove();
+
+            if (main.size() < maximumSize - windowCapacity) {
+                main.put(candidate.getKey(), candidate.getValue());
+                continue;
+            }
+            if (main.isEmpty()) {
+                // No main area (maximumSize 1): the window is the whole cache
+                evictions++;
+                continue;
+            }
+
+            Iterator<Map.Entry<K, Entry<V>>> mainIt = main.entrySet().iterator();
+            Map.Entry<K, Entry<V>> victim = mainIt.next();
+            if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim.getKey())) {
+                mainIt.remove();
+                main.put(candidate.getKey(), candidate.getValue());
+            }
+            evictions++;
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, expirations, size());
+    }
+
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        expirations = 0;
+    }
+}
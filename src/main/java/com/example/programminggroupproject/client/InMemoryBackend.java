@@ -0,0 +1,165 @@
+package com.example.programminggroupproject.client;
+
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Answers the requests of SupabaseClient and SupabaseAuthClient from memory instead of the
+ * network, when {@code supabase.backend=memory}. Screens, services and benchmarks then run
+ * without a Supabase project, at memory speed, with everything on the client side
+ * (serialization, caches, interceptors) unchanged.
+ * <p>
+ * REST requests are answered by an InMemoryPostgrest, optionally seeded from the JSON file
+ * named by {@code supabase.memory.seed} ({"table": [rows...], ...}). Signing in accepts any
+ * password for an email found in the users table; sign-up is not available.
+ * {@link #setOnline} simulates an outage, e.g. to try offline mode.
+ */
+public class InMemoryBackend implements Interceptor {
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+    private static final long SESSION_SECONDS = 3600;
+
+    private static InMemoryBackend instance;
+
+    private final SupabaseConfig config = SupabaseConfig.getInstance();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final InMemoryPostgrest api = new InMemoryPostgrest();
+    private volatile boolean online = true;
+
+    private InMemoryBackend() {
+        String seed = config.getProperty("supabase.memory.seed", null);
+        if (seed != null && !seed.isBlank()) {
+            try {
+                api.load(Path.of(seed.trim()));
+            } catch (IOException e) {
+                throw new RuntimeException("Error loading in-memory seed data from " + seed, e);
+            }
+        }
+    }
+
+    public static synchronized InMemoryBackend getInstance() {
+        if (instance == null) {
+            instance = new InMemoryBackend();
+        }
+        return instance;
+    }
+
+    /**
+     * @return The tables, e.g. to load test data
+     */
+    public InMemoryPostgrest getApi() {
+        return api;
+    }
+
+    /**
+     * Answer requests (true), or fail every one as if the server could not be reached
+     * (false); the data is kept either way
+     */
+    public void setOnline(boolean online) {
+        this.online = online;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!online) {
+            throw new ConnectException("In-memory backend is offline");
+        }
+        String url = request.url().toString();
+        String restUrl = config.getRestUrl();
+        String authUrl = config.getAuthUrl();
+
+        if (url.startsWith(restUrl)) {
+            String path = request.url().encodedPath().substring(HttpUrl.get(restUrl).encodedPath().length());
+            String table = path.startsWith("/") ? path.substring(1) : path;
+            InMemoryPostgrest.Reply reply = api.handle(request.method(), table,
+                    InMemoryPostgrest.queryParams(request.url().encodedQuery()),
+                    request.header("Prefer"), body(request));
+            return respond(request, reply.status(), reply.body() == null ? null : api.toBytes(reply.body()),
+                    reply.contentRange());
+        }
+        if (url.startsWith(authUrl + "/token")) {
+            return signIn(request);
+        }
+        if (url.startsWith(authUrl + "/logout")) {
+            return respond(request, 204, null, null);
+        }
+        return respond(request, 404, error("Not available with the in-memory backend"), null);
+    }
+
+    /**
+     * Password sign-in by email, and refresh with the token handed out (the auth user id)
+     */
+    private Response signIn(Request request) throws IOException {
+        JsonNode body = objectMapper.readTree(body(request));
+        boolean refresh = "refresh_token".equals(request.url().queryParameter("grant_type"));
+        String column = refresh ? "auth_user_id" : "email";
+        String value = body.path(refresh ? "refresh_token" : "email").asText();
+
+        List<ObjectNode> users = api.table("users").select(Map.of(column, refresh ? "eq." + value : "ilike." + value));
+        if (users.isEmpty() || !users.get(0).hasNonNull("auth_user_id")) {
+            return respond(request, 400, error("Invalid login credentials"), null);
+        }
+        ObjectNode user = users.get(0);
+
+        ObjectNode session = objectMapper.createObjectNode()
+                .put("access_token", "memory-" + UUID.randomUUID())
+                .put("token_type", "bearer")
+                .put("expires_in", SESSION_SECONDS)
+                .put("expires_at", Instant.now().getEpochSecond() + SESSION_SECONDS)
+                .put("refresh_token", user.get("auth_user_id").asText());
+        session.putObject("user")
+                .put("id", user.get("auth_user_id").asText())
+                .put("email", user.path("email").asText())
+                .put("role", "authenticated");
+        return respond(request, 200, objectMapper.writeValueAsBytes(session), null);
+    }
+
+    private static byte[] body(Request request) throws IOException {
+        if (request.body() == null) {
+            return new byte[0];
+        }
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        return buffer.readByteArray();
+    }
+
+    private byte[] error(String message) throws IOException {
+        return objectMapper.writeValueAsBytes(objectMapper.createObjectNode().put("message", message));
+    }
+
+    private static Response respond(Request request, int status, byte[] body, String contentRange) {
+        Response.Builder response = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(status)
+                .message(status < 400 ? "OK" : "Error")
+                .body(ResponseBody.create(body == null ? new byte[0] : body, JSON));
+        if (contentRange != null) {
+            response.header("Content-Range", contentRange);
+        }
+        return response.build();
+    }
+}
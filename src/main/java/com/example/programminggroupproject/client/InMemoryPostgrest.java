@@ -0,0 +1,207 @@
+package com.example.programminggroupproject.client;
+
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Supabase REST API (PostgREST) answered from InMemoryTables, independent of how
+ * requests arrive: LocalRestServer serves it over HTTP and InMemoryBackend inside the
+ * client's own HTTP stack.
+ * <p>
+ * Reads honour select (plain column lists), the filters PostgrestFilter supports, order,
+ * limit, offset and {@code count=exact}; inserts honour ignore/merge duplicates and
+ * {@code return=minimal}. Authentication and row-level security are not applied.
+ */
+public class InMemoryPostgrest {
+
+    /**
+     * An answer to one request
+     * @param body JSON body, or null for none
+     * @param contentRange Content-Range header, or null for none
+     */
+    public record Reply(int status, JsonNode body, String contentRange) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, InMemoryTable> tables = new ConcurrentHashMap<>();
+    private final Set<String> updatedAtTables = new HashSet<>();
+
+    /**
+     * Tables listed in {@code supabase.memory.updatedAtTables} (default service_requests)
+     * have an updated_at column that is set on every write
+     */
+    public InMemoryPostgrest() {
+        String names = SupabaseConfig.getInstance().getProperty("supabase.memory.updatedAtTables", "service_requests");
+        for (String name : names.split(",")) {
+            if (!name.isBlank()) {
+                updatedAtTables.add(name.trim());
+            }
+        }
+    }
+
+    /**
+     * @return The table, created empty on first use
+     */
+    public InMemoryTable table(String name) {
+        return tables.computeIfAbsent(name, key -> new InMemoryTable(updatedAtTables.contains(key)));
+    }
+
+    /**
+     * Load rows from a JSON file of the form {"table": [rows...], ...}
+     */
+    public void load(Path file) throws IOException {
+        JsonNode tablesNode = objectMapper.readTree(Files.readAllBytes(file));
+        Iterator<Map.Entry<String, JsonNode>> entries = tablesNode.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            List<ObjectNode> rows = new ArrayList<>();
+            entry.getValue().forEach(row -> rows.add((ObjectNode) row));
+            table(entry.getKey()).insert(rows, InMemoryTable.Conflict.MERGE);
+        }
+    }
+
+    // ==================== PROTOCOL ====================
+
+    /**
+     * Answer a request to /rest/v1/&lt;table&gt;
+     * @param table The table, or null or empty for the API root
+     * @param params Decoded query parameters
+     * @param prefer The Prefer header, or null
+     * @param body The request body, or null
+     */
+    public Reply handle(String method, String table, Map<String, String> params, String prefer, byte[] body) {
+        if (table == null || table.isEmpty()) {
+            // The API root answers so that reachability probes succeed
+            return new Reply(200, null, null);
+        }
+        String preferences = String.valueOf(prefer);
+        try {
+            return switch (method) {
+                case "GET", "HEAD" -> select(method, table(table), params, preferences);
+                case "POST" -> insert(table(table), objectMapper.readTree(body), preferences);
+                case "PATCH" -> update(table(table), params, (ObjectNode) objectMapper.readTree(body), preferences);
+                case "DELETE" -> delete(table(table), params, preferences);
+                default -> new Reply(405, null, null);
+            };
+        } catch (InMemoryTable.DuplicateKeyException e) {
+            return new Reply(409, error(e.getMessage()).put("code", "23505"), null);
+        } catch (IllegalArgumentException | ClassCastException | IOException e) {
+            return new Reply(400, error(e.getMessage()), null);
+        }
+    }
+
+    private Reply select(String method, InMemoryTable table, Map<String, String> params, String prefer) {
+        List<ObjectNode> rows = table.select(params);
+        String total = "*";
+        if (prefer.contains("count=exact")) {
+            total = String.valueOf(table.count(params));
+        }
+
+        ArrayNode result = objectMapper.createArrayNode();
+        String select = params.getOrDefault("select", "*");
+        for (ObjectNode row : rows) {
+            result.add(project(row, select));
+        }
+        int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+        String range = rows.isEmpty() ? "*" : offset + "-" + (offset + rows.size() - 1);
+        return new Reply(200, method.equals("HEAD") ? null : result, range + "/" + total);
+    }
+
+    private Reply insert(InMemoryTable table, JsonNode body, String prefer) {
+        List<ObjectNode> input = new ArrayList<>();
+        if (body.isArray()) {
+            body.forEach(row -> input.add((ObjectNode) row));
+        } else {
+            input.add((ObjectNode) body);
+        }
+        InMemoryTable.Conflict conflict = prefer.contains("resolution=ignore-duplicates") ? InMemoryTable.Conflict.IGNORE
+                : prefer.contains("resolution=merge-duplicates") ? InMemoryTable.Conflict.MERGE
+                : InMemoryTable.Conflict.ERROR;
+        List<ObjectNode> inserted = table.insert(input, conflict);
+        return new Reply(201, representation(inserted, prefer), "*/" + inserted.size());
+    }
+
+    private Reply update(InMemoryTable table, Map<String, String> params, ObjectNode fields, String prefer) {
+        List<ObjectNode> updated = table.update(params, fields);
+        return new Reply(200, representation(updated, prefer), "*/" + updated.size());
+    }
+
+    private Reply delete(InMemoryTable table, Map<String, String> params, String prefer) {
+        List<ObjectNode> deleted = table.delete(params);
+        return new Reply(200, representation(deleted, prefer), "*/" + deleted.size());
+    }
+
+    private JsonNode representation(List<ObjectNode> rows, String prefer) {
+        if (prefer.contains("return=minimal")) {
+            return null;
+        }
+        ArrayNode result = objectMapper.createArrayNode();
+        rows.forEach(result::add);
+        return result;
+    }
+
+    private JsonNode project(ObjectNode row, String select) {
+        if (select.equals("*")) {
+            return row;
+        }
+        ObjectNode projected = objectMapper.createObjectNode();
+        for (String column : select.split(",")) {
+            String name = column.trim();
+            if (name.contains("(") || name.contains(":")) {
+                throw new IllegalArgumentException("Unsupported select: " + select);
+            }
+            projected.set(name, row.get(name));
+        }
+        return projected;
+    }
+
+    private ObjectNode error(String message) {
+        return objectMapper.createObjectNode().put("message", message);
+    }
+
+    /**
+     * Write a reply body as JSON bytes
+     */
+    public byte[] toBytes(JsonNode body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new RuntimeException("Error serializing reply", e);
+        }
+    }
+
+    /**
+     * Decode a raw query string into parameters
+     */
+    public static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new LinkedHashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                if (pair.isEmpty()) {
+                    continue;
+                }
+                String[] parts = pair.split("=", 2);
+                params.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                        parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+            }
+        }
+        return params;
+    }
+}
@@ -0,0 +1,435 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One table of rows held in memory, queried with PostgREST parameters.
+ * <p>
+ * The first time a column is filtered on it gets a secondary index: a hash index that
+ * answers eq and in, and a sorted one that answers gt, gte, lt and lte. A query starts
+ * from the smallest set of rows its indexed filters allow and checks the remaining
+ * conditions, ordering and paging with PostgrestFilter, so the answer is the same as a
+ * full scan. Filters an index cannot answer (neq, is, like, not., or) fall back to one.
+ * <p>
+ * Reads share a lock and writes take it exclusively. Stored rows are never modified in
+ * place; updates replace them, so rows returned by {@link #select} can be read (not
+ * changed) after the call without copying.
+ */
+public class InMemoryTable {
+
+    /** How inserts treat a row whose id already exists */
+    public enum Conflict { ERROR, IGNORE, MERGE }
+
+    /**
+     * Thrown by insert when a row's id already exists and duplicates are an error
+     */
+    public static class DuplicateKeyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DuplicateKeyException(String id) {
+            super("duplicate key value violates unique constraint: id=" + id);
+        }
+    }
+
+    /** Key types in sort order; a sorted index is only used when its keys share one */
+    private static final Comparator<Object> KEY_ORDER = (left, right) -> {
+        int byType = Integer.compare(rank(left), rank(right));
+        if (byType != 0) {
+            return byType;
+        }
+        if (left instanceof BigDecimal number) {
+            return number.compareTo((BigDecimal) right);
+        }
+        if (left instanceof Instant instant) {
+            return instant.compareTo((Instant) right);
+        }
+        return ((String) left).compareTo((String) right);
+    };
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final boolean hasUpdatedAt;
+
+    // Guarded by lock
+    private final Map<String, ObjectNode> rows = new LinkedHashMap<>();
+    private final Map<String, ColumnIndex> indexes = new HashMap<>();
+    private final Map<String, Long> positions = new HashMap<>();
+    private long nextPosition;
+
+    /**
+     * @param hasUpdatedAt Whether the table has an updated_at column kept current by a trigger
+     */
+    public InMemoryTable(boolean hasUpdatedAt) {
+        this.hasUpdatedAt = hasUpdatedAt;
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Filter, order and page the rows the way PostgREST would for these parameters
+     */
+    public List<ObjectNode> select(Map<String, String> params) {
+        ensureIndexes(params);
+        lock.readLock().lock();
+        try {
+            return PostgrestFilter.apply(params, candidates(params));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of rows matching the filters, ignoring order, limit and offset
+     */
+    public int count(Map<String, String> params) {
+        ensureIndexes(params);
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (ObjectNode row : candidates(params)) {
+                if (PostgrestFilter.matches(params, row)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Copies of all rows
+     */
+    public List<ObjectNode> rows() {
+        lock.readLock().lock();
+        try {
+            return rows.values().stream().map(ObjectNode::deepCopy).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rows.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Insert or replace one row, filling id, created_at and (if the table has it)
+     * updated_at like the database defaults and trigger
+     * @return The stored row
+     */
+    public ObjectNode put(ObjectNode row) {
+        lock.writeLock().lock();
+        try {
+            return store(row.deepCopy());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Insert rows as one statement: with Conflict.ERROR nothing is inserted if any id exists
+     * @return The rows inserted or merged; rows skipped with Conflict.IGNORE are left out
+     * @throws DuplicateKeyException If an id exists and conflict is ERROR
+     */
+    public List<ObjectNode> insert(List<ObjectNode> input, Conflict conflict) {
+        lock.writeLock().lock();
+        try {
+            if (conflict == Conflict.ERROR) {
+                for (ObjectNode row : input) {
+                    if (row.hasNonNull("id") && rows.containsKey(row.get("id").asText())) {
+                        throw new DuplicateKeyException(row.get("id").asText());
+                    }
+                }
+            }
+            List<ObjectNode> inserted = new ArrayList<>();
+            for (ObjectNode row : input) {
+                ObjectNode existing = row.hasNonNull("id") ? rows.get(row.get("id").asText()) : null;
+                if (existing == null) {
+                    inserted.add(store(row.deepCopy()));
+                } else if (conflict == Conflict.MERGE) {
+                    ObjectNode merged = existing.deepCopy();
+                    merged.setAll(row);
+                    inserted.add(store(merged));
+                }
+            }
+            return inserted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Set fields on every row matching the filters; id and created_at are kept
+     * @return The updated rows
+     */
+    public List<ObjectNode> update(Map<String, String> params, ObjectNode fields) {
+        ensureIndexes(params);
+        lock.writeLock().lock();
+        try {
+            List<ObjectNode> updated = new ArrayList<>();
+            for (ObjectNode row : PostgrestFilter.apply(params, candidates(params))) {
+                ObjectNode changed = row.deepCopy();
+                changed.setAll(fields);
+                changed.set("id", row.get("id"));
+                changed.set("created_at", row.get("created_at"));
+                updated.add(store(changed));
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every row matching the filters
+     * @return The removed rows
+     */
+    public List<ObjectNode> delete(Map<String, String> params) {
+        ensureIndexes(params);
+        lock.writeLock().lock();
+        try {
+            List<ObjectNode> deleted = PostgrestFilter.apply(params, candidates(params));
+            for (ObjectNode row : deleted) {
+                String id = row.get("id").asText();
+                unindex(id, rows.remove(id));
+                positions.remove(id);
+            }
+            return deleted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes ownership of the row
+     */
+    private ObjectNode store(ObjectNode stored) {
+        String now = OffsetDateTime.now(ZoneOffset.UTC).toString();
+        if (!stored.hasNonNull("id")) {
+            stored.put("id", UUID.randomUUID().toString());
+        }
+        if (!stored.hasNonNull("created_at")) {
+            stored.put("created_at", now);
+        }
+        if (hasUpdatedAt) {
+            stored.put("updated_at", now);
+        }
+
+        String id = stored.get("id").asText();
+        ObjectNode previous = rows.put(id, stored);
+        if (previous == null) {
+            positions.put(id, nextPosition++);
+        }
+        unindex(id, previous);
+        indexes.forEach((column, index) -> index.add(id, stored.get(column)));
+        return stored;
+    }
+
+    private void unindex(String id, ObjectNode row) {
+        if (row != null) {
+            indexes.forEach((column, index) -> index.remove(id, row.get(column)));
+        }
+    }
+
+    // ==================== INDEXES ====================
+
+    /**
+     * Hash and sorted index of one column. Null values are not indexed, since no
+     * comparison matches them.
+     */
+    private static final class ColumnIndex {
+
+        private final Map<Object, Set<String>> byValue = new HashMap<>();
+        private final NavigableMap<Object, Set<String>> sorted = new TreeMap<>(KEY_ORDER);
+        private final Set<Integer> keyTypes = new HashSet<>();
+
+        void add(String id, JsonNode value) {
+            if (value == null || value.isNull()) {
+                return;
+            }
+            Object key = key(value.asText());
+            keyTypes.add(rank(key));
+            Set<String> ids = byValue.computeIfAbsent(key, k -> new HashSet<>());
+            ids.add(id);
+            sorted.put(key, ids);
+        }
+
+        void remove(String id, JsonNode value) {
+            if (value == null || value.isNull()) {
+                return;
+            }
+            Object key = key(value.asText());
+            Set<String> ids = byValue.get(key);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                byValue.remove(key);
+                sorted.remove(key);
+            }
+        }
+
+        /**
+         * @return Ids of the rows that can satisfy the condition, or null if this index
+         * cannot narrow it down
+         */
+        Set<String> lookup(String condition) {
+            int dot = condition.indexOf('.');
+            if (dot < 0 || condition.startsWith("not.")) {
+                return null;
+            }
+            String operator = condition.substring(0, dot);
+            String operand = condition.substring(dot + 1);
+            switch (operator) {
+                case "eq" -> {
+                    return byValue.getOrDefault(key(operand), Set.of());
+                }
+                case "in" -> {
+                    Set<String> ids = new HashSet<>();
+                    for (String item : PostgrestFilter.parseList(operand)) {
+                        ids.addAll(byValue.getOrDefault(key(item), Set.of()));
+                    }
+                    return ids;
+                }
+                case "gt", "gte", "lt", "lte" -> {
+                    Object key = key(operand);
+                    // Values of different types compare as text, which the key order does not follow
+                    if (!keyTypes.equals(Set.of(rank(key))) && !keyTypes.isEmpty()) {
+                        return null;
+                    }
+                    NavigableMap<Object, Set<String>> range = switch (operator) {
+                        case "gt" -> sorted.tailMap(key, false);
+                        case "gte" -> sorted.tailMap(key, true);
+                        case "lt" -> sorted.headMap(key, false);
+                        default -> sorted.headMap(key, true);
+                    };
+                    Set<String> ids = new HashSet<>();
+                    range.values().forEach(ids::addAll);
+                    return ids;
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Index the columns these parameters filter on that have no index yet
+     */
+    private void ensureIndexes(Map<String, String> params) {
+        List<String> missing = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (String column : params.keySet()) {
+                if (isIndexable(column) && !indexes.containsKey(column)) {
+                    missing.add(column);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (String column : missing) {
+                if (!indexes.containsKey(column)) {
+                    ColumnIndex index = new ColumnIndex();
+                    rows.forEach((id, row) -> index.add(id, row.get(column)));
+                    indexes.put(column, index);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean isIndexable(String column) {
+        return !column.contains(".") && !Set.of("select", "order", "limit", "offset", "on_conflict",
+                "columns", "or", "and").contains(column);
+    }
+
+    /**
+     * The rows allowed by the most selective indexed filter, in insertion order; all rows
+     * when no filter can use an index. Called with the lock held.
+     */
+    private List<ObjectNode> candidates(Map<String, String> params) {
+        Set<String> best = null;
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            ColumnIndex index = indexes.get(param.getKey());
+            Set<String> ids = index == null ? null : index.lookup(param.getValue());
+            if (ids != null && (best == null || ids.size() < best.size())) {
+                best = ids;
+            }
+        }
+        if (best == null) {
+            return new ArrayList<>(rows.values());
+        }
+        if (best.size() * 4L < rows.size()) {
+            // Few rows: look them up and restore the insertion order a scan would give
+            List<String> ids = new ArrayList<>(best);
+            ids.sort(Comparator.comparingLong(positions::get));
+            List<ObjectNode> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                result.add(rows.get(id));
+            }
+            return result;
+        }
+        List<ObjectNode> result = new ArrayList<>(best.size());
+        for (Map.Entry<String, ObjectNode> entry : rows.entrySet()) {
+            if (best.contains(entry.getKey())) {
+                result.add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Normalized index key: numbers and instants compare by value, as PostgrestFilter does
+     */
+    private static Object key(String text) {
+        try {
+            return new BigDecimal(text).stripTrailingZeros();
+        } catch (NumberFormatException ignored) {
+            // Not a number
+        }
+        if (text.length() > 10 && text.charAt(10) == 'T') {
+            try {
+                return OffsetDateTime.parse(text).toInstant();
+            } catch (DateTimeParseException ignored) {
+                // Not a timestamp
+            }
+        }
+        return text;
+    }
+
+    private static int rank(Object key) {
+        return key instanceof BigDecimal ? 0 : key instanceof Instant ? 1 : 2;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.programminggroupproject.client;
+
+import com.example.programminggroupproject.config.SupabaseConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size pool of direct PostgreSQL connections, for server deployments that run next
+ * to the database instead of going through the REST API (see JdbcService).
+ * <p>
+ * Configured with {@code supabase.jdbc.url} (e.g. {@code jdbc:postgresql://db:5432/postgres}),
+ * {@code supabase.jdbc.user}, {@code supabase.jdbc.password} and {@code supabase.jdbc.poolSize}
+ * (default 10). Connections are opened on demand up to the pool size and reused afterwards;
+ * a caller that finds them all in use waits up to {@code supabase.jdbc.waitSeconds} (default 10).
+ * A connection idle for more than 30 seconds is checked before it is handed out again.
+ */
+public class JdbcConnectionPool {
+
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+
+    private static JdbcConnectionPool instance;
+
+    private final String url;
+    private final Properties credentials = new Properties();
+    private final Semaphore permits;
+    private final long waitMillis;
+
+    // Guarded by this
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private boolean closed;
+
+    private record Idle(Connection connection, long since) {
+    }
+
+    /**
+     * A borrowed connection; closing the lease returns it to the pool
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Connection connection;
+        private boolean broken;
+        private boolean returned;
+
+        private Lease(Connection connection) {
+            this.connection = connection;
+        }
+
+        public Connection connection() {
+            return connection;
+        }
+
+        /**
+         * Close the connection instead of reusing it, e.g. after it failed mid-transaction
+         */
+        public void discard() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (!returned) {
+                returned = true;
+                giveBack(connection, broken);
+            }
+        }
+    }
+
+    private JdbcConnectionPool() {
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        this.url = config.getProperty("supabase.jdbc.url", "").trim();
+        credentials.setProperty("user", config.getProperty("supabase.jdbc.user", "postgres"));
+        credentials.setProperty("password", config.getProperty("supabase.jdbc.password", ""));
+        this.permits = new Semaphore(Integer.parseInt(config.getProperty("supabase.jdbc.poolSize", "10").trim()), true);
+        this.waitMillis = Long.parseLong(config.getProperty("supabase.jdbc.waitSeconds", "10").trim()) * 1000;
+    }
+
+    /**
+     * A pool for another database than the configured one, e.g. a test database
+     */
+    public JdbcConnectionPool(String url, String user, String password, int poolSize) {
+        this.url = url;
+        credentials.setProperty("user", user);
+        credentials.setProperty("password", password);
+        this.permits = new Semaphore(poolSize, true);
+        this.waitMillis = 10_000;
+    }
+
+    public static synchronized JdbcConnectionPool getInstance() {
+        if (instance == null) {
+            instance = new JdbcConnectionPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Borrow a connection, in auto-commit mode; use in try-with-resources
+     * @throws SQLTimeoutException If none became free in time
+     */
+    public Lease borrow() throws SQLException {
+        if (url.isEmpty()) {
+            throw new IllegalStateException("supabase.jdbc.url is not configured");
+        }
+        try {
+            if (!permits.tryAcquire(waitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a database connection", e);
+        }
+        try {
+            return new Lease(takeIdleOrOpen());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection takeIdleOrOpen() throws SQLException {
+        while (true) {
+            Idle next;
+            synchronized (this) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                next = idle.pollFirst();
+            }
+            if (next == null) {
+                return DriverManager.getConnection(url, credentials);
+            }
+            boolean stale = System.currentTimeMillis() - next.since() > VALIDATE_AFTER_IDLE_MILLIS;
+            if (!stale || next.connection().isValid(2)) {
+                return next.connection();
+            }
+            closeQuietly(next.connection());
+        }
+    }
+
+    private void giveBack(Connection connection, boolean broken) {
+        try {
+            if (!broken && !connection.isClosed()) {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                synchronized (this) {
+                    if (!closed) {
+                        // Most recently used first, so surplus connections go stale and get dropped
+                        idle.addFirst(new Idle(connection, System.currentTimeMillis()));
+                        return;
+                    }
+                }
+            }
+            closeQuietly(connection);
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Close idle connections and refuse new borrows; leased ones close when returned
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            idle.forEach(entry -> closeQuietly(entry.connection()));
+            idle.clear();
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body that serializes a value to JSON while OkHttp sends it, straight into
+ * the connection, instead of building the whole document as a String first. The length
+ * is not known up front, so the body goes out chunked.
+ * <p>
+ * The body can be written more than once (OkHttp may retry a request); the size of the
+ * last write is available from {@link #getBytesWritten()}.
+ */
+public class JsonRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private final ObjectWriter writer;
+    private final Object value;
+    private volatile long bytesWritten;
+
+    public JsonRequestBody(ObjectMapper objectMapper, Object value) {
+        this(writerFor(objectMapper), value);
+    }
+
+    /**
+     * @param writer A writer from {@link #writerFor}, shared between bodies
+     */
+    public JsonRequestBody(ObjectWriter writer, Object value) {
+        this.writer = writer;
+        this.value = value;
+    }
+
+    /**
+     * @return A writer with the mapper's settings that leaves the sink open; the sink belongs
+     * to OkHttp, which closes it itself
+     */
+    public static ObjectWriter writerFor(ObjectMapper objectMapper) {
+        return objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        CountingOutputStream out = new CountingOutputStream(sink.outputStream());
+        writer.writeValue(out, value);
+        out.flush();
+        bytesWritten = out.count;
+    }
+
+    /**
+     * @return Bytes sent the last time the body was written, or 0 before that
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() {
+            // Left to OkHttp
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-process stand-in for the Supabase Realtime server, for tests and offline development.
+ * Install it with {@code RealtimeClient.getInstance().setTransport(...)}.
+ * <p>
+ * It answers joins, leaves and heartbeats like the server, remembers each channel's
+ * postgres_changes filters, and {@link #publish} delivers a change to every joined channel
+ * whose table, event and filter (eq and in only) match. {@link #drop} simulates a lost
+ * connection. Messages are delivered on a single background thread, in order.
+ */
+public class LocalRealtimeTransport implements RealtimeTransport {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService server = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "local-realtime");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final List<LocalConnection> connections = new ArrayList<>();
+    private final List<String> sent = new ArrayList<>();
+
+    private record Change(String event, String table, String filter) {
+    }
+
+    private class LocalConnection implements Connection {
+        private final Listener listener;
+        private final Map<String, List<Change>> channels = new LinkedHashMap<>();
+        private boolean open = true;
+
+        LocalConnection(Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean send(String text) {
+            synchronized (LocalRealtimeTransport.this) {
+                if (!open) {
+                    return false;
+                }
+                sent.add(text);
+            }
+            server.execute(() -> handle(this, text));
+            return true;
+        }
+
+        @Override
+        public void close() {
+            synchronized (LocalRealtimeTransport.this) {
+                open = false;
+                connections.remove(this);
+            }
+        }
+    }
+
+    @Override
+    public Connection open(String url, Listener listener) {
+        LocalConnection connection = new LocalConnection(listener);
+        synchronized (this) {
+            connections.add(connection);
+        }
+        server.execute(listener::onOpen);
+        return connection;
+    }
+
+    // ==================== SIMULATION ====================
+
+    /**
+     * Deliver an insert or update to every channel subscribed to it
+     * @param type "INSERT" or "UPDATE"
+     * @param record The row after the change
+     */
+    public void publish(String table, String type, JsonNode record) {
+        List<Runnable> deliveries = new ArrayList<>();
+        synchronized (this) {
+            for (LocalConnection connection : connections) {
+                connection.channels.forEach((topic, changes) -> {
+                    boolean matches = changes.stream().anyMatch(change -> change.table().equals(table)
+                            && (change.event().equals("*") || change.event().equals(type))
+                            && matchesFilter(change.filter(), record));
+                    if (matches) {
+                        ObjectNode payload = objectMapper.createObjectNode();
+                        ObjectNode data = payload.putObject("data")
+                                .put("schema", "public")
+                                .put("table", table)
+                                .put("type", type);
+                        data.set("record", record);
+                        data.putObject("old_record");
+                        String message = message(topic, "postgres_changes", payload, null);
+                        deliveries.add(() -> connection.listener.onMessage(message));
+                    }
+                });
+            }
+        }
+        deliveries.forEach(server::execute);
+    }
+
+    /**
+     * Simulate a dropped connection: every open connection fails
+     */
+    public void drop() {
+        List<LocalConnection> dropped;
+        synchronized (this) {
+            dropped = new ArrayList<>(connections);
+            dropped.forEach(connection -> connection.open = false);
+            connections.clear();
+        }
+        for (LocalConnection connection : dropped) {
+            server.execute(() -> connection.listener.onClosed(new IOException("connection dropped")));
+        }
+    }
+
+    /**
+     * @return Every frame sent by clients so far
+     */
+    public synchronized List<String> getSentMessages() {
+        return new ArrayList<>(sent);
+    }
+
+    /**
+     * @return Number of channels currently joined across all connections
+     */
+    public synchronized int getJoinedChannelCount() {
+        return connections.stream().mapToInt(connection -> connection.channels.size()).sum();
+    }
+
+    // ==================== PROTOCOL ====================
+
+    private void handle(LocalConnection connection, String text) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(text);
+        } catch (IOException e) {
+            return;
+        }
+        String topic = message.path("topic").asText();
+        String event = message.path("event").asText();
+        String ref = message.path("ref").asText(null);
+
+        synchronized (this) {
+            if (!connection.open) {
+                return;
+            }
+            if (event.equals("phx_join")) {
+                List<Change> changes = new ArrayList<>();
+                for (JsonNode change : message.path("payload").path("config").path("postgres_changes")) {
+                    changes.add(new Change(change.path("event").asText("*"), change.path("table").asText(),
+                            change.hasNonNull("filter") ? change.get("filter").asText() : null));
+                }
+                connection.channels.put(topic, changes);
+            } else if (event.equals("phx_leave")) {
+                connection.channels.remove(topic);
+            }
+        }
+
+        ObjectNode reply = objectMapper.createObjectNode().put("status", "ok");
+        reply.putObject("response");
+        connection.listener.onMessage(message(topic, "phx_reply", reply, ref));
+    }
+
+    private String message(String topic, String event, JsonNode payload, String ref) {
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("topic", topic)
+                .put("event", event)
+                .put("ref", ref);
+        message.set("payload", payload);
+        return message.toString();
+    }
+
+    /**
+     * Realtime filter syntax: column=eq.value or column=in.(a,b,c)
+     */
+    private static boolean matchesFilter(String filter, JsonNode record) {
+        if (filter == null) {
+            return true;
+        }
+        int equals = filter.indexOf('=');
+        int dot = filter.indexOf('.', equals);
+        if (equals < 0 || dot < 0) {
+            return false;
+        }
+        String value = record.path(filter.substring(0, equals)).asText(null);
+        String operator = filter.substring(equals + 1, dot);
+        String operand = filter.substring(dot + 1);
+        return switch (operator) {
+            case "eq" -> operand.equals(value);
+            case "in" -> Arrays.asList(operand.replaceAll("^\\(|\\)$", "").split(",")).contains(value);
+            default -> false;
+        };
+    }
+}
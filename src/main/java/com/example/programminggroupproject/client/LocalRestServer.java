@@ -0,0 +1,107 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-process stand-in for the Supabase REST API, for tests and offline development.
+ * Point supabase.url at {@code http://localhost:<port>}.
+ * <p>
+ * It keeps tables in memory and answers reads, inserts (including ignore/merge
+ * duplicates), updates and deletes the way PostgREST does (see InMemoryPostgrest), with
+ * id, created_at and updated_at filled in like the database defaults and triggers.
+ * {@link #setOnline} stops and restarts the listener, so clients see a dropped
+ * connection. Authentication is not checked.
+ */
+public class LocalRestServer {
+
+    private static final String REST_PATH = "/rest/v1/";
+
+    private final InMemoryPostgrest api = new InMemoryPostgrest();
+    private final int port;
+
+    // Guarded by this
+    private HttpServer server;
+
+    public LocalRestServer(int port) {
+        this.port = port;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Start or stop accepting connections; the data is kept either way
+     */
+    public synchronized void setOnline(boolean online) throws IOException {
+        if (online && server == null) {
+            server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+            server.createContext("/", this::handle);
+            server.start();
+        } else if (!online && server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    public synchronized boolean isOnline() {
+        return server != null;
+    }
+
+    // ==================== DATA ====================
+
+    /**
+     * Insert or replace a row directly, as if changed by another client
+     */
+    public ObjectNode put(String table, ObjectNode row) {
+        return api.table(table).put(row).deepCopy();
+    }
+
+    /**
+     * @return Copies of the rows of a table
+     */
+    public List<ObjectNode> rows(String table) {
+        return api.table(table).rows();
+    }
+
+    // ==================== PROTOCOL ====================
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            if (!path.startsWith(REST_PATH)) {
+                send(exchange, new InMemoryPostgrest.Reply(404, null, null));
+                return;
+            }
+            String table = path.substring(REST_PATH.length());
+            Map<String, String> params = InMemoryPostgrest.queryParams(exchange.getRequestURI().getRawQuery());
+            String prefer = exchange.getRequestHeaders().getFirst("Prefer");
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            send(exchange, api.handle(exchange.getRequestMethod(), table, params, prefer, body));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void send(HttpExchange exchange, InMemoryPostgrest.Reply reply) throws IOException {
+        if (reply.contentRange() != null) {
+            exchange.getResponseHeaders().set("Content-Range", reply.contentRange());
+        }
+        if (reply.body() == null) {
+            exchange.sendResponseHeaders(reply.status(), -1);
+            return;
+        }
+        byte[] bytes = api.toBytes(reply.body());
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(reply.status(), bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.programminggroupproject.client;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RealtimeTransport over an OkHttp WebSocket
+ */
+public class OkHttpRealtimeTransport implements RealtimeTransport {
+
+    private final OkHttpClient httpClient = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(0, TimeUnit.MILLISECONDS)
+            .build();
+
+    @Override
+    public Connection open(String url, Listener listener) {
+        WebSocket webSocket = httpClient.newWebSocket(new Request.Builder().url(url).build(), new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                listener.onOpen();
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, String text) {
+                listener.onMessage(text);
+            }
+
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                webSocket.close(1000, null);
+            }
+
+            @Override
+            public void onClosed(WebSocket webSocket, int code, String reason) {
+                listener.onClosed(null);
+            }
+
+            @Override
+            public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+                listener.onClosed(t);
+            }
+        });
+
+        return new Connection() {
+            @Override
+            public boolean send(String text) {
+                return webSocket.send(text);
+            }
+
+            @Override
+            public void close() {
+                webSocket.close(1000, "client closed");
+            }
+        };
+    }
+}
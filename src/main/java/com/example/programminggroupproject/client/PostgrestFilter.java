@@ -0,0 +1,292 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates PostgREST query parameters against rows held locally, for answering reads
+ * without the server (offline mode, local stand-in servers).
+ * <p>
+ * Supported: column filters with eq, neq, gt, gte, lt, lte, in, is, like and ilike, each
+ * optionally negated with not., or=(...) and and=(...) groups of those (which may nest, as
+ * in keyset paging: or=(a.gt.x,and(a.eq.x,id.gt.y))), plus order (asc/desc, nullsfirst/
+ * nullslast), limit and offset. Embedded resources are not, and are rejected with
+ * IllegalArgumentException so callers never answer a query they do not understand.
+ */
+public final class PostgrestFilter {
+
+    /** Parameters that are not column filters */
+    private static final Set<String> RESERVED = Set.of("select", "order", "limit", "offset", "on_conflict", "columns");
+
+    private PostgrestFilter() {
+    }
+
+    /**
+     * Filter, order and page rows the way PostgREST would for these parameters
+     */
+    public static <R extends JsonNode> List<R> apply(Map<String, String> params, Collection<R> rows) {
+        List<R> result = new ArrayList<>();
+        for (R row : rows) {
+            if (matches(params, row)) {
+                result.add(row);
+            }
+        }
+
+        String order = params.get("order");
+        if (order != null && !order.isBlank()) {
+            result.sort(comparator(order));
+        }
+
+        int offset = params.containsKey("offset") ? Integer.parseInt(params.get("offset")) : 0;
+        int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : Integer.MAX_VALUE;
+        int from = Math.min(offset, result.size());
+        int to = (int) Math.min(result.size(), (long) from + limit);
+        return new ArrayList<>(result.subList(from, to));
+    }
+
+    /**
+     * @return Whether the row passes every column filter in the parameters
+     */
+    public static boolean matches(Map<String, String> params, JsonNode row) {
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            String column = param.getKey();
+            if (RESERVED.contains(column)) {
+                continue;
+            }
+            if (column.equals("or") || column.equals("and")) {
+                if (!matchesGroup(column.equals("or"), param.getValue(), row)) {
+                    return false;
+                }
+                continue;
+            }
+            if (column.contains(".")) {
+                throw new IllegalArgumentException("Unsupported filter: " + column + "=" + param.getValue());
+            }
+            if (!matchesCondition(param.getValue(), row.get(column))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * or=(col1.op.value,col2.op.value) and and=(...); a term may itself be an or(...)/and(...) group
+     */
+    private static boolean matchesGroup(boolean any, String group, JsonNode row) {
+        if (!group.startsWith("(") || !group.endsWith(")")) {
+            throw new IllegalArgumentException("Unsupported filter group: " + group);
+        }
+        for (String term : splitTopLevel(group.substring(1, group.length() - 1))) {
+            boolean matched;
+            if (term.startsWith("or(") || term.startsWith("and(")) {
+                matched = matchesGroup(term.startsWith("or("), term.substring(term.indexOf('(')), row);
+            } else {
+                int dot = term.indexOf('.');
+                if (dot < 0) {
+                    throw new IllegalArgumentException("Unsupported filter group: " + group);
+                }
+                matched = matchesCondition(term.substring(dot + 1), row.get(term.substring(0, dot)));
+            }
+            if (matched == any) {
+                return any;
+            }
+        }
+        return !any;
+    }
+
+    /**
+     * Split on commas outside parentheses and double quotes
+     */
+    private static List<String> splitTopLevel(String body) {
+        List<String> terms = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && c == '(') {
+                depth++;
+            } else if (!quoted && c == ')') {
+                depth--;
+            } else if (!quoted && depth == 0 && c == ',') {
+                terms.add(body.substring(start, i));
+                start = i + 1;
+            }
+        }
+        terms.add(body.substring(start));
+        return terms;
+    }
+
+    private static boolean matchesCondition(String condition, JsonNode value) {
+        boolean negate = condition.startsWith("not.");
+        if (negate) {
+            condition = condition.substring(4);
+        }
+        int dot = condition.indexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("Unsupported filter value: " + condition);
+        }
+        String operator = condition.substring(0, dot);
+        String operand = unquote(condition.substring(dot + 1));
+        boolean isNull = value == null || value.isNull();
+
+        boolean result;
+        if (operator.equals("is")) {
+            result = switch (operand) {
+                case "null" -> isNull;
+                case "true" -> !isNull && value.asBoolean();
+                case "false" -> !isNull && !value.asBoolean();
+                default -> throw new IllegalArgumentException("Unsupported is operand: " + operand);
+            };
+        } else if (isNull) {
+            // SQL comparisons with NULL are never true, negated or not
+            return false;
+        } else {
+            String text = value.asText();
+            result = switch (operator) {
+                case "eq" -> compare(text, operand) == 0;
+                case "neq" -> compare(text, operand) != 0;
+                case "gt" -> compare(text, operand) > 0;
+                case "gte" -> compare(text, operand) >= 0;
+                case "lt" -> compare(text, operand) < 0;
+                case "lte" -> compare(text, operand) <= 0;
+                case "in" -> parseList(operand).stream().anyMatch(item -> compare(text, item) == 0);
+                case "like" -> likePattern(operand, 0).matcher(text).matches();
+                case "ilike" -> likePattern(operand, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE).matcher(text).matches();
+                default -> throw new IllegalArgumentException("Unsupported filter operator: " + operator);
+            };
+        }
+        return negate != result;
+    }
+
+    /**
+     * A value in double quotes, as PostgREST needs for values with reserved characters
+     * (e.g. timestamps inside or=(...)), without them
+     */
+    private static String unquote(String operand) {
+        if (operand.length() < 2 || operand.charAt(0) != '"' || operand.charAt(operand.length() - 1) != '"') {
+            return operand;
+        }
+        return operand.substring(1, operand.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+    }
+
+    /**
+     * Compare as numbers or instants when both sides parse as such, otherwise as text.
+     * The server and Jackson format the same timestamp differently (+00:00 vs Z).
+     */
+    private static int compare(String left, String right) {
+        try {
+            return new BigDecimal(left).compareTo(new BigDecimal(right));
+        } catch (NumberFormatException ignored) {
+            // Not numbers
+        }
+        if (left.length() > 10 && right.length() > 10 && left.charAt(10) == 'T' && right.charAt(10) == 'T') {
+            try {
+                return OffsetDateTime.parse(left).toInstant().compareTo(OffsetDateTime.parse(right).toInstant());
+            } catch (DateTimeParseException ignored) {
+                // Not timestamps
+            }
+        }
+        return left.compareTo(right);
+    }
+
+    /**
+     * Items of an in.(a,"b,c",d) list, the format SupabaseClient.inList produces
+     */
+    static List<String> parseList(String operand) {
+        String body = operand.startsWith("(") && operand.endsWith(")")
+                ? operand.substring(1, operand.length() - 1)
+                : operand;
+        List<String> items = new ArrayList<>();
+        StringBuilder item = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (quoted && c == '\\' && i + 1 < body.length()) {
+                item.append(body.charAt(++i));
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                items.add(item.toString());
+                item.setLength(0);
+            } else {
+                item.append(c);
+            }
+        }
+        items.add(item.toString());
+        return items;
+    }
+
+    /**
+     * PostgREST accepts * as well as % as the wildcard in like patterns
+     */
+    private static Pattern likePattern(String pattern, int flags) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '%' || c == '_') {
+                regex.append(Pattern.quote(literal.toString())).append(c == '_' ? "." : ".*");
+                literal.setLength(0);
+            } else {
+                literal.append(c);
+            }
+        }
+        regex.append(Pattern.quote(literal.toString()));
+        return Pattern.compile(regex.toString(), flags | Pattern.DOTALL);
+    }
+
+    /**
+     * order=col1.desc.nullslast,col2 ; nulls sort last ascending and first descending by default
+     */
+    private static Comparator<JsonNode> comparator(String order) {
+        Comparator<JsonNode> result = null;
+        for (String term : order.split(",")) {
+            String[] parts = term.trim().split("\\.");
+            String column = parts[0];
+            boolean descending = false;
+            Boolean nullsFirst = null;
+            for (int i = 1; i < parts.length; i++) {
+                switch (parts[i]) {
+                    case "asc" -> descending = false;
+                    case "desc" -> descending = true;
+                    case "nullsfirst" -> nullsFirst = true;
+                    case "nullslast" -> nullsFirst = false;
+                    default -> throw new IllegalArgumentException("Unsupported order: " + term);
+                }
+            }
+            boolean nullsLow = nullsFirst != null && nullsFirst != descending;
+            boolean desc = descending;
+            Comparator<JsonNode> byColumn = (a, b) -> {
+                JsonNode left = a.get(column);
+                JsonNode right = b.get(column);
+                boolean leftNull = left == null || left.isNull();
+                boolean rightNull = right == null || right.isNull();
+                if (leftNull || rightNull) {
+                    if (leftNull == rightNull) {
+                        return 0;
+                    }
+                    // Compared as if ascending; reversed below for descending
+                    return leftNull == nullsLow ? -1 : 1;
+                }
+                return compare(left.asText(), right.asText());
+            };
+            if (desc) {
+                byColumn = byColumn.reversed();
+            }
+            result = result == null ? byColumn : result.thenComparing(byColumn);
+        }
+        return result;
+    }
+}
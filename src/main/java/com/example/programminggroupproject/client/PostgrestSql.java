@@ -0,0 +1,164 @@
+package com.example.programminggroupproject.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Translates PostgREST query parameters into SQL, for services that talk to PostgreSQL
+ * directly instead of through the REST API (see JdbcService).
+ * <p>
+ * Supports the column filters PostgrestFilter does (eq, neq, gt, gte, lt, lte, in, is,
+ * like and ilike, each optionally negated with not.), but not or/and groups, plus order,
+ * limit and offset. Column names are checked against the columns the caller knows and
+ * quoted, and every value becomes a bind parameter, so nothing from the parameters is
+ * pasted into SQL. Anything else is rejected with IllegalArgumentException.
+ */
+public final class PostgrestSql {
+
+    /** Parameters that are not column filters */
+    private static final Set<String> RESERVED = Set.of("select", "order", "limit", "offset", "on_conflict", "columns");
+
+    /**
+     * A value to bind for one placeholder
+     * @param column Column it is compared with, for converting the text to the column's type
+     * @param value The value as written in the parameters
+     * @param text Whether it must be bound as text regardless of the column (like patterns)
+     */
+    public record Operand(String column, String value, boolean text) {
+    }
+
+    /**
+     * A WHERE clause with ? placeholders, empty when there are no filters
+     */
+    public record Where(String sql, List<Operand> operands) {
+    }
+
+    private PostgrestSql() {
+    }
+
+    /**
+     * @return The filters of the parameters as " WHERE ..." (all must match), or an empty clause
+     */
+    public static Where where(Map<String, String> params, Set<String> columns) {
+        List<String> conditions = new ArrayList<>();
+        List<Operand> operands = new ArrayList<>();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            String column = param.getKey();
+            if (RESERVED.contains(column)) {
+                continue;
+            }
+            if (!columns.contains(column)) {
+                throw new IllegalArgumentException("Unsupported filter: " + column + "=" + param.getValue());
+            }
+            conditions.add(condition(column, param.getValue(), operands));
+        }
+        return new Where(conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions), operands);
+    }
+
+    /**
+     * @return " ORDER BY ..." for an order=col1.desc.nullslast,col2 parameter, or "" without one
+     */
+    public static String orderBy(Map<String, String> params, Set<String> columns) {
+        String order = params.get("order");
+        if (order == null || order.isBlank()) {
+            return "";
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : order.split(",")) {
+            String[] parts = term.trim().split("\\.");
+            if (!columns.contains(parts[0])) {
+                throw new IllegalArgumentException("Unsupported order: " + term);
+            }
+            StringBuilder sql = new StringBuilder(quote(parts[0]));
+            for (int i = 1; i < parts.length; i++) {
+                sql.append(switch (parts[i]) {
+                    case "asc" -> " ASC";
+                    case "desc" -> " DESC";
+                    case "nullsfirst" -> " NULLS FIRST";
+                    case "nullslast" -> " NULLS LAST";
+                    default -> throw new IllegalArgumentException("Unsupported order: " + term);
+                });
+            }
+            terms.add(sql.toString());
+        }
+        return " ORDER BY " + String.join(", ", terms);
+    }
+
+    /**
+     * @return " LIMIT n OFFSET m" for the limit and offset parameters present, or ""
+     */
+    public static String limitOffset(Map<String, String> params) {
+        StringBuilder sql = new StringBuilder();
+        if (params.containsKey("limit")) {
+            sql.append(" LIMIT ").append(Integer.parseInt(params.get("limit")));
+        }
+        if (params.containsKey("offset")) {
+            sql.append(" OFFSET ").append(Integer.parseInt(params.get("offset")));
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Quote a table or column name
+     */
+    public static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static String condition(String column, String condition, List<Operand> operands) {
+        boolean negate = condition.startsWith("not.");
+        if (negate) {
+            condition = condition.substring(4);
+        }
+        int dot = condition.indexOf('.');
+        if (dot < 0) {
+            throw new IllegalArgumentException("Unsupported filter value: " + condition);
+        }
+        String operator = condition.substring(0, dot);
+        String operand = condition.substring(dot + 1);
+        String quoted = quote(column);
+
+        String sql = switch (operator) {
+            case "eq", "neq", "gt", "gte", "lt", "lte" -> {
+                operands.add(new Operand(column, operand, false));
+                yield quoted + " " + comparison(operator) + " ?";
+            }
+            case "in" -> {
+                if (operand.equals("()")) {
+                    yield "FALSE";
+                }
+                List<String> items = PostgrestFilter.parseList(operand);
+                items.forEach(item -> operands.add(new Operand(column, item, false)));
+                yield quoted + " IN (" + String.join(", ", Collections.nCopies(items.size(), "?")) + ")";
+            }
+            case "is" -> quoted + switch (operand) {
+                case "null" -> " IS NULL";
+                case "true" -> " IS TRUE";
+                case "false" -> " IS FALSE";
+                default -> throw new IllegalArgumentException("Unsupported is operand: " + operand);
+            };
+            case "like", "ilike" -> {
+                // PostgREST accepts * as well as % as the wildcard
+                operands.add(new Operand(column, operand.replace('*', '%'), true));
+                yield "CAST(" + quoted + " AS text) " + operator.toUpperCase() + " ?";
+            }
+            default -> throw new IllegalArgumentException("Unsupported filter operator: " + operator);
+        };
+        // Comparing NULL gives NULL, and so does NOT of it: the row is excluded either way, as in PostgREST
+        return negate ? "NOT (" + sql + ")" : sql;
+    }
+
+    private static String comparison(String operator) {
+        return switch (operator) {
+            case "eq" -> "=";
+            case "neq" -> "<>";
+            case "gt" -> ">";
+            case "gte" -> ">=";
+            case "lt" -> "<";
+            default -> "<=";
+        };
+    }
+}
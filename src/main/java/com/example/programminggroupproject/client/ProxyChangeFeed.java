@@ -0,0 +1,126 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import okhttp3.Headers;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Workstation side of the shop proxy's change feed. When supabase.url points at a
+ * ShopProxyServer, one long-poll per workstation reports which tables changed and the
+ * listeners (change pollers) check their own scope at once. Against Supabase itself the
+ * endpoint does not exist; the first 404 turns the feed off for the rest of the run.
+ */
+public class ProxyChangeFeed {
+
+    /** Table name passed to listeners when the proxy cannot say exactly what changed */
+    public static final String ALL_TABLES = "*";
+
+    private static final String CHANGES_PATH = "/proxy/v1/changes";
+    // Below OkHttp's default 10 second read timeout
+    private static final int WAIT_SECONDS = 8;
+    private static final long RETRY_MILLIS = 5000;
+
+    private static ProxyChangeFeed instance;
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private boolean available = true;
+    private Thread poller;
+
+    private ProxyChangeFeed() {
+    }
+
+    public static synchronized ProxyChangeFeed getInstance() {
+        if (instance == null) {
+            instance = new ProxyChangeFeed();
+        }
+        return instance;
+    }
+
+    /**
+     * Be told the name of each table that changes, on the feed's own thread.
+     * Starts polling the proxy if it is not running yet.
+     */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+        ensureRunning();
+    }
+
+    public void removeListener(Consumer<String> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return False once the server turned out not to be a shop proxy
+     */
+    public synchronized boolean isAvailable() {
+        return available;
+    }
+
+    private synchronized void ensureRunning() {
+        if (!available || poller != null || listeners.isEmpty()) {
+            return;
+        }
+        poller = new Thread(this::run, "proxy-change-feed");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    private void run() {
+        long after = -1;
+        while (!listeners.isEmpty()) {
+            try (Response response = client.execute("GET",
+                    CHANGES_PATH + "?after=" + after + "&wait=" + WAIT_SECONDS, Headers.of(), null)) {
+                if (response.code() == 404) {
+                    synchronized (this) {
+                        available = false;
+                    }
+                    break;
+                }
+                if (!response.isSuccessful() || response.body() == null) {
+                    throw new IOException("Change feed request failed: " + response.code());
+                }
+
+                JsonNode batch = client.getObjectMapper().readTree(response.body().string());
+                // The first answer only tells where the feed stands
+                if (after >= 0) {
+                    if (batch.path("reset").asBoolean()) {
+                        notifyListeners(ALL_TABLES);
+                    } else {
+                        batch.path("tables").forEach(table -> notifyListeners(table.asText()));
+                    }
+                }
+                after = batch.path("seq").asLong();
+            } catch (IOException e) {
+                System.err.println("Error reading proxy change feed: " + e.getMessage());
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+
+        synchronized (this) {
+            poller = null;
+        }
+        // A listener added while the loop was ending
+        ensureRunning();
+    }
+
+    private void notifyListeners(String table) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(table);
+            } catch (RuntimeException e) {
+                System.err.println("Error handling change of " + table + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.programminggroupproject.client;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Collects PostgREST requests that exceeded a latency threshold, together with
+ * the query plan PostgREST reports for them.
+ * Identical requests are grouped so a query that is slow every time shows up once,
+ * with its worst latency and how often it was slow.
+ */
+public class QueryDiagnostics {
+
+    /** How many distinct slow queries are kept before the fastest ones are dropped */
+    private static final int MAX_ENTRIES = 100;
+
+    private final long thresholdMillis;
+    private final Map<String, SlowQuery> slowQueries = new ConcurrentHashMap<>();
+
+    public QueryDiagnostics(long thresholdMillis) {
+        this.thresholdMillis = thresholdMillis;
+    }
+
+    /**
+     * A request that exceeded the latency threshold
+     */
+    public static class SlowQuery {
+        private final String method;
+        private final String url;
+        private volatile long maxLatencyMillis;
+        private volatile long lastLatencyMillis;
+        private volatile int occurrences;
+        private volatile OffsetDateTime lastSeen;
+        private volatile String plan;
+
+        SlowQuery(String method, String url) {
+            this.method = method;
+            this.url = url;
+        }
+
+        synchronized void record(long latencyMillis) {
+            occurrences++;
+            lastLatencyMillis = latencyMillis;
+            maxLatencyMillis = Math.max(maxLatencyMillis, latencyMillis);
+            lastSeen = OffsetDateTime.now();
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public long getMaxLatencyMillis() {
+            return maxLatencyMillis;
+        }
+
+        public long getLastLatencyMillis() {
+            return lastLatencyMillis;
+        }
+
+        public int getOccurrences() {
+            return occurrences;
+        }
+
+        public OffsetDateTime getLastSeen() {
+            return lastSeen;
+        }
+
+        /**
+         * @return The EXPLAIN output, or null if it has not been captured (yet)
+         */
+        public String getPlan() {
+            return plan;
+        }
+
+        void setPlan(String plan) {
+            this.plan = plan;
+        }
+    }
+
+    public long getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    public boolean isSlow(long latencyMillis) {
+        return latencyMillis >= thresholdMillis;
+    }
+
+    /**
+     * Record a slow request. When more than MAX_ENTRIES distinct requests have been slow,
+     * the one with the lowest worst latency is dropped, which may be this one.
+     * @return true if the request was seen for the first time and is still tracked, so its
+     * plan should be captured
+     */
+    synchronized boolean recordSlow(String method, String url, long latencyMillis) {
+        String key = method + " " + url;
+        SlowQuery query = slowQueries.get(key);
+        boolean isNew = query == null;
+        if (isNew) {
+            query = new SlowQuery(method, url);
+            slowQueries.put(key, query);
+        }
+        query.record(latencyMillis);
+
+        if (slowQueries.size() > MAX_ENTRIES) {
+            String fastest = slowQueries.entrySet().stream()
+                    .min(Comparator.comparingLong(e -> e.getValue().getMaxLatencyMillis()))
+                    .orElseThrow()
+                    .getKey();
+            slowQueries.remove(fastest);
+            if (fastest.equals(key)) {
+                return false;
+            }
+        }
+        return isNew;
+    }
+
+    void recordPlan(String method, String url, String plan) {
+        SlowQuery query = slowQueries.get(method + " " + url);
+        if (query != null) {
+            query.setPlan(plan);
+        }
+    }
+
+    /**
+     * Get the slowest recorded queries
+     * @param n Maximum number of queries to return
+     * @return Queries ordered by worst latency, slowest first
+     */
+    public List<SlowQuery> getSlowest(int n) {
+        return slowQueries.values().stream()
+                .sorted(Comparator.comparingLong(SlowQuery::getMaxLatencyMillis).reversed())
+                .limit(n)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Render the slowest queries and their plans as text
+     * @param n Maximum number of queries to include
+     */
+    public String dump(int n) {
+        StringBuilder out = new StringBuilder();
+        out.append("Slow PostgREST queries (threshold ").append(thresholdMillis).append(" ms)\n");
+
+        int rank = 1;
+        for (SlowQuery query : getSlowest(n)) {
+            out.append('\n')
+                    .append('#').append(rank++).append("  ")
+                    .append(query.getMaxLatencyMillis()).append(" ms max, ")
+                    .append(query.getOccurrences()).append("x  ")
+                    .append(query.getMethod()).append(' ').append(query.getUrl()).append('\n');
+
+            String plan = query.getPlan();
+            if (plan == null) {
+                out.append("    (no plan captured)\n");
+            } else {
+                for (String line : plan.split("\n")) {
+                    out.append("    ").append(line).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    public void clear() {
+        slowQueries.clear();
+    }
+}
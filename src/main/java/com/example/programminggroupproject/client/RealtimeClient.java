@@ -0,0 +1,376 @@
+package com.example.programminggroupproject.client;
+
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.example.programminggroupproject.session.Session;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Client for Supabase Realtime (Phoenix channels over a WebSocket), used to receive
+ * inserts and updates on a table as they happen instead of reloading after every write.
+ * <p>
+ * Each subscription is one channel joined with a postgres_changes filter such as
+ * "shop_id=eq.&lt;id&gt;". A single socket is opened while there are subscriptions,
+ * heartbeats keep it alive, and after a drop it reconnects with exponential backoff and
+ * rejoins every channel. Changes that happen while disconnected are not replayed, so
+ * screens should reload (cheaply, see DeltaSync) when {@link #addConnectionListener}
+ * reports a reconnect.
+ * <p>
+ * Handlers run on the transport's thread; UI code should hand off with Platform.runLater.
+ */
+public class RealtimeClient {
+
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final long MAX_RECONNECT_SECONDS = 30;
+
+    private static RealtimeClient instance;
+
+    private final SupabaseConfig config = SupabaseConfig.getInstance();
+    private final boolean enabled;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "realtime");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Consumer<Boolean>> connectionListeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private RealtimeTransport transport;
+    private final Map<String, Subscription> subscriptions = new LinkedHashMap<>();
+    private SocketListener socket;
+    private boolean connected;
+    private int reconnectAttempts;
+    private long nextRef;
+    private long nextTopic;
+    private ScheduledFuture<?> heartbeat;
+    private ScheduledFuture<?> reconnect;
+
+    /**
+     * An insert or update delivered by Realtime
+     * @param table Table the row belongs to
+     * @param type "INSERT" or "UPDATE"
+     * @param record The row after the change
+     * @param oldRecord The previous row (only its primary key, unless the table has REPLICA IDENTITY FULL)
+     */
+    public record ChangeEvent(String table, String type, JsonNode record, JsonNode oldRecord) {
+    }
+
+    /**
+     * A joined channel; close it to stop receiving events
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String topic;
+        private final String table;
+        private final String filter;
+        private final Consumer<ChangeEvent> handler;
+
+        private Subscription(String topic, String table, String filter, Consumer<ChangeEvent> handler) {
+            this.topic = topic;
+            this.table = table;
+            this.filter = filter;
+            this.handler = handler;
+        }
+
+        @Override
+        public void close() {
+            unsubscribe(this);
+        }
+    }
+
+    private RealtimeClient() {
+        // Turned off where WebSockets are blocked, and with the in-memory backend;
+        // screens then fall back to ChangePoller
+        this.enabled = !config.isMemoryBackend()
+                && Boolean.parseBoolean(config.getProperty("supabase.realtime.enabled", "true").trim());
+        this.transport = new OkHttpRealtimeTransport();
+    }
+
+    /**
+     * A client that connects whatever the configuration says, e.g. for tests against a LocalRealtimeTransport
+     */
+    RealtimeClient(RealtimeTransport transport) {
+        this.enabled = true;
+        this.transport = transport;
+    }
+
+    public static synchronized RealtimeClient getInstance() {
+        if (instance == null) {
+            instance = new RealtimeClient();
+        }
+        return instance;
+    }
+
+    // ==================== SUBSCRIPTIONS ====================
+
+    /**
+     * Receive inserts and updates on a table
+     * @param table Table name
+     * @param filter Realtime filter, e.g. "shop_id=eq.&lt;id&gt;" or "id=in.(a,b)"; null for every row
+     * @param handler Called for each change
+     */
+    public synchronized Subscription subscribe(String table, String filter, Consumer<ChangeEvent> handler) {
+        Subscription subscription = new Subscription("realtime:" + table + "-" + (++nextTopic), table, filter, handler);
+        subscriptions.put(subscription.topic, subscription);
+        if (connected) {
+            join(subscription);
+        } else if (enabled && socket == null && reconnect == null) {
+            connect();
+        }
+        return subscription;
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        if (subscriptions.remove(subscription.topic) == null) {
+            return;
+        }
+        if (connected) {
+            send(subscription.topic, "phx_leave", objectMapper.createObjectNode());
+        }
+        if (subscriptions.isEmpty()) {
+            disconnect();
+        }
+    }
+
+    /**
+     * @return Whether the socket is open; subscriptions receive events only while it is
+     */
+    public synchronized boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Be told when the socket opens (true) or drops (false)
+     */
+    public void addConnectionListener(Consumer<Boolean> listener) {
+        connectionListeners.add(listener);
+    }
+
+    public void removeConnectionListener(Consumer<Boolean> listener) {
+        connectionListeners.remove(listener);
+    }
+
+    /**
+     * Replace the WebSocket implementation, e.g. with a LocalRealtimeTransport.
+     * Open subscriptions are moved to the new transport.
+     */
+    public synchronized void setTransport(RealtimeTransport transport) {
+        this.transport = transport;
+        closeSocket();
+        if (enabled && !subscriptions.isEmpty()) {
+            connect();
+        }
+    }
+
+    /**
+     * Close every subscription and the socket; call at logout
+     */
+    public synchronized void disconnect() {
+        subscriptions.clear();
+        closeSocket();
+    }
+
+    // ==================== CONNECTION ====================
+
+    private void connect() {
+        if (reconnect != null) {
+            reconnect.cancel(false);
+            reconnect = null;
+        }
+        String apiKey = config.getAnonKey();
+        socket = new SocketListener();
+        socket.connection = transport.open(config.getRealtimeUrl() + "?apikey=" + apiKey + "&vsn=1.0.0", socket);
+    }
+
+    private void closeSocket() {
+        boolean wasConnected = connected;
+        connected = false;
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+        if (reconnect != null) {
+            reconnect.cancel(false);
+            reconnect = null;
+        }
+        if (socket != null) {
+            SocketListener closing = socket;
+            socket = null;
+            if (closing.connection != null) {
+                closing.connection.close();
+            }
+        }
+        if (wasConnected) {
+            notifyConnection(false);
+        }
+    }
+
+    private synchronized void opened(SocketListener opened) {
+        if (opened != socket) {
+            return;
+        }
+        connected = true;
+        reconnectAttempts = 0;
+        heartbeat = scheduler.scheduleWithFixedDelay(this::sendHeartbeat,
+                HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        subscriptions.values().forEach(this::join);
+        notifyConnection(true);
+    }
+
+    private synchronized void dropped(SocketListener dropped, Throwable error) {
+        if (dropped != socket) {
+            return;
+        }
+        if (error != null) {
+            System.err.println("Realtime connection lost: " + error.getMessage());
+        }
+        closeSocket();
+        if (!subscriptions.isEmpty()) {
+            long delay = Math.min(MAX_RECONNECT_SECONDS, 1L << Math.min(reconnectAttempts++, 5));
+            reconnect = scheduler.schedule(this::reconnect, delay, TimeUnit.SECONDS);
+        }
+    }
+
+    private synchronized void reconnect() {
+        reconnect = null;
+        if (socket == null && !subscriptions.isEmpty()) {
+            connect();
+        }
+    }
+
+    private synchronized void sendHeartbeat() {
+        if (connected && !send("phoenix", "heartbeat", objectMapper.createObjectNode())) {
+            dropped(socket, new IOException("heartbeat could not be sent"));
+        }
+    }
+
+    private void notifyConnection(boolean isConnected) {
+        // Off the calling thread, which holds the lock; listeners may call back into this client
+        scheduler.execute(() -> connectionListeners.forEach(listener -> listener.accept(isConnected)));
+    }
+
+    // ==================== PROTOCOL ====================
+
+    private void join(Subscription subscription) {
+        ArrayNode changes = objectMapper.createArrayNode();
+        for (String event : new String[] {"INSERT", "UPDATE"}) {
+            ObjectNode change = changes.addObject()
+                    .put("event", event)
+                    .put("schema", "public")
+                    .put("table", subscription.table);
+            if (subscription.filter != null) {
+                change.put("filter", subscription.filter);
+            }
+        }
+
+        ObjectNode payload = objectMapper.createObjectNode();
+        ObjectNode channelConfig = payload.putObject("config");
+        channelConfig.putObject("broadcast").put("self", false);
+        channelConfig.putObject("presence").put("key", "");
+        channelConfig.set("postgres_changes", changes);
+        // Like REST requests, fall back to the project key when nobody is signed in (the shop proxy)
+        String accessToken = Session.getAccessToken();
+        payload.put("access_token", accessToken != null && !accessToken.isEmpty() ? accessToken : config.getApiKey());
+
+        send(subscription.topic, "phx_join", payload);
+    }
+
+    private boolean send(String topic, String event, JsonNode payload) {
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("topic", topic)
+                .put("event", event)
+                .put("ref", String.valueOf(++nextRef));
+        message.set("payload", payload);
+        return socket != null && socket.connection != null && socket.connection.send(message.toString());
+    }
+
+    private void received(String text) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(text);
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable realtime message: " + e.getMessage());
+            return;
+        }
+
+        String topic = message.path("topic").asText();
+        String event = message.path("event").asText();
+        JsonNode payload = message.path("payload");
+
+        Subscription subscription;
+        synchronized (this) {
+            subscription = subscriptions.get(topic);
+        }
+        if (subscription == null) {
+            return;
+        }
+
+        switch (event) {
+            case "postgres_changes" -> {
+                JsonNode data = payload.path("data");
+                ChangeEvent change = new ChangeEvent(data.path("table").asText(), data.path("type").asText(),
+                        data.path("record"), data.path("old_record"));
+                try {
+                    subscription.handler.accept(change);
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling realtime change on " + change.table() + ": " + e.getMessage());
+                }
+            }
+            case "phx_reply" -> {
+                if (!"ok".equals(payload.path("status").asText())) {
+                    System.err.println("Realtime rejected " + subscription.table + " subscription: "
+                            + payload.path("response"));
+                }
+            }
+            case "phx_error" -> System.err.println("Realtime error on " + subscription.table + ": " + payload);
+            case "system" -> {
+                if ("error".equals(payload.path("status").asText())) {
+                    System.err.println("Realtime error on " + subscription.table + ": " + payload.path("message"));
+                }
+            }
+            default -> {
+                // presence_state, presence_diff and replies to heartbeats are not used
+            }
+        }
+    }
+
+    /**
+     * Listener of one socket; events of a socket that was replaced are ignored
+     */
+    private class SocketListener implements RealtimeTransport.Listener {
+        private volatile RealtimeTransport.Connection connection;
+
+        @Override
+        public void onOpen() {
+            opened(this);
+        }
+
+        @Override
+        public void onMessage(String text) {
+            synchronized (RealtimeClient.this) {
+                if (this != socket) {
+                    return;
+                }
+            }
+            received(text);
+        }
+
+        @Override
+        public void onClosed(Throwable error) {
+            dropped(this, error);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.programminggroupproject.client;
+
+/**
+ * Text WebSocket used by RealtimeClient.
+ * OkHttpRealtimeTransport talks to Supabase; LocalRealtimeTransport is an in-process
+ * stand-in that behaves like the Realtime server, for tests and offline development.
+ */
+public interface RealtimeTransport {
+
+    /**
+     * Open a connection; the listener is told when it is open, each message, and how it ended
+     * @param url WebSocket URL including query parameters
+     * @return The connection, usable once onOpen has been called
+     */
+    Connection open(String url, Listener listener);
+
+    interface Connection {
+
+        /**
+         * Queue a text frame
+         * @return false if the connection is closed or closing
+         */
+        boolean send(String text);
+
+        /**
+         * Close the connection normally
+         */
+        void close();
+    }
+
+    /**
+     * Connection events, called on the transport's own thread (never from inside open())
+     */
+    interface Listener {
+
+        void onOpen();
+
+        void onMessage(String text);
+
+        /**
+         * The connection ended, whether closed by the server or failed
+         * @param error The failure, or null for a normal close by the server
+         */
+        void onClosed(Throwable error);
+    }
+}
@@ -23,9 +23,12 @@ public class SupabaseAuthClient {
     
     private SupabaseAuthClient() {
         this.config = SupabaseConfig.getInstance();
-        this.httpClient = new OkHttpClient.Builder()
-                .addInterceptor(new AuthInterceptor())
-                .build();
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .addInterceptor(new AuthInterceptor());
+        if (config.isMemoryBackend()) {
+            builder.addInterceptor(InMemoryBackend.getInstance());
+        }
+        this.httpClient = builder.build();
         
         // Configure ObjectMapper for JSON serialization
         this.objectMapper = new ObjectMapper();
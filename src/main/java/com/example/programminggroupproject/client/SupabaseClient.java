@@ -1,15 +1,23 @@
 package com.example.programminggroupproject.client;
 
+import com.example.programminggroupproject.cache.QueryCache;
 import com.example.programminggroupproject.config.SupabaseConfig;
 import com.example.programminggroupproject.session.Session;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import okhttp3.*;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * Enhanced Supabase HTTP client for REST API operations.
@@ -18,21 +26,48 @@ import java.util.Map;
  */
 public class SupabaseClient {
     
+    private static final String PLAN_MEDIA_TYPE = "application/vnd.pgrst.plan+text";
+    private static final MediaType JSON = MediaType.parse("application/json");
+    
     private static SupabaseClient instance;
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final ObjectWriter bodyWriter;
     private final SupabaseConfig config;
+    private volatile QueryDiagnostics diagnostics;
+    private final List<Consumer<String>> writeListeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService planExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "supabase-plan-capture");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     private SupabaseClient() {
         this.config = SupabaseConfig.getInstance();
-        this.httpClient = new OkHttpClient.Builder()
-                .addInterceptor(new SupabaseInterceptor())
-                .build();
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                // Runs first so it times the whole call and sees the request before auth headers
+                .addInterceptor(new DiagnosticsInterceptor())
+                .addInterceptor(new WriteTrackingInterceptor())
+                .addInterceptor(new SupabaseInterceptor());
+        if (config.isMemoryBackend()) {
+            // Last, so requests are answered exactly as they would be sent
+            builder.addInterceptor(InMemoryBackend.getInstance());
+        }
+        this.httpClient = builder.build();
+        
+        // Cached query results of a table are stale as soon as anything writes to it
+        addWriteListener(QueryCache.getInstance()::invalidateTable);
+        
+        String slowQueryMillis = config.getProperty("supabase.diagnostics.slowQueryMillis", null);
+        if (slowQueryMillis != null) {
+            enableDiagnostics(Long.parseLong(slowQueryMillis.trim()));
+        }
         
         // Configure ObjectMapper for JSON serialization
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         this.objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.bodyWriter = JsonRequestBody.writerFor(objectMapper);
     }
     
     public static synchronized SupabaseClient getInstance() {
@@ -42,22 +77,42 @@ public class SupabaseClient {
         return instance;
     }
     
+    /**
+     * Tag of requests forwarded for someone else (see {@link #forward}); they are sent with
+     * the caller's headers only
+     */
+    private enum Forwarded { INSTANCE }
+    
     /**
      * Interceptor to add authentication headers to all requests
-     * Uses JWT token from session if available, otherwise uses service role key
+     * Uses JWT token from session if available, otherwise uses service role key.
+     * Forwarded requests get nothing added, so they never carry this client's key.
      */
     private class SupabaseInterceptor implements Interceptor {
         @Override
         public Response intercept(Chain chain) throws IOException {
             Request original = chain.request();
-            Request.Builder requestBuilder = original.newBuilder()
-                    .addHeader("apikey", config.getApiKey())
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Prefer", "return=representation");
+            if (original.tag(Forwarded.class) != null) {
+                return chain.proceed(original);
+            }
+            Request.Builder requestBuilder = original.newBuilder();
+            if (original.header("apikey") == null) {
+                requestBuilder.addHeader("apikey", config.getApiKey());
+            }
+            if (original.header("Content-Type") == null) {
+                requestBuilder.addHeader("Content-Type", "application/json");
+            }
+            
+            // Default to returning rows, unless the caller asked for something else
+            if (original.header("Prefer") == null) {
+                requestBuilder.addHeader("Prefer", "return=representation");
+            }
             
             // Use JWT token if user is authenticated, otherwise use service role key
             String accessToken = Session.getAccessToken();
-            if (accessToken != null && !accessToken.isEmpty()) {
+            if (original.header("Authorization") != null) {
+                // The caller chose the credentials
+            } else if (accessToken != null && !accessToken.isEmpty()) {
                 // Use user's JWT token for authenticated requests
                 requestBuilder.addHeader("Authorization", "Bearer " + accessToken);
             } else {
@@ -70,6 +125,146 @@ public class SupabaseClient {
         }
     }
     
+    /**
+     * Interceptor that times every request when diagnostics are enabled.
+     * Slow reads are re-issued once in the background with PostgREST's plan
+     * media type so the EXPLAIN output can be stored next to the query.
+     */
+    private class DiagnosticsInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            QueryDiagnostics current = diagnostics;
+            // Only REST queries have plans; the proxy's change feed is slow on purpose
+            if (current == null || isPlanRequest(request) || tableOf(request) == null) {
+                return chain.proceed(request);
+            }
+            
+            long start = System.nanoTime();
+            Response response = chain.proceed(request);
+            long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+            
+            if (current.isSlow(latencyMillis)) {
+                String url = request.url().toString();
+                boolean firstTime = current.recordSlow(request.method(), url, latencyMillis);
+                if (firstTime && "GET".equals(request.method())) {
+                    planExecutor.submit(() -> capturePlan(current, request));
+                }
+            }
+            return response;
+        }
+    }
+    
+    /**
+     * Interceptor that tells write listeners which table an INSERT/UPDATE/DELETE went to.
+     * Listeners run once the call has finished, even if it failed, since a failed
+     * response does not prove the write was not applied.
+     */
+    private class WriteTrackingInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String method = request.method();
+            if ("GET".equals(method) || "HEAD".equals(method)) {
+                return chain.proceed(request);
+            }
+            
+            try {
+                return chain.proceed(request);
+            } finally {
+                String table = tableOf(request);
+                if (table != null) {
+                    writeListeners.forEach(listener -> listener.accept(table));
+                }
+            }
+        }
+    }
+    
+    /**
+     * @return The table a REST request targets, or null for non-REST requests
+     */
+    private String tableOf(Request request) {
+        String url = request.url().toString();
+        String restPrefix = config.getRestUrl() + "/";
+        if (!url.startsWith(restPrefix)) {
+            return null;
+        }
+        return url.substring(restPrefix.length()).split("[/?]", 2)[0];
+    }
+    
+    private boolean isPlanRequest(Request request) {
+        String accept = request.header("Accept");
+        return accept != null && accept.startsWith(PLAN_MEDIA_TYPE);
+    }
+    
+    /**
+     * Re-issue a read asking PostgREST for its query plan instead of the rows.
+     * Requires db-plan-enabled on the PostgREST side; otherwise the error is stored as the plan.
+     */
+    private void capturePlan(QueryDiagnostics target, Request original) {
+        Request planRequest = original.newBuilder()
+                .header("Accept", PLAN_MEDIA_TYPE + "; for=\"application/json\"")
+                .build();
+        
+        try (Response response = httpClient.newCall(planRequest).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            String plan = response.isSuccessful()
+                    ? body
+                    : "Plan unavailable (" + response.code() + "): " + body;
+            target.recordPlan(original.method(), original.url().toString(), plan);
+        } catch (IOException e) {
+            target.recordPlan(original.method(), original.url().toString(), "Plan unavailable: " + e.getMessage());
+        }
+    }
+    
+    // ==================== DIAGNOSTICS ====================
+    
+    /**
+     * Start recording requests slower than the threshold, with their query plans.
+     * Replaces any previously collected diagnostics.
+     * @param thresholdMillis Requests taking at least this long are recorded
+     */
+    public void enableDiagnostics(long thresholdMillis) {
+        this.diagnostics = new QueryDiagnostics(thresholdMillis);
+    }
+    
+    /**
+     * Stop recording slow requests and discard what was collected
+     */
+    public void disableDiagnostics() {
+        this.diagnostics = null;
+    }
+    
+    /**
+     * @return The active diagnostics, or null when diagnostics are disabled
+     */
+    public QueryDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+    
+    /**
+     * Render the N slowest recorded queries with their plans
+     */
+    public String dumpSlowestQueries(int n) {
+        QueryDiagnostics current = diagnostics;
+        return current != null ? current.dump(n) : "Query diagnostics are disabled";
+    }
+    
+    // ==================== WRITE NOTIFICATIONS ====================
+    
+    /**
+     * Register a callback invoked with the table name after every write request
+     */
+    public void addWriteListener(Consumer<String> listener) {
+        writeListeners.add(listener);
+    }
+    
+    public void removeWriteListener(Consumer<String> listener) {
+        writeListeners.remove(listener);
+    }
+    
+    // ==================== REQUESTS ====================
+    
     /**
      * Execute a GET request
      */
@@ -109,12 +304,68 @@ public class SupabaseClient {
     
     /**
      * Execute a POST request (INSERT)
+     * @param value Row or rows to insert; a String is sent as is, as JSON text
+     */
+    public String post(String table, Object value) throws IOException {
+        RequestBody body = jsonBody(value);
+        
+        Request request = new Request.Builder()
+                .url(config.getRestUrl() + "/" + table)
+                .post(body)
+                .build();
+        
+        return executeRequest(request);
+    }
+    
+    /**
+     * Execute a POST request (INSERT) without waiting for the row to be sent back.
+     * Only useful when the caller already knows the id (client-generated keys).
+     * @param value Row or rows to insert; a String is sent as is, as JSON text
+     */
+    public void postMinimal(String table, Object value) throws IOException {
+        RequestBody body = jsonBody(value);
+        
+        Request request = new Request.Builder()
+                .url(config.getRestUrl() + "/" + table)
+                .addHeader("Prefer", "return=minimal")
+                .post(body)
+                .build();
+        
+        executeRequest(request);
+    }
+    
+    /**
+     * Execute a POST request (INSERT) that skips rows whose primary key already exists,
+     * so re-sending the same rows is harmless. Rows are not returned.
+     * @param value Rows to insert; a String is sent as is, as JSON text
      */
-    public String post(String table, String jsonBody) throws IOException {
-        RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
+    public void insertIgnoringDuplicates(String table, Object value) throws IOException {
+        RequestBody body = jsonBody(value);
         
         Request request = new Request.Builder()
                 .url(config.getRestUrl() + "/" + table)
+                .addHeader("Prefer", "resolution=ignore-duplicates,return=minimal")
+                .post(body)
+                .build();
+        
+        executeRequest(request);
+    }
+    
+    /**
+     * Execute a POST request (INSERT) with a prepared body, e.g. a JsonRequestBody of many rows
+     * @param ignoreDuplicates Skip rows whose primary key already exists instead of failing
+     * @param returnRows Whether the inserted rows are sent back
+     * @return The inserted rows as a JSON array, or an empty string if not returned
+     */
+    public String insert(String table, RequestBody body, boolean ignoreDuplicates, boolean returnRows) throws IOException {
+        String prefer = returnRows ? "return=representation" : "return=minimal";
+        if (ignoreDuplicates) {
+            prefer = "resolution=ignore-duplicates," + prefer;
+        }
+        
+        Request request = new Request.Builder()
+                .url(config.getRestUrl() + "/" + table)
+                .addHeader("Prefer", prefer)
                 .post(body)
                 .build();
         
@@ -123,15 +374,16 @@ public class SupabaseClient {
     
     /**
      * Execute a PATCH request (UPDATE)
+     * @param value Row or fields to set; a String is sent as is, as JSON text
      */
-    public String patch(String table, String jsonBody, Map<String, String> params) throws IOException {
+    public String patch(String table, Object value, Map<String, String> params) throws IOException {
         HttpUrl.Builder urlBuilder = HttpUrl.parse(config.getRestUrl() + "/" + table).newBuilder();
         
         if (params != null) {
             params.forEach(urlBuilder::addQueryParameter);
         }
         
-        RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
+        RequestBody body = jsonBody(value);
         
         Request request = new Request.Builder()
                 .url(urlBuilder.build())
@@ -159,11 +411,56 @@ public class SupabaseClient {
         executeRequest(request);
     }
     
+    /**
+     * Execute a PATCH request against every row matching the filter.
+     * Rows are not returned; the number of affected rows is read from Content-Range.
+     * @param value Fields to set; a String is sent as is, as JSON text
+     * @return Number of rows updated
+     */
+    public int patchWithCount(String table, Object value, Map<String, String> params) throws IOException {
+        HttpUrl.Builder urlBuilder = HttpUrl.parse(config.getRestUrl() + "/" + table).newBuilder();
+        
+        if (params != null) {
+            params.forEach(urlBuilder::addQueryParameter);
+        }
+        
+        RequestBody body = jsonBody(value);
+        
+        Request request = new Request.Builder()
+                .url(urlBuilder.build())
+                .addHeader("Prefer", "return=minimal,count=exact")
+                .patch(body)
+                .build();
+        
+        return executeCountRequest(request);
+    }
+    
+    /**
+     * Execute a DELETE request against every row matching the filter.
+     * @return Number of rows deleted
+     */
+    public int deleteWithCount(String table, Map<String, String> params) throws IOException {
+        HttpUrl.Builder urlBuilder = HttpUrl.parse(config.getRestUrl() + "/" + table).newBuilder();
+        
+        if (params != null) {
+            params.forEach(urlBuilder::addQueryParameter);
+        }
+        
+        Request request = new Request.Builder()
+                .url(urlBuilder.build())
+                .addHeader("Prefer", "return=minimal,count=exact")
+                .delete()
+                .build();
+        
+        return executeCountRequest(request);
+    }
+    
     /**
      * Execute a POST request with upsert preference
+     * @param value Row or rows to upsert; a String is sent as is, as JSON text
      */
-    public String upsert(String table, String jsonBody) throws IOException {
-        RequestBody body = RequestBody.create(jsonBody, MediaType.parse("application/json"));
+    public String upsert(String table, Object value) throws IOException {
+        RequestBody body = jsonBody(value);
         
         Request request = new Request.Builder()
                 .url(config.getRestUrl() + "/" + table)
@@ -174,6 +471,58 @@ public class SupabaseClient {
         return executeRequest(request);
     }
     
+    /**
+     * A JSON request body for a value. Anything but JSON text is serialized while the request
+     * is written, straight into the connection, without building a String or byte[] first.
+     */
+    private RequestBody jsonBody(Object value) {
+        if (value instanceof String json) {
+            return RequestBody.create(json, JSON);
+        }
+        return new JsonRequestBody(bodyWriter, value);
+    }
+    
+    /**
+     * Send a request to a path below the project URL without interpreting the response.
+     * Used by workstations to read the shop proxy's own endpoints. Headers given here
+     * (apikey, Authorization, Content-Type, Prefer) take the place of the ones this client
+     * would add; missing ones are filled in with this client's credentials.
+     * @param pathAndQuery Path and query string, e.g. "/rest/v1/services?select=*"
+     * @param body Request body, or null for requests without one
+     * @return The open response; the caller must close it
+     */
+    public Response execute(String method, String pathAndQuery, Headers headers, byte[] body) throws IOException {
+        return httpClient.newCall(rawRequest(method, pathAndQuery, headers, body).build()).execute();
+    }
+    
+    /**
+     * Send someone else's request on, as the shop proxy does for workstations: only the
+     * given headers are sent, and this client's apikey and token are never added, so the
+     * request has exactly the rights of the credentials it came with.
+     * @return The open response; the caller must close it
+     */
+    public Response forward(String method, String pathAndQuery, Headers headers, byte[] body) throws IOException {
+        Request request = rawRequest(method, pathAndQuery, headers, body)
+                .tag(Forwarded.class, Forwarded.INSTANCE)
+                .build();
+        return httpClient.newCall(request).execute();
+    }
+    
+    private Request.Builder rawRequest(String method, String pathAndQuery, Headers headers, byte[] body) {
+        RequestBody requestBody = null;
+        if (body != null) {
+            String contentType = headers.get("Content-Type");
+            requestBody = RequestBody.create(body, contentType != null ? MediaType.parse(contentType) : null);
+        } else if (method.equals("POST") || method.equals("PUT") || method.equals("PATCH")) {
+            requestBody = RequestBody.create(new byte[0], null);
+        }
+        
+        return new Request.Builder()
+                .url(config.getUrl() + pathAndQuery)
+                .headers(headers)
+                .method(method, requestBody);
+    }
+    
     /**
      * Execute request and return response body as string
      */
@@ -181,7 +530,7 @@ public class SupabaseClient {
         try (Response response = httpClient.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 String errorBody = response.body() != null ? response.body().string() : "No error details";
-                throw new IOException("Supabase request failed: " + response.code() + " - " + errorBody);
+                throw new SupabaseHttpException(response.code(), "Supabase request failed: " + response.code() + " - " + errorBody);
             }
             
             if (response.body() == null) {
@@ -192,6 +541,20 @@ public class SupabaseClient {
         }
     }
     
+    /**
+     * Execute request and return the row count from the Content-Range header
+     */
+    private int executeCountRequest(Request request) throws IOException {
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No error details";
+                throw new SupabaseHttpException(response.code(), "Supabase request failed: " + response.code() + " - " + errorBody);
+            }
+            
+            return parseContentRangeCount(response.header("Content-Range"));
+        }
+    }
+    
     /**
      * Get ObjectMapper instance for JSON serialization/deserialization
      */
@@ -205,4 +568,45 @@ public class SupabaseClient {
     public static Map<String, String> buildParams() {
         return new HashMap<>();
     }
+    
+    /**
+     * Build an IN filter value: in.(a,b,c)
+     * Values containing PostgREST reserved characters are double-quoted.
+     */
+    public static String inList(Collection<?> values) {
+        StringBuilder inQuery = new StringBuilder("in.(");
+        int i = 0;
+        for (Object value : values) {
+            if (i++ > 0) inQuery.append(",");
+            String text = value.toString();
+            if (text.matches(".*[,.:()\" ].*")) {
+                inQuery.append('"').append(text.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            } else {
+                inQuery.append(text);
+            }
+        }
+        return inQuery.append(")").toString();
+    }
+    
+    /**
+     * Read the row count from a Content-Range header.
+     * Formats: "0-9/100" (total known) or "0-9/*" (total unknown)
+     * @return The total if present, otherwise the size of the returned range
+     */
+    public static int parseContentRangeCount(String contentRange) {
+        if (contentRange == null) {
+            return 0;
+        }
+        
+        String[] parts = contentRange.split("/");
+        if (parts.length == 2 && !parts[1].equals("*")) {
+            return Integer.parseInt(parts[1]);
+        }
+        
+        String[] range = parts[0].split("-");
+        if (range.length == 2) {
+            return Integer.parseInt(range[1]) - Integer.parseInt(range[0]) + 1;
+        }
+        return 0;
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.programminggroupproject.client;
+
+import java.io.IOException;
+
+/**
+ * The server answered a request with an error status.
+ * Any other IOException from SupabaseClient means the server could not be reached.
+ */
+public class SupabaseHttpException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public SupabaseHttpException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return Whether the same request may succeed later: expired session (401), timeout
+     * (408), rate limit (429) or a server-side error (5xx)
+     */
+    public boolean isRetryable() {
+        return statusCode == 401 || statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+}
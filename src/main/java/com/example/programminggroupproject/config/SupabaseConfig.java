@@ -14,9 +14,10 @@ public class SupabaseConfig {
     private final String url;
     private final String apiKey;
     private final String anonKey;
+    private final boolean memoryBackend;
+    private final Properties properties = new Properties();
     
     private SupabaseConfig() {
-        Properties properties = new Properties();
         try (InputStream input = getClass().getClassLoader()
                 .getResourceAsStream("supabase.properties")) {
             
@@ -25,9 +26,11 @@ public class SupabaseConfig {
             }
             
             properties.load(input);
-            this.url = properties.getProperty("supabase.url");
-            this.apiKey = properties.getProperty("supabase.key");
-            this.anonKey = properties.getProperty("supabase.anon.key");
+            this.memoryBackend = "memory".equals(properties.getProperty("supabase.backend", "rest").trim());
+            // The in-memory backend needs no project, so these only have to be well-formed
+            this.url = properties.getProperty("supabase.url", memoryBackend ? "http://localhost" : null);
+            this.apiKey = properties.getProperty("supabase.key", memoryBackend ? "memory" : null);
+            this.anonKey = properties.getProperty("supabase.anon.key", memoryBackend ? "memory" : null);
             
             if (url == null || apiKey == null || anonKey == null) {
                 throw new RuntimeException("Supabase URL, API key, or anon key not configured");
@@ -59,6 +62,23 @@ public class SupabaseConfig {
         return anonKey;
     }
     
+    /**
+     * @return Whether supabase.backend=memory: requests are answered by InMemoryBackend
+     * instead of a Supabase project
+     */
+    public boolean isMemoryBackend() {
+        return memoryBackend;
+    }
+    
+    /**
+     * Get an optional setting from supabase.properties
+     * @param key The property name
+     * @param defaultValue Value returned when the property is not set
+     */
+    public String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+    
     public String getRestUrl() {
         return url + "/rest/v1";
     }
@@ -66,5 +86,12 @@ public class SupabaseConfig {
     public String getAuthUrl() {
         return url + "/auth/v1";
     }
+    
+    /**
+     * WebSocket endpoint of Supabase Realtime (https becomes wss)
+     */
+    public String getRealtimeUrl() {
+        return url.replaceFirst("^http", "ws") + "/realtime/v1/websocket";
+    }
 }
 
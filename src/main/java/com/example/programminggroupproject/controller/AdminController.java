@@ -59,6 +59,7 @@ public class AdminController {
         try {
             // Get all service requests and payments
             List<ServiceRequest> requests = serviceRequestService.getAll();
+            serviceRequestService.loadLazyColumns(requests); // service descriptions, for revenue by service
             List<Payment> completedPayments = paymentService.getCompletedPayments();
 
             // Get users safely
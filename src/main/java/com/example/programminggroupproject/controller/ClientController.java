@@ -9,7 +9,9 @@ import com.example.programminggroupproject.service.ServiceRequestService;
 import com.example.programminggroupproject.service.VehicleService;
 import com.example.programminggroupproject.service.MechanicShopService;
 import com.example.programminggroupproject.service.MechanicalService;
+import com.example.programminggroupproject.service.ReferenceData;
 import com.example.programminggroupproject.session.Session;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -88,11 +90,19 @@ public class ClientController {
     private final VehicleService vehicleService = VehicleService.getInstance();
     private final MechanicShopService shopService = MechanicShopService.getInstance();
     private final MechanicalService mechanicalService = MechanicalService.getInstance();
+    private final ReferenceData referenceData = ReferenceData.getInstance();
 
     private List<Vehicle> userVehicles;
     private List<MechanicShop> availableShops;
     private Map<CheckBox, BigDecimal> servicePrices = new HashMap<>();
 
+    /** What the combo boxes and service prices are filled from */
+    private record FormData(List<Vehicle> vehicles, List<MechanicShop> shops, List<Service> services) {
+        static FormData of(ReferenceData.Snapshot snapshot) {
+            return new FormData(snapshot.clientVehicles(), snapshot.shops(), snapshot.services());
+        }
+    }
+
     @FXML
     public void initialize() {
         // Group mechanic permissions
@@ -101,15 +111,69 @@ public class ClientController {
         permissionExtraRadio.setToggleGroup(permissionGroup);
         permissionAskRadio.setToggleGroup(permissionGroup);
 
-        // Load data from Supabase
-        loadVehiclesAndShops();
-
-        // Load service prices and add listeners
-        loadServicePrices();
         setupPriceListeners();
+
+        // Fill the form from the reference data preloaded at login if it is there already;
+        // if it is last session's data, refill it once the server has answered
+        ReferenceData.Snapshot shown = referenceData.getSnapshot();
+        if (shown != null) {
+            showFormData(FormData.of(shown));
+            if (shown.fromDisk()) {
+                referenceData.whenLoaded().thenAccept(fresh -> Platform.runLater(() -> reconcileWithServer(FormData.of(fresh))));
+            }
+        } else {
+            loadFormData();
+        }
+    }
+
+    /**
+     * Fill the form once the preload still running completes, or, if there is none or it
+     * failed, from the services; never waits on the JavaFX thread
+     */
+    private void loadFormData() {
+        User currentUser = Session.getCurrentUser();
+        referenceData.whenLoaded()
+                .handle((snapshot, error) -> snapshot)
+                .thenApplyAsync(snapshot -> snapshot != null ? FormData.of(snapshot) : new FormData(
+                        currentUser != null ? vehicleService.getByClientId(currentUser.getId()) : List.of(),
+                        shopService.getAllOrderedByName(),
+                        mechanicalService.getAll()))
+                .whenComplete((data, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        Throwable cause = error.getCause() != null ? error.getCause() : error;
+                        messageLabel.setStyle("-fx-text-fill: red;");
+                        messageLabel.setText("Error loading data: " + cause.getMessage());
+                        cause.printStackTrace();
+                        return;
+                    }
+                    showFormData(data);
+                }));
+    }
+
+    private void showFormData(FormData data) {
+        showVehiclesAndShops(data);
+        showServicePrices(data.services());
+    }
+
+    /**
+     * Refill the combo boxes and prices from the server's data, keeping the user's selections
+     */
+    private void reconcileWithServer(FormData fresh) {
+        String selectedVehicle = vehicleComboBox.getValue();
+        String selectedShop = shopComboBox.getValue();
+
+        showFormData(fresh);
+        updateTotalPrice();
+
+        if (vehicleComboBox.getItems().contains(selectedVehicle)) {
+            vehicleComboBox.setValue(selectedVehicle);
+        }
+        if (shopComboBox.getItems().contains(selectedShop)) {
+            shopComboBox.setValue(selectedShop);
+        }
     }
 
-    private void loadVehiclesAndShops() {
+    private void showVehiclesAndShops(FormData data) {
         User currentUser = Session.getCurrentUser();
         if (currentUser == null) {
             messageLabel.setStyle("-fx-text-fill: red;");
@@ -119,7 +183,7 @@ public class ClientController {
 
         try {
             // Load user's vehicles
-            userVehicles = vehicleService.getByClientId(currentUser.getId());
+            userVehicles = data.vehicles();
             vehicleComboBox.getItems().clear();
             for (Vehicle vehicle : userVehicles) {
                 String displayText = vehicle.getMake() + " " + vehicle.getModel() +
@@ -133,7 +197,7 @@ public class ClientController {
             }
 
             // Load available mechanic shops
-            availableShops = shopService.getAllOrderedByName();
+            availableShops = data.shops();
             shopComboBox.getItems().clear();
             for (MechanicShop shop : availableShops) {
                 shopComboBox.getItems().add(shop.getName());
@@ -150,9 +214,8 @@ public class ClientController {
         }
     }
 
-    private void loadServicePrices() {
+    private void showServicePrices(List<Service> services) {
         try {
-            List<Service> services = mechanicalService.getAll();
             for (Service service : services) {
                 String name = service.getName().toLowerCase();
                 BigDecimal price = service.getBasePrice();
@@ -333,20 +396,30 @@ public class ClientController {
             request.setServiceDescription(String.join(", ", services));
             request.setNotes(fullNotes);  // Use combined notes with permissions
 
-            // Save to Supabase
-            ServiceRequest createdRequest = serviceRequestService.create(request);
+            // Save to Supabase; the id is generated client-side, so it is known before the insert completes
+            serviceRequestService.createMinimalAsync(request)
+                    .whenComplete((createdRequest, error) -> Platform.runLater(() -> {
+                        if (error != null) {
+                            Throwable cause = error.getCause() != null ? error.getCause() : error;
+                            messageLabel.setStyle("-fx-text-fill: red;");
+                            messageLabel.setText("Error submitting request: " + cause.getMessage());
+                            System.err.println("Error submitting request " + request.getId() + ": " + cause.getMessage());
+                            return;
+                        }
+                        messageLabel.setStyle("-fx-text-fill: #28a745;");
+                        messageLabel.setText("Service request submitted successfully!");
+                        // Only now: if the insert failed, the user can correct and resend the form
+                        clearForm();
+                    }));
 
             System.out.println("=== New service request created ===");
-            System.out.println("Request ID: " + createdRequest.getId());
+            System.out.println("Request ID: " + request.getId());
             System.out.println("Vehicle: " + vehicleSelection);
             System.out.println("Shop: " + shopSelection);
             System.out.println("Services: " + String.join(", ", services));
 
-            messageLabel.setStyle("-fx-text-fill: #28a745;");
-            messageLabel.setText("Service request submitted successfully!");
-
-            // Clear form
-            clearForm();
+            messageLabel.setStyle("-fx-text-fill: #6c757d;");
+            messageLabel.setText("Submitting service request...");
 
         } catch (Exception e) {
             messageLabel.setStyle("-fx-text-fill: red;");
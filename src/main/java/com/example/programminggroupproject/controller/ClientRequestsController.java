@@ -1,10 +1,17 @@
 package com.example.programminggroupproject.controller;
 
+import com.example.programminggroupproject.cache.SnapshotStore;
+import com.example.programminggroupproject.client.RealtimeClient;
+import com.example.programminggroupproject.client.SupabaseClient;
 import com.example.programminggroupproject.model.ServiceRequest;
 import com.example.programminggroupproject.model.Vehicle;
+import com.example.programminggroupproject.service.ReferenceData;
+import com.example.programminggroupproject.service.Revalidating;
 import com.example.programminggroupproject.service.ServiceRequestService;
 import com.example.programminggroupproject.service.VehicleService;
 import com.example.programminggroupproject.session.Session;
+import com.fasterxml.jackson.core.type.TypeReference;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -16,8 +23,13 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class ClientRequestsController {
@@ -55,6 +67,11 @@ public class ClientRequestsController {
 
     private final ServiceRequestService serviceRequestService = ServiceRequestService.getInstance();
     private final VehicleService vehicleService = VehicleService.getInstance();
+    private final ReferenceData referenceData = ReferenceData.getInstance();
+    private final SnapshotStore snapshotStore = SnapshotStore.getInstance();
+    private final RealtimeClient realtimeClient = RealtimeClient.getInstance();
+    private RealtimeClient.Subscription statusSubscription;
+    private boolean closed;
     
     // Store all requests for filtering
     private List<ServiceRequest> allRequests;
@@ -74,6 +91,7 @@ public class ClientRequestsController {
 
         // Load requests for current user
         loadClientRequests();
+        subscribeToChanges();
     }
 
     /**
@@ -97,7 +115,10 @@ public class ClientRequestsController {
 
 
     /**
-     * Load all service requests for the current user
+     * Load all service requests for the current user.
+     * The last list seen this session (or, on first open, the one saved by the last
+     * session) is shown straight away; the fresh list is fetched in the background
+     * and replaces it when it arrives.
      */
     private void loadClientRequests() {
         if (Session.getCurrentUser() == null) {
@@ -105,33 +126,169 @@ public class ClientRequestsController {
             return;
         }
     
-        try {
-            UUID clientId = Session.getCurrentUser().getId();
-            
-            // Load user's vehicles for filter dropdown
-            userVehicles = vehicleService.getByClientId(clientId);
-            updateVehicleFilter();
-            
-            // Load all service requests for the client
-            allRequests = serviceRequestService.getByClientId(clientId);
-    
+        UUID clientId = Session.getCurrentUser().getId();
+        String snapshotKey = "client_requests:" + clientId;
+        
+        // Load user's vehicles for filter dropdown (preloaded at login when possible)
+        ReferenceData.Snapshot referenceSnapshot = referenceData.getSnapshot();
+        userVehicles = referenceSnapshot != null
+                ? referenceSnapshot.clientVehicles()
+                : vehicleService.getByClientId(clientId);
+        updateVehicleFilter();
+        
+        Revalidating<List<ServiceRequest>> requests = serviceRequestService.getByClientIdRevalidating(clientId);
+        Optional<List<ServiceRequest>> cached = requests.cached();
+        if (cached.isPresent()) {
+            cached.get().forEach(this::enrichFromCache);
+            showRequests(cached.get());
+        } else if (allRequests == null) {
+            snapshotStore.read(snapshotKey, new TypeReference<List<ServiceRequest>>() {})
+                    .ifPresent(this::showRequests);
+        }
+        
+        requests.fresh().thenApplyAsync(fresh -> {
+            // The services column and the search need the service descriptions
+            serviceRequestService.loadLazyColumns(fresh);
             // Enrich with vehicle info
-            for (ServiceRequest request : allRequests) {
+            for (ServiceRequest request : fresh) {
                 enrichRequestWithVehicleInfo(request);
             }
+            snapshotStore.save(snapshotKey, fresh);
+            return fresh;
+        }).whenComplete((fresh, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                messageLabel.setStyle("-fx-text-fill: red;");
+                messageLabel.setText("Error loading requests: " + cause.getMessage());
+                cause.printStackTrace();
+                return;
+            }
+            showRequests(fresh);
+        }));
+    }
     
-            // Display all requests initially
-            displayRequests(allRequests);
-            
-            // Update message
-            messageLabel.setStyle("-fx-text-fill: #666;");
-            messageLabel.setText(allRequests.size() + " service request(s) found");
-            
-        } catch (Exception e) {
-            messageLabel.setStyle("-fx-text-fill: red;");
-            messageLabel.setText("Error loading requests: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Apply status changes to the client's requests as they happen: updated request rows,
+     * and new status updates of the requests on screen
+     */
+    private void subscribeToChanges() {
+        if (Session.getCurrentUser() == null) {
+            return;
         }
+        UUID clientId = Session.getCurrentUser().getId();
+
+        RealtimeClient.Subscription requestSubscription = realtimeClient.subscribe("service_requests",
+                "client_id=eq." + clientId, change -> LiveUpdates.apply(() -> {
+                    // Enriching may fetch the vehicle, so not on the socket's thread
+                    ServiceRequest request = serviceRequestService.applyRemoteChange(change.record());
+                    enrichRequestWithVehicleInfo(request);
+                    Platform.runLater(() -> applyChangedRequest(request));
+                }));
+        Consumer<Boolean> onConnection = connected -> {
+            if (connected) {
+                Platform.runLater(this::loadClientRequests);
+            }
+        };
+        realtimeClient.addConnectionListener(onConnection);
+
+        LiveUpdates.whenClosed(requestsTable, () -> {
+            closed = true;
+            requestSubscription.close();
+            if (statusSubscription != null) {
+                statusSubscription.close();
+            }
+            realtimeClient.removeConnectionListener(onConnection);
+        });
+
+        // Without a realtime connection, reload only when the client's change token moves
+        LiveUpdates.pollWhileDisconnected(requestsTable, serviceRequestService.changePoller(
+                Map.of("client_id", "eq." + clientId), () -> Platform.runLater(this::loadClientRequests)));
+        LiveUpdates.reloadAfterOffline(requestsTable, this::loadClientRequests);
+    }
+
+    /**
+     * (Re)subscribe to status updates of the requests on screen; Realtime accepts at most 100 ids per filter
+     */
+    private void subscribeToStatusUpdates(List<ServiceRequest> requests) {
+        if (statusSubscription != null) {
+            statusSubscription.close();
+            statusSubscription = null;
+        }
+        if (closed) {
+            return;
+        }
+        List<UUID> ids = requests.stream().map(ServiceRequest::getId).limit(100).toList();
+        if (ids.isEmpty()) {
+            return;
+        }
+        statusSubscription = realtimeClient.subscribe("service_status_updates",
+                "service_request_id=" + SupabaseClient.inList(ids), change -> {
+                    String requestId = change.record().path("service_request_id").asText();
+                    String status = change.record().path("status").asText(null);
+                    Platform.runLater(() -> allRequests.stream()
+                            .filter(request -> request.getId().toString().equals(requestId))
+                            .findFirst()
+                            .ifPresent(request -> {
+                                request.setStatus(status);
+                                requestsTable.refresh();
+                            }));
+                });
+    }
+
+    /**
+     * Replace (or add) one request in the list, keeping the current filters
+     */
+    private void applyChangedRequest(ServiceRequest changed) {
+        List<ServiceRequest> requests = new ArrayList<>(allRequests != null ? allRequests : List.of());
+        boolean replaced = false;
+        for (int i = 0; i < requests.size() && !replaced; i++) {
+            if (requests.get(i).getId().equals(changed.getId())) {
+                requests.set(i, changed);
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            requests.add(0, changed);
+        }
+        allRequests = requests;
+        handleApplyFilter();
+    }
+
+    /**
+     * Show a list of requests and the number found
+     */
+    private void showRequests(List<ServiceRequest> requests) {
+        boolean requestsChanged = allRequests == null || !idsOf(allRequests).equals(idsOf(requests));
+        allRequests = requests;
+        if (requestsChanged) {
+            subscribeToStatusUpdates(requests);
+        }
+        
+        // Display all requests initially
+        displayRequests(allRequests);
+        
+        // Update message
+        messageLabel.setStyle("-fx-text-fill: #666;");
+        messageLabel.setText(allRequests.size() + " service request(s) found");
+    }
+
+    /**
+     * Fill in vehicle info from the client's loaded vehicles or the vehicle cache,
+     * without network requests; anything not found is left for the fresh list
+     */
+    private void enrichFromCache(ServiceRequest request) {
+        if (request.getVehicleId() == null) {
+            return;
+        }
+        userVehicles.stream()
+                .filter(vehicle -> request.getVehicleId().equals(vehicle.getId()))
+                .findFirst()
+                .or(() -> vehicleService.getCached(request.getVehicleId()))
+                .ifPresent(vehicle -> request.setVehicleInfo(vehicle.getFullInfo()));
+    }
+
+    private static Set<UUID> idsOf(List<ServiceRequest> requests) {
+        return requests.stream().map(ServiceRequest::getId).collect(Collectors.toSet());
     }
 
     /**
@@ -1,6 +1,13 @@
 package com.example.programminggroupproject.controller;
 
+import com.example.programminggroupproject.cache.QueryCache;
+import com.example.programminggroupproject.cache.SnapshotStore;
+import com.example.programminggroupproject.client.RealtimeClient;
 import com.example.programminggroupproject.model.User;
+import com.example.programminggroupproject.service.OfflineMode;
+import com.example.programminggroupproject.service.ReferenceData;
+import com.example.programminggroupproject.service.ServiceRequestService;
+import com.example.programminggroupproject.service.WriteBehindQueue;
 import com.example.programminggroupproject.session.Session;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -57,8 +64,16 @@ public class DashboardController {
 
     @FXML
     private void handleLogout() {
+        // Queued writes still need the session to be sent
+        WriteBehindQueue.getInstance().close();
         // Clear current user
         Session.clear();
+        ReferenceData.getInstance().clearUserData();
+        SnapshotStore.getInstance().close();
+        OfflineMode.getInstance().close();
+        QueryCache.getInstance().clear();
+        ServiceRequestService.getInstance().clearSyncs();
+        RealtimeClient.getInstance().disconnect();
 
         try {
             FXMLLoader loader = new FXMLLoader(
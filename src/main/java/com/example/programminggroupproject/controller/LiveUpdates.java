@@ -0,0 +1,108 @@
+package com.example.programminggroupproject.controller;
+
+import com.example.programminggroupproject.client.RealtimeClient;
+import com.example.programminggroupproject.service.ChangePoller;
+import com.example.programminggroupproject.service.OfflineMode;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Ties background update sources (realtime subscriptions, pollers) to a screen.
+ * Screens are swapped with Stage.setScene, which leaves controllers no close hook,
+ * so the node's scene leaving its window is taken as the screen being closed.
+ */
+final class LiveUpdates {
+
+    private static final ExecutorService WORKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "live-updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private LiveUpdates() {
+    }
+
+    /**
+     * Run the work for a received change (e.g. lookups to enrich a row) off the thread that
+     * delivered it, so a slow lookup does not hold up other subscriptions' events. Changes
+     * are worked on one at a time, in the order they arrived.
+     */
+    static void apply(Runnable work) {
+        WORKER.execute(() -> {
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error applying a live update: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Run {@code onClosed} once, when the screen containing {@code node} is replaced
+     */
+    static void whenClosed(Node node, Runnable onClosed) {
+        node.sceneProperty().flatMap(Scene::windowProperty).addListener((observable, oldWindow, window) -> {
+            if (oldWindow != null && window == null) {
+                onClosed.run();
+            }
+        });
+    }
+
+    /**
+     * Run the poller while realtime updates are unavailable, until the screen is replaced
+     */
+    static void pollWhileDisconnected(Node node, ChangePoller poller) {
+        RealtimeClient realtimeClient = RealtimeClient.getInstance();
+        Consumer<Boolean> onConnection = connected -> {
+            if (connected) {
+                poller.stop();
+            } else {
+                poller.start();
+            }
+        };
+        realtimeClient.addConnectionListener(onConnection);
+        if (!realtimeClient.isConnected()) {
+            poller.start();
+        }
+
+        whenClosed(node, () -> {
+            realtimeClient.removeConnectionListener(onConnection);
+            poller.stop();
+        });
+    }
+
+    /**
+     * Reload once writes made offline have been sent, and tell the user about any that
+     * could not be applied because the rows were changed elsewhere in the meantime
+     */
+    static void reloadAfterOffline(Node node, Runnable reload) {
+        OfflineMode offlineMode = OfflineMode.getInstance();
+        Consumer<Boolean> onConnection = online -> {
+            if (online) {
+                Platform.runLater(reload);
+            }
+        };
+        Consumer<List<OfflineMode.Conflict>> onConflicts = conflicts -> Platform.runLater(() -> {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setTitle("Offline Changes");
+            alert.setHeaderText(conflicts.size() + " change(s) made offline could not be applied");
+            alert.setContentText("The affected records were changed by someone else in the meantime. "
+                    + "The list now shows their current state.");
+            alert.show();
+        });
+        offlineMode.addConnectionListener(onConnection);
+        offlineMode.addConflictListener(onConflicts);
+
+        whenClosed(node, () -> {
+            offlineMode.removeConnectionListener(onConnection);
+            offlineMode.removeConflictListener(onConflicts);
+        });
+    }
+}
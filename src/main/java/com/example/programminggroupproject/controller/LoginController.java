@@ -1,6 +1,10 @@
 package com.example.programminggroupproject.controller;
 
+import com.example.programminggroupproject.cache.SnapshotStore;
 import com.example.programminggroupproject.service.AuthService;
+import com.example.programminggroupproject.service.OfflineMode;
+import com.example.programminggroupproject.service.ReferenceData;
+import com.example.programminggroupproject.service.WriteBehindQueue;
 import com.example.programminggroupproject.model.User;
 import com.example.programminggroupproject.session.Session;
 import javafx.fxml.FXML;
@@ -45,6 +49,11 @@ public class LoginController {
 
         if (user != null) {
             Session.setCurrentUser(user);
+            SnapshotStore.getInstance().open(user.getId());
+            OfflineMode.getInstance().open(user.getId());
+            WriteBehindQueue.getInstance().open(user.getId());
+            // Shops, service catalog and the client's vehicles load in the background while the dashboard opens
+            ReferenceData.getInstance().preload(user);
             navigateToDashboard(user);
         } else {
             errorLabel.setText("Invalid email or password");
@@ -1,11 +1,16 @@
 package com.example.programminggroupproject.controller;
 
+import com.example.programminggroupproject.cache.SnapshotStore;
+import com.example.programminggroupproject.client.RealtimeClient;
 import com.example.programminggroupproject.model.ServiceRequest;
 import com.example.programminggroupproject.model.Vehicle;
+import com.example.programminggroupproject.service.DeltaSync;
 import com.example.programminggroupproject.service.ServiceRequestService;
 import com.example.programminggroupproject.service.UserService;
 import com.example.programminggroupproject.service.VehicleService;
 import com.example.programminggroupproject.session.Session;
+import com.fasterxml.jackson.core.type.TypeReference;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,8 +20,13 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import com.example.programminggroupproject.service.PaymentService;
 import com.example.programminggroupproject.model.Payment;
@@ -69,6 +79,8 @@ public class MechanicController {
     private final PaymentService paymentService = PaymentService.getInstance();
     private final VehicleService vehicleService = VehicleService.getInstance();
     private final UserService userService = UserService.getInstance();
+    private final SnapshotStore snapshotStore = SnapshotStore.getInstance();
+    private final RealtimeClient realtimeClient = RealtimeClient.getInstance();
 
     @FXML
     public void initialize() {
@@ -80,11 +92,15 @@ public class MechanicController {
         colStatus.setCellValueFactory(new PropertyValueFactory<>("status"));
         colDate.setCellValueFactory(new PropertyValueFactory<>("createdAt"));
 
+        // Allow bulk accept / reject / complete
+        requestsTable.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+
         // Initialize filter controls
         initializeFilters();
 
         // Load data from Supabase
         loadServiceRequests();
+        subscribeToChanges();
     }
 
     /**
@@ -107,84 +123,185 @@ public class MechanicController {
     }
 
     /**
-     * Load all service requests for the mechanic's shop
+     * Load all service requests for the mechanic's shop.
+     * The shop's requests are kept in a DeltaSync, so after the first load (and after
+     * accepting, rejecting or completing) only requests changed since the last load are
+     * fetched and enriched. On first open the list saved by the last session is shown
+     * straight away and replaced when the load completes.
      */
     private void loadServiceRequests() {
-        try {
-            if (Session.getCurrentUser() == null || Session.getCurrentUser().getShopId() == null) {
-                System.err.println("No user or shop ID found");
+        if (Session.getCurrentUser() == null || Session.getCurrentUser().getShopId() == null) {
+            System.err.println("No user or shop ID found");
+            return;
+        }
+
+        UUID shopId = Session.getCurrentUser().getShopId();
+        String snapshotKey = "shop_requests:" + shopId;
+        DeltaSync<ServiceRequest> requestSync = serviceRequestService.shopSync(shopId);
+
+        if (allRequests == null) {
+            if (requestSync.hasSynced()) {
+                showRequests(requestSync.getRows());
+            } else {
+                snapshotStore.read(snapshotKey, new TypeReference<List<ServiceRequest>>() {})
+                        .ifPresent(this::showSnapshot);
+            }
+        }
+
+        CompletableFuture.supplyAsync(() -> {
+            DeltaSync.Result<ServiceRequest> result = requestSync.sync();
+            // Unchanged requests keep the client name and vehicle info they were given before
+            enrichServiceRequests(result.changed());
+            if (!result.changed().isEmpty()) {
+                snapshotStore.save(snapshotKey, result.rows());
+            }
+            return result.rows();
+        }).whenComplete((requests, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                System.err.println("Error loading service requests: " + error.getMessage());
                 return;
             }
+            showRequests(requests);
+        }));
+    }
 
-            // Get all service requests from Supabase for this shop
-            List<ServiceRequest> requests = serviceRequestService.getByShopId(
-                Session.getCurrentUser().getShopId()
-            );
+    /**
+     * Show the list saved by the last session. It is saved without the lazy columns
+     * (service description and notes), which the table and the search need, so they are
+     * loaded in the background unless the sync has replaced the list by then.
+     */
+    private void showSnapshot(List<ServiceRequest> snapshot) {
+        showRequests(snapshot);
+        CompletableFuture.runAsync(() -> serviceRequestService.loadLazyColumns(snapshot))
+                .whenComplete((ignored, error) -> Platform.runLater(() -> {
+                    if (error != null) {
+                        System.err.println("Error loading request details: " + error.getMessage());
+                        return;
+                    }
+                    if (allRequests == snapshot) {
+                        refreshRequests(snapshot);
+                    }
+                }));
+    }
 
-            // Populate display fields and collect unique clients
-            List<String> uniqueClients = new java.util.ArrayList<>();
-            
-            for (ServiceRequest request : requests) {
-                // Try to fetch client name
-                if (request.getClientId() != null) {
-                    try {
-                        var userOptional = userService.get(request.getClientId());
-                        if (userOptional.isPresent()) {
-                            String clientName = userOptional.get().getFullName();
-                            request.setClientName(clientName);
-                            if (!uniqueClients.contains(clientName)) {
-                                uniqueClients.add(clientName);
-                            }
-                        } else {
-                            request.setClientName("Unknown Client");
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error fetching client (RLS issue?): " + e.getMessage());
-                        // Fallback to ID if name fetch fails
-                        request.setClientName("Client " + request.getClientId().toString().substring(0, 8));
+    /**
+     * Apply new and updated requests of the shop to the table as they happen.
+     * Whenever the connection (re)opens the list is delta-synced, covering changes made
+     * before the channel was joined or while disconnected, which are not replayed.
+     */
+    private void subscribeToChanges() {
+        if (Session.getCurrentUser() == null || Session.getCurrentUser().getShopId() == null) {
+            return;
+        }
+        UUID shopId = Session.getCurrentUser().getShopId();
+        DeltaSync<ServiceRequest> requestSync = serviceRequestService.shopSync(shopId);
+
+        RealtimeClient.Subscription subscription = realtimeClient.subscribe("service_requests", "shop_id=eq." + shopId,
+                change -> LiveUpdates.apply(() -> {
+                    // Enriching looks up the client and vehicle, so not on the socket's thread
+                    ServiceRequest request = serviceRequestService.applyRemoteChange(change.record());
+                    enrichServiceRequests(List.of(request));
+                    requestSync.apply(request);
+                    Platform.runLater(() -> refreshRequests(requestSync.getRows()));
+                }));
+        Consumer<Boolean> onConnection = connected -> {
+            if (connected) {
+                Platform.runLater(this::loadServiceRequests);
+            }
+        };
+        realtimeClient.addConnectionListener(onConnection);
+
+        LiveUpdates.whenClosed(requestsTable, () -> {
+            subscription.close();
+            realtimeClient.removeConnectionListener(onConnection);
+        });
+
+        // Without a realtime connection, poll the shop's change token and delta-sync when it moves
+        LiveUpdates.pollWhileDisconnected(requestsTable, serviceRequestService.changePoller(
+                Map.of("shop_id", "eq." + shopId), () -> Platform.runLater(this::loadServiceRequests)));
+        LiveUpdates.reloadAfterOffline(requestsTable, this::loadServiceRequests);
+    }
+
+    /**
+     * Show an updated list of requests, keeping the filters the mechanic has set
+     */
+    private void refreshRequests(List<ServiceRequest> requests) {
+        String clientFilter = clientFilterComboBox.getValue();
+        showRequests(requests);
+        if (clientFilterComboBox.getItems().contains(clientFilter)) {
+            clientFilterComboBox.setValue(clientFilter);
+        }
+        handleApplyFilter();
+    }
+
+    /**
+     * Fill in client names and vehicle info of fetched requests
+     */
+    private void enrichServiceRequests(List<ServiceRequest> requests) {
+        // Populate display fields
+        for (ServiceRequest request : requests) {
+            // Try to fetch client name
+            if (request.getClientId() != null) {
+                try {
+                    var userOptional = userService.get(request.getClientId());
+                    if (userOptional.isPresent()) {
+                        request.setClientName(userOptional.get().getFullName());
+                    } else {
+                        request.setClientName("Unknown Client");
                     }
-                } else {
-                    request.setClientName("No Client");
+                } catch (Exception e) {
+                    System.err.println("Error fetching client (RLS issue?): " + e.getMessage());
+                    // Fallback to ID if name fetch fails
+                    request.setClientName("Client " + request.getClientId().toString().substring(0, 8));
                 }
+            } else {
+                request.setClientName("No Client");
+            }
 
-                // Fetch and set vehicle info
-                if (request.getVehicleId() != null) {
-                    try {
-                        var vehicleOptional = vehicleService.get(request.getVehicleId());
-
-                        if (vehicleOptional.isPresent()) {
-                            Vehicle vehicle = vehicleOptional.get();
-                            String vehicleInfo = vehicle.getMake() + " " + vehicle.getModel() +
-                                    " - " + vehicle.getLicensePlate();
-                            request.setVehicleInfo(vehicleInfo);
-                        } else {
-                            request.setVehicleInfo("Vehicle Not Found");
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Error fetching vehicle: " + e.getMessage());
-                        request.setVehicleInfo("Error loading vehicle");
+            // Fetch and set vehicle info
+            if (request.getVehicleId() != null) {
+                try {
+                    var vehicleOptional = vehicleService.get(request.getVehicleId());
+
+                    if (vehicleOptional.isPresent()) {
+                        Vehicle vehicle = vehicleOptional.get();
+                        String vehicleInfo = vehicle.getMake() + " " + vehicle.getModel() +
+                                " - " + vehicle.getLicensePlate();
+                        request.setVehicleInfo(vehicleInfo);
+                    } else {
+                        request.setVehicleInfo("Vehicle Not Found");
                     }
-                } else {
-                    request.setVehicleInfo("No Vehicle");
+                } catch (Exception e) {
+                    System.err.println("Error fetching vehicle: " + e.getMessage());
+                    request.setVehicleInfo("Error loading vehicle");
                 }
+            } else {
+                request.setVehicleInfo("No Vehicle");
             }
+        }
+    }
 
-            // Store all requests for filtering
-            allRequests = requests;
+    /**
+     * Show a list of requests and rebuild the client filter from it
+     */
+    private void showRequests(List<ServiceRequest> requests) {
+        List<String> uniqueClients = requests.stream()
+                .map(ServiceRequest::getClientName)
+                .filter(name -> name != null)
+                .distinct()
+                .collect(Collectors.toList());
 
-            // Update client filter dropdown
-            updateClientFilter(uniqueClients);
+        // Store all requests for filtering
+        allRequests = requests;
 
-            // Display all requests
-            displayRequests(requests);
-            
-            // Update results count
-            updateFilterResultsLabel(requests.size(), requests.size());
+        // Update client filter dropdown
+        updateClientFilter(uniqueClients);
 
-        } catch (Exception e) {
-            System.err.println("Error loading service requests: " + e.getMessage());
-            e.printStackTrace();
-        }
+        // Display all requests
+        displayRequests(requests);
+
+        // Update results count
+        updateFilterResultsLabel(requests.size(), requests.size());
     }
 
     /**
@@ -294,20 +411,32 @@ public class MechanicController {
         }
     }
 
+    /**
+     * Get the selected requests that currently have the given status
+     */
+    private List<ServiceRequest> selectedWithStatus(String status) {
+        return requestsTable.getSelectionModel().getSelectedItems().stream()
+                .filter(request -> status.equals(request.getStatus()))
+                .collect(Collectors.toList());
+    }
+
+    private List<UUID> idsOf(List<ServiceRequest> requests) {
+        return requests.stream().map(ServiceRequest::getId).collect(Collectors.toList());
+    }
+
     @FXML
     private void handleAccept() {
-        ServiceRequest selected = requestsTable.getSelectionModel
-        ().getSelectedItem();
+        List<ServiceRequest> selected = selectedWithStatus("Pending");
         
-        if (selected != null && "Pending".equals(selected.getStatus())) {
+        if (!selected.isEmpty()) {
             try {
-                serviceRequestService.assignMechanic(
-                        selected.getId(),
+                serviceRequestService.assignMechanicToPending(
+                        idsOf(selected),
                         Session.getCurrentUser().getId());
                 loadServiceRequests();
                 requestsTable.refresh();
             } catch (Exception e) {
-                System.err.println("Error accepting request: " + e.getMessage());
+                System.err.println("Error accepting requests: " + e.getMessage());
                 e.printStackTrace();
             }
         }
@@ -315,14 +444,14 @@ public class MechanicController {
 
     @FXML
     private void handleReject() {
-        ServiceRequest selected = requestsTable.getSelectionModel().getSelectedItem();
-        if (selected != null && "Pending".equals(selected.getStatus())) {
+        List<ServiceRequest> selected = selectedWithStatus("Pending");
+        if (!selected.isEmpty()) {
             try {
-                serviceRequestService.updateStatus(selected.getId(), "Rejected");
+                serviceRequestService.updateStatusWhere(idsOf(selected), "Pending", "Rejected");
                 loadServiceRequests();
                 requestsTable.refresh();
             } catch (Exception e) {
-                System.err.println("Error rejecting request: " + e.getMessage());
+                System.err.println("Error rejecting requests: " + e.getMessage());
                 e.printStackTrace();
             }
         }
@@ -330,58 +459,110 @@ public class MechanicController {
 
     @FXML
     private void handleComplete() {
-        ServiceRequest selected = requestsTable.getSelectionModel().getSelectedItem();
-        System.out.println("Selected request: " + selected);
-        System.out.println("Status: " + (selected != null ? selected.getStatus() : "null"));
-
-        if (selected != null && "In Progress".equals(selected.getStatus())) {
-            // Show dialog to enter final price
-            TextInputDialog dialog = new TextInputDialog(
-                selected.getTotalPriceEstimated() != null 
-                    ? selected.getTotalPriceEstimated().toString() 
-                    : "0.00"
-            );
-            dialog.setTitle("Complete Service");
-            dialog.setHeaderText("Enter Final Price");
-            dialog.setContentText("Final price (€):");
-
-            Optional<String> result = dialog.showAndWait();
-            if (result.isPresent()) {
-                try {
-                    BigDecimal finalPrice = new BigDecimal(result.get().replace(",", "."));
-                    
-                    if (finalPrice.compareTo(BigDecimal.ZERO) < 0) {
-                        showError("Price cannot be negative.");
-                        return;
-                    }
+        List<ServiceRequest> selected = selectedWithStatus("In Progress");
 
-                    // Update the service request with final price
-                    selected.setTotalPriceFinal(finalPrice);
-                    serviceRequestService.updateStatus(selected.getId(), "Completed");
-                    
-                    // Also update the final price in database
-                    ServiceRequest updated = serviceRequestService.get(selected.getId()).orElse(selected);
-                    updated.setTotalPriceFinal(finalPrice);
-                    serviceRequestService.update(selected.getId(), updated);
-
-                    // Create payment with the final price
-                    Payment payment = new Payment();
-                    payment.setServiceRequestId(selected.getId());
-                    payment.setAmount(finalPrice);  // Use final price entered by mechanic
-                    payment.setStatus("Pending");
-                    paymentService.create(payment);
+        if (selected.size() == 1) {
+            completeSingle(selected.get(0));
+        } else if (selected.size() > 1) {
+            completeMultiple(selected);
+        } else {
+            showError("Please select a request that is 'In Progress'.");
+        }
+    }
+
+    /**
+     * Complete one request, asking the mechanic for the final price
+     */
+    private void completeSingle(ServiceRequest selected) {
+        // Show dialog to enter final price
+        TextInputDialog dialog = new TextInputDialog(
+            selected.getTotalPriceEstimated() != null 
+                ? selected.getTotalPriceEstimated().toString() 
+                : "0.00"
+        );
+        dialog.setTitle("Complete Service");
+        dialog.setHeaderText("Enter Final Price");
+        dialog.setContentText("Final price (€):");
+
+        Optional<String> result = dialog.showAndWait();
+        if (result.isPresent()) {
+            try {
+                BigDecimal finalPrice = new BigDecimal(result.get().replace(",", "."));
+                
+                if (finalPrice.compareTo(BigDecimal.ZERO) < 0) {
+                    showError("Price cannot be negative.");
+                    return;
+                }
 
+                // Update status and final price in one request
+                List<UUID> completed = serviceRequestService.completeAll(List.of(selected.getId()), finalPrice);
+                if (completed.isEmpty()) {
+                    showError("This request is no longer in progress; it was not completed.");
                     loadServiceRequests();
-                    requestsTable.refresh();
-                } catch (NumberFormatException e) {
-                    showError("Invalid price format. Please enter a valid number.");
-                } catch (Exception e) {
-                    showError("Error completing request: " + e.getMessage());
-                    e.printStackTrace();
+                    return;
                 }
+
+                // Create payment with the final price
+                Payment payment = new Payment();
+                payment.setServiceRequestId(selected.getId());
+                payment.setAmount(finalPrice);  // Use final price entered by mechanic
+                payment.setStatus("Pending");
+                paymentService.create(payment);
+
+                loadServiceRequests();
+                requestsTable.refresh();
+            } catch (NumberFormatException e) {
+                showError("Invalid price format. Please enter a valid number.");
+            } catch (Exception e) {
+                showError("Error completing request: " + e.getMessage());
+                e.printStackTrace();
             }
-        } else {
-            showError("Please select a request that is 'In Progress'.");
+        }
+    }
+
+    /**
+     * Complete several requests at once, each at its estimated price.
+     * Requests sharing the same price are completed with a single update.
+     */
+    private void completeMultiple(List<ServiceRequest> selected) {
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+        confirm.setTitle("Complete Services");
+        confirm.setHeaderText("Complete " + selected.size() + " services?");
+        confirm.setContentText("Each service will be completed at its estimated price.");
+
+        Optional<ButtonType> result = confirm.showAndWait();
+        if (result.isEmpty() || result.get() != ButtonType.OK) {
+            return;
+        }
+
+        try {
+            Map<BigDecimal, List<ServiceRequest>> byPrice = selected.stream()
+                    .collect(Collectors.groupingBy(request -> request.getTotalPriceEstimated() != null
+                            ? request.getTotalPriceEstimated()
+                            : BigDecimal.ZERO));
+
+            // Bill only the requests each update actually completed, as soon as it has
+            int completedCount = 0;
+            for (Map.Entry<BigDecimal, List<ServiceRequest>> entry : byPrice.entrySet()) {
+                List<UUID> completed = serviceRequestService.completeAll(idsOf(entry.getValue()), entry.getKey());
+                List<Payment> payments = new ArrayList<>();
+                for (UUID requestId : completed) {
+                    payments.add(new Payment(requestId, entry.getKey(), "Pending"));
+                }
+                if (!payments.isEmpty()) {
+                    paymentService.createMultiple(payments);
+                }
+                completedCount += completed.size();
+            }
+
+            loadServiceRequests();
+            requestsTable.refresh();
+            if (completedCount < selected.size()) {
+                showError((selected.size() - completedCount) + " of the selected requests were no longer in progress and were not completed.");
+            }
+        } catch (Exception e) {
+            showError("Error completing requests: " + e.getMessage());
+            e.printStackTrace();
         }
     }
 
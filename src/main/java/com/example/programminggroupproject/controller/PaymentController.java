@@ -1,11 +1,14 @@
 package com.example.programminggroupproject.controller;
 
 import com.example.programminggroupproject.CarServiceApp;
+import com.example.programminggroupproject.client.RealtimeClient;
+import com.example.programminggroupproject.client.SupabaseClient;
 import com.example.programminggroupproject.model.Payment;
 import com.example.programminggroupproject.model.ServiceRequest;
 import com.example.programminggroupproject.service.PaymentService;
 import com.example.programminggroupproject.service.ServiceRequestService;
 import com.example.programminggroupproject.session.Session;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -18,8 +21,12 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class PaymentController {
 
@@ -33,15 +40,22 @@ public class PaymentController {
     private final PaymentService paymentService = PaymentService.getInstance();
     private final ServiceRequestService serviceRequestService = ServiceRequestService.getInstance();
     private final ObservableList<Payment> paymentList = FXCollections.observableArrayList();
+    private final Map<UUID, ServiceRequest> requestsById = new HashMap<>();
+    private final RealtimeClient realtimeClient = RealtimeClient.getInstance();
+    private RealtimeClient.Subscription paymentSubscription;
+    private boolean closed;
+
+    /** The client's requests together with their payments, as loaded at one point in time */
+    private record ClientPayments(List<ServiceRequest> requests, List<Payment> payments) {
+    }
 
     @FXML
     public void initialize() {
         // Service description column
         colDescription.setCellValueFactory(cellData -> {
-            Payment payment = cellData.getValue();
-            return serviceRequestService.get(payment.getServiceRequestId())
-                    .map(sr -> new SimpleStringProperty(sr.getServiceDescription() != null ? sr.getServiceDescription() : "N/A"))
-                    .orElse(new SimpleStringProperty("N/A"));
+            ServiceRequest request = requestsById.get(cellData.getValue().getServiceRequestId());
+            return new SimpleStringProperty(request != null && request.getServiceDescription() != null
+                    ? request.getServiceDescription() : "N/A");
         });
 
         // Amount column
@@ -65,18 +79,92 @@ public class PaymentController {
         });
 
         loadPayments();
+        LiveUpdates.whenClosed(paymentsTable, () -> {
+            closed = true;
+            if (paymentSubscription != null) {
+                paymentSubscription.close();
+            }
+        });
     }
 
+    /**
+     * Show the last known payments at once, then replace them with the server's.
+     * Payments of all requests are read in one query instead of one per request.
+     */
     private void loadPayments() {
         UUID clientId = Session.getCurrentUser().getId();
-        List<ServiceRequest> clientRequests = serviceRequestService.getByClientId(clientId);
+        paymentsTable.setItems(paymentList);
+
+        serviceRequestService.getByClientIdRevalidating(clientId)
+                .peekFresh(serviceRequestService::loadLazyColumns)
+                .flatMap(requests -> paymentService
+                        .getByServiceRequestIdsRevalidating(requests.stream().map(ServiceRequest::getId).toList())
+                        .map(payments -> new ClientPayments(requests, payments)))
+                .subscribe(Platform::runLater, this::showPayments, e -> {
+                    messageLabel.setStyle("-fx-text-fill: red;");
+                    messageLabel.setText("Error loading payments: " + e.getMessage());
+                });
+    }
+
+    private void showPayments(ClientPayments loaded) {
+        if (!requestsById.keySet().equals(idsOf(loaded.requests()))) {
+            subscribeToPayments(loaded.requests());
+        }
+        requestsById.clear();
+        loaded.requests().forEach(request -> requestsById.put(request.getId(), request));
+
+        // First payment of each request, in request order
+        Map<UUID, Payment> paymentByRequest = new HashMap<>();
+        for (Payment payment : loaded.payments()) {
+            paymentByRequest.putIfAbsent(payment.getServiceRequestId(), payment);
+        }
 
         paymentList.clear();
-        for (ServiceRequest request : clientRequests) {
-            paymentService.getPaymentForServiceRequest(request.getId())
-                    .ifPresent(paymentList::add);
+        for (ServiceRequest request : loaded.requests()) {
+            Payment payment = paymentByRequest.get(request.getId());
+            if (payment != null) {
+                paymentList.add(payment);
+            }
+        }
+    }
+
+    private static Set<UUID> idsOf(List<ServiceRequest> requests) {
+        return requests.stream().map(ServiceRequest::getId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Apply new and updated payments of the client's requests as they happen
+     * (Realtime accepts at most 100 ids per filter)
+     */
+    private void subscribeToPayments(List<ServiceRequest> requests) {
+        if (paymentSubscription != null) {
+            paymentSubscription.close();
+            paymentSubscription = null;
+        }
+        List<UUID> ids = requests.stream().map(ServiceRequest::getId).limit(100).toList();
+        if (closed || ids.isEmpty()) {
+            return;
+        }
+        paymentSubscription = realtimeClient.subscribe("payments", "service_request_id=" + SupabaseClient.inList(ids),
+                change -> {
+                    Payment payment = paymentService.applyRemoteChange(change.record());
+                    Platform.runLater(() -> applyChangedPayment(payment));
+                });
+    }
+
+    private void applyChangedPayment(Payment changed) {
+        for (int i = 0; i < paymentList.size(); i++) {
+            if (paymentList.get(i).getId().equals(changed.getId())) {
+                paymentList.set(i, changed);
+                return;
+            }
+        }
+        // A new payment is shown if it is the first one of a request on screen
+        boolean requestHasPayment = paymentList.stream()
+                .anyMatch(payment -> payment.getServiceRequestId().equals(changed.getServiceRequestId()));
+        if (requestsById.containsKey(changed.getServiceRequestId()) && !requestHasPayment) {
+            paymentList.add(changed);
         }
-        paymentsTable.setItems(paymentList);
     }
 
     @FXML
@@ -0,0 +1,15 @@
+package com.example.programminggroupproject.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a helper field that is filled in client-side for display.
+ * It is not a column of the table, so it is never listed in a select.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface DisplayOnly {
+}
@@ -0,0 +1,13 @@
+package com.example.programminggroupproject.model;
+
+import java.util.UUID;
+
+/**
+ * Implemented by models whose table has a UUID primary key named id.
+ */
+public interface Identifiable {
+
+    UUID getId();
+
+    void setId(UUID id);
+}
@@ -0,0 +1,17 @@
+package com.example.programminggroupproject.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a large column that list queries leave out.
+ * The value is fetched separately, for the whole batch of rows at once,
+ * when loadLazyColumns is called on them (see LazyLoadable).
+ * Single-row reads such as get(id) always include it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface LazyColumn {
+}
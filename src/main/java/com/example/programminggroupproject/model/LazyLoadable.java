@@ -0,0 +1,17 @@
+package com.example.programminggroupproject.model;
+
+/**
+ * Implemented by models that have @LazyColumn fields.
+ * List queries leave those fields null and mark the rows as pending. Code that
+ * needs them calls the service's loadLazyColumns(rows) off the UI thread, which
+ * fills in the whole batch with one request; getters never load anything.
+ */
+public interface LazyLoadable {
+
+    /**
+     * @param pending True while the lazy columns have not been fetched
+     */
+    void setLazyColumnsPending(boolean pending);
+
+    boolean isLazyColumnsPending();
+}
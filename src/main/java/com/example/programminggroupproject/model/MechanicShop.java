@@ -10,7 +10,7 @@ import java.util.UUID;
  * Schema: id (UUID), name, address, city, phone, created_at
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class MechanicShop {
+public class MechanicShop implements Identifiable {
     
     @JsonProperty("id")
     private UUID id;
@@ -11,7 +11,7 @@ import java.util.UUID;
  * Schema: id (UUID), service_request_id, amount, status, created_at
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Payment {
+public class Payment implements Identifiable {
     
     @JsonProperty("id")
     private UUID id;
@@ -32,8 +32,9 @@ public class Payment {
     public Payment() {
     }
 
-    // Constructor for creating new payments (without ID and created_at)
+    // Constructor for creating new payments (client-generated UUIDv7 id, no created_at)
     public Payment(UUID serviceRequestId, BigDecimal amount, String status) {
+        this.id = UuidV7.generate();
         this.serviceRequestId = serviceRequestId;
         this.amount = amount;
         this.status = status;
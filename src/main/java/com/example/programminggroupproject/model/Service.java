@@ -14,7 +14,7 @@ import java.util.UUID;
  * This represents a service offered by the mechanic shop (e.g., "Oil Change", "Brake Repair").
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Service {
+public class Service implements Identifiable {
     
     @JsonProperty("id")
     private UUID id;
@@ -1,5 +1,6 @@
 package com.example.programminggroupproject.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
@@ -9,11 +10,11 @@ import java.util.UUID;
 /**
  * ServiceRequest model matching the Supabase service_requests table schema.
  * Schema: id (UUID), client_id, vehicle_id, shop_id, mechanic_id, status,
- * total_price_estimated, total_price_final, created_at
+ * total_price_estimated, total_price_final, created_at, updated_at
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @com.fasterxml.jackson.annotation.JsonIgnoreProperties(ignoreUnknown = true)
-public class ServiceRequest {
+public class ServiceRequest implements Identifiable, LazyLoadable {
 
     @JsonProperty("id")
     private UUID id;
@@ -41,25 +42,37 @@ public class ServiceRequest {
 
     @JsonProperty("created_at")
     private OffsetDateTime createdAt;
+
+    // Set by a database trigger on every insert and update
+    @JsonProperty("updated_at")
+    private OffsetDateTime updatedAt;
     
+    @LazyColumn
     @JsonProperty("notes")
     private String notes;
 
     // Additional helper fields (not in database, for display purposes)
+    @DisplayOnly
     @JsonProperty("full_name")
     private String clientName;
     private String vehicleInfo;
 
+    @LazyColumn
     @JsonProperty("service_description")
     private String serviceDescription;
 
+    // Set while the lazy columns of a list query have not been fetched yet
+    @JsonIgnore
+    private boolean lazyColumnsPending;
+
     // Default constructor for Jackson
     public ServiceRequest() {
     }
 
-    // Constructor for creating new service requests (without ID and created_at)
+    // Constructor for creating new service requests (client-generated UUIDv7 id, no created_at)
     public ServiceRequest(UUID clientId, UUID vehicleId, UUID shopId, UUID mechanicId, String status,
                           BigDecimal totalPriceEstimated, BigDecimal totalPriceFinal, String notes) {
+        this.id = UuidV7.generate();
         this.clientId = clientId;
         this.vehicleId = vehicleId;
         this.shopId = shopId;
@@ -158,7 +171,17 @@ public class ServiceRequest {
     public void setCreatedAt(OffsetDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public OffsetDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(OffsetDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
     
+    // Lazy: null on list rows until the service's loadLazyColumns; serialized from the field
+    @JsonIgnore
     public String getNotes() {
         return notes;
     }
@@ -184,6 +207,8 @@ public class ServiceRequest {
         this.vehicleInfo = vehicleInfo;
     }
 
+    // Lazy, like notes
+    @JsonIgnore
     public String getServiceDescription() {
         return serviceDescription;
     }
@@ -192,6 +217,18 @@ public class ServiceRequest {
         this.serviceDescription = serviceDescription;
     }
 
+    @Override
+    @JsonIgnore
+    public void setLazyColumnsPending(boolean pending) {
+        this.lazyColumnsPending = pending;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isLazyColumnsPending() {
+        return lazyColumnsPending;
+    }
+
     @Override
     public String toString() {
         return "ServiceRequest{" +
@@ -1,5 +1,6 @@
 package com.example.programminggroupproject.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
@@ -12,7 +13,7 @@ import java.util.UUID;
  *         price_final, source, is_approved, created_at
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class ServiceRequestItem {
+public class ServiceRequestItem implements Identifiable {
 
     @JsonProperty("id")
     private UUID id;
@@ -45,10 +46,11 @@ public class ServiceRequestItem {
     public ServiceRequestItem() {
     }
 
-    // Constructor for creating new items (without ID and created_at)
+    // Constructor for creating new items (client-generated UUIDv7 id, no created_at)
     public ServiceRequestItem(UUID serviceRequestId, UUID serviceId, Integer quantity,
                               BigDecimal priceEstimated, BigDecimal priceFinal,
                               String source, Boolean isApproved) {
+        this.id = UuidV7.generate();
         this.serviceRequestId = serviceRequestId;
         this.serviceId = serviceId;
         this.quantity = quantity;
@@ -151,6 +153,7 @@ public class ServiceRequestItem {
      * Calculate total estimated price (price * quantity)
      * @return Total estimated price or null if price is not set
      */
+    @JsonIgnore
     public BigDecimal getTotalEstimated() {
         if (priceEstimated == null) return null;
         return priceEstimated.multiply(BigDecimal.valueOf(quantity != null ? quantity : 0));
@@ -160,6 +163,7 @@ public class ServiceRequestItem {
      * Calculate total final price (price * quantity)
      * @return Total final price or null if price is not set
      */
+    @JsonIgnore
     public BigDecimal getTotalFinal() {
         if (priceFinal == null) return null;
         return priceFinal.multiply(BigDecimal.valueOf(quantity != null ? quantity : 0));
@@ -10,7 +10,7 @@ import java.util.UUID;
  * Schema: id (UUID), service_request_id, status, note, created_by, created_at
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class ServiceStatusUpdate {
+public class ServiceStatusUpdate implements Identifiable {
 
     @JsonProperty("id")
     private UUID id;
@@ -34,8 +34,9 @@ public class ServiceStatusUpdate {
     public ServiceStatusUpdate() {
     }
 
-    // Constructor for creating new status updates (without ID and created_at)
+    // Constructor for creating new status updates (client-generated UUIDv7 id, no created_at)
     public ServiceStatusUpdate(UUID serviceRequestId, String status, String note, UUID createdBy) {
+        this.id = UuidV7.generate();
         this.serviceRequestId = serviceRequestId;
         this.status = status;
         this.note = note;
@@ -10,7 +10,7 @@ import java.util.UUID;
  * Schema: id (UUID), email, password_hash, full_name, role, shop_id, created_at
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class User {
+public class User implements Identifiable {
 
     @JsonProperty("id")
     private UUID id;
@@ -0,0 +1,58 @@
+package com.example.programminggroupproject.model;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generator for time-ordered UUIDv7 identifiers (RFC 9562).
+ * Layout: 48-bit Unix timestamp in milliseconds, version, 12-bit counter,
+ * variant, 62 random bits. The counter keeps ids generated within the same
+ * millisecond strictly increasing, so new rows always sort after older ones -
+ * inserts append to the end of the primary-key index and ordering by id is
+ * ordering by creation time.
+ */
+public final class UuidV7 {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static long lastMillis;
+    private static int counter;
+
+    private UuidV7() {
+    }
+
+    /**
+     * Generate a new UUIDv7, greater than any previously generated in this process
+     */
+    public static synchronized UUID generate() {
+        long millis = System.currentTimeMillis();
+        if (millis > lastMillis) {
+            lastMillis = millis;
+            // Random start leaves room to count up while staying unpredictable
+            counter = RANDOM.nextInt(0x800);
+        } else {
+            // Same millisecond (or clock went backwards): keep counting from the last timestamp
+            counter++;
+            if (counter > 0xFFF) {
+                lastMillis++;
+                counter = 0;
+            }
+        }
+
+        long mostSigBits = (lastMillis << 16) | 0x7000L | counter;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Read the creation time embedded in a UUIDv7
+     * @return Milliseconds since the Unix epoch
+     * @throws IllegalArgumentException if the id is not a version 7 UUID
+     */
+    public static long timestampMillis(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a UUIDv7: " + id);
+        }
+        return id.getMostSignificantBits() >>> 16;
+    }
+}
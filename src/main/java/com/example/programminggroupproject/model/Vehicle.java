@@ -1,4 +1,5 @@
 package com.example.programminggroupproject.model;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.OffsetDateTime;
@@ -9,7 +10,7 @@ import java.util.UUID;
  * Schema: id (UUID), client_id, make, model, year, license_plate, created_at
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public class Vehicle {
+public class Vehicle implements Identifiable {
 
     @JsonProperty("id")
     private UUID id;
@@ -118,6 +119,7 @@ public class Vehicle {
      * Helper method to get vehicle display name
      * @return Formatted string like "2020 Toyota Camry"
      */
+    @JsonIgnore
     public String getDisplayName() {
         return year + " " + make + " " + model;
     }
@@ -126,6 +128,7 @@ public class Vehicle {
      * Helper method to get full vehicle info with license plate
      * @return Formatted string like "2020 Toyota Camry - ABC123"
      */
+    @JsonIgnore
     public String getFullInfo() {
         String info = getDisplayName();
         if (licensePlate != null && !licensePlate.isEmpty()) {
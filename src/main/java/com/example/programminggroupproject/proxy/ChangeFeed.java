@@ -0,0 +1,72 @@
+package com.example.programminggroupproject.proxy;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Numbered list of table changes seen by the shop proxy, which workstations long-poll.
+ * Only the most recent changes are kept; a caller that fell further behind, or that
+ * polled a previous run of the proxy, is told to reload everything.
+ */
+class ChangeFeed {
+
+    private static final int CAPACITY = 1024;
+
+    // Guarded by this
+    private final Deque<Change> changes = new ArrayDeque<>();
+    private long seq;
+
+    private record Change(long seq, String table) {
+    }
+
+    /**
+     * @param seq Number of the last change included
+     * @param tables Tables changed since the caller's number
+     * @param reset True if the caller cannot be told exactly and should treat every table as changed
+     */
+    record Batch(long seq, Set<String> tables, boolean reset) {
+    }
+
+    synchronized void publish(String table) {
+        changes.addLast(new Change(++seq, table));
+        if (changes.size() > CAPACITY) {
+            changes.removeFirst();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Wait until something changed after {@code after}, or the timeout passes
+     * @param after Number of the last change the caller has seen, or -1 on its first call
+     */
+    synchronized Batch await(long after, long timeoutMillis) throws InterruptedException {
+        if (after < 0) {
+            return new Batch(seq, Set.of(), false);
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (seq == after) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            wait(remaining);
+        }
+
+        if (seq == after) {
+            return new Batch(seq, Set.of(), false);
+        }
+        if (after > seq || changes.getFirst().seq() > after + 1) {
+            return new Batch(seq, Set.of(), true);
+        }
+        Set<String> tables = new TreeSet<>();
+        for (Change change : changes) {
+            if (change.seq() > after) {
+                tables.add(change.table());
+            }
+        }
+        return new Batch(seq, tables, false);
+    }
+}
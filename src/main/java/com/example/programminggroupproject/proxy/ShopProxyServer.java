@@ -0,0 +1,376 @@
+package com.example.programminggroupproject.proxy;
+
+import com.example.programminggroupproject.client.RealtimeClient;
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.Headers;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Caching proxy shared by the workstations of one garage. Workstations set supabase.url
+ * to the proxy (e.g. http://shop-server:8787); the proxy forwards to the Supabase project
+ * in its own supabase.properties through SupabaseClient, passing each workstation's apikey
+ * and Authorization through, so row level security still applies per user. Requests
+ * without both headers are answered 401; the proxy never adds its own key to a forwarded
+ * request. The server listens on {@code supabase.proxy.bindAddress} (default 127.0.0.1;
+ * set it to the shop LAN address for workstations to reach it).
+ * <p>
+ * - Identical REST reads in flight at the same time (same URL, headers and token) share
+ *   one upstream call
+ * - Reads of reference tables ({@code supabase.proxy.referenceTables}, default
+ *   services,mechanic_shops) are cached for every user for
+ *   {@code supabase.proxy.referenceTtlSeconds} (default 300), or until the table changes
+ * - {@code /proxy/v1/changes} is a long-poll feed of changed tables, fed by writes passing
+ *   through and by one realtime subscription per table in {@code supabase.proxy.watchTables}.
+ *   Workstations (ProxyChangeFeed) use it to check for changes at once instead of each
+ *   polling Supabase on its own; {@code /proxy/v1/stats} reports the request counts.
+ * <p>
+ * The proxy does not carry Realtime WebSockets, so workstations behind it should set
+ * supabase.realtime.enabled=false. Run {@link #main} on one machine per shop.
+ */
+public class ShopProxyServer {
+
+    private static final String REST_PATH = "/rest/v1/";
+    private static final String CHANGES_PATH = "/proxy/v1/changes";
+    private static final String STATS_PATH = "/proxy/v1/stats";
+    private static final long MAX_WAIT_SECONDS = 25;
+
+    // Connection handling is per hop; the body is decompressed and re-framed by each side
+    private static final Set<String> HOP_HEADERS = Set.of("host", "connection", "keep-alive", "upgrade",
+            "content-length", "transfer-encoding", "accept-encoding", "content-encoding");
+
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final SupabaseConfig config = SupabaseConfig.getInstance();
+    private final HttpServer server;
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "shop-proxy");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ChangeFeed changeFeed = new ChangeFeed();
+    private final Set<String> referenceTables;
+    private final Set<String> watchTables;
+    private final long referenceTtlMillis;
+    private final List<RealtimeClient.Subscription> subscriptions = new ArrayList<>();
+    private final Consumer<String> writeListener = this::tableChanged;
+
+    private final Map<String, CompletableFuture<Upstream>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> referenceCache = new ConcurrentHashMap<>();
+    // Bumped on every change, so reads started before a change are neither joined nor cached after it
+    private final Map<String, Long> tableVersions = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong upstreamRequests = new AtomicLong();
+    private final AtomicLong coalescedReads = new AtomicLong();
+    private final AtomicLong cachedReads = new AtomicLong();
+
+    private record Upstream(int status, Headers headers, byte[] body) {
+    }
+
+    private record CachedResponse(String table, Upstream response, long expiresAt) {
+    }
+
+    public ShopProxyServer(int port) throws IOException {
+        this(SupabaseConfig.getInstance().getProperty("supabase.proxy.bindAddress", "127.0.0.1").trim(), port);
+    }
+
+    /**
+     * @param bindAddress Address of the interface to listen on, e.g. the machine's LAN address
+     */
+    public ShopProxyServer(String bindAddress, int port) throws IOException {
+        this.referenceTables = tableSet(config.getProperty("supabase.proxy.referenceTables", "services,mechanic_shops"));
+        this.watchTables = tableSet(config.getProperty("supabase.proxy.watchTables",
+                "service_requests,payments,service_status_updates"));
+        this.referenceTtlMillis = Long.parseLong(config.getProperty("supabase.proxy.referenceTtlSeconds", "300").trim()) * 1000;
+
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        server.setExecutor(workers);
+        server.createContext(CHANGES_PATH, exchange -> handle(exchange, this::changes));
+        server.createContext(STATS_PATH, exchange -> handle(exchange, this::stats));
+        server.createContext("/", exchange -> handle(exchange, this::forward));
+    }
+
+    public static void main(String[] args) throws IOException {
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        int port = Integer.parseInt(config.getProperty("supabase.proxy.port", "8787").trim());
+        String bindAddress = config.getProperty("supabase.proxy.bindAddress", "127.0.0.1").trim();
+        new ShopProxyServer(bindAddress, port).start();
+        System.out.println("Shop proxy listening on " + bindAddress + ":" + port + ", forwarding to " + config.getUrl());
+    }
+
+    public void start() {
+        client.addWriteListener(writeListener);
+        synchronized (subscriptions) {
+            for (String table : watchTables) {
+                subscriptions.add(RealtimeClient.getInstance().subscribe(table, null, event -> tableChanged(table)));
+            }
+        }
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        client.removeWriteListener(writeListener);
+        synchronized (subscriptions) {
+            subscriptions.forEach(RealtimeClient.Subscription::close);
+            subscriptions.clear();
+        }
+        workers.shutdownNow();
+    }
+
+    private void tableChanged(String table) {
+        tableVersions.merge(table, 1L, Long::sum);
+        referenceCache.values().removeIf(cached -> cached.table().equals(table));
+        changeFeed.publish(table);
+    }
+
+    // ==================== FORWARDING ====================
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) {
+        try {
+            requests.incrementAndGet();
+            handler.handle(exchange);
+        } catch (IOException e) {
+            System.err.println("Error proxying " + exchange.getRequestURI() + ": " + e.getMessage());
+            sendError(exchange, 502, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void forward(HttpExchange exchange) throws IOException {
+        // Without the workstation's own credentials there is nothing to forward
+        if (isBlank(exchange.getRequestHeaders().getFirst("apikey"))
+                || isBlank(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            sendError(exchange, 401, "apikey and Authorization headers are required");
+            return;
+        }
+        String method = exchange.getRequestMethod();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String pathAndQuery = exchange.getRequestURI().getRawPath() + (rawQuery != null ? "?" + rawQuery : "");
+        Headers headers = forwardedHeaders(exchange.getRequestHeaders());
+
+        Upstream response;
+        if (method.equals("GET") && pathAndQuery.startsWith(REST_PATH)) {
+            response = read(pathAndQuery, headers);
+        } else {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            response = call(method, pathAndQuery, headers, body.length > 0 ? body : null);
+        }
+        send(exchange, response);
+    }
+
+    /**
+     * Serve a REST read from the reference cache, by joining an identical read in flight,
+     * or from Supabase
+     */
+    private Upstream read(String pathAndQuery, Headers headers) throws IOException {
+        String table = pathAndQuery.substring(REST_PATH.length()).split("[/?]", 2)[0];
+        boolean reference = referenceTables.contains(table);
+        long version = tableVersions.getOrDefault(table, 0L);
+        // Reference tables are readable by every signed-in user, so their key leaves the token out
+        String key = version + " " + pathAndQuery + "\n" + requestKey(headers, !reference);
+
+        if (reference) {
+            CachedResponse cached = referenceCache.get(key);
+            if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+                cachedReads.incrementAndGet();
+                return cached.response();
+            }
+        }
+
+        CompletableFuture<Upstream> call = new CompletableFuture<>();
+        CompletableFuture<Upstream> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalescedReads.incrementAndGet();
+            return await(running);
+        }
+
+        try {
+            Upstream response = call("GET", pathAndQuery, headers, null);
+            if (reference && response.status() == 200 && version == tableVersions.getOrDefault(table, 0L)) {
+                referenceCache.put(key, new CachedResponse(table, response, System.currentTimeMillis() + referenceTtlMillis));
+            }
+            call.complete(response);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private Upstream call(String method, String pathAndQuery, Headers headers, byte[] body) throws IOException {
+        upstreamRequests.incrementAndGet();
+        try (Response response = client.forward(method, pathAndQuery, headers, body)) {
+            byte[] bytes = response.body() != null ? response.body().bytes() : new byte[0];
+            return new Upstream(response.code(), response.headers(), bytes);
+        }
+    }
+
+    private static Upstream await(CompletableFuture<Upstream> running) throws IOException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Shared upstream read failed", e.getCause());
+        }
+    }
+
+    private static Headers forwardedHeaders(Map<String, List<String>> requestHeaders) {
+        Headers.Builder headers = new Headers.Builder();
+        requestHeaders.forEach((name, values) -> {
+            if (!HOP_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> headers.add(name, value));
+            }
+        });
+        return headers.build();
+    }
+
+    /**
+     * Headers that change what PostgREST returns
+     */
+    private static String requestKey(Headers headers, boolean includeCredentials) {
+        StringBuilder key = new StringBuilder();
+        for (String name : new String[] {"Accept", "Accept-Profile", "Prefer", "Range"}) {
+            key.append(name).append('=').append(headers.values(name)).append('\n');
+        }
+        if (includeCredentials) {
+            key.append(headers.values("apikey")).append('\n').append(headers.values("Authorization"));
+        }
+        return key.toString();
+    }
+
+    private static void send(HttpExchange exchange, Upstream response) throws IOException {
+        response.headers().names().stream()
+                .filter(name -> !HOP_HEADERS.contains(name.toLowerCase()))
+                .forEach(name -> exchange.getResponseHeaders().put(name, response.headers().values(name)));
+        byte[] body = response.body();
+        exchange.sendResponseHeaders(response.status(), body.length > 0 ? body.length : -1);
+        if (body.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            byte[] body = ("{\"message\":\"" + String.valueOf(message).replace("\"", "'") + "\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException ignored) {
+            // Headers already sent or the workstation went away
+        }
+    }
+
+    // ==================== PROXY ENDPOINTS ====================
+
+    /**
+     * GET /proxy/v1/changes?after=N&wait=S: tables changed after change N, waiting up to S seconds
+     */
+    private void changes(HttpExchange exchange) throws IOException, InterruptedException {
+        if (!isProjectKey(exchange)) {
+            sendError(exchange, 401, "Invalid API key");
+            return;
+        }
+        Map<String, String> query = queryParams(exchange.getRequestURI().getRawQuery());
+        long after = Long.parseLong(query.getOrDefault("after", "-1"));
+        long waitSeconds = Math.min(MAX_WAIT_SECONDS, Long.parseLong(query.getOrDefault("wait", "20")));
+
+        ChangeFeed.Batch batch = changeFeed.await(after, waitSeconds * 1000);
+        ObjectNode json = client.getObjectMapper().createObjectNode()
+                .put("seq", batch.seq())
+                .put("reset", batch.reset());
+        batch.tables().forEach(json.putArray("tables")::add);
+        sendJson(exchange, json);
+    }
+
+    /**
+     * GET /proxy/v1/stats: workstation requests served against requests sent to Supabase
+     */
+    private void stats(HttpExchange exchange) throws IOException {
+        if (!isProjectKey(exchange)) {
+            sendError(exchange, 401, "Invalid API key");
+            return;
+        }
+        ObjectNode json = client.getObjectMapper().createObjectNode()
+                .put("requests", requests.get())
+                .put("upstreamRequests", upstreamRequests.get())
+                .put("coalescedReads", coalescedReads.get())
+                .put("cachedReads", cachedReads.get())
+                .put("cachedResponses", referenceCache.size());
+        sendJson(exchange, json);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private boolean isProjectKey(HttpExchange exchange) {
+        String apiKey = exchange.getRequestHeaders().getFirst("apikey");
+        return apiKey != null && (apiKey.equals(config.getApiKey()) || apiKey.equals(config.getAnonKey()));
+    }
+
+    private void sendJson(HttpExchange exchange, ObjectNode json) throws IOException {
+        byte[] body = client.getObjectMapper().writeValueAsBytes(json);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                String[] parts = pair.split("=", 2);
+                params.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                        parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+            }
+        }
+        return params;
+    }
+
+    private static Set<String> tableSet(String tables) {
+        return Arrays.stream(tables.split(","))
+                .map(String::trim)
+                .filter(table -> !table.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
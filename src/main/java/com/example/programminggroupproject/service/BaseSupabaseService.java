@@ -1,13 +1,30 @@
 package com.example.programminggroupproject.service;
 
+import com.example.programminggroupproject.cache.CacheStats;
+import com.example.programminggroupproject.cache.QueryCache;
+import com.example.programminggroupproject.cache.TinyLfuCache;
 import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.client.SupabaseHttpException;
+import com.example.programminggroupproject.model.DisplayOnly;
+import com.example.programminggroupproject.model.Identifiable;
+import com.example.programminggroupproject.model.LazyColumn;
+import com.example.programminggroupproject.model.LazyLoadable;
+import com.example.programminggroupproject.model.UuidV7;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import okhttp3.Response;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
 
 /**
  * Abstract base class implementing Service interface with Supabase backend.
@@ -22,6 +39,28 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
     protected final String tableName;
     protected final Class<T> modelClass;
     protected final TypeReference<List<T>> listTypeRef;
+    protected final QueryStatistics statistics = QueryStatistics.getInstance();
+    protected final QueryCache queryCache = QueryCache.getInstance();
+    protected final OfflineMode offlineMode = OfflineMode.getInstance();
+    protected final WriteBehindQueue writeBehind = WriteBehindQueue.getInstance();
+    protected final BulkInsertEngine bulkInsert = BulkInsertEngine.getInstance();
+    
+    // Lazy column support: fields left out of list queries, and the select used instead of *
+    private final List<Field> lazyFields = new ArrayList<>();
+    private final Field idField;
+    private volatile String listProjection;
+    
+    // Whether ids are generated client-side (UUIDv7) instead of by the database
+    private boolean clientGeneratedIds;
+    
+    // Column DeltaSync uses to find changed rows
+    private volatile String syncColumn = "created_at";
+    
+    // Identity map of rows by id, null unless enabled by the subclass
+    private TinyLfuCache<UUID, T> entityCache;
+    
+    /** Maximum ids per lazy-column request, keeps the URL well under server limits */
+    private static final int LAZY_BATCH_SIZE = 100;
     
     /**
      * Constructor for base service
@@ -35,19 +74,678 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
         this.tableName = tableName;
         this.modelClass = modelClass;
         this.listTypeRef = listTypeRef;
+        
+        // Work out which columns list queries should select
+        List<String> eagerColumns = new ArrayList<>();
+        Field id = null;
+        for (Field field : modelClass.getDeclaredFields()) {
+            JsonProperty property = field.getAnnotation(JsonProperty.class);
+            if (property == null || field.isAnnotationPresent(DisplayOnly.class)) {
+                continue;
+            }
+            field.setAccessible(true);
+            if (property.value().equals("id")) {
+                id = field;
+            }
+            if (field.isAnnotationPresent(LazyColumn.class)) {
+                lazyFields.add(field);
+            } else {
+                eagerColumns.add(property.value());
+            }
+        }
+        this.idField = id;
+        this.listProjection = lazyFields.isEmpty() || idField == null ? null : String.join(",", eagerColumns);
+    }
+    
+    /**
+     * Generate UUIDv7 ids client-side for new records of this table.
+     * Call from the constructor of services whose model implements Identifiable.
+     */
+    protected void useClientGeneratedIds() {
+        this.clientGeneratedIds = true;
+    }
+    
+    /**
+     * Give the object a UUIDv7 id if client-side ids are enabled and it has none yet
+     * @return true if the object has a known id afterwards
+     */
+    private boolean assignClientId(T object) {
+        if (!(object instanceof Identifiable identifiable)) {
+            return false;
+        }
+        if (identifiable.getId() == null && clientGeneratedIds) {
+            identifiable.setId(UuidV7.generate());
+        }
+        return identifiable.getId() != null;
+    }
+    
+    // ==================== ENTITY CACHE ====================
+    
+    /**
+     * Keep recently read rows in memory, keyed by id.
+     * Every write made through this service updates or invalidates the cache, so callers
+     * always see their own writes; changes made elsewhere show up after the TTL.
+     * Call from the constructor of services whose model implements Identifiable.
+     * @param maximumSize Maximum number of cached rows
+     * @param timeToLive How long a row is served from memory before it is re-fetched
+     */
+    protected void enableEntityCache(int maximumSize, Duration timeToLive) {
+        this.entityCache = new TinyLfuCache<>(maximumSize, timeToLive);
+    }
+    
+    /**
+     * @return Hit ratio and eviction counters, or null if this service has no cache
+     */
+    public CacheStats getEntityCacheStats() {
+        return entityCache == null ? null : entityCache.stats();
+    }
+    
+    /**
+     * Drop all cached rows, e.g. after another client is known to have changed the table
+     */
+    public void invalidateEntityCache() {
+        if (entityCache != null) {
+            entityCache.invalidateAll();
+        }
+    }
+    
+    /**
+     * Cache the responses of list and lookup queries on this table for the given time.
+     * Entries are dropped whenever anything writes to the table (see QueryCache).
+     * @param timeToLive How long an identical query is answered from memory
+     */
+    protected void enableQueryCache(Duration timeToLive) {
+        queryCache.setTimeToLive(tableName, timeToLive);
+    }
+    
+    private long cacheStamp() {
+        return entityCache == null ? 0 : entityCache.writeStamp();
+    }
+    
+    /**
+     * Cache complete rows returned by a read, unless a write happened while it was in flight
+     */
+    private void cacheRead(List<T> rows, long stamp) {
+        if (entityCache == null) {
+            return;
+        }
+        Map<UUID, T> byId = new LinkedHashMap<>();
+        for (T row : rows) {
+            if (row instanceof Identifiable identifiable && identifiable.getId() != null) {
+                byId.put(identifiable.getId(), row);
+            }
+        }
+        entityCache.putAllIfUnchangedSince(byId, stamp);
+    }
+    
+    /**
+     * Store the server's copy of a written row so the next read returns it
+     */
+    private void cacheWritten(T row) {
+        if (entityCache != null && row instanceof Identifiable identifiable && identifiable.getId() != null) {
+            entityCache.put(identifiable.getId(), row);
+        }
+    }
+    
+    private void evictCached(UUID id) {
+        if (entityCache != null) {
+            entityCache.invalidate(id);
+        }
+    }
+    
+    // ==================== QUERY EXECUTION ====================
+    
+    /**
+     * Run a list read against the table and deserialize the rows.
+     * Lazy columns are left out of the select and the rows are marked as pending;
+     * loadLazyColumns(rows) fetches them for the whole batch.
+     * @param params PostgREST query parameters (filters, order, limit, ...)
+     * @return The matching rows
+     */
+    protected List<T> query(Map<String, String> params) throws IOException {
+        boolean fullRows = !params.containsKey("select");
+        boolean lazy = listProjection != null && fullRows;
+        if (lazy) {
+            params.put("select", listProjection);
+        }
+        
+        long stamp = cacheStamp();
+        List<T> rows = fetch(params);
+        if (fullRows && !lazy) {
+            cacheRead(rows, stamp);
+        }
+        return rows;
+    }
+    
+    /**
+     * Run a single-record read; all columns are selected, including lazy ones.
+     */
+    protected List<T> queryDetail(Map<String, String> params) throws IOException {
+        long stamp = cacheStamp();
+        List<T> rows = fetch(params);
+        if (!params.containsKey("select")) {
+            cacheRead(rows, stamp);
+        }
+        return rows;
+    }
+    
+    /**
+     * Every read goes through here so it can be answered from the QueryCache,
+     * and so the shape and latency of reads that do hit the server are recorded in QueryStatistics.
+     */
+    private List<T> fetch(Map<String, String> params) throws IOException {
+        if (offlineMode.isLocal()) {
+            return queryLocal(params);
+        }
+        writeBehind.awaitInserts(tableName);
+        String select = params.get("select");
+        // Before the read: it may find the sync column missing and change the projection
+        boolean listRead = select != null && select.equals(listProjection);
+        String response;
+        try {
+            response = fetchRaw(params);
+        } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                return queryLocal(params);
+            }
+            throw e;
+        }
+        
+        List<T> rows = objectMapper.readValue(response, listTypeRef);
+        writeBehind.overlay(tableName, rows);
+        if (listRead) {
+            markLazyColumnsPending(rows);
+        }
+        if (select == null || listRead) {
+            offlineMode.getLocalStore().remember(tableName, rows);
+        }
+        return rows;
+    }
+    
+    private String fetchRaw(Map<String, String> params) throws IOException {
+        String cached = queryCache.get(tableName, params);
+        if (cached != null) {
+            return cached;
+        }
+        
+        long generation = queryCache.generation(tableName);
+        String response = fetchFromServer(params);
+        queryCache.put(tableName, params, response, generation);
+        queryCache.remember(tableName, params, response);
+        return response;
+    }
+    
+    private String fetchFromServer(Map<String, String> params) throws IOException {
+        long start = System.nanoTime();
+        String response;
+        try {
+            response = client.get(tableName, params);
+        } catch (SupabaseHttpException e) {
+            String missing = dropMissingSyncColumn(e);
+            if (missing == null) {
+                throw e;
+            }
+            params = replaceColumn(params, missing);
+            response = client.get(tableName, params);
+        }
+        statistics.record(tableName, params, (System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+    
+    /**
+     * The server rejected a read because the sync column does not exist, i.e. its migration
+     * (the updated_at column and trigger in the README) has not been applied yet. Go back to
+     * created_at, which finds new rows but not updated ones, instead of failing every read.
+     * @return The column given up, for the caller to retry without it; null for any other error
+     */
+    private String dropMissingSyncColumn(SupabaseHttpException e) {
+        String column = syncColumn;
+        if (column.equals("created_at") || e.getStatusCode() != 400
+                || e.getMessage() == null || !e.getMessage().contains(column)) {
+            return null;
+        }
+        synchronized (this) {
+            if (syncColumn.equals(column)) {
+                System.err.println("Column " + tableName + "." + column + " does not exist, using created_at"
+                        + " until its migration is applied");
+                syncColumn = "created_at";
+                if (listProjection != null) {
+                    listProjection = replaceColumn(Map.of("select", listProjection), column).get("select");
+                }
+            }
+        }
+        return column;
+    }
+    
+    /**
+     * Query parameters with created_at in place of the given column (in select, order and filters)
+     */
+    private static Map<String, String> replaceColumn(Map<String, String> params, String column) {
+        Map<String, String> replaced = new LinkedHashMap<>();
+        params.forEach((key, value) -> {
+            String newValue = key.equals("select")
+                    ? Arrays.stream(value.split(",")).map(c -> c.equals(column) ? "created_at" : c)
+                            .distinct().collect(Collectors.joining(","))
+                    : value.replace(column, "created_at");
+            replaced.put(key.equals(column) ? "created_at" : key, newValue);
+        });
+        return replaced;
+    }
+    
+    // ==================== DELTA SYNC ====================
+    
+    /**
+     * Have DeltaSync find changed rows by this column instead of created_at.
+     * Use a column the database sets on every insert and update (see the updated_at trigger in the README).
+     */
+    protected void useSyncColumn(String column) {
+        this.syncColumn = column;
+    }
+    
+    String getSyncColumn() {
+        return syncColumn;
+    }
+    
+    /**
+     * Start an incrementally synced local copy of the rows matching a filter
+     * @param filter PostgREST filter parameters, e.g. "shop_id" -> "eq.&lt;id&gt;"
+     */
+    public DeltaSync<T> deltaSync(Map<String, String> filter) {
+        return new DeltaSync<>(this, filter);
+    }
+    
+    /**
+     * Read full rows straight from the server, bypassing the QueryCache (a delta read must
+     * never be answered from memory), and refresh the entity cache with them
+     */
+    DeltaSync.Page<T> fetchChanges(Map<String, String> params) throws IOException {
+        if (offlineMode.isLocal()) {
+            return localChanges(params);
+        }
+        long stamp = cacheStamp();
+        JsonNode tree;
+        try {
+            tree = objectMapper.readTree(fetchFromServer(params));
+        } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                return localChanges(params);
+            }
+            throw e;
+        }
+        List<T> rows = objectMapper.readerFor(listTypeRef).readValue(tree);
+        writeBehind.overlay(tableName, rows);
+        cacheRead(rows, stamp);
+        offlineMode.getLocalStore().remember(tableName, rows);
+        
+        String lastSyncValue = null;
+        for (JsonNode node : tree) {
+            JsonNode value = node.get(syncColumn);
+            if (value != null && !value.isNull()) {
+                lastSyncValue = value.asText();
+            }
+        }
+        return new DeltaSync.Page<>(rows, lastSyncValue);
+    }
+    
+    // ==================== STALE-WHILE-REVALIDATE ====================
+    
+    /**
+     * Like query(), but returns the last response seen for the same parameters right away
+     * (however old) along with a background load of the current rows.
+     * @param params PostgREST query parameters; not modified
+     */
+    protected Revalidating<List<T>> queryRevalidating(Map<String, String> params) {
+        Map<String, String> keyParams = new HashMap<>(params);
+        boolean lazy = listProjection != null && !keyParams.containsKey("select");
+        if (lazy) {
+            keyParams.put("select", listProjection);
+        }
+        
+        // Stale rows are not marked as pending: they are about to be replaced by the fresh ones
+        List<T> cached = null;
+        String json = queryCache.getLastKnown(tableName, keyParams);
+        if (json != null) {
+            try {
+                cached = objectMapper.readValue(json, listTypeRef);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable cached response for " + tableName + ": " + e.getMessage());
+            }
+        }
+        
+        return new Revalidating<>(cached, () -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return query(new HashMap<>(params));
+            } catch (IOException e) {
+                throw new RuntimeException("Error revalidating records of " + tableName, e);
+            }
+        }));
+    }
+    
+    @Override
+    public Revalidating<List<T>> filterRevalidating(String column, String operator, Object value) {
+        Map<String, String> params = SupabaseClient.buildParams();
+        params.put(column, operator + "." + value.toString());
+        return queryRevalidating(params);
+    }
+    
+    @Override
+    public Revalidating<List<T>> findByRevalidating(String column, Object value) {
+        return filterRevalidating(column, "eq", value);
+    }
+    
+    @Override
+    public Revalidating<List<T>> getAllRevalidating() {
+        return queryRevalidating(SupabaseClient.buildParams());
+    }
+    
+    @Override
+    public Optional<T> getCached(UUID id) {
+        return entityCache == null ? Optional.empty() : Optional.ofNullable(entityCache.getIfPresent(id));
+    }
+    
+    // ==================== CHANGE POLLING ====================
+    
+    /**
+     * Poll a scope of the table for changes, for screens that cannot get realtime updates.
+     * The poller is returned stopped; call start() on it.
+     * @param filter PostgREST filter parameters defining the scope, e.g. "shop_id" -> "eq.&lt;id&gt;"
+     * @param onChange Called (on the poller thread) when rows in the scope were inserted, updated or deleted
+     */
+    public ChangePoller changePoller(Map<String, String> filter, Runnable onChange) {
+        return new ChangePoller(this, filter, onChange);
+    }
+    
+    /**
+     * Newest sync column value and row count of a scope, in one request returning at most one value
+     */
+    ChangePoller.Token changeToken(Map<String, String> filter) {
+        for (boolean retried = false; ; retried = true) {
+            String column = syncColumn;
+            Map<String, String> params = new HashMap<>(filter);
+            params.put("select", column);
+            params.put("order", column + ".desc.nullslast");
+            params.put("limit", "1");
+            
+            long start = System.nanoTime();
+            try (Response response = client.getWithCount(tableName, params)) {
+                statistics.record(tableName, params, (System.nanoTime() - start) / 1_000_000);
+                if (!response.isSuccessful() || response.body() == null) {
+                    SupabaseHttpException error = new SupabaseHttpException(response.code(), "Supabase request failed: "
+                            + response.code() + (response.body() == null ? "" : " - " + response.body().string()));
+                    if (!retried && dropMissingSyncColumn(error) != null) {
+                        continue;
+                    }
+                    throw error;
+                }
+                int rowCount = SupabaseClient.parseContentRangeCount(response.header("Content-Range"));
+                JsonNode rows = objectMapper.readTree(response.body().string());
+                String latest = rows.size() == 0 ? null : rows.get(0).path(column).asText(null);
+                return new ChangePoller.Token(latest, rowCount);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading change token of " + tableName, e);
+            }
+        }
+    }
+    
+    // ==================== REMOTE CHANGES ====================
+    
+    /**
+     * Apply a row changed elsewhere (e.g. delivered by RealtimeClient) to the local caches:
+     * the entity cache takes the new row and cached queries on the table are dropped
+     * @param record The changed row as sent by the server
+     * @return The row as a model object
+     */
+    public T applyRemoteChange(JsonNode record) {
+        T row = objectMapper.convertValue(record, modelClass);
+        queryCache.invalidateTable(tableName);
+        cacheWritten(row);
+        return row;
+    }
+    
+    // ==================== OFFLINE ====================
+    
+    /**
+     * Answer a read from the local mirror while the server is unreachable
+     */
+    private List<T> queryLocal(Map<String, String> params) throws IOException {
+        try {
+            return new ArrayList<>(offlineMode.getLocalStore().query(tableName, params, modelClass));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Offline, and the query cannot be answered locally: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Offline delta: every mirrored row of the set, since locally written rows keep their old
+     * sync value. The watermark stays where it is, so the first sync online catches up.
+     */
+    private DeltaSync.Page<T> localChanges(Map<String, String> params) throws IOException {
+        Map<String, String> local = new HashMap<>(params);
+        local.remove(syncColumn);
+        return new DeltaSync.Page<>(queryLocal(local), null);
+    }
+    
+    private boolean hasId(T object) {
+        return object instanceof Identifiable identifiable && identifiable.getId() != null;
+    }
+    
+    private T insertLocal(T object) {
+        if (!hasId(object)) {
+            throw new RuntimeException("Cannot create a " + tableName + " record offline without a client-generated id");
+        }
+        insertAllLocal(List.of(object));
+        return object;
+    }
+    
+    private List<T> insertAllLocal(List<T> objects) {
+        offlineMode.getOutbox().append(tableName, Outbox.Operation.INSERT, Map.of(), objectMapper.valueToTree(objects), objects.size());
+        objects.forEach(this::writtenLocally);
+        return objects;
+    }
+    
+    private T upsertLocal(T object) {
+        offlineMode.getOutbox().append(tableName, Outbox.Operation.UPSERT, Map.of(), objectMapper.valueToTree(object), 1);
+        writtenLocally(object);
+        return object;
+    }
+    
+    /**
+     * Queue a full-row update. On tables with an updated_at style sync column it only
+     * applies if the row is still the version that was edited.
+     */
+    private T updateLocal(UUID id, T object) {
+        Map<String, String> filter = new HashMap<>();
+        filter.put("id", "eq." + id);
+        JsonNode row = objectMapper.valueToTree(object);
+        JsonNode version = row.get(syncColumn);
+        if (!syncColumn.equals("created_at") && version != null && !version.isNull()) {
+            filter.put(syncColumn, "eq." + version.asText());
+        }
+        offlineMode.getOutbox().append(tableName, Outbox.Operation.UPDATE, filter, row, 1);
+        writtenLocally(object);
+        return object;
+    }
+    
+    private List<T> updateWhereLocal(Map<String, String> filter, Map<String, Object> fields) {
+        List<T> updated = offlineMode.getLocalStore().update(tableName, filter, fields, modelClass);
+        offlineMode.getOutbox().append(tableName, Outbox.Operation.UPDATE, filter, objectMapper.valueToTree(fields), updated.size());
+        queryCache.invalidateTable(tableName);
+        return updated;
+    }
+    
+    private int deleteLocal(Map<String, String> filter) {
+        List<UUID> deleted = offlineMode.getLocalStore().delete(tableName, filter);
+        offlineMode.getOutbox().append(tableName, Outbox.Operation.DELETE, filter, null, deleted.size());
+        queryCache.invalidateTable(tableName);
+        deleted.forEach(this::evictCached);
+        return deleted.size();
+    }
+    
+    private void writtenLocally(T object) {
+        offlineMode.getLocalStore().put(tableName, object);
+        queryCache.invalidateTable(tableName);
+        cacheWritten(object);
+    }
+    
+    // ==================== WRITE-BEHIND ====================
+    
+    /**
+     * Insert a row without waiting for the server. It is queued in the WriteBehindQueue and
+     * returned as written; columns the database fills in (e.g. created_at) stay unset.
+     * Without a signed-in user the insert is made right away instead.
+     * Needs client-generated ids.
+     */
+    protected T createBehind(T object) {
+        if (!assignClientId(object)) {
+            throw new IllegalStateException("Write-behind inserts into " + tableName + " need client-generated ids");
+        }
+        if (!writeBehind.isOpen()) {
+            return createMinimal(object);
+        }
+        writeBehind.insert(tableName, objectMapper.valueToTree(object));
+        writtenLocally(object);
+        return object;
+    }
+    
+    /**
+     * Set some columns of a row without waiting for the server. Queued updates of the same
+     * row are sent as one PATCH, and reads through this service see the new values meanwhile.
+     * Without a signed-in user the update is made right away instead.
+     * @return The cached row with the new values, or empty if it is not in the entity cache
+     */
+    protected Optional<T> updateBehind(UUID id, Map<String, Object> fields) {
+        Map<String, String> filter = Map.of("id", "eq." + id);
+        if (!writeBehind.isOpen()) {
+            updateWhere(filter, fields);
+            return Optional.empty();
+        }
+        ObjectNode values = objectMapper.valueToTree(fields);
+        writeBehind.update(tableName, id, values);
+        offlineMode.getLocalStore().update(tableName, filter, fields, modelClass);
+        
+        Optional<T> cached = getCached(id);
+        if (cached.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            // Rows in the cache may be shared with screens; update a copy. Derived getters
+            // (e.g. totals) serialize as properties the model cannot read back, so skip those.
+            ObjectNode copy = objectMapper.valueToTree(cached.get());
+            copy.setAll(values);
+            T updated = objectMapper.readerFor(modelClass)
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                    .readValue(copy);
+            cacheWritten(updated);
+            return Optional.of(updated);
+        } catch (IOException e) {
+            evictCached(id);
+            return Optional.empty();
+        }
+    }
+    
+    // ==================== LAZY COLUMNS ====================
+    
+    /**
+     * Fetch the lazy columns of the given rows in batched requests. Blocks on the network,
+     * so call it off the JavaFX thread. Only rows still marked as pending are fetched;
+     * values already set on a row (e.g. edited locally) are kept.
+     * @param rows Rows returned by a list query
+     */
+    public void loadLazyColumns(List<T> rows) {
+        if (lazyFields.isEmpty() || idField == null || rows.isEmpty()) {
+            return;
+        }
+        
+        try {
+            Map<String, T> byId = new HashMap<>();
+            for (T row : rows) {
+                if (row instanceof LazyLoadable loadable && !loadable.isLazyColumnsPending()) {
+                    continue;
+                }
+                Object id = idField.get(row);
+                if (id != null) {
+                    byId.put(id.toString(), row);
+                }
+            }
+            
+            StringBuilder select = new StringBuilder("id");
+            for (Field field : lazyFields) {
+                select.append(",").append(field.getAnnotation(JsonProperty.class).value());
+            }
+            
+            List<String> ids = new ArrayList<>(byId.keySet());
+            for (int from = 0; from < ids.size(); from += LAZY_BATCH_SIZE) {
+                Map<String, String> params = SupabaseClient.buildParams();
+                params.put("select", select.toString());
+                params.put("id", SupabaseClient.inList(ids.subList(from, Math.min(from + LAZY_BATCH_SIZE, ids.size()))));
+                
+                for (JsonNode node : readLazyValues(params)) {
+                    T row = byId.get(node.path("id").asText());
+                    if (row != null) {
+                        applyLazyValues(row, node);
+                    }
+                }
+            }
+            for (T row : byId.values()) {
+                if (row instanceof LazyLoadable loadable) {
+                    loadable.setLazyColumnsPending(false);
+                }
+            }
+        } catch (IOException | IllegalAccessException e) {
+            throw new RuntimeException("Error loading lazy columns of " + tableName, e);
+        }
+    }
+    
+    /**
+     * The lazy columns of a batch, from the local mirror while offline
+     */
+    private Iterable<JsonNode> readLazyValues(Map<String, String> params) throws IOException {
+        if (offlineMode.isLocal()) {
+            return offlineMode.getLocalStore().queryTrees(tableName, params);
+        }
+        try {
+            return objectMapper.readTree(fetchRaw(params));
+        } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                return offlineMode.getLocalStore().queryTrees(tableName, params);
+            }
+            throw e;
+        }
+    }
+    
+    private void applyLazyValues(T row, JsonNode node) throws IllegalAccessException {
+        for (Field field : lazyFields) {
+            JsonNode value = node.get(field.getAnnotation(JsonProperty.class).value());
+            if (value != null && !value.isNull() && field.get(row) == null) {
+                field.set(row, objectMapper.convertValue(value, field.getType()));
+            }
+        }
+    }
+    
+    private void markLazyColumnsPending(List<T> rows) {
+        for (T row : rows) {
+            if (row instanceof LazyLoadable loadable) {
+                loadable.setLazyColumnsPending(true);
+            }
+        }
     }
     
     // ==================== BASIC CRUD OPERATIONS ====================
     
     @Override
     public Optional<T> get(UUID id) {
+        if (entityCache != null) {
+            T cached = entityCache.getIfPresent(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+        }
         try {
             Map<String, String> params = SupabaseClient.buildParams();
             params.put("id", "eq." + id.toString());
             params.put("limit", "1");
             
-            String response = client.get(tableName, params);
-            List<T> results = objectMapper.readValue(response, listTypeRef);
+            List<T> results = queryDetail(params);
             
             return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
         } catch (IOException e) {
@@ -58,8 +756,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
     @Override
     public List<T> getAll() {
         try {
-            String response = client.get(tableName, null);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(SupabaseClient.buildParams());
         } catch (IOException e) {
             throw new RuntimeException("Error fetching all records", e);
         }
@@ -72,8 +769,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             params.put("limit", String.valueOf(limit));
             params.put("offset", String.valueOf(offset));
             
-            String response = client.get(tableName, params);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(params);
         } catch (IOException e) {
             throw new RuntimeException("Error fetching paginated records", e);
         }
@@ -81,56 +777,113 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
     
     @Override
     public T create(T object) {
+        assignClientId(object);
+        if (offlineMode.isLocal()) {
+            return insertLocal(object);
+        }
         try {
-            String jsonBody = objectMapper.writeValueAsString(object);
-            String response = client.post(tableName, jsonBody);
+            String response = client.post(tableName, object);
             
             // Response is an array with single element
             List<T> results = objectMapper.readValue(response, listTypeRef);
-            return results.isEmpty() ? null : results.get(0);
+            T created = results.isEmpty() ? null : results.get(0);
+            cacheWritten(created);
+            return created;
         } catch (IOException e) {
+            if (hasId(object) && offlineMode.fallBackToLocal(e)) {
+                return insertLocal(object);
+            }
+            throw new RuntimeException("Error creating record", e);
+        }
+    }
+    
+    @Override
+    public T createMinimal(T object) {
+        if (!assignClientId(object)) {
+            // Without a known id the caller needs the server's representation
+            return create(object);
+        }
+        if (offlineMode.isLocal()) {
+            return insertLocal(object);
+        }
+        try {
+            client.postMinimal(tableName, object);
+            // No server copy to cache; drop anything stale under this id instead
+            evictCached(((Identifiable) object).getId());
+            return object;
+        } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                return insertLocal(object);
+            }
             throw new RuntimeException("Error creating record", e);
         }
     }
     
     @Override
     public T update(UUID id, T object) {
+        if (offlineMode.isLocal()) {
+            return updateLocal(id, object);
+        }
         try {
             Map<String, String> params = SupabaseClient.buildParams();
             params.put("id", "eq." + id.toString());
             
-            String jsonBody = objectMapper.writeValueAsString(object);
-            String response = client.patch(tableName, jsonBody, params);
+            String response = client.patch(tableName, object, params);
             
             List<T> results = objectMapper.readValue(response, listTypeRef);
-            return results.isEmpty() ? null : results.get(0);
+            if (results.isEmpty()) {
+                evictCached(id);
+                return null;
+            }
+            cacheWritten(results.get(0));
+            return results.get(0);
         } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                return updateLocal(id, object);
+            }
+            evictCached(id);
             throw new RuntimeException("Error updating record: " + id, e);
         }
     }
     
     @Override
     public T upsert(T object) {
+        if (hasId(object) && offlineMode.isLocal()) {
+            return upsertLocal(object);
+        }
         try {
-            String jsonBody = objectMapper.writeValueAsString(object);
-            String response = client.upsert(tableName, jsonBody);
+            String response = client.upsert(tableName, object);
             
             List<T> results = objectMapper.readValue(response, listTypeRef);
-            return results.isEmpty() ? null : results.get(0);
+            T upserted = results.isEmpty() ? null : results.get(0);
+            cacheWritten(upserted);
+            return upserted;
         } catch (IOException e) {
+            if (hasId(object) && offlineMode.fallBackToLocal(e)) {
+                return upsertLocal(object);
+            }
             throw new RuntimeException("Error upserting record", e);
         }
     }
     
     @Override
     public void delete(UUID id) {
+        Map<String, String> params = SupabaseClient.buildParams();
+        params.put("id", "eq." + id.toString());
         try {
-            Map<String, String> params = SupabaseClient.buildParams();
-            params.put("id", "eq." + id.toString());
-            
+            if (offlineMode.isLocal()) {
+                deleteLocal(params);
+                return;
+            }
             client.delete(tableName, params);
         } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                deleteLocal(params);
+                return;
+            }
             throw new RuntimeException("Error deleting record: " + id, e);
+        } finally {
+            evictCached(id);
         }
     }
     
@@ -141,6 +894,8 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             client.delete(tableName, null);
         } catch (IOException e) {
             throw new RuntimeException("Error deleting all records", e);
+        } finally {
+            invalidateEntityCache();
         }
     }
     
@@ -152,8 +907,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             Map<String, String> params = SupabaseClient.buildParams();
             params.put(column, operator + "." + value.toString());
             
-            String response = client.get(tableName, params);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(params);
         } catch (IOException e) {
             throw new RuntimeException("Error filtering records", e);
         }
@@ -167,8 +921,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
                 params.put(key, "eq." + value.toString())
             );
             
-            String response = client.get(tableName, params);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(params);
         } catch (IOException e) {
             throw new RuntimeException("Error filtering records with multiple criteria", e);
         }
@@ -183,8 +936,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             );
             params.put("limit", "1");
             
-            String response = client.get(tableName, params);
-            List<T> results = objectMapper.readValue(response, listTypeRef);
+            List<T> results = queryDetail(params);
             
             return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
         } catch (IOException e) {
@@ -210,11 +962,10 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
     public List<T> getByRange(String column, Object min, Object max) {
         try {
             Map<String, String> params = SupabaseClient.buildParams();
-            params.put(column, "gte." + min.toString());
-            params.put(column, "lte." + max.toString());
+            // One parameter per column: both bounds go in a group (quoted, as timestamps contain "+" and ":")
+            params.put("and", "(" + column + ".gte.\"" + min + "\"," + column + ".lte.\"" + max + "\")");
             
-            String response = client.get(tableName, params);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(params);
         } catch (IOException e) {
             throw new RuntimeException("Error getting records by range", e);
         }
@@ -238,8 +989,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             }
             params.put("or", "(" + orQuery + ")");
             
-            String response = client.get(tableName, params);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(params);
         } catch (IOException e) {
             throw new RuntimeException("Error searching multiple columns", e);
         }
@@ -253,8 +1003,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             Map<String, String> params = SupabaseClient.buildParams();
             params.put("order", orderBy + "." + (ascending ? "asc" : "desc"));
             
-            String response = client.get(tableName, params);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(params);
         } catch (IOException e) {
             throw new RuntimeException("Error getting ordered records", e);
         }
@@ -268,8 +1017,7 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             params.put(column, operator + "." + value.toString());
             params.put("order", orderBy + "." + (ascending ? "asc" : "desc"));
             
-            String response = client.get(tableName, params);
-            return objectMapper.readValue(response, listTypeRef);
+            return query(params);
         } catch (IOException e) {
             throw new RuntimeException("Error filtering and ordering records", e);
         }
@@ -279,33 +1027,205 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
     
     @Override
     public List<T> createMultiple(List<T> objects) {
+        objects.forEach(this::assignClientId);
+        boolean allHaveIds = objects.stream().allMatch(this::hasId);
+        if (allHaveIds && offlineMode.isLocal()) {
+            return insertAllLocal(objects);
+        }
         try {
-            String jsonBody = objectMapper.writeValueAsString(objects);
-            String response = client.post(tableName, jsonBody);
-            
-            return objectMapper.readValue(response, listTypeRef);
+            // Large lists go out in chunks, several at a time
+            List<T> created = bulkInsert.insert(tableName, objects, listTypeRef).rows();
+            created.forEach(this::cacheWritten);
+            return created;
         } catch (IOException e) {
+            if (allHaveIds && offlineMode.fallBackToLocal(e)) {
+                return insertAllLocal(objects);
+            }
             throw new RuntimeException("Error creating multiple records", e);
         }
     }
     
+    /**
+     * Insert a large list of rows (migration, seeding) without reading them back.
+     * Rows are sent in chunks, several at a time, and chunks are retried when every row
+     * has an id (see BulkInsertEngine).
+     * @return Row count, timings per chunk and throughput
+     */
+    public BulkInsertEngine.Report createBulk(List<T> objects) {
+        objects.forEach(this::assignClientId);
+        boolean allHaveIds = objects.stream().allMatch(this::hasId);
+        if (allHaveIds && offlineMode.isLocal()) {
+            insertAllLocal(objects);
+            return new BulkInsertEngine.Report(tableName, objects.size(), List.of(), 0);
+        }
+        try {
+            return bulkInsert.insert(tableName, objects, null).report();
+        } catch (IOException e) {
+            if (allHaveIds && offlineMode.fallBackToLocal(e)) {
+                insertAllLocal(objects);
+                return new BulkInsertEngine.Report(tableName, objects.size(), List.of(), 0);
+            }
+            throw new RuntimeException("Error bulk inserting records", e);
+        } finally {
+            objects.stream().filter(this::hasId).forEach(object -> evictCached(((Identifiable) object).getId()));
+        }
+    }
+    
     @Override
     public void deleteMultiple(List<UUID> ids) {
+        Map<String, String> params = SupabaseClient.buildParams();
+        
+        // Build IN query: id=in.(uuid1,uuid2,uuid3)
+        params.put("id", SupabaseClient.inList(ids));
         try {
+            if (offlineMode.isLocal()) {
+                deleteLocal(params);
+                return;
+            }
+            client.delete(tableName, params);
+        } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                deleteLocal(params);
+                return;
+            }
+            throw new RuntimeException("Error deleting multiple records", e);
+        } finally {
+            ids.forEach(this::evictCached);
+        }
+    }
+    
+    @Override
+    public int updateWhere(Map<String, String> filter, Map<String, Object> fields) {
+        requireFilter(filter);
+        try {
+            if (offlineMode.isLocal()) {
+                return updateWhereLocal(filter, fields).size();
+            }
             Map<String, String> params = SupabaseClient.buildParams();
+            params.putAll(filter);
             
-            // Build IN query: id=in.(uuid1,uuid2,uuid3)
-            StringBuilder inQuery = new StringBuilder("in.(");
-            for (int i = 0; i < ids.size(); i++) {
-                if (i > 0) inQuery.append(",");
-                inQuery.append(ids.get(i).toString());
+            return client.patchWithCount(tableName, fields, params);
+        } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                return updateWhereLocal(filter, fields).size();
             }
-            inQuery.append(")");
+            throw new RuntimeException("Error updating records where " + filter, e);
+        } finally {
+            // The affected ids are not returned, so nothing cached can be trusted
+            invalidateEntityCache();
+        }
+    }
+    
+    /**
+     * Like updateWhere, for callers that need to know which rows changed: the same single
+     * request, with only the ids of the updated rows sent back
+     * @return Ids of the updated rows
+     */
+    protected List<UUID> updateWhereReturningIds(Map<String, String> filter, Map<String, Object> fields) {
+        requireFilter(filter);
+        List<UUID> ids = new ArrayList<>();
+        try {
+            if (offlineMode.isLocal()) {
+                updateWhereLocal(filter, fields).forEach(row -> ids.add(((Identifiable) row).getId()));
+                return ids;
+            }
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.putAll(filter);
+            params.put("select", "id");
             
-            params.put("id", inQuery.toString());
-            client.delete(tableName, params);
+            for (JsonNode row : objectMapper.readTree(client.patch(tableName, fields, params))) {
+                ids.add(UUID.fromString(row.get("id").asText()));
+            }
+            return ids;
         } catch (IOException e) {
-            throw new RuntimeException("Error deleting multiple records", e);
+            if (offlineMode.fallBackToLocal(e)) {
+                updateWhereLocal(filter, fields).forEach(row -> ids.add(((Identifiable) row).getId()));
+                return ids;
+            }
+            // Whether anything was updated is unknown
+            invalidateEntityCache();
+            throw new RuntimeException("Error updating records where " + filter, e);
+        } finally {
+            ids.forEach(this::evictCached);
+        }
+    }
+    
+    @Override
+    public int deleteWhere(Map<String, String> filter) {
+        requireFilter(filter);
+        try {
+            if (offlineMode.isLocal()) {
+                return deleteLocal(filter);
+            }
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.putAll(filter);
+            
+            return client.deleteWithCount(tableName, params);
+        } catch (IOException e) {
+            if (offlineMode.fallBackToLocal(e)) {
+                return deleteLocal(filter);
+            }
+            throw new RuntimeException("Error deleting records where " + filter, e);
+        } finally {
+            invalidateEntityCache();
+        }
+    }
+    
+    /**
+     * Guard against accidentally touching the whole table.
+     * Use deleteAll() when that is really intended.
+     */
+    private void requireFilter(Map<String, String> filter) {
+        if (filter == null || filter.isEmpty()) {
+            throw new IllegalArgumentException("A filter is required for bulk updates and deletes");
+        }
+    }
+    
+    // ==================== STREAMING ====================
+    
+    @Override
+    public Flow.Publisher<T> publishAll(int pageSize) {
+        return new PagedPublisher<>((limit, offset, previousLast) -> {
+            // Keyset paging (id > last id) avoids re-scanning skipped rows on every page
+            if (previousLast instanceof Identifiable last && last.getId() != null) {
+                return getPageAfter(last.getId(), limit);
+            }
+            return getPageOrderedById(limit, offset);
+        }, pageSize);
+    }
+    
+    /**
+     * Fetch the next page of records with an id greater than the given one.
+     * With UUIDv7 ids this is also creation-time order.
+     * @param afterId Last id of the previous page
+     * @param limit Maximum number of records to return
+     */
+    protected List<T> getPageAfter(UUID afterId, int limit) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put("id", "gt." + afterId);
+            params.put("order", "id.asc");
+            params.put("limit", String.valueOf(limit));
+            
+            return query(params);
+        } catch (IOException e) {
+            throw new RuntimeException("Error fetching page after " + afterId, e);
+        }
+    }
+    
+    /**
+     * Fetch one page ordered by id, so consecutive pages never overlap or skip rows
+     */
+    protected List<T> getPageOrderedById(int limit, int offset) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put("order", "id.asc");
+            params.put("limit", String.valueOf(limit));
+            params.put("offset", String.valueOf(offset));
+            
+            return query(params);
+        } catch (IOException e) {
+            throw new RuntimeException("Error fetching page at offset " + offset, e);
         }
     }
     
@@ -318,7 +1238,26 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
     
     @Override
     public boolean existsBy(String column, Object value) {
-        return findOneBy(column, value).isPresent();
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put(column, "eq." + value.toString());
+            // Whether a row matches is all that is needed, not the row
+            params.put("select", column);
+            params.put("limit", "1");
+            
+            return !queryDetail(params).isEmpty();
+        } catch (IOException e) {
+            throw new RuntimeException("Error checking existence", e);
+        }
+    }
+    
+    /**
+     * Whether a write failed because a row with the same unique value exists (Postgres 23505,
+     * sent by PostgREST as 409), e.g. to report it as IllegalArgumentException
+     */
+    protected static boolean isUniqueViolation(RuntimeException e) {
+        return e.getCause() instanceof SupabaseHttpException http && http.getStatusCode() == 409
+                && http.getMessage() != null && http.getMessage().contains("23505");
     }
     
     @Override
@@ -327,21 +1266,12 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             Map<String, String> params = SupabaseClient.buildParams();
             params.put("select", "count");
             
-            Response response = client.getWithCount(tableName, params);
-            
             // Get count from Content-Range header
-            String contentRange = response.header("Content-Range");
-            if (contentRange != null) {
-                // Format: "0-9/100" where 100 is total count
-                String[] parts = contentRange.split("/");
-                if (parts.length == 2) {
-                    response.close();
-                    return Integer.parseInt(parts[1]);
-                }
+            long start = System.nanoTime();
+            try (Response response = client.getWithCount(tableName, params)) {
+                statistics.record(tableName, params, (System.nanoTime() - start) / 1_000_000);
+                return SupabaseClient.parseContentRangeCount(response.header("Content-Range"));
             }
-            
-            response.close();
-            return 0;
         } catch (IOException e) {
             throw new RuntimeException("Error counting records", e);
         }
@@ -354,19 +1284,11 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
             params.put(column, operator + "." + value.toString());
             params.put("select", "count");
             
-            Response response = client.getWithCount(tableName, params);
-            
-            String contentRange = response.header("Content-Range");
-            if (contentRange != null) {
-                String[] parts = contentRange.split("/");
-                if (parts.length == 2) {
-                    response.close();
-                    return Integer.parseInt(parts[1]);
-                }
+            long start = System.nanoTime();
+            try (Response response = client.getWithCount(tableName, params)) {
+                statistics.record(tableName, params, (System.nanoTime() - start) / 1_000_000);
+                return SupabaseClient.parseContentRangeCount(response.header("Content-Range"));
             }
-            
-            response.close();
-            return 0;
         } catch (IOException e) {
             throw new RuntimeException("Error counting filtered records", e);
         }
@@ -388,5 +1310,12 @@ public abstract class BaseSupabaseService<T> implements Service<T> {
     public CompletableFuture<T> createAsync(T object) {
         return CompletableFuture.supplyAsync(() -> create(object));
     }
+    
+    @Override
+    public CompletableFuture<T> createMinimalAsync(T object) {
+        // Assign the id on the caller's thread so it can be used right away
+        assignClientId(object);
+        return CompletableFuture.supplyAsync(() -> createMinimal(object));
+    }
 }
 
@@ -0,0 +1,146 @@
+package com.example.programminggroupproject.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes rows in PostgreSQL's binary COPY format ({@code COPY ... FROM STDIN (FORMAT binary)}),
+ * which the server loads without parsing text.
+ * <p>
+ * Values are encoded by their Java type, so the table's columns must have the matching
+ * types: UUID as uuid, String as text, varchar or an enum, BigDecimal as numeric,
+ * OffsetDateTime as timestamptz, Boolean as boolean, Integer as integer, Long as bigint
+ * and Double as double precision. Other types are rejected with IllegalArgumentException.
+ */
+class BinaryCopyEncoder {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final Instant POSTGRES_EPOCH = Instant.parse("2000-01-01T00:00:00Z");
+    private static final short NUMERIC_POSITIVE = 0x0000;
+    private static final short NUMERIC_NEGATIVE = 0x4000;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    BinaryCopyEncoder() {
+        try {
+            out.write(SIGNATURE);
+            out.writeInt(0); // Flags
+            out.writeInt(0); // Header extension length
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing COPY header", e);
+        }
+    }
+
+    /**
+     * Append one row; null values are sent as NULL
+     */
+    void writeRow(List<Object> values) {
+        try {
+            out.writeShort(values.size());
+            for (Object value : values) {
+                writeValue(value);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing COPY row", e);
+        }
+    }
+
+    /**
+     * @return The complete COPY data, including the trailer
+     */
+    byte[] finish() {
+        try {
+            out.writeShort(-1);
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing COPY trailer", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else if (value instanceof UUID uuid) {
+            out.writeInt(16);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else if (value instanceof String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof BigDecimal number) {
+            writeNumeric(number);
+        } else if (value instanceof OffsetDateTime timestamp) {
+            out.writeInt(8);
+            out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, timestamp.toInstant()));
+        } else if (value instanceof Boolean flag) {
+            out.writeInt(1);
+            out.writeByte(flag ? 1 : 0);
+        } else if (value instanceof Integer number) {
+            out.writeInt(4);
+            out.writeInt(number);
+        } else if (value instanceof Long number) {
+            out.writeInt(8);
+            out.writeLong(number);
+        } else if (value instanceof Double number) {
+            out.writeInt(8);
+            out.writeDouble(number);
+        } else {
+            throw new IllegalArgumentException("No binary COPY encoding for " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * numeric is sent as base-10000 digits: count, weight of the first digit, sign and
+     * display scale, then the digits
+     */
+    private void writeNumeric(BigDecimal number) throws IOException {
+        String plain = number.abs().toPlainString();
+        int point = plain.indexOf('.');
+        String integerPart = point < 0 ? plain : plain.substring(0, point);
+        String fractionPart = point < 0 ? "" : plain.substring(point + 1);
+
+        // Pad both parts to whole groups of four decimal digits
+        integerPart = "0".repeat((4 - integerPart.length() % 4) % 4) + integerPart;
+        fractionPart = fractionPart + "0".repeat((4 - fractionPart.length() % 4) % 4);
+        List<Short> digits = new ArrayList<>();
+        for (int i = 0; i < integerPart.length(); i += 4) {
+            digits.add(Short.parseShort(integerPart.substring(i, i + 4)));
+        }
+        for (int i = 0; i < fractionPart.length(); i += 4) {
+            digits.add(Short.parseShort(fractionPart.substring(i, i + 4)));
+        }
+
+        int weight = integerPart.length() / 4 - 1;
+        while (!digits.isEmpty() && digits.get(0) == 0) {
+            digits.remove(0);
+            weight--;
+        }
+        while (!digits.isEmpty() && digits.get(digits.size() - 1) == 0) {
+            digits.remove(digits.size() - 1);
+        }
+        if (digits.isEmpty()) {
+            weight = 0;
+        }
+
+        out.writeInt(8 + 2 * digits.size());
+        out.writeShort(digits.size());
+        out.writeShort(weight);
+        out.writeShort(number.signum() < 0 ? NUMERIC_NEGATIVE : NUMERIC_POSITIVE);
+        out.writeShort(Math.max(number.scale(), 0));
+        for (short digit : digits) {
+            out.writeShort(digit);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.JsonRequestBody;
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.client.SupabaseHttpException;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.example.programminggroupproject.model.Identifiable;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inserts large lists of rows (migrations, seeding) as several requests sent side by side
+ * instead of one huge POST.
+ * <p>
+ * Rows are split into chunks of about {@code supabase.bulk.chunkBytes} of JSON (default
+ * 1 MiB, at most {@code supabase.bulk.maxChunkRows} rows, default 5000), sized from a sample
+ * of the rows. Up to {@code supabase.bulk.parallelism} chunks (default 4) are in flight at
+ * once, each serialized straight into its request (JsonRequestBody).
+ * <p>
+ * A chunk that fails because the server could not be reached or answered 401/408/429/5xx is
+ * resent up to {@code supabase.bulk.retries} times (default 3), with a backoff doubling from
+ * half a second. That is only done when every row has an id: the resend skips rows that
+ * already exist, so rows the failed attempt did insert are not inserted twice. Any other
+ * failure stops chunks that have not started yet and is thrown.
+ */
+public class BulkInsertEngine {
+
+    /**
+     * @param attempts Requests it took (1 if the first succeeded)
+     * @param millis Time from the first attempt to success, including backoff
+     */
+    public record ChunkReport(int index, int rows, long bytes, int attempts, long millis) {
+    }
+
+    /**
+     * Outcome of one bulk insert, with a report per chunk in input order
+     */
+    public record Report(String table, int rows, List<ChunkReport> chunks, long elapsedMillis) {
+
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            long slowest = chunks.stream().mapToLong(ChunkReport::millis).max().orElse(0);
+            int retried = (int) chunks.stream().filter(chunk -> chunk.attempts() > 1).count();
+            return String.format("%s: %d rows in %d chunks, %d ms (%.0f rows/s), slowest chunk %d ms, %d retried",
+                    table, rows, chunks.size(), elapsedMillis, rowsPerSecond(), slowest, retried);
+        }
+    }
+
+    /**
+     * Inserted rows (empty unless requested) and the report
+     */
+    record Result<T>(List<T> rows, Report report) {
+    }
+
+    private record ChunkResult<T>(ChunkReport report, List<T> rows) {
+    }
+
+    private static final int SAMPLE_ROWS = 32;
+    private static final int REREAD_IDS = 100;
+
+    private static BulkInsertEngine instance;
+
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final ObjectMapper objectMapper = client.getObjectMapper();
+    private final ObjectWriter bodyWriter = JsonRequestBody.writerFor(objectMapper);
+    private final long chunkBytes;
+    private final int maxChunkRows;
+    private final int retries;
+    private final ExecutorService executor;
+
+    private BulkInsertEngine() {
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        this.chunkBytes = Long.parseLong(config.getProperty("supabase.bulk.chunkBytes", "1048576").trim());
+        this.maxChunkRows = Integer.parseInt(config.getProperty("supabase.bulk.maxChunkRows", "5000").trim());
+        this.retries = Integer.parseInt(config.getProperty("supabase.bulk.retries", "3").trim());
+        int parallelism = Integer.parseInt(config.getProperty("supabase.bulk.parallelism", "4").trim());
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-insert-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized BulkInsertEngine getInstance() {
+        if (instance == null) {
+            instance = new BulkInsertEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Insert the rows chunk by chunk. A list that fits one chunk is sent from the calling thread.
+     * @param rowType Type to read the inserted rows as, or null to not have them sent back
+     * @return The inserted rows in input order (if requested) and timings
+     * @throws IOException The first chunk that failed for good; chunks already sent stay inserted
+     */
+    <T> Result<T> insert(String table, List<T> rows, TypeReference<List<T>> rowType) throws IOException {
+        long start = System.nanoTime();
+        boolean idempotent = !rows.isEmpty() && rows.stream().allMatch(
+                row -> row instanceof Identifiable identifiable && identifiable.getId() != null);
+        int size = chunkRows(rows);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += size) {
+            chunks.add(rows.subList(from, Math.min(rows.size(), from + size)));
+        }
+
+        List<ChunkResult<T>> results = new ArrayList<>();
+        if (chunks.size() <= 1) {
+            for (List<T> chunk : chunks) {
+                results.add(sendChunk(table, 0, chunk, idempotent, rowType));
+            }
+        } else {
+            results = sendConcurrently(table, chunks, idempotent, rowType);
+        }
+
+        List<T> inserted = new ArrayList<>();
+        List<ChunkReport> reports = new ArrayList<>();
+        for (ChunkResult<T> result : results) {
+            inserted.addAll(result.rows());
+            reports.add(result.report());
+        }
+        Report report = new Report(table, rows.size(), reports, (System.nanoTime() - start) / 1_000_000);
+        return new Result<>(inserted, report);
+    }
+
+    /**
+     * Rows per chunk: the byte budget divided by the average JSON size of a sample of the rows
+     */
+    int chunkRows(List<?> rows) {
+        if (rows.isEmpty()) {
+            return 1;
+        }
+        int samples = Math.min(SAMPLE_ROWS, rows.size());
+        long sampleBytes = 0;
+        try {
+            for (int i = 0; i < samples; i++) {
+                sampleBytes += objectMapper.writeValueAsBytes(rows.get((int) ((long) i * rows.size() / samples))).length;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error serializing rows", e);
+        }
+        long perRow = Math.max(1, sampleBytes / samples);
+        return (int) Math.max(1, Math.min(maxChunkRows, chunkBytes / perRow));
+    }
+
+    private <T> List<ChunkResult<T>> sendConcurrently(String table, List<List<T>> chunks, boolean idempotent,
+                                                      TypeReference<List<T>> rowType) throws IOException {
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<ChunkResult<T>>> futures = new ArrayList<>();
+        for (int i = 0; i < chunks.size(); i++) {
+            int index = i;
+            futures.add(executor.submit(() -> {
+                if (failed.get()) {
+                    return null;
+                }
+                try {
+                    return sendChunk(table, index, chunks.get(index), idempotent, rowType);
+                } catch (IOException | RuntimeException e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }));
+        }
+
+        List<ChunkResult<T>> results = new ArrayList<>();
+        IOException failure = null;
+        for (Future<ChunkResult<T>> future : futures) {
+            try {
+                ChunkResult<T> result = future.get();
+                if (result != null) {
+                    results.add(result);
+                }
+            } catch (InterruptedException e) {
+                failed.set(true);
+                futures.forEach(pending -> pending.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted during bulk insert into " + table);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        results.sort(Comparator.comparingInt(result -> result.report().index()));
+        return results;
+    }
+
+    private <T> ChunkResult<T> sendChunk(String table, int index, List<T> chunk, boolean idempotent,
+                                         TypeReference<List<T>> rowType) throws IOException {
+        long start = System.nanoTime();
+        long backoffMillis = 500;
+        for (int attempt = 1; ; attempt++) {
+            JsonRequestBody body = new JsonRequestBody(bodyWriter, chunk);
+            try {
+                // A resend may find some rows already inserted by the attempt that failed
+                String response = client.insert(table, body, attempt > 1, rowType != null);
+                List<T> inserted = rowType == null ? List.of()
+                        : attempt == 1 ? objectMapper.readValue(response, rowType)
+                        : reread(table, chunk, rowType);
+                ChunkReport report = new ChunkReport(index, chunk.size(), body.getBytesWritten(), attempt,
+                        (System.nanoTime() - start) / 1_000_000);
+                return new ChunkResult<>(report, inserted);
+            } catch (IOException e) {
+                boolean retryable = !(e instanceof SupabaseHttpException http) || http.isRetryable();
+                if (!idempotent || !retryable || attempt > retries || e instanceof InterruptedIOException) {
+                    throw e;
+                }
+                System.err.println("Bulk insert into " + table + ", chunk " + index + " failed (attempt "
+                        + attempt + "), retrying: " + e.getMessage());
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted during bulk insert into " + table);
+                }
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    /**
+     * Read back the rows of a resent chunk, since rows skipped as duplicates are not returned
+     */
+    private <T> List<T> reread(String table, List<T> chunk, TypeReference<List<T>> rowType) throws IOException {
+        List<UUID> ids = chunk.stream().map(row -> ((Identifiable) row).getId()).toList();
+        Map<UUID, T> byId = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += REREAD_IDS) {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put("id", SupabaseClient.inList(ids.subList(from, Math.min(ids.size(), from + REREAD_IDS))));
+            for (T row : objectMapper.readValue(client.get(table, params), rowType)) {
+                byId.put(((Identifiable) row).getId(), row);
+            }
+        }
+        List<T> rows = new ArrayList<>();
+        for (UUID id : ids) {
+            if (byId.containsKey(id)) {
+                rows.add(byId.get(id));
+            }
+        }
+        return rows;
+    }
+}
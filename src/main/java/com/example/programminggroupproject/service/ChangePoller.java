@@ -0,0 +1,196 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.ProxyChangeFeed;
+import com.example.programminggroupproject.config.SupabaseConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Change detection for when realtime updates are unavailable (e.g. WebSockets blocked).
+ * Instead of re-reading rows, each check reads a tiny change token for one scope of a
+ * table: the newest value of its sync column plus the row count, in a single request that
+ * returns at most one value. The callback, typically a DeltaSync, runs only when the
+ * token moves.
+ * <p>
+ * The interval adapts: it drops to {@code supabase.poller.minSeconds} (default 2) after a
+ * change or {@link #poke()}, and doubles after each idle check up to
+ * {@code supabase.poller.maxSeconds} (default 60). Behind a shop proxy, the proxy's change
+ * feed also triggers a check as soon as the table changes.
+ * <p>
+ * Checks of every poller share one thread; callbacks run on threads of their own, one
+ * at a time per poller, so a slow sync does not hold up other scopes' checks.
+ */
+public class ChangePoller {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ExecutorService CALLBACKS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "change-poller-callback");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final BaseSupabaseService<?> service;
+    private final Map<String, String> filter;
+    private final Runnable onChange;
+    private final long minMillis;
+    private final long maxMillis;
+    private final Consumer<String> proxyListener;
+
+    // Guarded by this
+    private Token token;
+    private long intervalMillis;
+    private ScheduledFuture<?> next;
+    private long scheduledChecks;
+    private boolean running;
+    private boolean notifying;
+    private boolean changePending;
+
+    /**
+     * Newest sync column value (as sent by the server) and row count of a scope;
+     * inserts and updates move the first, deletes the second
+     */
+    public record Token(String latest, int rowCount) {
+    }
+
+    ChangePoller(BaseSupabaseService<?> service, Map<String, String> filter, Runnable onChange) {
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        this.service = service;
+        this.filter = new HashMap<>(filter);
+        this.onChange = onChange;
+        this.minMillis = Long.parseLong(config.getProperty("supabase.poller.minSeconds", "2").trim()) * 1000;
+        this.maxMillis = Long.parseLong(config.getProperty("supabase.poller.maxSeconds", "60").trim()) * 1000;
+        this.intervalMillis = minMillis;
+        this.proxyListener = table -> {
+            if (table.equals(service.tableName) || table.equals(ProxyChangeFeed.ALL_TABLES)) {
+                poke();
+            }
+        };
+    }
+
+    /**
+     * Start polling; the first check only records the current token
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        intervalMillis = minMillis;
+        schedule(0);
+        ProxyChangeFeed.getInstance().addListener(proxyListener);
+    }
+
+    /**
+     * Stop polling, e.g. because realtime updates are available again. The last token is
+     * kept, so a later start() reports changes made in between.
+     */
+    public synchronized void stop() {
+        ProxyChangeFeed.getInstance().removeListener(proxyListener);
+        running = false;
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+
+    /**
+     * Check again soon at the shortest interval, e.g. after the user did something
+     * that is likely to cause changes
+     */
+    public synchronized void poke() {
+        if (!running) {
+            return;
+        }
+        intervalMillis = minMillis;
+        if (next != null) {
+            next.cancel(false);
+        }
+        schedule(minMillis);
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    private void schedule(long delayMillis) {
+        long check = ++scheduledChecks;
+        next = SCHEDULER.schedule(() -> check(check), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param check Number of this check; a check superseded by poke() while running keeps
+     * the token it read but leaves scheduling to the newer check
+     */
+    private void check(long check) {
+        Token current = null;
+        // While offline there is nothing to poll; OfflineMode reports when the server is back
+        if (!OfflineMode.getInstance().isOffline()) {
+            try {
+                current = service.changeToken(filter);
+            } catch (RuntimeException e) {
+                System.err.println("Error polling " + service.tableName + " for changes: " + e.getMessage());
+            }
+        }
+
+        boolean changed;
+        synchronized (this) {
+            if (!running) {
+                // Keep the token from before stop(), so the next start() reports this change
+                return;
+            }
+            changed = current != null && token != null && !current.equals(token);
+            if (current != null) {
+                token = current;
+            }
+            if (check == scheduledChecks) {
+                intervalMillis = changed ? minMillis : Math.min(maxMillis, intervalMillis * 2);
+                schedule(intervalMillis);
+            }
+        }
+
+        if (changed) {
+            notifyChange();
+        }
+    }
+
+    /**
+     * Run the callback off the scheduler's thread. A change found while the callback is
+     * still running makes it run once more afterwards rather than alongside.
+     */
+    private void notifyChange() {
+        synchronized (this) {
+            if (notifying) {
+                changePending = true;
+                return;
+            }
+            notifying = true;
+        }
+        CALLBACKS.execute(() -> {
+            while (true) {
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling change of " + service.tableName + ": " + e.getMessage());
+                }
+                synchronized (this) {
+                    if (!changePending) {
+                        notifying = false;
+                        return;
+                    }
+                    changePending = false;
+                }
+            }
+        });
+    }
+}
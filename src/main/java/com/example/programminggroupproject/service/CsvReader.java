@@ -0,0 +1,115 @@
+package com.example.programminggroupproject.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming CSV reader (RFC 4180): comma separated, fields optionally in double
+ * quotes, "" for a quote inside quotes, and line breaks inside quoted fields. Only the
+ * record being read is held in memory.
+ */
+final class CsvReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int peeked = -2;
+    private long line = 1;
+    private long recordLine;
+
+    /**
+     * @param reader Should be buffered
+     */
+    CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return The fields of the next record, or null at the end of the input
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        // Blank lines between records are skipped
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            field.setLength(0);
+            if (c == '"') {
+                c = readQuoted();
+                if (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    throw new IOException("Unexpected text after a quoted field on line " + line);
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            fields.add(field.toString());
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r' && peek() == '\n') {
+                read();
+            }
+            return fields;
+        }
+    }
+
+    /**
+     * @return Line of the file the last record returned started on (1-based)
+     */
+    long line() {
+        return recordLine;
+    }
+
+    /**
+     * Read a quoted field after its opening quote
+     * @return The character after the closing quote
+     */
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated quoted field starting on line " + recordLine);
+            }
+            if (c == '"') {
+                if (peek() != '"') {
+                    return read();
+                }
+                read();
+            }
+            field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (peeked != -2) {
+            c = peeked;
+            peeked = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
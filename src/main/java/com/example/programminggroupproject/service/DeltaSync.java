@@ -0,0 +1,121 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.example.programminggroupproject.model.Identifiable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Local copy of the rows of a table matching a filter, kept current by fetching only the
+ * rows whose sync column (updated_at, or created_at for append-only tables) is at or
+ * after the newest value seen so far, and merging them by id.
+ * <p>
+ * Deltas cannot see deleted rows, or rows that stopped matching the filter, so the whole
+ * set is reloaded on the first sync and then every
+ * {@code supabase.deltaSync.fullResyncMinutes} (default 10).
+ *
+ * @param <T> The model type; rows without an id are dropped
+ */
+public class DeltaSync<T> {
+
+    private final BaseSupabaseService<T> service;
+    private final Map<String, String> filter;
+    private final long fullResyncNanos;
+
+    private final Map<UUID, T> rows = new LinkedHashMap<>();
+    private String watermark;
+    private long lastFullSync;
+    private boolean synced;
+
+    /**
+     * Result of one sync
+     * @param rows Every row of the set, after merging
+     * @param changed The rows that were fetched by this sync (all of them on a full reload)
+     * @param fullReload Whether the set was reloaded instead of updated
+     */
+    public record Result<T>(List<T> rows, List<T> changed, boolean fullReload) {
+    }
+
+    /**
+     * A page of rows read from the server, with the last non-null sync column value among them
+     */
+    record Page<T>(List<T> rows, String lastSyncValue) {
+    }
+
+    DeltaSync(BaseSupabaseService<T> service, Map<String, String> filter) {
+        this.service = service;
+        this.filter = new HashMap<>(filter);
+        this.fullResyncNanos = Long.parseLong(
+                SupabaseConfig.getInstance().getProperty("supabase.deltaSync.fullResyncMinutes", "10").trim())
+                * 60_000_000_000L;
+    }
+
+    /**
+     * Bring the set up to date: a full reload when due, otherwise only the rows changed
+     * since the last sync (typically none, at the cost of one small request)
+     */
+    public synchronized Result<T> sync() {
+        boolean full = !synced || watermark == null || System.nanoTime() - lastFullSync >= fullResyncNanos;
+        String column = service.getSyncColumn();
+
+        Map<String, String> params = new HashMap<>(filter);
+        params.put("order", column + ".asc");
+        if (!full) {
+            // gte, not gt: rows written in the same instant as the newest one seen may have
+            // committed after it was read. Merging is idempotent, so re-reading them is harmless.
+            params.put(column, "gte." + watermark);
+        }
+
+        Page<T> page;
+        try {
+            page = service.fetchChanges(params);
+        } catch (IOException e) {
+            throw new RuntimeException("Error syncing " + service.tableName, e);
+        }
+
+        if (full) {
+            rows.clear();
+            lastFullSync = System.nanoTime();
+        }
+        for (T row : page.rows()) {
+            if (row instanceof Identifiable identifiable && identifiable.getId() != null) {
+                rows.put(identifiable.getId(), row);
+            }
+        }
+        if (page.lastSyncValue() != null) {
+            watermark = page.lastSyncValue();
+        }
+        synced = true;
+        return new Result<>(getRows(), page.rows(), full);
+    }
+
+    /**
+     * Merge a row received from elsewhere (e.g. a realtime event) without a request.
+     * The watermark is left alone, so the next sync still catches anything missed.
+     */
+    public synchronized void apply(T row) {
+        if (row instanceof Identifiable identifiable && identifiable.getId() != null) {
+            rows.put(identifiable.getId(), row);
+        }
+    }
+
+    /**
+     * @return The rows as of the last sync, without contacting the server
+     */
+    public synchronized List<T> getRows() {
+        return new ArrayList<>(rows.values());
+    }
+
+    /**
+     * @return Whether sync() has completed at least once
+     */
+    public synchronized boolean hasSynced() {
+        return synced;
+    }
+}
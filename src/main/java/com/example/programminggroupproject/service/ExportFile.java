@@ -0,0 +1,84 @@
+package com.example.programminggroupproject.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Output file of an export: bytes are collected in one large direct buffer and written
+ * to the FileChannel when it is full, so the file sees few, large writes. An OutputStream,
+ * so Jackson can write into it directly. Used by one thread at a time.
+ */
+final class ExportFile extends OutputStream {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * Open the file, keeping its first {@code keepBytes} bytes and dropping the rest
+     * @param keepBytes 0 to start an empty file, or where the last checkpoint left it
+     */
+    ExportFile(Path path, long keepBytes, int bufferBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(keepBytes);
+        channel.position(keepBytes);
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Write out the buffer; does not force it to disk
+     * @return Size of the file once everything written so far is in it
+     */
+    long drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return channel.position();
+    }
+
+    /**
+     * Force what was drained to the disk; may be called from another thread than the writer's
+     */
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            drain();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.JsonRequestBody;
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Exports the service history of a date range (service requests created in it, with their
+ * payments and items) to one CSV or NDJSON file per table, without holding more than a few
+ * pages of rows in memory, however many there are.
+ * <p>
+ * Requests are read in keyset pages of {@code supabase.export.pageSize} rows (default 1000)
+ * ordered by (created_at, id). Each table has a writer thread of its own: for every page the
+ * requests writer writes the page while the payments and items writers read the rows of
+ * those requests ({@code service_request_id=in.(...)}) and write them joined with the
+ * request's client, vehicle, status and creation time (request_* columns). At most two
+ * pages are ahead of the slowest writer. Files are written through a FileChannel from a
+ * direct buffer of {@code supabase.export.bufferBytes} (default 1 MiB).
+ * <p>
+ * Every {@code supabase.export.checkpointPages} pages (default 10) the files are forced to
+ * disk and the position reached is saved in {@code .history-export.json} in the directory.
+ * Running the same export into the same directory after an interruption cuts the files back
+ * to the last checkpoint and continues from there; the checkpoint is deleted once the export
+ * is complete. An export with another range or format starts over.
+ */
+public class HistoryExport {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        String extension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * @param bytes Size of the file
+     */
+    public record TableReport(String table, Path file, long rows, long bytes) {
+    }
+
+    /**
+     * @param resumed Whether the export continued from a checkpoint
+     */
+    public record Report(Path directory, boolean resumed, List<TableReport> tables, long elapsedMillis) {
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("Export to " + directory + (resumed ? " (resumed)" : "") + ":");
+            for (TableReport table : tables) {
+                text.append(String.format(" %s %d rows (%d KB),", table.table(), table.rows(), table.bytes() / 1024));
+            }
+            return text.append(" ").append(elapsedMillis).append(" ms").toString();
+        }
+    }
+
+    /**
+     * @param join Whether rows are read per page of requests and get the request_* columns
+     */
+    private record Table(String name, List<String> columns, boolean join) {
+    }
+
+    /**
+     * Position of a writer after a page
+     * @param bytes Size of the file, or -1 when the page was not a checkpoint
+     */
+    private record Written(long rows, long bytes) {
+    }
+
+    private record Page(List<Future<Written>> writes, boolean checkpoint, String lastCreatedAt, String lastId) {
+    }
+
+    private static final String CHECKPOINT_FILE = ".history-export.json";
+    private static final int MAX_PAGES_AHEAD = 2;
+    private static final int IDS_PER_QUERY = 100;
+
+    private static final List<String> JOIN_COLUMNS =
+            List.of("request_client_id", "request_vehicle_id", "request_status", "request_created_at");
+    private static final List<Table> TABLES = List.of(
+            new Table("service_requests", List.of("id", "client_id", "vehicle_id", "shop_id", "mechanic_id", "status",
+                    "total_price_estimated", "total_price_final", "notes", "service_description",
+                    "created_at", "updated_at"), false),
+            new Table("payments", List.of("id", "service_request_id", "amount", "status", "created_at"), true),
+            new Table("service_request_items", List.of("id", "service_request_id", "service_id", "quantity",
+                    "price_estimated", "price_final", "source", "is_approved", "created_at"), true));
+
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final ObjectMapper objectMapper = client.getObjectMapper();
+    // Prices as BigDecimal, so they are written exactly as the server sent them
+    private final ObjectReader pageReader = objectMapper.reader().with(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final ObjectWriter rowWriter = JsonRequestBody.writerFor(objectMapper);
+    private final OfflineMode offlineMode = OfflineMode.getInstance();
+    private final Path directory;
+    private final Format format;
+    private final OffsetDateTime from;
+    private final OffsetDateTime to;
+    private final int pageSize;
+    private final int bufferBytes;
+    private final int checkpointPages;
+
+    /**
+     * @param directory Where the files go: service_requests, payments and service_request_items
+     * with the format's extension
+     * @param from Earliest request creation time to include, or null for no limit
+     * @param to Creation time from which requests are left out, or null for no limit
+     */
+    public HistoryExport(Path directory, Format format, OffsetDateTime from, OffsetDateTime to) {
+        this.directory = directory;
+        this.format = format;
+        this.from = from;
+        this.to = to;
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        this.pageSize = Integer.parseInt(config.getProperty("supabase.export.pageSize", "1000").trim());
+        this.bufferBytes = Integer.parseInt(config.getProperty("supabase.export.bufferBytes", "1048576").trim());
+        this.checkpointPages = Integer.parseInt(config.getProperty("supabase.export.checkpointPages", "10").trim());
+    }
+
+    /**
+     * Run the export, or finish an interrupted one; blocks until it is done
+     * @param onCheckpoint Called on this thread at every checkpoint, or null
+     * @throws IOException If a read or write failed; running again resumes from the last checkpoint
+     * @throws IllegalStateException If the application is working offline
+     */
+    public synchronized Report run(Consumer<Report> onCheckpoint) throws IOException {
+        if (offlineMode.isLocal()) {
+            throw new IllegalStateException("Exporting needs a connection to the server");
+        }
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        JsonNode checkpoint = readCheckpoint();
+        boolean resumed = checkpoint != null;
+        String lastCreatedAt = resumed ? checkpoint.get("lastCreatedAt").asText() : null;
+        String lastId = resumed ? checkpoint.get("lastId").asText() : null;
+
+        List<TableWriter> writers = new ArrayList<>();
+        try {
+            for (Table table : TABLES) {
+                JsonNode position = resumed ? checkpoint.path("tables").path(table.name()) : null;
+                writers.add(new TableWriter(table, resumed ? position.path("rows").asLong() : 0,
+                        resumed ? position.path("bytes").asLong() : 0));
+            }
+
+            Deque<Page> pages = new ArrayDeque<>();
+            int pageCount = 0;
+            while (true) {
+                JsonNode requests = readRequests(lastCreatedAt, lastId);
+                if (requests.isEmpty()) {
+                    break;
+                }
+                JsonNode last = requests.get(requests.size() - 1);
+                lastCreatedAt = last.get("created_at").asText();
+                lastId = last.get("id").asText();
+
+                boolean checkpointPage = ++pageCount % checkpointPages == 0;
+                List<Future<Written>> writes = new ArrayList<>();
+                for (TableWriter writer : writers) {
+                    writes.add(writer.submit(requests, checkpointPage));
+                }
+                pages.add(new Page(writes, checkpointPage, lastCreatedAt, lastId));
+                while (pages.size() > MAX_PAGES_AHEAD) {
+                    complete(pages.poll(), writers, resumed, start, onCheckpoint);
+                }
+                if (requests.size() < pageSize) {
+                    break;
+                }
+            }
+            while (!pages.isEmpty()) {
+                complete(pages.poll(), writers, resumed, start, onCheckpoint);
+            }
+
+            for (TableWriter writer : writers) {
+                writer.file.close();
+            }
+            Files.deleteIfExists(directory.resolve(CHECKPOINT_FILE));
+            return report(writers, resumed, start);
+        } finally {
+            for (TableWriter writer : writers) {
+                writer.executor.shutdownNow();
+            }
+            for (TableWriter writer : writers) {
+                writer.closeQuietly();
+            }
+        }
+    }
+
+    // ==================== READING ====================
+
+    /**
+     * The next page of requests in the range, after (lastCreatedAt, lastId) if given
+     */
+    private JsonNode readRequests(String lastCreatedAt, String lastId) throws IOException {
+        List<String> conditions = new ArrayList<>();
+        conditions.add("created_at.not.is.null");
+        if (from != null) {
+            conditions.add("created_at.gte.\"" + from + "\"");
+        }
+        if (to != null) {
+            conditions.add("created_at.lt.\"" + to + "\"");
+        }
+        if (lastCreatedAt != null) {
+            conditions.add("or(created_at.gt.\"" + lastCreatedAt + "\",and(created_at.eq.\""
+                    + lastCreatedAt + "\",id.gt." + lastId + "))");
+        }
+
+        Map<String, String> params = SupabaseClient.buildParams();
+        params.put("select", String.join(",", TABLES.get(0).columns()));
+        params.put("and", "(" + String.join(",", conditions) + ")");
+        params.put("order", "created_at.asc,id.asc");
+        params.put("limit", String.valueOf(pageSize));
+        return pageReader.readTree(client.get(TABLES.get(0).name(), params));
+    }
+
+    // ==================== WRITING ====================
+
+    /**
+     * Wait for the writers to finish a page, and save a checkpoint if it is one
+     */
+    private void complete(Page page, List<TableWriter> writers, boolean resumed, long start,
+                          Consumer<Report> onCheckpoint) throws IOException {
+        List<Written> positions = new ArrayList<>();
+        for (Future<Written> write : page.writes()) {
+            positions.add(await(write));
+        }
+        if (!page.checkpoint()) {
+            return;
+        }
+
+        ObjectNode checkpoint = parameters();
+        checkpoint.put("lastCreatedAt", page.lastCreatedAt());
+        checkpoint.put("lastId", page.lastId());
+        ObjectNode tables = checkpoint.putObject("tables");
+        for (int i = 0; i < writers.size(); i++) {
+            writers.get(i).file.force();
+            tables.putObject(writers.get(i).table.name())
+                    .put("rows", positions.get(i).rows())
+                    .put("bytes", positions.get(i).bytes());
+        }
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temporary, checkpoint.toString());
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        if (onCheckpoint != null) {
+            onCheckpoint.accept(report(writers, resumed, start));
+        }
+    }
+
+    private Written await(Future<Written> write) throws IOException {
+        try {
+            return write.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new RuntimeException("Error writing export", e.getCause());
+        }
+    }
+
+    private Report report(List<TableWriter> writers, boolean resumed, long start) {
+        List<TableReport> tables = new ArrayList<>();
+        for (TableWriter writer : writers) {
+            tables.add(new TableReport(writer.table.name(), writer.path, writer.rows, writer.path.toFile().length()));
+        }
+        return new Report(directory, resumed, tables, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * One table's file and the thread writing it; rows and line are only used on that thread
+     */
+    private class TableWriter {
+        private final Table table;
+        private final Path path;
+        private final ExportFile file;
+        private final ExecutorService executor;
+        private final StringBuilder line = new StringBuilder();
+        private volatile long rows;
+
+        private TableWriter(Table table, long rows, long keepBytes) throws IOException {
+            this.table = table;
+            this.rows = rows;
+            this.path = directory.resolve(table.name() + "." + format.extension());
+            this.file = new ExportFile(path, keepBytes, bufferBytes);
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "export-" + table.name());
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (keepBytes == 0 && format == Format.CSV) {
+                List<String> header = new ArrayList<>(table.columns());
+                if (table.join()) {
+                    header.addAll(JOIN_COLUMNS);
+                }
+                file.write((String.join(",", header) + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        Future<Written> submit(JsonNode requests, boolean checkpoint) {
+            return executor.submit(() -> {
+                if (table.join()) {
+                    writeChildren(requests);
+                } else {
+                    for (JsonNode request : requests) {
+                        writeRow(request, null);
+                    }
+                }
+                return new Written(rows, checkpoint ? file.drain() : -1);
+            });
+        }
+
+        /**
+         * Read and write the table's rows of a page of requests, by up to 100 requests at a time
+         */
+        private void writeChildren(JsonNode requests) throws IOException {
+            Map<String, JsonNode> byId = new HashMap<>();
+            List<String> ids = new ArrayList<>();
+            for (JsonNode request : requests) {
+                String id = request.get("id").asText();
+                byId.put(id, request);
+                ids.add(id);
+            }
+            for (int first = 0; first < ids.size(); first += IDS_PER_QUERY) {
+                List<String> group = ids.subList(first, Math.min(ids.size(), first + IDS_PER_QUERY));
+                String after = null;
+                while (true) {
+                    Map<String, String> params = SupabaseClient.buildParams();
+                    params.put("select", String.join(",", table.columns()));
+                    params.put("service_request_id", SupabaseClient.inList(group));
+                    if (after != null) {
+                        params.put("id", "gt." + after);
+                    }
+                    params.put("order", "id.asc");
+                    params.put("limit", String.valueOf(pageSize));
+                    JsonNode rowsRead = pageReader.readTree(client.get(table.name(), params));
+                    for (JsonNode row : rowsRead) {
+                        writeRow(row, byId.get(row.path("service_request_id").asText()));
+                    }
+                    if (rowsRead.size() < pageSize) {
+                        break;
+                    }
+                    after = rowsRead.get(rowsRead.size() - 1).get("id").asText();
+                }
+            }
+        }
+
+        private void writeRow(JsonNode row, JsonNode request) throws IOException {
+            if (format == Format.NDJSON) {
+                ObjectNode out = objectMapper.createObjectNode();
+                for (String column : table.columns()) {
+                    out.set(column, row.get(column));
+                }
+                if (table.join()) {
+                    for (String column : JOIN_COLUMNS) {
+                        out.set(column, request == null ? null : request.get(column.substring("request_".length())));
+                    }
+                }
+                rowWriter.writeValue(file, out);
+                file.write('\n');
+            } else {
+                line.setLength(0);
+                for (String column : table.columns()) {
+                    appendCsv(row.get(column));
+                }
+                if (table.join()) {
+                    for (String column : JOIN_COLUMNS) {
+                        appendCsv(request == null ? null : request.get(column.substring("request_".length())));
+                    }
+                }
+                line.setCharAt(line.length() - 1, '\n');
+                file.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            rows++;
+        }
+
+        /**
+         * Append a field and its separator; quoted when it contains a comma, quote or line break
+         */
+        private void appendCsv(JsonNode value) {
+            if (value != null && !value.isNull()) {
+                String text = value.isBigDecimal() ? value.decimalValue().toPlainString() : value.asText();
+                if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                    line.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else {
+                    line.append(text);
+                }
+            }
+            line.append(',');
+        }
+
+        void closeQuietly() {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // Already closed, or failing; the checkpoint still marks what is complete
+            }
+        }
+    }
+
+    // ==================== CHECKPOINT ====================
+
+    private ObjectNode parameters() {
+        ObjectNode parameters = objectMapper.createObjectNode();
+        parameters.put("format", format.name());
+        parameters.put("from", from == null ? null : from.toString());
+        parameters.put("to", to == null ? null : to.toString());
+        return parameters;
+    }
+
+    /**
+     * @return The checkpoint of an unfinished run of this export, or null to start over
+     */
+    private JsonNode readCheckpoint() {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            JsonNode checkpoint = objectMapper.readTree(path.toFile());
+            ObjectNode parameters = parameters();
+            for (String field : List.of("format", "from", "to")) {
+                if (!parameters.get(field).equals(checkpoint.path(field))) {
+                    System.err.println("Export in " + directory + " was for another range or format, starting over");
+                    return null;
+                }
+            }
+            for (Table table : TABLES) {
+                Path file = directory.resolve(table.name() + "." + format.extension());
+                long bytes = checkpoint.path("tables").path(table.name()).path("bytes").asLong(-1);
+                if (bytes < 0 || !Files.exists(file) || Files.size(file) < bytes) {
+                    System.err.println("Export files in " + directory + " do not match the checkpoint, starting over");
+                    return null;
+                }
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            System.err.println("Error reading export checkpoint " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.client.SupabaseHttpException;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Imports a CSV or NDJSON file into one table (vehicles, users or service_requests) without
+ * holding more than a few batches of it in memory, however long the file is.
+ * <p>
+ * The calling thread reads the file in batches of {@code supabase.import.batchSize} rows
+ * (default 500). Each batch is validated and normalized on a pool of
+ * {@code supabase.import.parallelism} threads (default 4); at most twice that many batches
+ * are read ahead. Batches are then written in file order: values of the unique column
+ * (license plate, email) are looked up in {@code in.()} queries of 100, as are the rows' ids.
+ * Rows whose id or unique value is already on the server or earlier in the batch are skipped
+ * as duplicates, and the rest go out as one insert with {@code return=minimal}. Since each batch is written before the next one is
+ * checked, duplicates between batches are found by the lookup too.
+ * <p>
+ * An import only adds rows: one with the id of an existing row is skipped, never merged
+ * into it. Rows without an id get a name-based UUID of the file name, line and content,
+ * so re-running an import after a failure skips the rows it already wrote instead of
+ * adding them again. An insert that fails because the server could not be reached or answered 401/408/429/5xx is resent up
+ * to {@code supabase.import.retries} times (default 3). Columns the table does not have
+ * are ignored. Rows that fail validation are counted and skipped; the first 100 skipped
+ * rows are reported with their line number and the reason.
+ */
+public class ImportPipeline {
+
+    /**
+     * Counts so far
+     * @param read Rows read from the file
+     * @param duplicates Rows skipped because their unique value was already taken
+     * @param invalid Rows skipped because they failed validation
+     * @param bytesRead Bytes of the file read, to compare with totalBytes
+     */
+    public record Progress(long read, long written, long duplicates, long invalid,
+                           long bytesRead, long totalBytes, long elapsedMillis) {
+
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? read : read * 1000.0 / elapsedMillis;
+        }
+
+        /**
+         * @return Share of the file read, from 0 to 1
+         */
+        public double fraction() {
+            return totalBytes == 0 ? 1 : Math.min(1, (double) bytesRead / totalBytes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows read (%.0f%%), %d written, %d duplicates, %d invalid, %d ms (%.0f rows/s)",
+                    read, fraction() * 100, written, duplicates, invalid, elapsedMillis, rowsPerSecond());
+        }
+    }
+
+    /**
+     * A row that was not imported
+     * @param line Line of the file the row starts on
+     */
+    public record RowError(long line, String message) {
+    }
+
+    /**
+     * Outcome of an import
+     * @param errors The first rows that were skipped as invalid or duplicates, at most 100
+     */
+    public record Report(String table, Path file, Progress totals, List<RowError> errors) {
+
+        @Override
+        public String toString() {
+            return table + " from " + file.getFileName() + ": " + totals;
+        }
+    }
+
+    /**
+     * Validates one row and returns it in the form it is written in
+     */
+    @FunctionalInterface
+    interface RowMapper {
+        /**
+         * @throws IllegalArgumentException Why the row cannot be imported
+         */
+        ObjectNode map(ObjectNode row);
+    }
+
+    /**
+     * @param original The unique column's value as the file spelled it
+     */
+    private record Line(long line, ObjectNode values, String original) {
+    }
+
+    private record Batch(List<Line> rows, List<RowError> errors) {
+    }
+
+    private static final int MAX_ERRORS = 100;
+    private static final int LOOKUP_VALUES = 100;
+    private static final AtomicInteger RUNS = new AtomicInteger();
+
+    private static final Set<String> VEHICLE_COLUMNS =
+            Set.of("id", "client_id", "make", "model", "year", "license_plate", "created_at");
+    private static final Set<String> USER_COLUMNS =
+            Set.of("id", "auth_user_id", "email", "full_name", "role", "shop_id", "created_at");
+    private static final Set<String> ROLES = Set.of("client", "mechanic", "admin");
+    private static final List<String> STATUSES =
+            List.of("Pending", "In Progress", "Completed", "Rejected", "Cancelled");
+
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final ObjectMapper objectMapper = client.getObjectMapper();
+    private final OfflineMode offlineMode = OfflineMode.getInstance();
+    private final String table;
+    private final RowMapper mapper;
+    private final String uniqueColumn;
+    private final UnaryOperator<String> normalizer;
+    private final Runnable afterImport;
+    private final int batchSize;
+    private final int parallelism;
+    private final int retries;
+
+    // Counts of the run in progress
+    private long read;
+    private long written;
+    private long duplicates;
+    private long invalid;
+    private final List<RowError> errors = new ArrayList<>();
+
+    /**
+     * @param uniqueColumn Column whose values must not exist yet, or null to not check
+     * @param normalizer Canonical form of the unique column, as the mapper writes it
+     * @param afterImport Run when the import ends, e.g. to drop cached rows it may have changed
+     */
+    private ImportPipeline(String table, RowMapper mapper, String uniqueColumn, UnaryOperator<String> normalizer,
+                           Runnable afterImport) {
+        this.table = table;
+        this.mapper = mapper;
+        this.uniqueColumn = uniqueColumn;
+        this.normalizer = normalizer;
+        this.afterImport = afterImport;
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        this.batchSize = Integer.parseInt(config.getProperty("supabase.import.batchSize", "500").trim());
+        this.parallelism = Integer.parseInt(config.getProperty("supabase.import.parallelism", "4").trim());
+        this.retries = Integer.parseInt(config.getProperty("supabase.import.retries", "3").trim());
+    }
+
+    // ==================== IMPORTS ====================
+
+    /**
+     * Vehicles: make, model and license_plate are required; plates are stored upper case
+     * without spaces or dashes and must not exist yet; year, if given, must be plausible.
+     * @param defaultClientId Owner of rows without a client_id (e.g. the fleet client being
+     * onboarded), or null to require client_id in every row
+     */
+    public static ImportPipeline vehicles(UUID defaultClientId) {
+        VehicleService vehicles = VehicleService.getInstance();
+        int latestYear = Year.now().getValue() + 1;
+        return new ImportPipeline("vehicles", row -> {
+            ObjectNode out = known(row, VEHICLE_COLUMNS);
+            uuid(out, "id");
+            UUID clientId = uuid(out, "client_id");
+            if (clientId == null) {
+                if (defaultClientId == null) {
+                    throw new IllegalArgumentException("client_id is required");
+                }
+                out.put("client_id", defaultClientId.toString());
+            }
+            required(out, "make");
+            required(out, "model");
+            out.put("license_plate", VehicleService.normalizePlate(required(out, "license_plate")));
+            Long year = integer(out, "year");
+            if (year != null && (year < 1886 || year > latestYear)) {
+                throw new IllegalArgumentException("year " + year + " is out of range");
+            }
+            timestamp(out, "created_at");
+            return out;
+        }, "license_plate", VehicleService::normalizePlate, vehicles::invalidateEntityCache);
+    }
+
+    /**
+     * Users: email (stored lower case, must not exist yet) and full_name are required;
+     * role defaults to client and must be client, mechanic or admin.
+     */
+    public static ImportPipeline users() {
+        UserService users = UserService.getInstance();
+        return new ImportPipeline("users", row -> {
+            ObjectNode out = known(row, USER_COLUMNS);
+            uuid(out, "id");
+            uuid(out, "auth_user_id");
+            uuid(out, "shop_id");
+            String email = UserService.normalizeEmail(required(out, "email"));
+            if (email.indexOf('@') <= 0 || email.indexOf('@') == email.length() - 1) {
+                throw new IllegalArgumentException("email " + email + " is not valid");
+            }
+            out.put("email", email);
+            required(out, "full_name");
+            String role = text(out, "role");
+            role = role == null ? "client" : role.toLowerCase(Locale.ROOT);
+            if (!ROLES.contains(role)) {
+                throw new IllegalArgumentException("role " + role + " is not client, mechanic or admin");
+            }
+            out.put("role", role);
+            timestamp(out, "created_at");
+            return out;
+        }, "email", UserService::normalizeEmail, users::invalidateEntityCache);
+    }
+
+    /**
+     * Service requests: client_id and vehicle_id are required; status defaults to Pending and
+     * must be one the application uses. Only ids are checked for duplicates.
+     */
+    public static ImportPipeline serviceRequests() {
+        ServiceRequestService requests = ServiceRequestService.getInstance();
+        Set<String> columns = Set.of("id", "client_id", "vehicle_id", "shop_id", "mechanic_id", "status",
+                "total_price_estimated", "total_price_final", "notes", "service_description",
+                "created_at", "updated_at");
+        return new ImportPipeline("service_requests", row -> {
+            ObjectNode out = known(row, columns);
+            uuid(out, "id");
+            if (uuid(out, "client_id") == null) {
+                throw new IllegalArgumentException("client_id is required");
+            }
+            if (uuid(out, "vehicle_id") == null) {
+                throw new IllegalArgumentException("vehicle_id is required");
+            }
+            uuid(out, "shop_id");
+            uuid(out, "mechanic_id");
+            String status = text(out, "status");
+            String canonical = status == null ? "Pending" : STATUSES.stream()
+                    .filter(known -> known.equalsIgnoreCase(status)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("status " + status + " is not known"));
+            out.put("status", canonical);
+            decimal(out, "total_price_estimated");
+            decimal(out, "total_price_final");
+            timestamp(out, "created_at");
+            timestamp(out, "updated_at");
+            return out;
+        }, null, null, requests::invalidateEntityCache);
+    }
+
+    /**
+     * Import a file; blocks until it is done
+     * @param file A .csv file with a header line, or a .ndjson/.jsonl file
+     * @param onProgress Called on this thread after every batch, or null
+     * @throws IOException If the file cannot be read, is not valid CSV, or a batch could not
+     * be written; batches before it stay imported
+     * @throws IllegalStateException If the application is working offline
+     */
+    public synchronized Report run(Path file, Consumer<Progress> onProgress) throws IOException {
+        if (offlineMode.isLocal()) {
+            throw new IllegalStateException("Importing needs a connection to the server");
+        }
+        read = written = duplicates = invalid = 0;
+        errors.clear();
+        long start = System.nanoTime();
+
+        int run = RUNS.incrementAndGet();
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "import-" + run + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        String fileName = file.getFileName().toString();
+        try (ImportSource source = new ImportSource(file, objectMapper)) {
+            Deque<Future<Batch>> window = new ArrayDeque<>();
+            boolean done = false;
+            while (true) {
+                while (!done && window.size() < parallelism * 2) {
+                    List<ImportSource.Record> records = readBatch(source);
+                    if (records.isEmpty()) {
+                        done = true;
+                    } else {
+                        window.add(workers.submit(() -> map(records, fileName)));
+                    }
+                }
+                if (window.isEmpty()) {
+                    break;
+                }
+                write(await(window.poll()));
+                if (onProgress != null) {
+                    onProgress.accept(progress(source, start));
+                }
+            }
+            return new Report(table, file, progress(source, start), List.copyOf(errors));
+        } finally {
+            workers.shutdownNow();
+            afterImport.run();
+        }
+    }
+
+    // ==================== PIPELINE ====================
+
+    private List<ImportSource.Record> readBatch(ImportSource source) throws IOException {
+        List<ImportSource.Record> records = new ArrayList<>(batchSize);
+        while (records.size() < batchSize) {
+            ImportSource.Record record;
+            try {
+                record = source.next();
+            } catch (ImportSource.BadRecordException e) {
+                read++;
+                rejected(new RowError(e.line(), e.getMessage()));
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            records.add(record);
+        }
+        read += records.size();
+        return records;
+    }
+
+    /**
+     * Validate a batch and give every row an id; runs on the worker pool
+     */
+    private Batch map(List<ImportSource.Record> records, String fileName) {
+        List<Line> rows = new ArrayList<>(records.size());
+        List<RowError> rowErrors = new ArrayList<>();
+        for (ImportSource.Record record : records) {
+            try {
+                JsonNode original = uniqueColumn == null ? null : record.values().get(uniqueColumn);
+                String content = record.values().toString();
+                ObjectNode values = mapper.map(record.values());
+                JsonNode id = values.get("id");
+                values.put("id", id == null
+                        ? importedId(fileName, record.line(), content).toString()
+                        : UUID.fromString(id.asText()).toString());
+                rows.add(new Line(record.line(), values,
+                        original == null || original.isNull() ? null : original.asText().strip()));
+            } catch (IllegalArgumentException e) {
+                rowErrors.add(new RowError(record.line(), e.getMessage()));
+            }
+        }
+        return new Batch(rows, rowErrors);
+    }
+
+    private Batch await(Future<Batch> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during import into " + table);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error validating import rows", e.getCause());
+        }
+    }
+
+    private void write(Batch batch) throws IOException {
+        batch.errors().forEach(this::rejected);
+        List<ObjectNode> rows = new ArrayList<>(batch.rows().size());
+        Set<String> takenIds = lookup("id", batch.rows().stream().map(line -> line.values().get("id").asText()).toList());
+        Set<String> taken = uniqueColumn == null ? Set.of() : existing(batch.rows());
+        Set<String> seenIds = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        for (Line line : batch.rows()) {
+            String id = line.values().get("id").asText();
+            if (takenIds.contains(id) || !seenIds.add(id)) {
+                duplicates++;
+                report(new RowError(line.line(), "id " + id + " already exists"));
+                continue;
+            }
+            if (uniqueColumn != null) {
+                String value = line.values().get(uniqueColumn).asText();
+                if (taken.contains(value) || !seen.add(value)) {
+                    duplicates++;
+                    report(new RowError(line.line(), uniqueColumn + " " + value + " already exists"));
+                    continue;
+                }
+            }
+            rows.add(line.values());
+        }
+
+        // PostgREST wants the same keys in every row of a request, and a key sent as null
+        // would override the column default, so rows with different columns go separately
+        Map<Set<String>, List<ObjectNode>> byColumns = new LinkedHashMap<>();
+        for (ObjectNode row : rows) {
+            Set<String> columns = new HashSet<>();
+            row.fieldNames().forEachRemaining(columns::add);
+            byColumns.computeIfAbsent(columns, key -> new ArrayList<>()).add(row);
+        }
+        for (List<ObjectNode> group : byColumns.values()) {
+            insert(group);
+        }
+        written += rows.size();
+    }
+
+    /**
+     * @return Normalized values of the batch's unique column that are already on the server
+     */
+    private Set<String> existing(List<Line> rows) throws IOException {
+        // Existing rows may be stored in another spelling, so both are looked up
+        Set<String> candidates = new LinkedHashSet<>();
+        for (Line line : rows) {
+            candidates.add(line.values().get(uniqueColumn).asText());
+            if (line.original() != null) {
+                candidates.add(line.original());
+            }
+        }
+
+        Set<String> taken = new HashSet<>();
+        for (String value : lookup(uniqueColumn, new ArrayList<>(candidates))) {
+            taken.add(normalizer.apply(value));
+        }
+        return taken;
+    }
+
+    /**
+     * @return Those of the values that the column already has on the server
+     */
+    private Set<String> lookup(String column, List<String> values) throws IOException {
+        Set<String> found = new HashSet<>();
+        for (int from = 0; from < values.size(); from += LOOKUP_VALUES) {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put("select", column);
+            params.put(column, SupabaseClient.inList(values.subList(from, Math.min(values.size(), from + LOOKUP_VALUES))));
+            for (JsonNode row : objectMapper.readTree(client.get(table, params))) {
+                JsonNode value = row.get(column);
+                if (value != null && !value.isNull()) {
+                    found.add(value.asText());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Insert rows, skipping any whose id was written meanwhile
+     */
+    private void insert(List<ObjectNode> rows) throws IOException {
+        long backoffMillis = 500;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                client.insertIgnoringDuplicates(table, rows);
+                return;
+            } catch (IOException e) {
+                boolean retryable = !(e instanceof SupabaseHttpException http) || http.isRetryable();
+                if (!retryable || attempt > retries || e instanceof InterruptedIOException) {
+                    throw e;
+                }
+                System.err.println("Import into " + table + " failed (attempt " + attempt + "), retrying: "
+                        + e.getMessage());
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted during import into " + table);
+                }
+                backoffMillis *= 2;
+            }
+        }
+    }
+
+    private void rejected(RowError error) {
+        invalid++;
+        report(error);
+    }
+
+    private void report(RowError error) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    private Progress progress(ImportSource source, long start) {
+        return new Progress(read, written, duplicates, invalid, source.bytesRead(), source.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // ==================== ROW HELPERS ====================
+
+    /**
+     * @return The row's values of the given columns, without nulls
+     */
+    private static ObjectNode known(ObjectNode row, Set<String> columns) {
+        ObjectNode out = row.objectNode();
+        row.fields().forEachRemaining(field -> {
+            if (columns.contains(field.getKey()) && !field.getValue().isNull()) {
+                out.set(field.getKey(), field.getValue());
+            }
+        });
+        return out;
+    }
+
+    private static String text(ObjectNode row, String column) {
+        JsonNode value = row.get(column);
+        if (value == null) {
+            return null;
+        }
+        String text = value.asText().strip();
+        if (text.isEmpty()) {
+            row.remove(column);
+            return null;
+        }
+        row.put(column, text);
+        return text;
+    }
+
+    private static String required(ObjectNode row, String column) {
+        String text = text(row, column);
+        if (text == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return text;
+    }
+
+    /**
+     * Id of a row the file gives none: the same for the same line of the same file
+     */
+    private static UUID importedId(String fileName, long line, String content) {
+        return UUID.nameUUIDFromBytes((fileName + '\n' + line + '\n' + content).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static UUID uuid(ObjectNode row, String column) {
+        String text = text(row, column);
+        if (text == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(text);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(column + " " + text + " is not a UUID");
+        }
+    }
+
+    private static Long integer(ObjectNode row, String column) {
+        String text = text(row, column);
+        if (text == null) {
+            return null;
+        }
+        try {
+            long value = Long.parseLong(text);
+            row.put(column, value);
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " " + text + " is not a whole number");
+        }
+    }
+
+    private static void decimal(ObjectNode row, String column) {
+        String text = text(row, column);
+        if (text != null) {
+            try {
+                row.put(column, new BigDecimal(text));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " " + text + " is not a number");
+            }
+        }
+    }
+
+    private static void timestamp(ObjectNode row, String column) {
+        String text = text(row, column);
+        if (text != null) {
+            try {
+                row.put(column, OffsetDateTime.parse(text).toString());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(column + " " + text + " is not an ISO-8601 timestamp with offset");
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.programminggroupproject.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads an import file record by record as JSON objects: CSV (.csv, first line is the
+ * header; empty fields become null) or NDJSON (.ndjson, .jsonl; one object per line).
+ */
+final class ImportSource implements Closeable {
+
+    private static final int BUFFER_CHARS = 1 << 20;
+
+    /**
+     * One record of the file
+     * @param line Line it starts on, for error messages
+     */
+    record Record(long line, ObjectNode values) {
+    }
+
+    /**
+     * An NDJSON line that is not a JSON object; reading can go on with the next line
+     */
+    static final class BadRecordException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private final long line;
+
+        BadRecordException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+
+        long line() {
+            return line;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final CountingInputStream input;
+    private final BufferedReader reader;
+    private final long size;
+    private final CsvReader csv;
+    private final List<String> header;
+    private long jsonLine;
+
+    ImportSource(Path file, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        this.size = Files.size(file);
+        this.input = new CountingInputStream(Files.newInputStream(file));
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_CHARS);
+
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            this.csv = new CsvReader(reader);
+            this.header = csv.next();
+            if (header == null) {
+                throw new IOException("CSV file has no header line: " + file);
+            }
+            header.replaceAll(column -> column.strip().replace("\uFEFF", ""));
+        } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            this.csv = null;
+            this.header = null;
+        } else {
+            throw new IOException("Unsupported import file (expected .csv, .ndjson or .jsonl): " + file);
+        }
+    }
+
+    /**
+     * @return The next record, or null at the end of the file
+     * @throws BadRecordException If an NDJSON line is not a JSON object
+     * @throws IOException If the file cannot be read or is not valid CSV
+     */
+    Record next() throws IOException {
+        if (csv != null) {
+            List<String> fields = csv.next();
+            if (fields == null) {
+                return null;
+            }
+            ObjectNode values = objectMapper.createObjectNode();
+            for (int i = 0; i < header.size(); i++) {
+                String value = i < fields.size() ? fields.get(i).strip() : "";
+                values.put(header.get(i), value.isEmpty() ? null : value);
+            }
+            return new Record(csv.line(), values);
+        }
+
+        String text;
+        do {
+            text = reader.readLine();
+            jsonLine++;
+        } while (text != null && text.isBlank());
+        if (text == null) {
+            return null;
+        }
+        JsonNode values;
+        try {
+            values = objectMapper.readTree(text);
+        } catch (JsonProcessingException e) {
+            throw new BadRecordException(jsonLine, "Not valid JSON: " + e.getOriginalMessage());
+        }
+        if (!values.isObject()) {
+            throw new BadRecordException(jsonLine, "Not a JSON object");
+        }
+        return new Record(jsonLine, (ObjectNode) values);
+    }
+
+    /**
+     * @return Bytes of the file read so far (ahead of the records returned by up to one buffer)
+     */
+    long bytesRead() {
+        return input.count;
+    }
+
+    long size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
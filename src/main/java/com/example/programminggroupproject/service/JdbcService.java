@@ -0,0 +1,855 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.JdbcConnectionPool;
+import com.example.programminggroupproject.client.PostgrestSql;
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.model.DisplayOnly;
+import com.example.programminggroupproject.model.Identifiable;
+import com.example.programminggroupproject.model.UuidV7;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.postgresql.PGConnection;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Service implementation that talks to PostgreSQL directly over JDBC instead of through
+ * the REST API, for server deployments running next to the database.
+ * <p>
+ * Operations behave like their BaseSupabaseService counterparts and take the same
+ * PostgREST-style filters (translated by PostgrestSql), so a JdbcService can stand in for
+ * a REST service. Each operation is a single prepared statement on a pooled connection
+ * (see JdbcConnectionPool); the driver switches repeated statements to server-side
+ * prepared ones. createMultiple loads rows with binary COPY, and publishAll streams the
+ * table through a server-side cursor instead of issuing a query per page.
+ * <p>
+ * Columns are the model's @JsonProperty fields, except @DisplayOnly ones, read and written
+ * by reflection. There is no entity or query cache and no offline mode: the database is
+ * local, and row-level security does not apply to the connection's role.
+ *
+ * @param <T> The model type this service manages
+ */
+public class JdbcService<T> implements Service<T> {
+
+    protected final JdbcConnectionPool pool;
+    protected final String tableName;
+    protected final Class<T> modelClass;
+    protected final QueryStatistics statistics = QueryStatistics.getInstance();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Constructor<T> constructor;
+
+    // Mapped columns by name, in declaration order
+    private final Map<String, Field> columns = new LinkedHashMap<>();
+    private final String quotedTable;
+    private final String selectList;
+
+    /**
+     * @param tableName The table name
+     * @param modelClass The model class
+     */
+    public JdbcService(String tableName, Class<T> modelClass) {
+        this(JdbcConnectionPool.getInstance(), tableName, modelClass);
+    }
+
+    public JdbcService(JdbcConnectionPool pool, String tableName, Class<T> modelClass) {
+        this.pool = pool;
+        this.tableName = tableName;
+        this.modelClass = modelClass;
+
+        for (Field field : modelClass.getDeclaredFields()) {
+            JsonProperty property = field.getAnnotation(JsonProperty.class);
+            if (property == null || field.isAnnotationPresent(DisplayOnly.class)) {
+                continue;
+            }
+            field.setAccessible(true);
+            columns.put(property.value(), field);
+        }
+        try {
+            this.constructor = modelClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(modelClass.getName() + " needs a no-argument constructor", e);
+        }
+        this.quotedTable = PostgrestSql.quote(tableName);
+        this.selectList = String.join(", ", columns.keySet().stream().map(PostgrestSql::quote).toList());
+    }
+
+    // ==================== BASIC CRUD OPERATIONS ====================
+
+    @Override
+    public Optional<T> get(UUID id) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put("id", "eq." + id);
+            params.put("limit", "1");
+
+            List<T> results = query(params);
+            return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching record by ID: " + id, e);
+        }
+    }
+
+    @Override
+    public List<T> getAll() {
+        try {
+            return query(SupabaseClient.buildParams());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching all records", e);
+        }
+    }
+
+    @Override
+    public List<T> getAll(int limit, int offset) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put("limit", String.valueOf(limit));
+            params.put("offset", String.valueOf(offset));
+            return query(params);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error fetching paginated records", e);
+        }
+    }
+
+    @Override
+    public T create(T object) {
+        try {
+            return withConnection(connection -> insert(connection, object, true, false));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating record", e);
+        }
+    }
+
+    @Override
+    public T createMinimal(T object) {
+        if (!(object instanceof Identifiable identifiable) || identifiable.getId() == null) {
+            // Without a known id the caller needs the database's representation
+            return create(object);
+        }
+        try {
+            withConnection(connection -> insert(connection, object, false, false));
+            return object;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating record", e);
+        }
+    }
+
+    @Override
+    public T update(UUID id, T object) {
+        Map<String, Object> values = values(object);
+        values.remove("id");
+        if (values.isEmpty()) {
+            return get(id).orElse(null);
+        }
+        String sql = "UPDATE " + quotedTable + " SET " + assignments(values.keySet())
+                + " WHERE \"id\" = ? RETURNING " + selectList;
+        try {
+            List<Object> binds = new ArrayList<>(values.values());
+            binds.add(id);
+            List<T> results = withConnection(connection -> executeQuery(connection, sql, binds));
+            return results.isEmpty() ? null : results.get(0);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating record: " + id, e);
+        }
+    }
+
+    @Override
+    public T upsert(T object) {
+        try {
+            return withConnection(connection -> insert(connection, object, true, true));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error upserting record", e);
+        }
+    }
+
+    @Override
+    public void delete(UUID id) {
+        try {
+            withConnection(connection -> executeUpdate(connection,
+                    "DELETE FROM " + quotedTable + " WHERE \"id\" = ?", List.of(id)));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting record: " + id, e);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        try {
+            // WARNING: This deletes ALL records in the table
+            withConnection(connection -> executeUpdate(connection, "DELETE FROM " + quotedTable, List.of()));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting all records", e);
+        }
+    }
+
+    // ==================== FILTERING & QUERYING ====================
+
+    @Override
+    public List<T> filter(String column, String operator, Object value) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put(column, operator + "." + value.toString());
+
+            return query(params);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error filtering records", e);
+        }
+    }
+
+    @Override
+    public List<T> filterMultiple(Map<String, Object> criteria) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            criteria.forEach((key, value) -> params.put(key, "eq." + value.toString()));
+
+            return query(params);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error filtering records with multiple criteria", e);
+        }
+    }
+
+    @Override
+    public Optional<T> findOne(Map<String, Object> criteria) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            criteria.forEach((key, value) -> params.put(key, "eq." + value.toString()));
+            params.put("limit", "1");
+
+            List<T> results = query(params);
+            return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding single record", e);
+        }
+    }
+
+    @Override
+    public Optional<T> findOneBy(String column, Object value) {
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put(column, value);
+        return findOne(criteria);
+    }
+
+    @Override
+    public List<T> findBy(String column, Object value) {
+        return filter(column, "eq", value);
+    }
+
+    // ==================== RANGE & SEARCH ====================
+
+    @Override
+    public List<T> getByRange(String column, Object min, Object max) {
+        String sql = "SELECT " + selectList + " FROM " + quotedTable
+                + " WHERE " + PostgrestSql.quote(requireColumn(column)) + " BETWEEN ? AND ?";
+        try {
+            List<Object> binds = List.of(toColumnType(column, min), toColumnType(column, max));
+            return withConnection(connection -> executeQuery(connection, sql, binds));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting records by range", e);
+        }
+    }
+
+    @Override
+    public List<T> search(String column, String searchTerm) {
+        return filter(column, "ilike", "%" + searchTerm + "%");
+    }
+
+    @Override
+    public List<T> searchMultiple(String searchTerm, String... columns) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> binds = new ArrayList<>();
+        for (String column : columns) {
+            conditions.add("CAST(" + PostgrestSql.quote(requireColumn(column)) + " AS text) ILIKE ?");
+            binds.add("%" + searchTerm + "%");
+        }
+        String sql = "SELECT " + selectList + " FROM " + quotedTable
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" OR ", conditions));
+        try {
+            return withConnection(connection -> executeQuery(connection, sql, binds));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error searching multiple columns", e);
+        }
+    }
+
+    // ==================== ORDERING & SORTING ====================
+
+    @Override
+    public List<T> getAllOrdered(String orderBy, boolean ascending) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put("order", orderBy + "." + (ascending ? "asc" : "desc"));
+
+            return query(params);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error getting ordered records", e);
+        }
+    }
+
+    @Override
+    public List<T> filterAndOrder(String column, String operator, Object value,
+                                  String orderBy, boolean ascending) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put(column, operator + "." + value.toString());
+            params.put("order", orderBy + "." + (ascending ? "asc" : "desc"));
+
+            return query(params);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error filtering and ordering records", e);
+        }
+    }
+
+    // ==================== BULK OPERATIONS ====================
+
+    /**
+     * Loads the rows with one binary COPY and reads them back, so the result carries the
+     * database defaults. Rows without an id get a UUIDv7 one. As with a bulk insert through
+     * the REST API, a column set on any row is sent for all of them (NULL where missing).
+     */
+    @Override
+    public List<T> createMultiple(List<T> objects) {
+        if (objects.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (!objects.stream().allMatch(Identifiable.class::isInstance)) {
+            // COPY returns nothing, so rows can only be read back by id
+            return objects.stream().map(this::create).collect(ArrayList::new, List::add, List::addAll);
+        }
+
+        List<UUID> ids = new ArrayList<>();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Set<String> copyColumns = new LinkedHashSet<>();
+        for (T object : objects) {
+            Identifiable identifiable = (Identifiable) object;
+            if (identifiable.getId() == null) {
+                identifiable.setId(UuidV7.generate());
+            }
+            ids.add(identifiable.getId());
+            Map<String, Object> values = values(object);
+            rows.add(values);
+            copyColumns.addAll(values.keySet());
+        }
+
+        BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+        for (Map<String, Object> values : rows) {
+            encoder.writeRow(copyColumns.stream().map(values::get).toList());
+        }
+        byte[] data = encoder.finish();
+        String copy = "COPY " + quotedTable + " (" + quotedList(copyColumns) + ") FROM STDIN (FORMAT binary)";
+
+        try {
+            List<T> created = withConnection(connection -> {
+                try {
+                    connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copy, new ByteArrayInputStream(data));
+                } catch (IOException e) {
+                    throw new SQLException("Error sending COPY data", e);
+                }
+                return selectByIds(connection, ids);
+            });
+            // Same order as the input, like the REST API returns them
+            Map<UUID, T> byId = new HashMap<>();
+            created.forEach(row -> byId.put(((Identifiable) row).getId(), row));
+            return ids.stream().map(byId::get).filter(Objects::nonNull)
+                    .collect(ArrayList::new, List::add, List::addAll);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating multiple records", e);
+        }
+    }
+
+    @Override
+    public void deleteMultiple(List<UUID> ids) {
+        try {
+            withConnection(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM " + quotedTable + " WHERE \"id\" = ANY(?)")) {
+                    statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+                    return statement.executeUpdate();
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting multiple records", e);
+        }
+    }
+
+    @Override
+    public int updateWhere(Map<String, String> filter, Map<String, Object> fields) {
+        requireFilter(filter);
+        PostgrestSql.Where where = PostgrestSql.where(filter, columns.keySet());
+        String sql = "UPDATE " + quotedTable + " SET " + assignments(fields.keySet()) + where.sql();
+        try {
+            List<Object> binds = new ArrayList<>();
+            fields.forEach((column, value) -> binds.add(toColumnType(column, value)));
+            binds.addAll(operands(where));
+            return withConnection(connection -> executeUpdate(connection, sql, binds));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating records where " + filter, e);
+        }
+    }
+
+    @Override
+    public int deleteWhere(Map<String, String> filter) {
+        requireFilter(filter);
+        PostgrestSql.Where where = PostgrestSql.where(filter, columns.keySet());
+        try {
+            return withConnection(connection -> executeUpdate(connection,
+                    "DELETE FROM " + quotedTable + where.sql(), operands(where)));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting records where " + filter, e);
+        }
+    }
+
+    private void requireFilter(Map<String, String> filter) {
+        if (filter == null || filter.isEmpty()) {
+            throw new IllegalArgumentException("A filter is required for bulk updates and deletes");
+        }
+    }
+
+    // ==================== STREAMING ====================
+
+    /**
+     * Streams through a server-side cursor: one query whose rows the driver fetches
+     * pageSize at a time as the subscriber asks for more. Each subscriber holds a pooled
+     * connection until it completes or cancels.
+     */
+    @Override
+    public Flow.Publisher<T> publishAll(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        return subscriber -> {
+            Cursor cursor = new Cursor(pageSize);
+            new PagedPublisher<>(cursor, pageSize).subscribe(new Flow.Subscriber<T>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscriber.onSubscribe(new Flow.Subscription() {
+                        @Override
+                        public void request(long n) {
+                            subscription.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            subscription.cancel();
+                            cursor.close();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(T item) {
+                    subscriber.onNext(item);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    cursor.close();
+                    subscriber.onError(error);
+                }
+
+                @Override
+                public void onComplete() {
+                    cursor.close();
+                    subscriber.onComplete();
+                }
+            });
+        };
+    }
+
+    /**
+     * One pass over the table; pages are consecutive reads from the same open result set
+     */
+    private class Cursor implements PagedPublisher.PageFetcher<T> {
+
+        private final int fetchSize;
+
+        // Guarded by this
+        private JdbcConnectionPool.Lease lease;
+        private PreparedStatement statement;
+        private ResultSet rows;
+        private boolean closed;
+
+        Cursor(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        @Override
+        public synchronized List<T> fetch(int limit, int offset, T previousLast) {
+            if (closed) {
+                return List.of();
+            }
+            try {
+                if (rows == null) {
+                    open();
+                }
+                List<T> page = new ArrayList<>(limit);
+                while (page.size() < limit && rows.next()) {
+                    page.add(read(rows));
+                }
+                if (page.size() < limit) {
+                    close();
+                }
+                return page;
+            } catch (SQLException e) {
+                if (lease != null) {
+                    lease.discard();
+                }
+                close();
+                throw new RuntimeException("Error streaming records of " + tableName, e);
+            }
+        }
+
+        private void open() throws SQLException {
+            lease = pool.borrow();
+            Connection connection = lease.connection();
+            // The driver only uses a cursor inside a transaction with a fetch size set
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement("SELECT " + selectList + " FROM " + quotedTable
+                    + (columns.containsKey("id") ? " ORDER BY \"id\"" : ""),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            rows = statement.executeQuery();
+        }
+
+        synchronized void close() {
+            closed = true;
+            try {
+                if (statement != null) {
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                System.err.println("Error closing cursor on " + tableName + ": " + e.getMessage());
+            }
+            statement = null;
+            rows = null;
+            if (lease != null) {
+                // Returning the connection rolls back the read-only transaction
+                lease.close();
+                lease = null;
+            }
+        }
+    }
+
+    // ==================== STALE-WHILE-REVALIDATE ====================
+
+    @Override
+    public Revalidating<List<T>> filterRevalidating(String column, String operator, Object value) {
+        // Nothing is cached, so there is only the fresh value
+        return new Revalidating<>(null, () -> CompletableFuture.supplyAsync(() -> filter(column, operator, value)));
+    }
+
+    @Override
+    public Revalidating<List<T>> findByRevalidating(String column, Object value) {
+        return filterRevalidating(column, "eq", value);
+    }
+
+    @Override
+    public Revalidating<List<T>> getAllRevalidating() {
+        return new Revalidating<>(null, () -> CompletableFuture.supplyAsync(this::getAll));
+    }
+
+    @Override
+    public Optional<T> getCached(UUID id) {
+        return Optional.empty();
+    }
+
+    // ==================== UTILITY OPERATIONS ====================
+
+    @Override
+    public boolean exists(UUID id) {
+        return existsBy("id", id);
+    }
+
+    @Override
+    public boolean existsBy(String column, Object value) {
+        String sql = "SELECT 1 FROM " + quotedTable + " WHERE " + PostgrestSql.quote(requireColumn(column)) + " = ? LIMIT 1";
+        try {
+            return withConnection(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    bind(statement, List.of(toColumnType(column, value)));
+                    try (ResultSet rows = statement.executeQuery()) {
+                        return rows.next();
+                    }
+                }
+            });
+        } catch (SQLException e) {
+            throw new RuntimeException("Error checking existence", e);
+        }
+    }
+
+    @Override
+    public int count() {
+        try {
+            return count(SupabaseClient.buildParams());
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting records", e);
+        }
+    }
+
+    @Override
+    public int countFiltered(String column, String operator, Object value) {
+        try {
+            Map<String, String> params = SupabaseClient.buildParams();
+            params.put(column, operator + "." + value.toString());
+            return count(params);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error counting filtered records", e);
+        }
+    }
+
+    // ==================== ASYNC OPERATIONS ====================
+
+    @Override
+    public CompletableFuture<Optional<T>> getAsync(UUID id) {
+        return CompletableFuture.supplyAsync(() -> get(id));
+    }
+
+    @Override
+    public CompletableFuture<List<T>> getAllAsync() {
+        return CompletableFuture.supplyAsync(this::getAll);
+    }
+
+    @Override
+    public CompletableFuture<T> createAsync(T object) {
+        return CompletableFuture.supplyAsync(() -> create(object));
+    }
+
+    @Override
+    public CompletableFuture<T> createMinimalAsync(T object) {
+        return CompletableFuture.supplyAsync(() -> createMinimal(object));
+    }
+
+    // ==================== SQL ====================
+
+    /**
+     * Run a read given as PostgREST parameters (filters, order, limit, offset)
+     */
+    protected List<T> query(Map<String, String> params) throws SQLException {
+        PostgrestSql.Where where = PostgrestSql.where(params, columns.keySet());
+        String sql = "SELECT " + selectList + " FROM " + quotedTable + where.sql()
+                + PostgrestSql.orderBy(params, columns.keySet()) + PostgrestSql.limitOffset(params);
+        long start = System.nanoTime();
+        try {
+            return withConnection(connection -> executeQuery(connection, sql, operands(where)));
+        } finally {
+            statistics.record(tableName, params, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private int count(Map<String, String> params) throws SQLException {
+        PostgrestSql.Where where = PostgrestSql.where(params, columns.keySet());
+        return withConnection(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT count(*) FROM " + quotedTable + where.sql())) {
+                bind(statement, operands(where));
+                try (ResultSet rows = statement.executeQuery()) {
+                    rows.next();
+                    return rows.getInt(1);
+                }
+            }
+        });
+    }
+
+    private T insert(Connection connection, T object, boolean returning, boolean upsert) throws SQLException {
+        Map<String, Object> values = values(object);
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(quotedTable);
+        if (values.isEmpty()) {
+            sql.append(" DEFAULT VALUES");
+        } else {
+            sql.append(" (").append(quotedList(values.keySet())).append(") VALUES (")
+                    .append(String.join(", ", Collections.nCopies(values.size(), "?"))).append(")");
+        }
+        if (upsert && values.containsKey("id")) {
+            // Merge into an existing row, like PostgREST's resolution=merge-duplicates
+            List<String> updates = new ArrayList<>();
+            for (String column : values.keySet()) {
+                String quoted = PostgrestSql.quote(column);
+                updates.add(quoted + " = EXCLUDED." + quoted);
+            }
+            sql.append(" ON CONFLICT (\"id\") DO UPDATE SET ").append(String.join(", ", updates));
+        }
+        List<Object> binds = new ArrayList<>(values.values());
+        if (!returning) {
+            executeUpdate(connection, sql.toString(), binds);
+            return object;
+        }
+        sql.append(" RETURNING ").append(selectList);
+        List<T> results = executeQuery(connection, sql.toString(), binds);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    private List<T> selectByIds(Connection connection, List<UUID> ids) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + selectList + " FROM " + quotedTable + " WHERE \"id\" = ANY(?)")) {
+            statement.setArray(1, connection.createArrayOf("uuid", ids.toArray()));
+            try (ResultSet rows = statement.executeQuery()) {
+                return readAll(rows);
+            }
+        }
+    }
+
+    private List<T> executeQuery(Connection connection, String sql, List<Object> binds) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, binds);
+            try (ResultSet rows = statement.executeQuery()) {
+                return readAll(rows);
+            }
+        }
+    }
+
+    private int executeUpdate(Connection connection, String sql, List<Object> binds) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, binds);
+            return statement.executeUpdate();
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork<R> {
+        R run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Run work on a pooled connection; connections that failed (SQLSTATE class 08) are
+     * closed instead of returned
+     */
+    private <R> R withConnection(SqlWork<R> work) throws SQLException {
+        try (JdbcConnectionPool.Lease lease = pool.borrow()) {
+            try {
+                return work.run(lease.connection());
+            } catch (SQLException e) {
+                if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+                    lease.discard();
+                }
+                throw e;
+            }
+        }
+    }
+
+    // ==================== MAPPING ====================
+
+    private List<T> readAll(ResultSet rows) throws SQLException {
+        List<T> result = new ArrayList<>();
+        while (rows.next()) {
+            result.add(read(rows));
+        }
+        return result;
+    }
+
+    private T read(ResultSet rows) throws SQLException {
+        T row;
+        try {
+            row = constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot create " + modelClass.getName(), e);
+        }
+        int index = 1;
+        for (Field field : columns.values()) {
+            Object value = readColumn(rows, index++, field.getType());
+            try {
+                field.set(row, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot set " + field.getName(), e);
+            }
+        }
+        return row;
+    }
+
+    private Object readColumn(ResultSet rows, int index, Class<?> type) throws SQLException {
+        if (type == String.class || type == UUID.class || type == BigDecimal.class
+                || type == OffsetDateTime.class || type == Boolean.class || type == Integer.class
+                || type == Long.class || type == Double.class) {
+            return rows.getObject(index, type);
+        }
+        // Anything else (e.g. jsonb) arrives as text and is mapped like the REST API's JSON
+        String json = rows.getString(index);
+        try {
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new SQLException("Error reading column " + index + " as " + type.getName(), e);
+        }
+    }
+
+    /**
+     * @return The object's non-null column values, which is what the REST API would send
+     */
+    private Map<String, Object> values(T object) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        columns.forEach((column, field) -> {
+            try {
+                Object value = field.get(object);
+                if (value != null) {
+                    values.put(column, value);
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read " + field.getName(), e);
+            }
+        });
+        return values;
+    }
+
+    private List<Object> operands(PostgrestSql.Where where) {
+        List<Object> binds = new ArrayList<>();
+        for (PostgrestSql.Operand operand : where.operands()) {
+            binds.add(operand.text() ? operand.value() : toColumnType(operand.column(), operand.value()));
+        }
+        return binds;
+    }
+
+    /**
+     * Convert a value (often the text of a filter) to the Java type of the column's field
+     */
+    private Object toColumnType(String column, Object value) {
+        Class<?> type = columns.get(requireColumn(column)).getType();
+        return value == null || type.isInstance(value) ? value : objectMapper.convertValue(value, type);
+    }
+
+    private String requireColumn(String column) {
+        if (!columns.containsKey(column)) {
+            throw new IllegalArgumentException("Unknown column of " + tableName + ": " + column);
+        }
+        return column;
+    }
+
+    private void bind(PreparedStatement statement, List<Object> binds) throws SQLException {
+        for (int i = 0; i < binds.size(); i++) {
+            statement.setObject(i + 1, binds.get(i));
+        }
+    }
+
+    private String assignments(Collection<String> columnNames) {
+        List<String> assignments = new ArrayList<>();
+        for (String column : columnNames) {
+            assignments.add(PostgrestSql.quote(requireColumn(column)) + " = ?");
+        }
+        return String.join(", ", assignments);
+    }
+
+    private static String quotedList(Collection<String> columnNames) {
+        return String.join(", ", columnNames.stream().map(PostgrestSql::quote).toList());
+    }
+}
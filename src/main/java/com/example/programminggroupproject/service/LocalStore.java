@@ -0,0 +1,127 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.PostgrestFilter;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.example.programminggroupproject.model.Identifiable;
+import com.example.programminggroupproject.model.LazyLoadable;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory mirror of the rows the signed-in user has worked with, by table and id, which
+ * answers reads while the server is unreachable (see OfflineMode).
+ * <p>
+ * Complete rows returned by reads are recorded as they pass through BaseSupabaseService,
+ * and writes made offline are applied to it, so the screens show them before they reach
+ * the server. Rows are kept as detached JSON trees and every read gets new objects, so
+ * nothing done to a returned row reaches the mirror. Each table keeps its
+ * {@code supabase.offline.maxRowsPerTable} (default 5000) most recently seen rows.
+ * Queries are evaluated with PostgrestFilter.
+ */
+class LocalStore {
+
+    private final ObjectMapper objectMapper;
+    private final int maxRowsPerTable;
+
+    // Guarded by this
+    private final Map<String, LinkedHashMap<UUID, ObjectNode>> tables = new HashMap<>();
+
+    LocalStore(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.maxRowsPerTable = Integer.parseInt(
+                SupabaseConfig.getInstance().getProperty("supabase.offline.maxRowsPerTable", "5000").trim());
+    }
+
+    /**
+     * Record rows read from the server. A row whose lazy columns were not read keeps the
+     * values the mirror already has for them.
+     */
+    synchronized void remember(String table, List<?> rows) {
+        LinkedHashMap<UUID, ObjectNode> byId = table(table);
+        for (Object row : rows) {
+            if (row instanceof Identifiable identifiable && identifiable.getId() != null) {
+                ObjectNode tree = objectMapper.valueToTree(row);
+                ObjectNode known = byId.get(identifiable.getId());
+                if (known != null && row instanceof LazyLoadable loadable && loadable.isLazyColumnsPending()) {
+                    tree = known.deepCopy().setAll(tree);
+                }
+                byId.put(identifiable.getId(), tree);
+            }
+        }
+    }
+
+    synchronized void put(String table, Object row) {
+        remember(table, List.of(row));
+    }
+
+    /**
+     * Answer a read from the mirror
+     * @throws IllegalArgumentException If the parameters use filters PostgrestFilter cannot evaluate
+     */
+    synchronized <T> List<T> query(String table, Map<String, String> params, Class<T> modelClass) {
+        return matching(table, params).stream()
+                .map(tree -> objectMapper.convertValue(tree, modelClass))
+                .toList();
+    }
+
+    /**
+     * Like query(), returning copies of the JSON rows, e.g. for selects of single columns
+     */
+    synchronized List<JsonNode> queryTrees(String table, Map<String, String> params) {
+        return matching(table, params).stream()
+                .<JsonNode>map(ObjectNode::deepCopy)
+                .toList();
+    }
+
+    /**
+     * Set fields on every mirrored row matching the filter
+     * @return The updated rows
+     */
+    synchronized <T> List<T> update(String table, Map<String, String> filter, Map<String, Object> fields, Class<T> modelClass) {
+        List<T> updated = new ArrayList<>();
+        for (ObjectNode tree : matching(table, filter)) {
+            fields.forEach((column, value) -> tree.set(column, objectMapper.valueToTree(value)));
+            updated.add(objectMapper.convertValue(tree, modelClass));
+        }
+        return updated;
+    }
+
+    /**
+     * Remove every mirrored row matching the filter
+     * @return The ids removed
+     */
+    synchronized List<UUID> delete(String table, Map<String, String> filter) {
+        List<UUID> removed = new ArrayList<>();
+        for (ObjectNode tree : matching(table, filter)) {
+            UUID id = UUID.fromString(tree.path("id").asText());
+            table(table).remove(id);
+            removed.add(id);
+        }
+        return removed;
+    }
+
+    synchronized void clear() {
+        tables.clear();
+    }
+
+    private List<ObjectNode> matching(String table, Map<String, String> params) {
+        return PostgrestFilter.apply(params, new ArrayList<>(table(table).values()));
+    }
+
+    private LinkedHashMap<UUID, ObjectNode> table(String table) {
+        return tables.computeIfAbsent(table, name -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, ObjectNode> eldest) {
+                return size() > maxRowsPerTable;
+            }
+        });
+    }
+}
@@ -3,6 +3,7 @@ package com.example.programminggroupproject.service;
 import com.example.programminggroupproject.model.MechanicShop;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -15,6 +16,8 @@ public class MechanicShopService extends BaseSupabaseService<MechanicShop> {
     
     private MechanicShopService() {
         super("mechanic_shops", MechanicShop.class, new TypeReference<List<MechanicShop>>() {});
+        enableEntityCache(200, Duration.ofMinutes(10));
+        enableQueryCache(Duration.ofMinutes(10));
     }
     
     /**
@@ -23,6 +26,7 @@ public class MechanicShopService extends BaseSupabaseService<MechanicShop> {
     public static synchronized MechanicShopService getInstance() {
         if (instance == null) {
             instance = new MechanicShopService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -4,6 +4,7 @@ import com.example.programminggroupproject.model.Service;
 import com.fasterxml.jackson.core.type.TypeReference;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,8 @@ public class MechanicalService extends BaseSupabaseService<Service> {
     
     private MechanicalService() {
         super("services", Service.class, new TypeReference<List<Service>>() {});
+        enableEntityCache(200, Duration.ofMinutes(10));
+        enableQueryCache(Duration.ofMinutes(10));
     }
     
     /**
@@ -26,6 +29,7 @@ public class MechanicalService extends BaseSupabaseService<Service> {
     public static synchronized MechanicalService getInstance() {
         if (instance == null) {
             instance = new MechanicalService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -0,0 +1,351 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.client.SupabaseHttpException;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import okhttp3.Headers;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the app usable while the server cannot be reached.
+ * <p>
+ * When a request fails because the server is unreachable (as opposed to answering with
+ * an error), the app goes offline: reads are answered from the LocalStore mirror and
+ * writes are applied to it and queued in the user's Outbox. Every
+ * {@code supabase.offline.probeSeconds} (default 5) the server is probed; once it answers,
+ * the outbox is replayed in order, in batches of {@code supabase.offline.batchSize}
+ * (default 50) entries, and the app is online again when it is empty.
+ * <p>
+ * Updates are replayed as the same conditional updates that were made offline (e.g.
+ * "status is still Pending"), so a row changed elsewhere in the meantime is not
+ * overwritten: the update then affects fewer rows than it did locally and is reported as
+ * a conflict. Inserts use client-generated ids and skip rows that already exist, so
+ * replaying twice is harmless.
+ */
+public class OfflineMode {
+
+    /**
+     * A queued write that could not be applied as made
+     * @param expected Rows it affected locally
+     * @param applied Rows it affected on the server
+     * @param reason Why it did not apply, for display
+     */
+    public record Conflict(String table, String operation, Map<String, String> filter,
+                           int expected, int applied, String reason) {
+    }
+
+    private static OfflineMode instance;
+
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final Outbox outbox = new Outbox(client.getObjectMapper());
+    private final LocalStore localStore = new LocalStore(client.getObjectMapper());
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "offline-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long probeMillis;
+    private final int batchSize;
+
+    private final Map<String, BaseSupabaseService<?>> services = new ConcurrentHashMap<>();
+    private final List<Consumer<Boolean>> connectionListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<List<Conflict>>> conflictListeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private boolean offline;
+    private ScheduledFuture<?> probe;
+
+    private OfflineMode() {
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        this.probeMillis = Long.parseLong(config.getProperty("supabase.offline.probeSeconds", "5").trim()) * 1000;
+        this.batchSize = Integer.parseInt(config.getProperty("supabase.offline.batchSize", "50").trim());
+    }
+
+    public static synchronized OfflineMode getInstance() {
+        if (instance == null) {
+            instance = new OfflineMode();
+        }
+        return instance;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Load the user's outbox; call at login. Writes left over from an earlier session
+     * are replayed right away.
+     */
+    public void open(UUID userId) {
+        outbox.open(userId);
+        if (outbox.size() > 0) {
+            goOffline();
+        }
+    }
+
+    /**
+     * Forget the signed-in user's mirror; queued writes stay on disk for their next login
+     */
+    public synchronized void close() {
+        outbox.close();
+        localStore.clear();
+        if (probe != null) {
+            probe.cancel(false);
+            probe = null;
+        }
+        offline = false;
+    }
+
+    // ==================== STATE ====================
+
+    public synchronized boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * @return Number of writes waiting to be sent to the server
+     */
+    public int getPendingCount() {
+        return outbox.size();
+    }
+
+    /**
+     * Be told (on a background thread) when the app goes offline (false) or is back
+     * online with every queued write sent (true)
+     */
+    public void addConnectionListener(Consumer<Boolean> listener) {
+        connectionListeners.add(listener);
+    }
+
+    public void removeConnectionListener(Consumer<Boolean> listener) {
+        connectionListeners.remove(listener);
+    }
+
+    /**
+     * Be told (on a background thread) about queued writes that did not apply on replay
+     */
+    public void addConflictListener(Consumer<List<Conflict>> listener) {
+        conflictListeners.add(listener);
+    }
+
+    public void removeConflictListener(Consumer<List<Conflict>> listener) {
+        conflictListeners.remove(listener);
+    }
+
+    /**
+     * @return Whether the exception means the server could not be reached, as opposed to
+     * having answered with an error
+     */
+    public static boolean isUnreachable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SupabaseHttpException) {
+                return false;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ==================== USED BY SERVICES ====================
+
+    /**
+     * @return Whether reads and writes should go to the local store right now: the app is
+     * offline and a user is signed in
+     */
+    boolean isLocal() {
+        return isOffline() && outbox.isOpen();
+    }
+
+    /**
+     * Called by services when a request failed.
+     * @return Whether the failure means the server is unreachable and there is an outbox,
+     * in which case the app is now offline and the caller should fall back to local data
+     */
+    boolean fallBackToLocal(IOException error) {
+        if (!isUnreachable(error) || !outbox.isOpen()) {
+            return false;
+        }
+        goOffline();
+        return true;
+    }
+
+    /**
+     * Make a service's table replayable; called from each service's getInstance() once it is constructed
+     */
+    void register(BaseSupabaseService<?> service) {
+        services.put(service.tableName, service);
+    }
+
+    LocalStore getLocalStore() {
+        return localStore;
+    }
+
+    Outbox getOutbox() {
+        return outbox;
+    }
+
+    private void goOffline() {
+        synchronized (this) {
+            if (probe != null) {
+                return;
+            }
+            probe = scheduler.schedule(this::probeAndReplay, probeMillis, TimeUnit.MILLISECONDS);
+            if (offline) {
+                return;
+            }
+            offline = true;
+        }
+        System.err.println("Server unreachable, working offline");
+        connectionListeners.forEach(listener -> listener.accept(false));
+    }
+
+    // ==================== REPLAY ====================
+
+    private void probeAndReplay() {
+        synchronized (this) {
+            probe = null;
+            if (!offline) {
+                return;
+            }
+        }
+
+        List<Conflict> conflicts = new ArrayList<>();
+        Set<String> touchedTables = new HashSet<>();
+        boolean drained;
+        try {
+            probe();
+            drained = replay(conflicts, touchedTables);
+        } catch (IOException e) {
+            // Still unreachable, or lost again part way through
+            drained = false;
+        }
+
+        // Server copies of written rows differ from the local ones (ids, timestamps, conflicts)
+        for (String table : touchedTables) {
+            BaseSupabaseService<?> service = services.get(table);
+            if (service != null) {
+                service.invalidateEntityCache();
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            conflictListeners.forEach(listener -> listener.accept(conflicts));
+        }
+
+        synchronized (this) {
+            if (!offline || !outbox.isOpen()) {
+                return;
+            }
+            if (!drained) {
+                if (probe == null) {
+                    probe = scheduler.schedule(this::probeAndReplay, probeMillis, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            offline = false;
+        }
+        System.err.println("Server reachable again, offline writes sent");
+        connectionListeners.forEach(listener -> listener.accept(true));
+    }
+
+    /**
+     * Any answer from the server, even an error, means it is reachable
+     */
+    private void probe() throws IOException {
+        try (Response response = client.execute("HEAD", "/rest/v1/", Headers.of(), null)) {
+            response.code();
+        }
+    }
+
+    /**
+     * Send queued writes, oldest first, a batch at a time, including any queued meanwhile
+     * @return Whether the outbox is empty afterwards
+     * @throws IOException If the server became unreachable; unsent entries stay queued
+     */
+    private boolean replay(List<Conflict> conflicts, Set<String> touchedTables) throws IOException {
+        List<Outbox.Entry> pending;
+        while (!(pending = outbox.pending()).isEmpty() && outbox.isOpen()) {
+            replayBatch(pending.subList(0, Math.min(pending.size(), batchSize)), conflicts, touchedTables);
+        }
+        return outbox.size() == 0;
+    }
+
+    private void replayBatch(List<Outbox.Entry> batch, List<Conflict> conflicts, Set<String> touchedTables) throws IOException {
+        for (int i = 0; i < batch.size(); ) {
+            Outbox.Entry entry = batch.get(i);
+            touchedTables.add(entry.table());
+            // Consecutive inserts into the same table go out as one request
+            int runEnd = i + 1;
+            if (entry.operation() == Outbox.Operation.INSERT) {
+                while (runEnd < batch.size() && batch.get(runEnd).operation() == Outbox.Operation.INSERT
+                        && batch.get(runEnd).table().equals(entry.table())) {
+                    runEnd++;
+                }
+            }
+            List<Outbox.Entry> run = batch.subList(i, runEnd);
+            send(run, conflicts);
+            run.forEach(sent -> outbox.acknowledge(sent.seq()));
+            i = runEnd;
+        }
+    }
+
+    /**
+     * Send one entry, or a run of inserts into one table. Rejections by the server are
+     * recorded as conflicts and the entries dropped, so one bad write cannot block the rest.
+     */
+    private void send(List<Outbox.Entry> run, List<Conflict> conflicts) throws IOException {
+        Outbox.Entry first = run.get(0);
+        try {
+            switch (first.operation()) {
+                case INSERT -> {
+                    ArrayNode rows = client.getObjectMapper().createArrayNode();
+                    for (Outbox.Entry entry : run) {
+                        if (entry.body().isArray()) {
+                            entry.body().forEach(rows::add);
+                        } else {
+                            rows.add(entry.body());
+                        }
+                    }
+                    client.insertIgnoringDuplicates(first.table(), rows);
+                }
+                case UPSERT -> client.upsert(first.table(), first.body());
+                case UPDATE -> {
+                    int applied = client.patchWithCount(first.table(), first.body(), first.filter());
+                    if (applied < first.expected()) {
+                        conflicts.add(conflict(first, applied, "changed elsewhere while offline"));
+                    }
+                }
+                case DELETE -> client.deleteWithCount(first.table(), first.filter());
+            }
+        } catch (SupabaseHttpException e) {
+            for (Outbox.Entry entry : run) {
+                conflicts.add(conflict(entry, 0, "rejected by the server: " + e.getMessage()));
+            }
+        }
+    }
+
+    private static Conflict conflict(Outbox.Entry entry, int applied, String reason) {
+        JsonNode body = entry.body();
+        int expected = entry.operation() == Outbox.Operation.INSERT && body != null && body.isArray()
+                ? body.size()
+                : entry.expected();
+        return new Conflict(entry.table(), entry.operation().name().toLowerCase(), entry.filter(),
+                expected, applied, reason);
+    }
+}
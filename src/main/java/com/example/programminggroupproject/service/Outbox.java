@@ -0,0 +1,208 @@
+package com.example.programminggroupproject.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only journal of writes made while the server was unreachable, replayed in
+ * order by OfflineMode once it is back.
+ * <p>
+ * Each user has one file, {@code ~/.car-servicinator/outbox/<user id>.jsonl}. Every write
+ * appends one JSON line and is forced to disk before the caller continues, so queued work
+ * survives a crash or restart. Replayed entries are marked with an {"ack": seq} line; the
+ * file is deleted once nothing is pending. A torn last line (crash while appending) is
+ * ignored when the file is read back.
+ * <p>
+ * WriteBehindQueue keeps its own journal in the same format under {@code write-behind/}.
+ */
+class Outbox {
+
+    enum Operation { INSERT, UPSERT, UPDATE, DELETE }
+
+    /**
+     * One queued write
+     * @param filter PostgREST filter of the rows to update or delete; empty for inserts
+     * @param body Row(s) to insert, or fields to set; null for deletes
+     * @param expected Rows the write affected locally; replaying an update that affects fewer is a conflict
+     */
+    record Entry(long seq, String table, Operation operation, Map<String, String> filter, JsonNode body, int expected) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+
+    // Guarded by this
+    private Path file;
+    private final Map<Long, Entry> pending = new LinkedHashMap<>();
+    private long lastSeq;
+
+    Outbox(ObjectMapper objectMapper) {
+        this(objectMapper, "outbox");
+    }
+
+    /**
+     * @param directoryName Directory under ~/.car-servicinator holding the journals
+     */
+    Outbox(ObjectMapper objectMapper, String directoryName) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(System.getProperty("user.home"), ".car-servicinator", directoryName);
+    }
+
+    /**
+     * Load the journal of a user; call at login
+     */
+    synchronized void open(UUID userId) {
+        close();
+        file = directory.resolve(userId + ".jsonl");
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            byte[] content = Files.readAllBytes(file);
+            for (String line : new String(content, StandardCharsets.UTF_8).split("\n")) {
+                readLine(line);
+            }
+            // Start the next entry on a line of its own after a torn write
+            if (content.length > 0 && content[content.length - 1] != '\n') {
+                Files.write(file, new byte[] {'\n'}, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading outbox " + file + ": " + e.getMessage());
+        }
+    }
+
+    synchronized void close() {
+        file = null;
+        pending.clear();
+        lastSeq = 0;
+    }
+
+    synchronized boolean isOpen() {
+        return file != null;
+    }
+
+    private void readLine(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            return;
+        }
+        if (node == null || !node.isObject()) {
+            return;
+        }
+        if (node.has("ack")) {
+            pending.remove(node.get("ack").asLong());
+            return;
+        }
+
+        Map<String, String> filter = new LinkedHashMap<>();
+        node.path("filter").fields().forEachRemaining(field -> filter.put(field.getKey(), field.getValue().asText()));
+        Entry entry = new Entry(node.path("seq").asLong(), node.path("table").asText(),
+                Operation.valueOf(node.path("op").asText()), filter,
+                node.hasNonNull("body") ? node.get("body") : null, node.path("expected").asInt());
+        pending.put(entry.seq(), entry);
+        lastSeq = Math.max(lastSeq, entry.seq());
+    }
+
+    /**
+     * Queue a write; returns once it is on disk
+     */
+    synchronized Entry append(String table, Operation operation, Map<String, String> filter, JsonNode body, int expected) {
+        if (file == null) {
+            throw new IllegalStateException("No outbox is open");
+        }
+        Entry entry = new Entry(lastSeq + 1, table, operation, new LinkedHashMap<>(filter), body, expected);
+
+        ObjectNode line = objectMapper.createObjectNode()
+                .put("seq", entry.seq())
+                .put("table", table)
+                .put("op", operation.name())
+                .put("expected", expected);
+        ObjectNode filterNode = line.putObject("filter");
+        filter.forEach(filterNode::put);
+        line.set("body", body);
+        write(line.toString() + "\n");
+
+        lastSeq = entry.seq();
+        pending.put(entry.seq(), entry);
+        return entry;
+    }
+
+    /**
+     * Mark an entry as replayed
+     */
+    synchronized void acknowledge(long seq) {
+        acknowledge(List.of(seq));
+    }
+
+    /**
+     * Mark entries as sent, with one write to disk for all of them
+     */
+    synchronized void acknowledge(List<Long> seqs) {
+        if (file == null) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (long seq : seqs) {
+            if (pending.remove(seq) != null) {
+                lines.append(objectMapper.createObjectNode().put("ack", seq)).append('\n');
+            }
+        }
+        if (lines.length() == 0) {
+            return;
+        }
+        if (pending.isEmpty()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new RuntimeException("Error clearing outbox " + file, e);
+            }
+        } else {
+            write(lines.toString());
+        }
+    }
+
+    /**
+     * @return The queued writes, oldest first
+     */
+    synchronized List<Entry> pending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    synchronized int size() {
+        return pending.size();
+    }
+
+    private void write(String lines) {
+        try {
+            Files.createDirectories(directory);
+            byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing outbox " + file, e);
+        }
+    }
+}
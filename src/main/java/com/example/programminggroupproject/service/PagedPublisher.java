@@ -0,0 +1,181 @@
+package com.example.programminggroupproject.service;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flow.Publisher that streams a table page by page.
+ * Pages are only fetched while subscribers have outstanding demand, and at most
+ * one page is prefetched ahead of the one being emitted, so memory stays bounded
+ * by two pages no matter how large the table is.
+ * Each subscriber gets its own independent pass over the table.
+ *
+ * @param <T> The model type being streamed
+ */
+public class PagedPublisher<T> implements Flow.Publisher<T> {
+
+    /**
+     * Fetches one page of records.
+     * A page shorter than the requested limit marks the end of the stream.
+     * Implementations can page by offset, or by key using the last record
+     * of the previous page (null for the first page).
+     */
+    @FunctionalInterface
+    public interface PageFetcher<T> {
+        List<T> fetch(int limit, int offset, T previousLast);
+    }
+
+    private final PageFetcher<T> fetcher;
+    private final int pageSize;
+    private final Executor executor;
+
+    public PagedPublisher(PageFetcher<T> fetcher, int pageSize) {
+        this(fetcher, pageSize, ForkJoinPool.commonPool());
+    }
+
+    public PagedPublisher(PageFetcher<T> fetcher, int pageSize, Executor executor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        PagedSubscription subscription = new PagedSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private class PagedSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // Only touched inside drain(), which is serialized by wip
+        private final Queue<T> buffer = new ArrayDeque<>();
+        private CompletableFuture<List<T>> nextPage;
+        private int offset;
+        private T previousLast;
+        private boolean lastPageFetched;
+
+        private volatile boolean cancelled;
+
+        PagedSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Demand must be positive, got " + n));
+                return;
+            }
+            // Saturating add, as required by the reactive streams spec
+            demand.getAndUpdate(current -> Long.MAX_VALUE - current < n ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (wip.getAndIncrement() == 0) {
+                release();
+            }
+        }
+
+        /**
+         * Emit buffered records while there is demand, fetching pages as needed.
+         * Re-entrant calls (from request() inside onNext, or from page completion)
+         * just bump wip so the running loop takes another pass.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                while (!cancelled) {
+                    if (!buffer.isEmpty()) {
+                        if (demand.get() == 0) {
+                            break;
+                        }
+                        demand.decrementAndGet();
+                        subscriber.onNext(buffer.poll());
+                        continue;
+                    }
+
+                    if (nextPage == null) {
+                        if (lastPageFetched) {
+                            cancelled = true;
+                            subscriber.onComplete();
+                            break;
+                        }
+                        if (demand.get() == 0) {
+                            break;
+                        }
+                        fetchNextPage();
+                    }
+
+                    if (!nextPage.isDone()) {
+                        break;
+                    }
+
+                    List<T> page;
+                    try {
+                        page = nextPage.join();
+                    } catch (Exception e) {
+                        cancelled = true;
+                        subscriber.onError(e.getCause() != null ? e.getCause() : e);
+                        break;
+                    }
+
+                    nextPage = null;
+                    buffer.addAll(page);
+                    if (!page.isEmpty()) {
+                        previousLast = page.get(page.size() - 1);
+                    }
+                    if (page.size() < pageSize) {
+                        lastPageFetched = true;
+                    } else {
+                        // Keep one page in flight while this one is being consumed
+                        fetchNextPage();
+                    }
+                }
+
+                if (cancelled) {
+                    release();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void fetchNextPage() {
+            int pageOffset = offset;
+            T last = previousLast;
+            offset += pageSize;
+            nextPage = CompletableFuture.supplyAsync(() -> fetcher.fetch(pageSize, pageOffset, last), executor);
+            nextPage.whenComplete((page, error) -> drain());
+        }
+
+        private void release() {
+            buffer.clear();
+            previousLast = null;
+            if (nextPage != null) {
+                nextPage.cancel(false);
+                nextPage = null;
+            }
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.programminggroupproject.service;
 
+import com.example.programminggroupproject.client.SupabaseClient;
 import com.example.programminggroupproject.model.Payment;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for managing Payment entities with Supabase backend.
@@ -18,6 +23,7 @@ public class PaymentService extends BaseSupabaseService<Payment> {
     
     private PaymentService() {
         super("payments", Payment.class, new TypeReference<List<Payment>>() {});
+        useClientGeneratedIds();
     }
     
     /**
@@ -26,6 +32,7 @@ public class PaymentService extends BaseSupabaseService<Payment> {
     public static synchronized PaymentService getInstance() {
         if (instance == null) {
             instance = new PaymentService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -41,6 +48,38 @@ public class PaymentService extends BaseSupabaseService<Payment> {
         return findBy("service_request_id", serviceRequestId);
     }
     
+    /**
+     * Get the payments of several service requests in a single request
+     * @param serviceRequestIds The service request IDs (UUID)
+     * @return List of payments for any of the service requests
+     */
+    public List<Payment> getByServiceRequestIds(List<UUID> serviceRequestIds) {
+        if (serviceRequestIds.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return query(byServiceRequestIds(serviceRequestIds));
+        } catch (IOException e) {
+            throw new RuntimeException("Error fetching payments of service requests", e);
+        }
+    }
+    
+    /**
+     * Stale-while-revalidate version of getByServiceRequestIds()
+     */
+    public Revalidating<List<Payment>> getByServiceRequestIdsRevalidating(List<UUID> serviceRequestIds) {
+        if (serviceRequestIds.isEmpty()) {
+            return new Revalidating<>(List.of(), () -> CompletableFuture.completedFuture(List.of()));
+        }
+        return queryRevalidating(byServiceRequestIds(serviceRequestIds));
+    }
+    
+    private static Map<String, String> byServiceRequestIds(List<UUID> serviceRequestIds) {
+        Map<String, String> params = SupabaseClient.buildParams();
+        params.put("service_request_id", SupabaseClient.inList(serviceRequestIds));
+        return params;
+    }
+    
     /**
      * Get payments by status
      * @param status The payment status (e.g., "Pending", "Completed", "Failed")
@@ -126,6 +165,26 @@ public class PaymentService extends BaseSupabaseService<Payment> {
         return updatePaymentStatus(paymentId, "Failed");
     }
     
+    /**
+     * Mark every pending payment in the list as completed in a single request
+     * @param paymentIds The payment IDs (UUID)
+     * @return Number of payments that were completed
+     */
+    public int markAllAsCompleted(List<UUID> paymentIds) {
+        if (paymentIds.isEmpty()) {
+            return 0;
+        }
+        
+        Map<String, String> filter = new HashMap<>();
+        filter.put("id", SupabaseClient.inList(paymentIds));
+        filter.put("status", "eq.Pending");
+        
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("status", "Completed");
+        
+        return updateWhere(filter, fields);
+    }
+    
     /**
      * Calculate total amount of payments
      * @param payments List of payments
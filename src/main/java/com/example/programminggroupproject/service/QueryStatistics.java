@@ -0,0 +1,320 @@
+package com.example.programminggroupproject.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the shape of every read issued by the service layer - which columns are
+ * filtered with equality, ranges or patterns, and which are used for ordering -
+ * together with how often each shape runs and how long it takes.
+ * From that workload it recommends the indexes that would serve it.
+ */
+public class QueryStatistics {
+
+    /** Upper bounds (ms) of the latency histogram buckets; the last bucket is open-ended */
+    private static final long[] BUCKET_BOUNDS = {10, 25, 50, 100, 250, 500, 1000, 2500};
+
+    /** Query parameters that are not column filters */
+    private static final Set<String> RESERVED_PARAMS = Set.of("select", "order", "limit", "offset", "or", "and");
+
+    private static QueryStatistics instance;
+
+    private final Map<QueryShape, ShapeStats> shapes = new ConcurrentHashMap<>();
+
+    private QueryStatistics() {
+    }
+
+    public static synchronized QueryStatistics getInstance() {
+        if (instance == null) {
+            instance = new QueryStatistics();
+        }
+        return instance;
+    }
+
+    // ==================== SHAPES ====================
+
+    /**
+     * The columns a query touches, independent of the values it filters on
+     */
+    public static final class QueryShape {
+        private final String table;
+        private final TreeSet<String> equalityColumns = new TreeSet<>();
+        private final TreeSet<String> rangeColumns = new TreeSet<>();
+        private final TreeSet<String> patternColumns = new TreeSet<>();
+        private final List<String> orderColumns = new ArrayList<>();
+
+        QueryShape(String table) {
+            this.table = table;
+        }
+
+        /**
+         * Derive the shape from PostgREST query parameters
+         */
+        static QueryShape of(String table, Map<String, String> params) {
+            QueryShape shape = new QueryShape(table);
+            if (params == null) {
+                return shape;
+            }
+
+            params.forEach((key, value) -> {
+                if (key.equals("order")) {
+                    for (String term : value.split(",")) {
+                        String[] parts = term.split("\\.");
+                        boolean descending = parts.length > 1 && parts[1].equals("desc");
+                        shape.orderColumns.add(parts[0] + (descending ? " DESC" : ""));
+                    }
+                } else if (key.equals("or") || key.equals("and")) {
+                    // e.g. (full_name.ilike.%x%,email.ilike.%x%)
+                    for (String condition : value.replaceAll("^\\(|\\)$", "").split(",")) {
+                        String[] parts = condition.split("\\.", 3);
+                        if (parts.length >= 2) {
+                            shape.addCondition(parts[0], parts[1]);
+                        }
+                    }
+                } else if (!RESERVED_PARAMS.contains(key)) {
+                    int dot = value.indexOf('.');
+                    shape.addCondition(key, dot > 0 ? value.substring(0, dot) : value);
+                }
+            });
+            return shape;
+        }
+
+        private void addCondition(String column, String operator) {
+            switch (operator) {
+                case "eq", "in", "is" -> equalityColumns.add(column);
+                case "gt", "gte", "lt", "lte" -> rangeColumns.add(column);
+                case "like", "ilike" -> patternColumns.add(column);
+                default -> {
+                    // neq, not.*, fts etc. cannot use a btree index usefully
+                }
+            }
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public boolean hasFilterOrOrder() {
+            return !equalityColumns.isEmpty() || !rangeColumns.isEmpty()
+                    || !patternColumns.isEmpty() || !orderColumns.isEmpty();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof QueryShape other && toString().equals(other.toString());
+        }
+
+        @Override
+        public int hashCode() {
+            return toString().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder(table);
+            if (!equalityColumns.isEmpty()) out.append(" eq").append(equalityColumns);
+            if (!rangeColumns.isEmpty()) out.append(" range").append(rangeColumns);
+            if (!patternColumns.isEmpty()) out.append(" like").append(patternColumns);
+            if (!orderColumns.isEmpty()) out.append(" order").append(orderColumns);
+            return out.toString();
+        }
+    }
+
+    /**
+     * Frequency and latency histogram of one query shape
+     */
+    public static final class ShapeStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS.length + 1);
+
+        void record(long latencyMillis) {
+            count.increment();
+            totalMillis.add(latencyMillis);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS.length && latencyMillis >= BUCKET_BOUNDS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalMillis() {
+            return totalMillis.sum();
+        }
+
+        public double getAverageMillis() {
+            long n = getCount();
+            return n == 0 ? 0 : (double) getTotalMillis() / n;
+        }
+
+        /**
+         * Approximate percentile from the histogram (upper bound of the matching bucket)
+         * @param percentile Value between 0 and 100
+         * @return Bucket upper bound in ms, or -1 if it falls in the open-ended bucket
+         */
+        public long getPercentileMillis(double percentile) {
+            long n = getCount();
+            long target = (long) Math.ceil(n * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return i < BUCKET_BOUNDS.length ? BUCKET_BOUNDS[i] : -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return Counts per bucket; bucket i holds latencies below BUCKET_BOUNDS[i]
+         */
+        public long[] getHistogram() {
+            long[] copy = new long[buckets.length()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = buckets.get(i);
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * A suggested index and the workload that motivated it
+     */
+    public record IndexRecommendation(String table, List<String> columns, String ddl,
+                                      long queriesServed, long totalMillis) {
+    }
+
+    // ==================== RECORDING ====================
+
+    /**
+     * Record a read against a table
+     * @param table The table that was queried
+     * @param params The PostgREST query parameters
+     * @param latencyMillis How long the request took
+     */
+    public void record(String table, Map<String, String> params, long latencyMillis) {
+        QueryShape shape = QueryShape.of(table, params);
+        shapes.computeIfAbsent(shape, s -> new ShapeStats()).record(latencyMillis);
+    }
+
+    /**
+     * @return Snapshot of all recorded shapes, most total time first
+     */
+    public Map<QueryShape, ShapeStats> getShapes() {
+        Map<QueryShape, ShapeStats> ordered = new LinkedHashMap<>();
+        shapes.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<QueryShape, ShapeStats> e) -> e.getValue().getTotalMillis()).reversed())
+                .forEach(e -> ordered.put(e.getKey(), e.getValue()));
+        return ordered;
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    // ==================== RECOMMENDATIONS ====================
+
+    /**
+     * Recommend indexes for shapes that ran at least {@code minQueries} times.
+     * Composite btree indexes put equality columns first, then a range column or the
+     * ordering columns; pattern searches get a trigram index. Indexes that are a
+     * prefix of another recommendation on the same table are dropped.
+     */
+    public List<IndexRecommendation> recommendIndexes(int minQueries) {
+        Map<String, IndexRecommendation> byDdl = new LinkedHashMap<>();
+
+        getShapes().forEach((shape, stats) -> {
+            if (stats.getCount() < minQueries || !shape.hasFilterOrOrder()) {
+                return;
+            }
+
+            List<String> columns = new ArrayList<>(shape.equalityColumns);
+            if (!shape.rangeColumns.isEmpty()) {
+                columns.add(shape.rangeColumns.first());
+            } else {
+                for (String orderColumn : shape.orderColumns) {
+                    if (!columns.contains(orderColumn.replace(" DESC", ""))) {
+                        columns.add(orderColumn);
+                    }
+                }
+            }
+
+            // The primary key already covers lookups by id
+            if (!columns.isEmpty() && !columns.equals(List.of("id"))) {
+                merge(byDdl, new IndexRecommendation(shape.table, columns,
+                        btreeDdl(shape.table, columns), stats.getCount(), stats.getTotalMillis()));
+            }
+
+            for (String column : shape.patternColumns) {
+                merge(byDdl, new IndexRecommendation(shape.table, List.of(column),
+                        trigramDdl(shape.table, column), stats.getCount(), stats.getTotalMillis()));
+            }
+        });
+
+        List<IndexRecommendation> result = new ArrayList<>(byDdl.values());
+        result.removeIf(candidate -> result.stream().anyMatch(other -> other != candidate
+                && other.table().equals(candidate.table())
+                && !other.ddl().contains("gin_trgm_ops") && !candidate.ddl().contains("gin_trgm_ops")
+                && other.columns().size() > candidate.columns().size()
+                && other.columns().subList(0, candidate.columns().size()).equals(candidate.columns())));
+        result.sort(Comparator.comparingLong(IndexRecommendation::totalMillis).reversed());
+        return result;
+    }
+
+    private void merge(Map<String, IndexRecommendation> byDdl, IndexRecommendation recommendation) {
+        byDdl.merge(recommendation.ddl(), recommendation, (a, b) -> new IndexRecommendation(
+                a.table(), a.columns(), a.ddl(),
+                a.queriesServed() + b.queriesServed(), a.totalMillis() + b.totalMillis()));
+    }
+
+    private String btreeDdl(String table, List<String> columns) {
+        String name = table + "_" + String.join("_", columns).replace(" DESC", "").toLowerCase() + "_idx";
+        return "CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " (" + String.join(", ", columns) + ");";
+    }
+
+    private String trigramDdl(String table, String column) {
+        return "CREATE INDEX IF NOT EXISTS " + table + "_" + column + "_trgm_idx ON " + table
+                + " USING gin (" + column + " gin_trgm_ops);  -- requires: CREATE EXTENSION pg_trgm;";
+    }
+
+    /**
+     * Render the observed workload and the resulting index recommendations
+     * @param minQueries Minimum executions before a shape is considered for an index
+     */
+    public String report(int minQueries) {
+        StringBuilder out = new StringBuilder("Query workload (most total time first)\n");
+        getShapes().forEach((shape, stats) -> out.append(String.format(
+                "  %6d x  avg %7.1f ms  p50 %s  p95 %s  %s%n",
+                stats.getCount(), stats.getAverageMillis(),
+                formatBucket(stats.getPercentileMillis(50)), formatBucket(stats.getPercentileMillis(95)),
+                shape)));
+
+        out.append("\nRecommended indexes\n");
+        List<IndexRecommendation> recommendations = recommendIndexes(minQueries);
+        if (recommendations.isEmpty()) {
+            out.append("  (none - not enough repeated filtered queries yet)\n");
+        }
+        for (IndexRecommendation recommendation : recommendations) {
+            out.append("  ").append(recommendation.ddl())
+                    .append("\n      serves ").append(recommendation.queriesServed())
+                    .append(" queries, ").append(recommendation.totalMillis()).append(" ms total\n");
+        }
+        return out.toString();
+    }
+
+    private String formatBucket(long bound) {
+        return bound < 0 ? ">" + BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1] + "ms" : "<" + bound + "ms";
+    }
+}
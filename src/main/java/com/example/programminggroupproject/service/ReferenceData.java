@@ -0,0 +1,358 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.cache.QueryCache;
+import com.example.programminggroupproject.cache.SnapshotStore;
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.example.programminggroupproject.model.MechanicShop;
+import com.example.programminggroupproject.model.Service;
+import com.example.programminggroupproject.model.User;
+import com.example.programminggroupproject.model.Vehicle;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * In-memory tier for data that rarely changes: mechanic shops and the service catalog,
+ * plus the logged-in client's vehicles.
+ * Everything is loaded once at login, in parallel, into an immutable snapshot indexed
+ * by id and name, so screens can read it without any network call. A background task
+ * compares each table's watermark (newest created_at and row count) with the snapshot's
+ * and reloads only tables that changed; writes made by this client reload immediately.
+ */
+public class ReferenceData {
+
+    private static final String SHOPS_TABLE = "mechanic_shops";
+    private static final String SERVICES_TABLE = "services";
+    private static final String VEHICLES_TABLE = "vehicles";
+
+    private static ReferenceData instance;
+
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final MechanicShopService shopService = MechanicShopService.getInstance();
+    private final MechanicalService mechanicalService = MechanicalService.getInstance();
+    private final VehicleService vehicleService = VehicleService.getInstance();
+    private final SnapshotStore snapshotStore = SnapshotStore.getInstance();
+    private final long refreshSeconds;
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-data-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+    private volatile CompletableFuture<Snapshot> loading;
+    private volatile UUID clientId;
+    private boolean refreshScheduled;
+
+    /**
+     * Newest created_at (as sent by the server) and row count of a table; a change in
+     * either means the table changed. Rows edited in place are picked up by the next
+     * watermark change or a local write.
+     */
+    public record Watermark(String latestCreatedAt, int rowCount) {
+    }
+
+    /**
+     * Immutable view of the reference tables at one point in time.
+     * {@code fromDisk} is true while the data is the last known state restored from the
+     * SnapshotStore, before the first load from the server has completed.
+     */
+    public record Snapshot(List<MechanicShop> shops, Map<UUID, MechanicShop> shopsById,
+                           Map<String, MechanicShop> shopsByName, Watermark shopsWatermark,
+                           List<Service> services, Map<UUID, Service> servicesById,
+                           Map<String, Service> servicesByName, Watermark servicesWatermark,
+                           List<Vehicle> clientVehicles, boolean fromDisk) {
+
+        static Snapshot of(List<MechanicShop> shops, Watermark shopsWatermark,
+                           List<Service> services, Watermark servicesWatermark,
+                           List<Vehicle> clientVehicles, boolean fromDisk) {
+            return new Snapshot(
+                    List.copyOf(shops), indexBy(shops, MechanicShop::getId), indexBy(shops, shop -> normalize(shop.getName())),
+                    shopsWatermark,
+                    List.copyOf(services), indexBy(services, Service::getId), indexBy(services, service -> normalize(service.getName())),
+                    servicesWatermark,
+                    List.copyOf(clientVehicles), fromDisk);
+        }
+
+        Snapshot withShops(List<MechanicShop> shops, Watermark watermark) {
+            return of(shops, watermark, services, servicesWatermark, clientVehicles, fromDisk);
+        }
+
+        Snapshot withServices(List<Service> services, Watermark watermark) {
+            return of(shops, shopsWatermark, services, watermark, clientVehicles, fromDisk);
+        }
+
+        Snapshot withClientVehicles(List<Vehicle> vehicles) {
+            return of(shops, shopsWatermark, services, servicesWatermark, vehicles, fromDisk);
+        }
+
+        private static <K, V> Map<K, V> indexBy(List<V> rows, Function<V, K> key) {
+            Map<K, V> index = new HashMap<>();
+            for (V row : rows) {
+                K k = key.apply(row);
+                if (k != null) {
+                    index.putIfAbsent(k, row);
+                }
+            }
+            return Collections.unmodifiableMap(index);
+        }
+    }
+
+    private ReferenceData() {
+        this.refreshSeconds = Long.parseLong(
+                SupabaseConfig.getInstance().getProperty("supabase.referenceData.refreshSeconds", "300").trim());
+
+        // Our own writes are applied right away instead of waiting for the next refresh
+        client.addWriteListener(table -> {
+            if (snapshot != null && (table.equals(SHOPS_TABLE) || table.equals(SERVICES_TABLE)
+                    || (table.equals(VEHICLES_TABLE) && clientId != null))) {
+                refresher.execute(() -> reload(table));
+            }
+        });
+    }
+
+    public static synchronized ReferenceData getInstance() {
+        if (instance == null) {
+            instance = new ReferenceData();
+        }
+        return instance;
+    }
+
+    // ==================== LOADING ====================
+
+    /**
+     * Load all reference tables in parallel; call right after login.
+     * For clients the user's vehicles are loaded as well.
+     * @param user The user who just logged in
+     * @return Future completing with the loaded snapshot
+     */
+    public synchronized CompletableFuture<Snapshot> preload(User user) {
+        clientId = user != null && "client".equals(user.getRole()) ? user.getId() : null;
+        UUID vehiclesOf = clientId;
+        
+        // Start from this user's on-disk snapshot (if any) so screens can render before the load finishes
+        snapshot = restoreFromDisk(vehiclesOf != null);
+
+        CompletableFuture<List<MechanicShop>> shops = CompletableFuture.supplyAsync(shopService::getAllOrderedByName);
+        CompletableFuture<Watermark> shopsWatermark = CompletableFuture.supplyAsync(() -> watermark(SHOPS_TABLE));
+        CompletableFuture<List<Service>> services = CompletableFuture.supplyAsync(mechanicalService::getAll);
+        CompletableFuture<Watermark> servicesWatermark = CompletableFuture.supplyAsync(() -> watermark(SERVICES_TABLE));
+        CompletableFuture<List<Vehicle>> vehicles = vehiclesOf == null
+                ? CompletableFuture.completedFuture(List.of())
+                : CompletableFuture.supplyAsync(() -> vehicleService.getByClientId(vehiclesOf));
+
+        loading = CompletableFuture.allOf(shops, shopsWatermark, services, servicesWatermark, vehicles)
+                .thenApply(ignored -> {
+                    Snapshot loaded = Snapshot.of(shops.join(), shopsWatermark.join(),
+                            services.join(), servicesWatermark.join(), vehicles.join(), false);
+                    snapshot = loaded;
+                    saveToDisk(loaded);
+                    return loaded;
+                });
+        loading.whenComplete((loaded, error) -> {
+            if (error != null) {
+                System.err.println("Error preloading reference data: " + error.getMessage());
+            }
+        });
+
+        scheduleRefresh();
+        return loading;
+    }
+
+    /**
+     * @return Future completing with the snapshot loaded from the server
+     *         (already complete if no load is in progress)
+     */
+    public CompletableFuture<Snapshot> whenLoaded() {
+        CompletableFuture<Snapshot> pending = loading;
+        return pending != null ? pending : CompletableFuture.completedFuture(snapshot);
+    }
+
+    /**
+     * @return The latest snapshot, or null before the first successful load
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Forget the logged-in client's data; shops and services stay loaded
+     */
+    public synchronized void clearUserData() {
+        clientId = null;
+        Snapshot current = snapshot;
+        if (current != null) {
+            snapshot = current.withClientVehicles(List.of());
+        }
+    }
+
+    // ==================== READS ====================
+
+    public List<MechanicShop> getShops() {
+        Snapshot current = snapshot;
+        return current == null ? List.of() : current.shops();
+    }
+
+    public Optional<MechanicShop> getShop(UUID id) {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.shopsById().get(id));
+    }
+
+    public Optional<MechanicShop> findShopByName(String name) {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.shopsByName().get(normalize(name)));
+    }
+
+    public List<Service> getServices() {
+        Snapshot current = snapshot;
+        return current == null ? List.of() : current.services();
+    }
+
+    public Optional<Service> getService(UUID id) {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.servicesById().get(id));
+    }
+
+    public Optional<Service> findServiceByName(String name) {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.ofNullable(current.servicesByName().get(normalize(name)));
+    }
+
+    public List<Vehicle> getClientVehicles() {
+        Snapshot current = snapshot;
+        return current == null ? List.of() : current.clientVehicles();
+    }
+
+    // ==================== REFRESH ====================
+
+    private void scheduleRefresh() {
+        if (refreshScheduled || refreshSeconds <= 0) {
+            return;
+        }
+        refreshScheduled = true;
+        refresher.scheduleWithFixedDelay(this::refreshIfChanged, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reload the tables whose watermark moved since the snapshot was taken
+     */
+    private void refreshIfChanged() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        try {
+            if (!watermark(SHOPS_TABLE).equals(current.shopsWatermark())) {
+                reload(SHOPS_TABLE);
+            }
+            if (!watermark(SERVICES_TABLE).equals(current.servicesWatermark())) {
+                reload(SERVICES_TABLE);
+            }
+        } catch (RuntimeException e) {
+            // Keep serving the last snapshot; the next run will try again
+            System.err.println("Error refreshing reference data: " + e.getMessage());
+        }
+    }
+
+    private void reload(String table) {
+        try {
+            // Bypass cached responses, they may be what is out of date
+            QueryCache.getInstance().invalidateTable(table);
+            switch (table) {
+                case SHOPS_TABLE -> {
+                    Watermark watermark = watermark(SHOPS_TABLE);
+                    List<MechanicShop> shops = shopService.getAllOrderedByName();
+                    update(current -> current.withShops(shops, watermark));
+                    snapshotStore.save(SHOPS_TABLE, shops);
+                }
+                case SERVICES_TABLE -> {
+                    Watermark watermark = watermark(SERVICES_TABLE);
+                    List<Service> services = mechanicalService.getAll();
+                    update(current -> current.withServices(services, watermark));
+                    snapshotStore.save(SERVICES_TABLE, services);
+                }
+                case VEHICLES_TABLE -> {
+                    UUID owner = clientId;
+                    if (owner != null) {
+                        List<Vehicle> vehicles = vehicleService.getByClientId(owner);
+                        update(current -> owner.equals(clientId) ? current.withClientVehicles(vehicles) : current);
+                        snapshotStore.save(VEHICLES_TABLE, vehicles);
+                    }
+                }
+                default -> {
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error reloading " + table + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void update(Function<Snapshot, Snapshot> change) {
+        if (snapshot != null) {
+            snapshot = change.apply(snapshot);
+        }
+    }
+
+    // ==================== PERSISTENCE ====================
+
+    /**
+     * Rebuild a snapshot from the SnapshotStore of the user who is logging in
+     * @return The restored snapshot, or null if any table is missing on disk
+     */
+    private Snapshot restoreFromDisk(boolean withVehicles) {
+        Optional<List<MechanicShop>> shops = snapshotStore.read(SHOPS_TABLE, new TypeReference<List<MechanicShop>>() {});
+        Optional<List<Service>> services = snapshotStore.read(SERVICES_TABLE, new TypeReference<List<Service>>() {});
+        Optional<List<Vehicle>> vehicles = withVehicles
+                ? snapshotStore.read(VEHICLES_TABLE, new TypeReference<List<Vehicle>>() {})
+                : Optional.of(List.of());
+        if (shops.isEmpty() || services.isEmpty() || vehicles.isEmpty()) {
+            return null;
+        }
+        // No watermarks: the first refresh after a failed load re-reads everything
+        return Snapshot.of(shops.get(), null, services.get(), null, vehicles.get(), true);
+    }
+
+    private void saveToDisk(Snapshot loaded) {
+        snapshotStore.save(SHOPS_TABLE, loaded.shops());
+        snapshotStore.save(SERVICES_TABLE, loaded.services());
+        if (clientId != null) {
+            snapshotStore.save(VEHICLES_TABLE, loaded.clientVehicles());
+        }
+    }
+
+    /**
+     * Read a table's newest created_at and row count in one request
+     */
+    private Watermark watermark(String table) {
+        Map<String, String> params = SupabaseClient.buildParams();
+        params.put("select", "created_at");
+        params.put("order", "created_at.desc.nullslast");
+        params.put("limit", "1");
+
+        try (Response response = client.getWithCount(table, params)) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Supabase request failed: " + response.code());
+            }
+            int rowCount = SupabaseClient.parseContentRangeCount(response.header("Content-Range"));
+            JsonNode rows = client.getObjectMapper().readTree(response.body().string());
+            String latest = rows.size() == 0 ? null : rows.get(0).path("created_at").asText(null);
+            return new Watermark(latest, rowCount);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading watermark of " + table, e);
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
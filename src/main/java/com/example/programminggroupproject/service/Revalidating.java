@@ -0,0 +1,92 @@
+package com.example.programminggroupproject.service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Result of a stale-while-revalidate read: the last known value, available immediately,
+ * plus a future delivering the fresh value from the server.
+ * The fresh load starts on the first call to fresh() or subscribe(), so a result whose
+ * fresh value is never asked for costs no network request.
+ *
+ * @param <V> The value type
+ */
+public final class Revalidating<V> {
+
+    private final V cached;
+    private final Supplier<CompletableFuture<V>> loader;
+    private CompletableFuture<V> fresh;
+
+    Revalidating(V cached, Supplier<CompletableFuture<V>> loader) {
+        this.cached = cached;
+        this.loader = loader;
+    }
+
+    /**
+     * @return The last known value, or empty if this query has not been run before
+     */
+    public Optional<V> cached() {
+        return Optional.ofNullable(cached);
+    }
+
+    /**
+     * @return Future completing with the fresh value
+     */
+    public synchronized CompletableFuture<V> fresh() {
+        if (fresh == null) {
+            fresh = loader.get();
+        }
+        return fresh;
+    }
+
+    /**
+     * Transform both the cached and the fresh value
+     */
+    public <U> Revalidating<U> map(Function<? super V, ? extends U> mapper) {
+        return new Revalidating<>(cached == null ? null : mapper.apply(cached),
+                () -> fresh().thenApply(mapper));
+    }
+
+    /**
+     * Run an action on the fresh value only, in the background before it is delivered,
+     * e.g. loading its lazy columns
+     */
+    public Revalidating<V> peekFresh(Consumer<? super V> action) {
+        return new Revalidating<>(cached, () -> fresh().thenApplyAsync(value -> {
+            action.accept(value);
+            return value;
+        }));
+    }
+
+    /**
+     * Chain a dependent stale-while-revalidate read, e.g. the payments of the requests
+     * just read. The cached result uses only the dependent read's cached value; its
+     * fresh value is read once the fresh input is known.
+     */
+    public <U> Revalidating<U> flatMap(Function<? super V, Revalidating<U>> next) {
+        U cachedNext = cached == null ? null : next.apply(cached).cached().orElse(null);
+        return new Revalidating<>(cachedNext, () -> fresh().thenCompose(value -> next.apply(value).fresh()));
+    }
+
+    /**
+     * Deliver the cached value (if any) and then the fresh one to {@code onValue},
+     * both through {@code executor} (e.g. Platform::runLater for UI updates).
+     * @param onError Called instead of the second delivery if the fresh load fails
+     */
+    public void subscribe(Executor executor, Consumer<? super V> onValue, Consumer<Throwable> onError) {
+        if (cached != null) {
+            executor.execute(() -> onValue.accept(cached));
+        }
+        fresh().whenComplete((value, error) -> executor.execute(() -> {
+            if (error != null) {
+                onError.accept(error.getCause() != null ? error.getCause() : error);
+            } else {
+                onValue.accept(value);
+            }
+        }));
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
  * Generic service interface for Supabase CRUD operations.
@@ -44,6 +45,17 @@ public interface Service<T> {
      */
     T create(T object);
     
+    /**
+     * Create a new record without having the server send it back (Prefer: return=minimal).
+     * For models with client-generated ids the id is assigned before the request is sent,
+     * so the returned object can be referenced immediately. Server-side defaults such as
+     * created_at are not filled in.
+     * 
+     * @param object The object to create
+     * @return The same object, with its id set
+     */
+    T createMinimal(T object);
+    
     /**
      * Update an existing record by ID.
      * @param id The unique identifier
@@ -182,6 +194,70 @@ public interface Service<T> {
      */
     void deleteMultiple(List<UUID> ids);
     
+    /**
+     * Update every record matching the filter in a single request.
+     * Filter values use PostgREST syntax, e.g. "status" -> "eq.Pending".
+     * 
+     * @param filter Map of column names to conditions (all must match, must not be empty)
+     * @param fields Map of column names to their new values
+     * @return Number of records updated
+     */
+    int updateWhere(Map<String, String> filter, Map<String, Object> fields);
+    
+    /**
+     * Delete every record matching the filter in a single request.
+     * @param filter Map of column names to conditions (all must match, must not be empty)
+     * @return Number of records deleted
+     */
+    int deleteWhere(Map<String, String> filter);
+    
+    // ==================== STREAMING ====================
+    
+    /**
+     * Stream every record of the table without loading it all into memory.
+     * Pages are fetched on demand as the subscriber requests more records,
+     * with one page prefetched ahead. Cancelling the subscription stops paging.
+     * 
+     * @param pageSize Number of records fetched per request
+     * @return A cold publisher; each subscriber reads the table from the start
+     */
+    Flow.Publisher<T> publishAll(int pageSize);
+    
+    // ==================== STALE-WHILE-REVALIDATE ====================
+    
+    /**
+     * Filter records, returning the last known result of the same query immediately
+     * together with a background load of the current one. Lets screens render at once
+     * and update in place when the server answers.
+     * 
+     * @param column The column name to filter on
+     * @param operator The comparison operator
+     * @param value The value to compare against
+     * @return The cached result (empty if the query never ran) and the pending fresh result
+     */
+    Revalidating<List<T>> filterRevalidating(String column, String operator, Object value);
+    
+    /**
+     * Stale-while-revalidate version of findBy().
+     * @param column The column name
+     * @param value The value to match
+     * @return The cached result and the pending fresh result
+     */
+    Revalidating<List<T>> findByRevalidating(String column, Object value);
+    
+    /**
+     * Stale-while-revalidate version of getAll().
+     * @return The cached result and the pending fresh result
+     */
+    Revalidating<List<T>> getAllRevalidating();
+    
+    /**
+     * Look a record up in memory only, never touching the network.
+     * @param id The unique identifier
+     * @return The cached record, or empty if it is not cached (or caching is disabled)
+     */
+    Optional<T> getCached(UUID id);
+    
     // ==================== UTILITY OPERATIONS ====================
     
     /**
@@ -237,4 +313,14 @@ public interface Service<T> {
      * @return CompletableFuture with the created object
      */
     CompletableFuture<T> createAsync(T object);
+    
+    /**
+     * Asynchronously create a record with Prefer: return=minimal.
+     * With client-generated ids, object.getId() is valid as soon as this returns,
+     * so several creates can be pipelined without waiting for each other.
+     * 
+     * @param object The object to create
+     * @return CompletableFuture completing with the same object once the server has stored it
+     */
+    CompletableFuture<T> createMinimalAsync(T object);
 }
@@ -3,7 +3,10 @@ package com.example.programminggroupproject.service;
 import com.example.programminggroupproject.model.ServiceRequestItem;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -16,6 +19,9 @@ public class ServiceRequestItemService extends BaseSupabaseService<ServiceReques
     
     private ServiceRequestItemService() {
         super("service_request_items", ServiceRequestItem.class, new TypeReference<List<ServiceRequestItem>>() {});
+        useClientGeneratedIds();
+        // Quantity edits are answered from here instead of re-reading the row
+        enableEntityCache(1000, Duration.ofMinutes(5));
     }
     
     /**
@@ -24,6 +30,7 @@ public class ServiceRequestItemService extends BaseSupabaseService<ServiceReques
     public static synchronized ServiceRequestItemService getInstance() {
         if (instance == null) {
             instance = new ServiceRequestItemService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -95,17 +102,35 @@ public class ServiceRequestItemService extends BaseSupabaseService<ServiceReques
     }
     
     /**
-     * Update item quantities for a service request
+     * Approve all pending items of a service request in a single request
+     * @param serviceRequestId The service request ID (UUID)
+     * @return Number of items that were approved
+     */
+    public int approvePendingItems(UUID serviceRequestId) {
+        Map<String, String> filter = new HashMap<>();
+        filter.put("service_request_id", "eq." + serviceRequestId);
+        filter.put("is_approved", "not.is.true");
+        
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("is_approved", true);
+        
+        return updateWhere(filter, fields);
+    }
+    
+    /**
+     * Update item quantities for a service request.
+     * The change is sent in the background; successive edits of an item go out as one update.
      * @param itemId The item ID (UUID)
      * @param newQuantity The new quantity
      * @return Updated item
      */
     public ServiceRequestItem updateQuantity(UUID itemId, Integer newQuantity) {
-        ServiceRequestItem item = get(itemId)
-                .orElseThrow(() -> new IllegalArgumentException("Service request item not found"));
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("quantity", newQuantity);
         
-        item.setQuantity(newQuantity);
-        return update(itemId, item);
+        return updateBehind(itemId, fields)
+                .or(() -> get(itemId))
+                .orElseThrow(() -> new IllegalArgumentException("Service request item not found"));
     }
 }
 
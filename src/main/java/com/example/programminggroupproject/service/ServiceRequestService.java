@@ -1,12 +1,18 @@
 package com.example.programminggroupproject.service;
 
 
+import com.example.programminggroupproject.client.SupabaseClient;
 import com.example.programminggroupproject.model.ServiceRequest;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing ServiceRequest entities with Supabase backend.
@@ -16,8 +22,18 @@ public class ServiceRequestService extends BaseSupabaseService<ServiceRequest> {
     
     private static ServiceRequestService instance;
     
+    // Synced copies of each shop's requests, kept across screen reloads
+    private final Map<UUID, DeltaSync<ServiceRequest>> shopSyncs = new ConcurrentHashMap<>();
+    
+    // Every status change made here is recorded there
+    private final StatusEventLog statusEvents = StatusEventLog.getInstance();
+    
     private ServiceRequestService() {
         super("service_requests", ServiceRequest.class, new TypeReference<List<ServiceRequest>>() {});
+        useClientGeneratedIds();
+        useSyncColumn("updated_at");
+        enableEntityCache(1000, Duration.ofMinutes(1));
+        enableQueryCache(Duration.ofSeconds(15));
     }
     
     /**
@@ -26,6 +42,7 @@ public class ServiceRequestService extends BaseSupabaseService<ServiceRequest> {
     public static synchronized ServiceRequestService getInstance() {
         if (instance == null) {
             instance = new ServiceRequestService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -41,6 +58,13 @@ public class ServiceRequestService extends BaseSupabaseService<ServiceRequest> {
         return findBy("client_id", clientId);
     }
     
+    /**
+     * Stale-while-revalidate version of getByClientId()
+     */
+    public Revalidating<List<ServiceRequest>> getByClientIdRevalidating(UUID clientId) {
+        return findByRevalidating("client_id", clientId);
+    }
+    
     /**
      * Get all service requests by client name
      * @param clientName The client's name
@@ -68,6 +92,28 @@ public class ServiceRequestService extends BaseSupabaseService<ServiceRequest> {
         return findBy("shop_id", shopId);
     }
     
+    /**
+     * Stale-while-revalidate version of getByShopId()
+     */
+    public Revalidating<List<ServiceRequest>> getByShopIdRevalidating(UUID shopId) {
+        return findByRevalidating("shop_id", shopId);
+    }
+    
+    /**
+     * Incrementally synced copy of a shop's requests: after the first load each
+     * sync() fetches only the requests changed since the previous one
+     */
+    public DeltaSync<ServiceRequest> shopSync(UUID shopId) {
+        return shopSyncs.computeIfAbsent(shopId, id -> deltaSync(Map.of("shop_id", "eq." + id)));
+    }
+    
+    /**
+     * Drop all synced copies; call at logout
+     */
+    public void clearSyncs() {
+        shopSyncs.clear();
+    }
+    
     /**
      * Get all service requests by status
      * @param status The status to filter by (e.g., "Pending", "In Progress", "Completed")
@@ -121,10 +167,16 @@ public class ServiceRequestService extends BaseSupabaseService<ServiceRequest> {
         ServiceRequest request = get(requestId)
                 .orElseThrow(() -> new IllegalArgumentException("Service request not found"));
         
+        String previous = request.getStatus();
         request.setMechanicId(mechanicId);
         request.setStatus("In Progress");
         
-        return update(requestId, request);
+        ServiceRequest updated = update(requestId, request);
+        if (updated != null && !"In Progress".equals(previous)) {
+            statusEvents.recordTransition(List.of(requestId), "In Progress",
+                    previous == null ? "Mechanic assigned" : "Mechanic assigned; from " + previous);
+        }
+        return updated;
     }
     
     /**
@@ -137,8 +189,82 @@ public class ServiceRequestService extends BaseSupabaseService<ServiceRequest> {
         ServiceRequest request = get(requestId)
                 .orElseThrow(() -> new IllegalArgumentException("Service request not found"));
         
+        String previous = request.getStatus();
         request.setStatus(status);
-        return update(requestId, request);
+        ServiceRequest updated = update(requestId, request);
+        if (updated != null && !status.equals(previous)) {
+            statusEvents.recordTransition(List.of(requestId), status, previous == null ? null : "From " + previous);
+        }
+        return updated;
+    }
+    
+    /**
+     * Assign a mechanic to every request in the list that is still pending.
+     * Performed as a single conditional update.
+     * @param requestIds The service request IDs (UUID)
+     * @param mechanicId The mechanic's user ID (UUID)
+     * @return Number of requests that were assigned
+     */
+    public int assignMechanicToPending(List<UUID> requestIds, UUID mechanicId) {
+        if (requestIds.isEmpty()) {
+            return 0;
+        }
+        
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("mechanic_id", mechanicId);
+        fields.put("status", "In Progress");
+        
+        List<UUID> assigned = updateWhereReturningIds(idsWithStatus(requestIds, "Pending"), fields);
+        statusEvents.recordTransition(assigned, "In Progress", "Mechanic assigned; from Pending");
+        return assigned.size();
+    }
+    
+    /**
+     * Move every request in the list from one status to another.
+     * Requests that are not currently in {@code fromStatus} are left untouched.
+     * @param requestIds The service request IDs (UUID)
+     * @param fromStatus The status the requests must currently have
+     * @param toStatus The new status
+     * @return Number of requests that changed status
+     */
+    public int updateStatusWhere(List<UUID> requestIds, String fromStatus, String toStatus) {
+        if (requestIds.isEmpty()) {
+            return 0;
+        }
+        
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("status", toStatus);
+        
+        List<UUID> changed = updateWhereReturningIds(idsWithStatus(requestIds, fromStatus), fields);
+        statusEvents.recordTransition(changed, toStatus, "From " + fromStatus);
+        return changed.size();
+    }
+    
+    /**
+     * Complete every in-progress request in the list with the same final price.
+     * @param requestIds The service request IDs (UUID)
+     * @param finalPrice The final price to record
+     * @return Ids of the requests that were completed; requests not in progress any more are left out
+     */
+    public List<UUID> completeAll(List<UUID> requestIds, BigDecimal finalPrice) {
+        if (requestIds.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("status", "Completed");
+        fields.put("total_price_final", finalPrice);
+        
+        List<UUID> completed = updateWhereReturningIds(idsWithStatus(requestIds, "In Progress"), fields);
+        statusEvents.recordTransition(completed, "Completed", "From In Progress");
+        return completed;
+    }
+    
+    private Map<String, String> idsWithStatus(List<UUID> requestIds, String status) {
+        Map<String, String> filter = new HashMap<>();
+        filter.put("id", SupabaseClient.inList(requestIds));
+        filter.put("status", "eq." + status);
+        return filter;
     }
     
     /**
@@ -16,6 +16,7 @@ public class ServiceStatusUpdateService extends BaseSupabaseService<ServiceStatu
     
     private ServiceStatusUpdateService() {
         super("service_status_updates", ServiceStatusUpdate.class, new TypeReference<List<ServiceStatusUpdate>>() {});
+        useClientGeneratedIds();
     }
     
     /**
@@ -24,6 +25,7 @@ public class ServiceStatusUpdateService extends BaseSupabaseService<ServiceStatu
     public static synchronized ServiceStatusUpdateService getInstance() {
         if (instance == null) {
             instance = new ServiceStatusUpdateService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -70,7 +72,8 @@ public class ServiceStatusUpdateService extends BaseSupabaseService<ServiceStatu
     }
     
     /**
-     * Create a new status update for a service request
+     * Create a new status update for a service request.
+     * It is sent in the background; created_at is unset on the returned update.
      * @param serviceRequestId The service request ID (UUID)
      * @param status The new status
      * @param note Optional note about the status change
@@ -80,7 +83,7 @@ public class ServiceStatusUpdateService extends BaseSupabaseService<ServiceStatu
     public ServiceStatusUpdate createStatusUpdate(UUID serviceRequestId, String status, 
                                                    String note, UUID createdBy) {
         ServiceStatusUpdate update = new ServiceStatusUpdate(serviceRequestId, status, note, createdBy);
-        return create(update);
+        return createBehind(update);
     }
     
     /**
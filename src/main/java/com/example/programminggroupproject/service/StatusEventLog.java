@@ -0,0 +1,56 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.model.ServiceStatusUpdate;
+import com.example.programminggroupproject.model.User;
+import com.example.programminggroupproject.model.UuidV7;
+import com.example.programminggroupproject.session.Session;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only history of service request status changes, kept in service_status_updates.
+ * <p>
+ * ServiceRequestService records one event per request for every transition it makes,
+ * including bulk ones. Events go through the WriteBehindQueue, so recording them never
+ * delays the status change itself. Each event is stamped with the time the transition was
+ * made (not when the queue is flushed) and the signed-in user.
+ */
+public class StatusEventLog {
+
+    private static StatusEventLog instance;
+
+    private final ServiceStatusUpdateService statusUpdates = ServiceStatusUpdateService.getInstance();
+
+    private StatusEventLog() {
+    }
+
+    public static synchronized StatusEventLog getInstance() {
+        if (instance == null) {
+            instance = new StatusEventLog();
+        }
+        return instance;
+    }
+
+    /**
+     * Record that requests moved to a status; returns without waiting for the server
+     * @param requestIds Requests that changed, e.g. the rows a conditional update affected
+     * @param note What happened, e.g. "From Pending", or null
+     */
+    public void recordTransition(List<UUID> requestIds, String status, String note) {
+        OffsetDateTime at = OffsetDateTime.now();
+        User user = Session.getCurrentUser();
+        UUID createdBy = user != null ? user.getId() : null;
+        for (UUID requestId : requestIds) {
+            statusUpdates.createBehind(new ServiceStatusUpdate(UuidV7.generate(), requestId, status, note, createdBy, at));
+        }
+    }
+
+    /**
+     * @return Every recorded status of the request, oldest first
+     */
+    public List<ServiceStatusUpdate> history(UUID requestId) {
+        return statusUpdates.filterAndOrder("service_request_id", "eq", requestId, "created_at", true);
+    }
+}
@@ -91,7 +91,7 @@ public class SupabaseAuthService {
             if (userOptional.isEmpty()) {
                 System.err.println("Warning: User created in auth but not found in public.users. Trigger may have failed.");
                 // Create the user manually as fallback
-                User newUser = new User(authUser.getId(), email, fullName, role, shopId);
+                User newUser = new User(authUser.getId(), UserService.normalizeEmail(email), fullName, role, shopId);
                 User createdUser = userService.create(newUser);
                 authSession.setUser(createdUser);
             } else {
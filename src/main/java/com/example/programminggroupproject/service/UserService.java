@@ -3,7 +3,9 @@ package com.example.programminggroupproject.service;
 import com.example.programminggroupproject.model.User;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,6 +20,7 @@ public class UserService extends BaseSupabaseService<User> {
     
     private UserService() {
         super("users", User.class, new TypeReference<List<User>>() {});
+        enableEntityCache(1000, Duration.ofMinutes(5));
     }
     
     /**
@@ -26,6 +29,7 @@ public class UserService extends BaseSupabaseService<User> {
     public static synchronized UserService getInstance() {
         if (instance == null) {
             instance = new UserService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -53,7 +57,7 @@ public class UserService extends BaseSupabaseService<User> {
      * @return Optional containing the User if found
      */
     public Optional<User> findByEmail(String email) {
-        return findOneBy("email", email);
+        return findOneBy("email", normalizeEmail(email));
     }
     
     /**
@@ -80,7 +84,15 @@ public class UserService extends BaseSupabaseService<User> {
      * @return true if email exists, false otherwise
      */
     public boolean emailExists(String email) {
-        return existsBy("email", email);
+        return existsBy("email", normalizeEmail(email));
+    }
+    
+    /**
+     * Canonical form of an email: trimmed and lower case. Emails are stored and compared
+     * in this form, whether entered or imported.
+     */
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
     
     /**
@@ -90,11 +102,20 @@ public class UserService extends BaseSupabaseService<User> {
      * @throws IllegalArgumentException if email already exists
      */
     public User registerUser(User user) {
+        user.setEmail(normalizeEmail(user.getEmail()));
         if (emailExists(user.getEmail())) {
             throw new IllegalArgumentException("Email already exists");
         }
         
-        return create(user);
+        try {
+            return create(user);
+        } catch (RuntimeException e) {
+            // Taken by someone else since the check
+            if (isUniqueViolation(e)) {
+                throw new IllegalArgumentException("Email already exists", e);
+            }
+            throw e;
+        }
     }
     
     /**
@@ -3,7 +3,9 @@ package com.example.programminggroupproject.service;
 import com.example.programminggroupproject.model.Vehicle;
 import com.fasterxml.jackson.core.type.TypeReference;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,6 +19,8 @@ public class VehicleService extends BaseSupabaseService<Vehicle> {
     
     private VehicleService() {
         super("vehicles", Vehicle.class, new TypeReference<List<Vehicle>>() {});
+        enableEntityCache(1000, Duration.ofMinutes(5));
+        enableQueryCache(Duration.ofMinutes(2));
     }
     
     /**
@@ -25,6 +29,7 @@ public class VehicleService extends BaseSupabaseService<Vehicle> {
     public static synchronized VehicleService getInstance() {
         if (instance == null) {
             instance = new VehicleService();
+            OfflineMode.getInstance().register(instance);
         }
         return instance;
     }
@@ -46,7 +51,7 @@ public class VehicleService extends BaseSupabaseService<Vehicle> {
      * @return Optional containing the vehicle if found
      */
     public Optional<Vehicle> findByLicensePlate(String licensePlate) {
-        return findOneBy("license_plate", licensePlate);
+        return findOneBy("license_plate", normalizePlate(licensePlate));
     }
     
     /**
@@ -55,7 +60,15 @@ public class VehicleService extends BaseSupabaseService<Vehicle> {
      * @return true if license plate exists, false otherwise
      */
     public boolean licensePlateExists(String licensePlate) {
-        return existsBy("license_plate", licensePlate);
+        return existsBy("license_plate", normalizePlate(licensePlate));
+    }
+    
+    /**
+     * Canonical form of a plate: upper case without spaces or dashes. Plates are stored
+     * and compared in this form, whether entered or imported.
+     */
+    static String normalizePlate(String licensePlate) {
+        return licensePlate.replaceAll("[\\s-]", "").toUpperCase(Locale.ROOT);
     }
     
     /**
@@ -111,13 +124,24 @@ public class VehicleService extends BaseSupabaseService<Vehicle> {
      * @throws IllegalArgumentException if license plate already exists
      */
     public Vehicle registerVehicle(Vehicle vehicle) {
+        if (vehicle.getLicensePlate() != null) {
+            vehicle.setLicensePlate(normalizePlate(vehicle.getLicensePlate()));
+        }
         if (vehicle.getLicensePlate() != null && 
             !vehicle.getLicensePlate().isEmpty() && 
             licensePlateExists(vehicle.getLicensePlate())) {
             throw new IllegalArgumentException("License plate already exists");
         }
         
-        return create(vehicle);
+        try {
+            return create(vehicle);
+        } catch (RuntimeException e) {
+            // Taken by someone else since the check
+            if (isUniqueViolation(e)) {
+                throw new IllegalArgumentException("License plate already exists", e);
+            }
+            throw e;
+        }
     }
 }
 
@@ -0,0 +1,416 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.SupabaseClient;
+import com.example.programminggroupproject.client.SupabaseHttpException;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.example.programminggroupproject.model.Identifiable;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sends non-critical writes (status notes, quantity edits, ...) to the server in the
+ * background, so the screen that made them does not wait for the round trip.
+ * <p>
+ * A write is journaled to {@code ~/.car-servicinator/write-behind/<user id>.jsonl} (see
+ * Outbox) and the caller continues at once. Successive updates of the same row are merged
+ * into one PATCH of the latest value of each field. The queue is flushed on the
+ * "write-behind" thread {@code supabase.writeBehind.flushMillis} (default 500) after the
+ * first queued write, or as soon as {@code supabase.writeBehind.batchSize} (default 50)
+ * writes are waiting; inserts go out as one request per table and batch.
+ * <p>
+ * While the server is unreachable, answers 401, 408, 429 or 5xx, or OfflineMode is offline,
+ * writes stay queued and are retried with a backoff doubling from one second up to a
+ * minute. Writes the server rejects otherwise are dropped and reported to failure listeners.
+ * Journaled writes left over from a crash are sent after the user's next login; inserts skip
+ * rows that already exist, so sending one twice is harmless.
+ */
+public class WriteBehindQueue {
+
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+
+    private record RowKey(String table, UUID id) {
+    }
+
+    private record Insert(long seq, String table, JsonNode row) {
+    }
+
+    /**
+     * Pending fields of one row; version changes whenever another update is merged in
+     */
+    private static final class Patch {
+        private final ObjectNode fields;
+        private final List<Long> seqs = new ArrayList<>();
+        private int version;
+
+        private Patch(ObjectNode fields) {
+            this.fields = fields;
+        }
+    }
+
+    private static WriteBehindQueue instance;
+
+    private final SupabaseClient client = SupabaseClient.getInstance();
+    private final ObjectMapper objectMapper = client.getObjectMapper();
+    private final OfflineMode offlineMode = OfflineMode.getInstance();
+    private final Outbox journal = new Outbox(objectMapper, "write-behind");
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long flushMillis;
+    private final int batchSize;
+    private final Object flushLock = new Object();
+    private final List<Consumer<List<OfflineMode.Conflict>>> failureListeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private final List<Insert> inserts = new ArrayList<>();
+    private final Map<RowKey, Patch> patches = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduled;
+    private long backoffMillis;
+
+    private WriteBehindQueue() {
+        SupabaseConfig config = SupabaseConfig.getInstance();
+        this.flushMillis = Long.parseLong(config.getProperty("supabase.writeBehind.flushMillis", "500").trim());
+        this.batchSize = Integer.parseInt(config.getProperty("supabase.writeBehind.batchSize", "50").trim());
+        offlineMode.addConnectionListener(online -> {
+            if (online) {
+                schedule(0);
+            }
+        });
+    }
+
+    public static synchronized WriteBehindQueue getInstance() {
+        if (instance == null) {
+            instance = new WriteBehindQueue();
+        }
+        return instance;
+    }
+
+    // ==================== LIFECYCLE ====================
+
+    /**
+     * Load the user's journal; call at login. Writes left over from an earlier session are
+     * sent right away.
+     */
+    public synchronized void open(UUID userId) {
+        clear();
+        journal.open(userId);
+        for (Outbox.Entry entry : journal.pending()) {
+            if (entry.operation() == Outbox.Operation.INSERT) {
+                inserts.add(new Insert(entry.seq(), entry.table(), entry.body()));
+            } else if (entry.operation() == Outbox.Operation.UPDATE) {
+                String id = entry.filter().getOrDefault("id", "").replaceFirst("^eq\\.", "");
+                merge(new RowKey(entry.table(), UUID.fromString(id)), (ObjectNode) entry.body(), entry.seq());
+            }
+        }
+        if (size() > 0) {
+            schedule(0);
+        }
+    }
+
+    /**
+     * Try once to send what is queued, then forget the signed-in user. Call at logout
+     * while the session is still valid; anything unsent stays on disk for their next login.
+     */
+    public void close() {
+        synchronized (flushLock) {
+            try {
+                if (!offlineMode.isOffline()) {
+                    flush();
+                }
+            } catch (IOException e) {
+                System.err.println("Write-behind queue not sent before logout: " + e.getMessage());
+            }
+            synchronized (this) {
+                clear();
+                journal.close();
+            }
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return journal.isOpen();
+    }
+
+    /**
+     * @return Number of queued rows (merged updates of a row count once)
+     */
+    public synchronized int size() {
+        return inserts.size() + patches.size();
+    }
+
+    /**
+     * Be told (on a background thread) about queued writes the server rejected
+     */
+    public void addFailureListener(Consumer<List<OfflineMode.Conflict>> listener) {
+        failureListeners.add(listener);
+    }
+
+    public void removeFailureListener(Consumer<List<OfflineMode.Conflict>> listener) {
+        failureListeners.remove(listener);
+    }
+
+    private void clear() {
+        inserts.clear();
+        patches.clear();
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+        backoffMillis = 0;
+    }
+
+    // ==================== QUEUEING ====================
+
+    /**
+     * Queue the insert of a row that has its (client-generated) id; returns once it is journaled
+     */
+    synchronized void insert(String table, JsonNode row) {
+        Outbox.Entry entry = journal.append(table, Outbox.Operation.INSERT, Map.of(), row, 1);
+        inserts.add(new Insert(entry.seq(), table, row));
+        queued();
+    }
+
+    /**
+     * Queue an update of some fields of a row, merged with any update of it still queued;
+     * returns once it is journaled
+     */
+    synchronized void update(String table, UUID id, ObjectNode fields) {
+        Outbox.Entry entry = journal.append(table, Outbox.Operation.UPDATE, Map.of("id", "eq." + id), fields, 1);
+        merge(new RowKey(table, id), fields, entry.seq());
+        queued();
+    }
+
+    private void merge(RowKey key, ObjectNode fields, long seq) {
+        Patch patch = patches.computeIfAbsent(key, ignored -> new Patch(objectMapper.createObjectNode()));
+        patch.fields.setAll(fields);
+        patch.seqs.add(seq);
+        patch.version++;
+    }
+
+    private void queued() {
+        if (backoffMillis > 0 && scheduled != null) {
+            // Waiting to retry; more writes do not make the server come back sooner
+            return;
+        }
+        if (size() >= batchSize) {
+            schedule(0);
+        } else if (scheduled == null) {
+            schedule(flushMillis);
+        }
+    }
+
+    private synchronized void schedule(long delayMillis) {
+        if (!journal.isOpen() || size() == 0) {
+            return;
+        }
+        if (scheduled != null) {
+            if (scheduled.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+                return;
+            }
+            scheduled.cancel(false);
+        }
+        scheduled = scheduler.schedule(this::flushInBackground, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== USED BY SERVICES ====================
+
+    /**
+     * Send queued inserts into the table before it is read, so lists include them.
+     * Queued updates are not waited for; see overlay.
+     */
+    void awaitInserts(String table) {
+        synchronized (this) {
+            if (inserts.stream().noneMatch(insert -> insert.table().equals(table))) {
+                return;
+            }
+        }
+        synchronized (flushLock) {
+            try {
+                flush();
+            } catch (IOException e) {
+                // Left queued; the read goes ahead with what the server has
+            }
+        }
+    }
+
+    /**
+     * Apply queued updates to rows just read from the table
+     */
+    <T> void overlay(String table, List<T> rows) throws IOException {
+        Map<UUID, ObjectNode> pending = new LinkedHashMap<>();
+        synchronized (this) {
+            if (patches.isEmpty()) {
+                return;
+            }
+            patches.forEach((key, patch) -> {
+                if (key.table().equals(table)) {
+                    pending.put(key.id(), patch.fields.deepCopy());
+                }
+            });
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (T row : rows) {
+            if (row instanceof Identifiable identifiable && pending.containsKey(identifiable.getId())) {
+                objectMapper.readerForUpdating(row).readValue(pending.get(identifiable.getId()));
+            }
+        }
+    }
+
+    // ==================== FLUSHING ====================
+
+    private void flushInBackground() {
+        synchronized (this) {
+            scheduled = null;
+        }
+        boolean retry;
+        synchronized (flushLock) {
+            try {
+                retry = offlineMode.isOffline() || !flush();
+            } catch (IOException e) {
+                if (OfflineMode.isUnreachable(e)) {
+                    offlineMode.fallBackToLocal(e);
+                }
+                retry = true;
+            } catch (RuntimeException e) {
+                System.err.println("Error sending write-behind queue: " + e.getMessage());
+                retry = true;
+            }
+        }
+
+        synchronized (this) {
+            if (retry) {
+                backoffMillis = backoffMillis == 0 ? 1000 : Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+                schedule(backoffMillis);
+            } else {
+                backoffMillis = 0;
+                schedule(size() >= batchSize ? 0 : flushMillis);
+            }
+        }
+    }
+
+    /**
+     * Send everything queued when it starts, inserts first. Call holding flushLock.
+     * @return false if a write was refused for a reason worth retrying (e.g. 503)
+     * @throws IOException If the server could not be reached; unsent writes stay queued
+     */
+    private boolean flush() throws IOException {
+        List<Insert> insertBatch;
+        Map<RowKey, Patch> patchBatch = new LinkedHashMap<>();
+        synchronized (this) {
+            if (!journal.isOpen()) {
+                return true;
+            }
+            insertBatch = new ArrayList<>(inserts);
+            patches.forEach((key, patch) -> {
+                Patch copy = new Patch(patch.fields.deepCopy());
+                copy.seqs.addAll(patch.seqs);
+                copy.version = patch.version;
+                patchBatch.put(key, copy);
+            });
+        }
+
+        List<OfflineMode.Conflict> failures = new ArrayList<>();
+        boolean complete = true;
+        try {
+            complete &= sendInserts(insertBatch, failures);
+            for (Map.Entry<RowKey, Patch> entry : patchBatch.entrySet()) {
+                complete &= sendPatch(entry.getKey(), entry.getValue(), failures);
+            }
+        } finally {
+            if (!failures.isEmpty()) {
+                failures.forEach(failure -> System.err.println("Write-behind " + failure.operation() + " on "
+                        + failure.table() + " dropped: " + failure.reason()));
+                failureListeners.forEach(listener -> listener.accept(failures));
+            }
+        }
+        return complete;
+    }
+
+    private boolean sendInserts(List<Insert> batch, List<OfflineMode.Conflict> failures) throws IOException {
+        Map<String, List<Insert>> byTable = new LinkedHashMap<>();
+        batch.forEach(insert -> byTable.computeIfAbsent(insert.table(), ignored -> new ArrayList<>()).add(insert));
+
+        boolean complete = true;
+        for (Map.Entry<String, List<Insert>> table : byTable.entrySet()) {
+            List<Insert> rows = table.getValue();
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                complete &= sendInsertRun(table.getKey(), rows.subList(from, Math.min(rows.size(), from + batchSize)), failures);
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * One request for the run; if the server rejects it, the rows are sent one at a time so
+     * that only the bad ones are dropped
+     */
+    private boolean sendInsertRun(String table, List<Insert> run, List<OfflineMode.Conflict> failures) throws IOException {
+        ArrayNode rows = objectMapper.createArrayNode();
+        run.forEach(insert -> rows.add(insert.row()));
+        try {
+            client.insertIgnoringDuplicates(table, rows);
+        } catch (SupabaseHttpException e) {
+            if (e.isRetryable()) {
+                return false;
+            }
+            if (run.size() == 1) {
+                failures.add(new OfflineMode.Conflict(table, "insert", Map.of(), 1, 0,
+                        "rejected by the server: " + e.getMessage()));
+            } else {
+                boolean complete = true;
+                for (Insert insert : run) {
+                    complete &= sendInsertRun(table, List.of(insert), failures);
+                }
+                return complete;
+            }
+        }
+        synchronized (this) {
+            inserts.removeAll(run);
+            journal.acknowledge(run.stream().map(Insert::seq).toList());
+        }
+        return true;
+    }
+
+    private boolean sendPatch(RowKey key, Patch sent, List<OfflineMode.Conflict> failures) throws IOException {
+        Map<String, String> filter = Map.of("id", "eq." + key.id());
+        try {
+            client.patchWithCount(key.table(), sent.fields, filter);
+        } catch (SupabaseHttpException e) {
+            if (e.isRetryable()) {
+                return false;
+            }
+            failures.add(new OfflineMode.Conflict(key.table(), "update", filter, 1, 0,
+                    "rejected by the server: " + e.getMessage()));
+        }
+        synchronized (this) {
+            Patch current = patches.get(key);
+            if (current != null && current.version == sent.version) {
+                patches.remove(key);
+            } else if (current != null) {
+                // Updated again meanwhile: the newer fields are still queued and journaled
+                current.seqs.removeAll(sent.seqs);
+            }
+            journal.acknowledge(sent.seqs);
+        }
+        return true;
+    }
+}
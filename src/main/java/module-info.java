@@ -4,6 +4,10 @@ module com.example.programminggroupproject {
 
     requires org.kordamp.bootstrapfx.core;
     requires okhttp3;
+    requires okio;
+    requires jdk.httpserver;
+    requires java.sql;
+    requires org.postgresql.jdbc;
     requires com.fasterxml.jackson.databind;
     requires com.fasterxml.jackson.datatype.jsr310;
 
@@ -14,4 +18,6 @@ module com.example.programminggroupproject {
     exports com.example.programminggroupproject.controller;
     exports com.example.programminggroupproject.service;
     exports com.example.programminggroupproject.model;
+    exports com.example.programminggroupproject.cache;
+    exports com.example.programminggroupproject.proxy;
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.example.programminggroupproject.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TinyLfuCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    // ==================== SIZE ====================
+
+    @Test
+    void aSingleEntryCacheKeepsTheNewestEntry() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(1, TTL);
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.getIfPresent("c"));
+        assertNull(cache.getIfPresent("a"));
+        assertEquals(2, cache.stats().evictions());
+    }
+
+    @Test
+    void theSizeNeverExceedsTheMaximum() {
+        for (int maximumSize : new int[] {1, 2, 3, 150}) {
+            TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(maximumSize, TTL);
+            for (int i = 0; i < maximumSize * 3; i++) {
+                cache.put(i, i);
+                cache.getIfPresent(i % 2);
+            }
+            assertEquals(maximumSize, cache.size(), "maximumSize " + maximumSize);
+        }
+    }
+
+    @Test
+    void aNonPositiveSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new TinyLfuCache<String, Integer>(0, TTL));
+    }
+
+    // ==================== EVICTION ====================
+
+    @Test
+    void frequentlyReadEntriesSurviveOneOffLookups() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(3, TTL);
+        cache.put("hot", 0);
+        cache.put("warm", 0);
+        for (int i = 0; i < 10; i++) {
+            cache.getIfPresent("hot");
+        }
+
+        for (int i = 0; i < 20; i++) {
+            cache.put("once" + i, i);
+        }
+
+        assertEquals(0, cache.getIfPresent("hot"));
+    }
+
+    @Test
+    void writesChangeTheStamp() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10, TTL);
+        long stamp = cache.writeStamp();
+
+        cache.invalidate("a");
+
+        assertFalse(cache.putIfUnchangedSince("a", 1, stamp));
+        assertNull(cache.getIfPresent("a"));
+    }
+}
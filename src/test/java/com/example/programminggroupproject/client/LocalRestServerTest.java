@@ -0,0 +1,128 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LocalRestServer over HTTP: going offline and back, and the row counts that offline
+ * replay relies on to detect rows changed elsewhere
+ */
+class LocalRestServerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    private LocalRestServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void start() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = new LocalRestServer(port);
+        server.setOnline(true);
+        baseUrl = "http://localhost:" + port + "/rest/v1/";
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        server.setOnline(false);
+    }
+
+    // ==================== PROTOCOL ====================
+
+    @Test
+    void insertedRowsGetDatabaseDefaultsAndCanBeReadBack() throws Exception {
+        HttpResponse<String> inserted = send("POST", "service_requests", "{\"status\":\"Pending\"}", null);
+
+        assertEquals(201, inserted.statusCode());
+        JsonNode row = objectMapper.readTree(inserted.body()).get(0);
+        assertTrue(row.hasNonNull("id"));
+        assertTrue(row.hasNonNull("created_at"));
+        assertTrue(row.hasNonNull("updated_at"));
+
+        HttpResponse<String> read = send("GET", "service_requests?id=eq." + row.get("id").asText(), null, null);
+        assertEquals(200, read.statusCode());
+        assertEquals("Pending", objectMapper.readTree(read.body()).get(0).get("status").asText());
+    }
+
+    @Test
+    void duplicateKeysAreRejectedUnlessIgnored() throws Exception {
+        String row = "{\"id\":\"" + UUID.randomUUID() + "\",\"status\":\"Pending\"}";
+        send("POST", "service_requests", row, null);
+
+        assertEquals(409, send("POST", "service_requests", row, null).statusCode());
+        HttpResponse<String> ignored = send("POST", "service_requests", row, "resolution=ignore-duplicates");
+        assertEquals(201, ignored.statusCode());
+        assertEquals(1, server.rows("service_requests").size());
+    }
+
+    // ==================== OFFLINE ====================
+
+    @Test
+    void offlineRefusesConnectionsAndKeepsTheData() throws Exception {
+        send("POST", "service_requests", "{\"status\":\"Pending\"}", null);
+
+        server.setOnline(false);
+        assertFalse(server.isOnline());
+        assertThrows(IOException.class, () -> send("GET", "service_requests", null, null));
+
+        server.setOnline(true);
+        HttpResponse<String> read = send("GET", "service_requests", null, null);
+        assertEquals(1, objectMapper.readTree(read.body()).size());
+    }
+
+    @Test
+    void aConditionalUpdateCountsOnlyRowsThatStillMatch() throws Exception {
+        UUID id = UUID.randomUUID();
+        server.put("service_requests", request(id, "Pending"));
+        String stillPending = "service_requests?id=eq." + id + "&status=eq.Pending";
+
+        HttpResponse<String> applied = send("PATCH", stillPending, "{\"status\":\"Cancelled\"}", "return=minimal");
+        assertEquals("*/1", applied.headers().firstValue("Content-Range").orElseThrow());
+
+        // Another client moves the request on; replaying the same update must not undo that
+        server.put("service_requests", request(id, "In Progress"));
+        HttpResponse<String> conflicting = send("PATCH", stillPending, "{\"status\":\"Cancelled\"}", "return=minimal");
+        assertEquals("*/0", conflicting.headers().firstValue("Content-Range").orElseThrow());
+        assertEquals("In Progress", server.rows("service_requests").get(0).get("status").asText());
+    }
+
+    // ==================== HELPERS ====================
+
+    private ObjectNode request(UUID id, String status) {
+        return objectMapper.createObjectNode()
+                .put("id", id.toString())
+                .put("status", status);
+    }
+
+    private HttpResponse<String> send(String method, String pathAndQuery, String body, String prefer)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .header("Content-Type", "application/json");
+        if (prefer != null) {
+            request.header("Prefer", prefer);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
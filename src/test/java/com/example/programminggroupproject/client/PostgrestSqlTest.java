@@ -0,0 +1,143 @@
+package com.example.programminggroupproject.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PostgrestSqlTest {
+
+    private static final Set<String> COLUMNS = Set.of("id", "status", "year", "notes", "shop_id");
+
+    // ==================== WHERE ====================
+
+    @Test
+    void comparisonsBecomeBoundPlaceholders() {
+        PostgrestSql.Where where = where("status", "eq.Pending", "year", "gte.2015");
+
+        assertEquals(" WHERE \"status\" = ? AND \"year\" >= ?", where.sql());
+        assertEquals(List.of(new PostgrestSql.Operand("status", "Pending", false),
+                new PostgrestSql.Operand("year", "2015", false)), where.operands());
+    }
+
+    @Test
+    void everyComparisonOperatorIsTranslated() {
+        assertEquals(" WHERE \"year\" <> ?", where("year", "neq.1").sql());
+        assertEquals(" WHERE \"year\" > ?", where("year", "gt.1").sql());
+        assertEquals(" WHERE \"year\" < ?", where("year", "lt.1").sql());
+        assertEquals(" WHERE \"year\" <= ?", where("year", "lte.1").sql());
+    }
+
+    @Test
+    void inListsBindEachItem() {
+        PostgrestSql.Where where = where("status", "in.(Pending,\"In Progress\")");
+
+        assertEquals(" WHERE \"status\" IN (?, ?)", where.sql());
+        assertEquals(List.of("Pending", "In Progress"),
+                where.operands().stream().map(PostgrestSql.Operand::value).toList());
+    }
+
+    @Test
+    void anEmptyInListMatchesNothing() {
+        PostgrestSql.Where where = where("id", "in.()");
+
+        assertEquals(" WHERE FALSE", where.sql());
+        assertEquals(List.of(), where.operands());
+    }
+
+    @Test
+    void isTakesNoOperand() {
+        assertEquals(" WHERE \"shop_id\" IS NULL", where("shop_id", "is.null").sql());
+        assertEquals(" WHERE \"notes\" IS TRUE", where("notes", "is.true").sql());
+        assertEquals(0, where("shop_id", "is.null").operands().size());
+        assertThrows(IllegalArgumentException.class, () -> where("shop_id", "is.maybe"));
+    }
+
+    @Test
+    void likePatternsAreTextWithPercentWildcards() {
+        PostgrestSql.Where where = where("notes", "ilike.*brake*");
+
+        assertEquals(" WHERE CAST(\"notes\" AS text) ILIKE ?", where.sql());
+        assertEquals(List.of(new PostgrestSql.Operand("notes", "%brake%", true)), where.operands());
+    }
+
+    @Test
+    void notNegatesTheCondition() {
+        assertEquals(" WHERE NOT (\"status\" = ?)", where("status", "not.eq.Completed").sql());
+        assertEquals(" WHERE NOT (\"shop_id\" IS NULL)", where("shop_id", "not.is.null").sql());
+    }
+
+    @Test
+    void reservedParametersAreNotFilters() {
+        PostgrestSql.Where where = where("select", "id,status", "order", "year.desc", "limit", "10", "offset", "20");
+
+        assertEquals("", where.sql());
+        assertEquals(List.of(), where.operands());
+    }
+
+    @Test
+    void valuesNeverReachTheSql() {
+        PostgrestSql.Where where = where("status", "eq.x'; DROP TABLE users; --");
+
+        assertEquals(" WHERE \"status\" = ?", where.sql());
+        assertEquals("x'; DROP TABLE users; --", where.operands().get(0).value());
+    }
+
+    @Test
+    void unknownColumnsAndOperatorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> where("password", "eq.x"));
+        assertThrows(IllegalArgumentException.class, () -> where("status", "cs.{a}"));
+        assertThrows(IllegalArgumentException.class, () -> where("status", "Pending"));
+        assertThrows(IllegalArgumentException.class, () -> where("or", "(status.eq.a,status.eq.b)"));
+    }
+
+    // ==================== ORDER, LIMIT, OFFSET ====================
+
+    @Test
+    void orderTermsKeepTheirDirectionAndNullsPlacement() {
+        assertEquals(" ORDER BY \"year\" DESC NULLS LAST, \"id\"",
+                PostgrestSql.orderBy(params("order", "year.desc.nullslast,id"), COLUMNS));
+        assertEquals(" ORDER BY \"status\" ASC NULLS FIRST",
+                PostgrestSql.orderBy(params("order", "status.asc.nullsfirst"), COLUMNS));
+        assertEquals("", PostgrestSql.orderBy(params(), COLUMNS));
+    }
+
+    @Test
+    void orderRejectsUnknownColumnsAndModifiers() {
+        assertThrows(IllegalArgumentException.class, () -> PostgrestSql.orderBy(params("order", "password"), COLUMNS));
+        assertThrows(IllegalArgumentException.class, () -> PostgrestSql.orderBy(params("order", "year.random()"), COLUMNS));
+    }
+
+    @Test
+    void limitAndOffsetMustBeNumbers() {
+        assertEquals(" LIMIT 10 OFFSET 20", PostgrestSql.limitOffset(params("limit", "10", "offset", "20")));
+        assertEquals(" LIMIT 5", PostgrestSql.limitOffset(params("limit", "5")));
+        assertEquals("", PostgrestSql.limitOffset(params()));
+        assertThrows(NumberFormatException.class, () -> PostgrestSql.limitOffset(params("limit", "1; DELETE")));
+    }
+
+    @Test
+    void quotingDoublesEmbeddedQuotes() {
+        assertEquals("\"service_requests\"", PostgrestSql.quote("service_requests"));
+        assertEquals("\"a\"\"b\"", PostgrestSql.quote("a\"b"));
+    }
+
+    // ==================== HELPERS ====================
+
+    private static PostgrestSql.Where where(String... keysAndValues) {
+        return PostgrestSql.where(params(keysAndValues), COLUMNS);
+    }
+
+    private static Map<String, String> params(String... keysAndValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            params.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return params;
+    }
+}
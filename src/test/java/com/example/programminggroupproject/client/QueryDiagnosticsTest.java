@@ -0,0 +1,59 @@
+package com.example.programminggroupproject.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryDiagnosticsTest {
+
+    private static final int MAX_ENTRIES = 100;
+
+    private final QueryDiagnostics diagnostics = new QueryDiagnostics(100);
+
+    // ==================== RECORDING ====================
+
+    @Test
+    void repeatedRequestsAreGroupedAndAskForOnePlan() {
+        assertTrue(diagnostics.recordSlow("GET", "/rest/v1/vehicles", 150));
+        assertFalse(diagnostics.recordSlow("GET", "/rest/v1/vehicles", 300));
+
+        QueryDiagnostics.SlowQuery query = diagnostics.getSlowest(1).get(0);
+        assertEquals(2, query.getOccurrences());
+        assertEquals(300, query.getMaxLatencyMillis());
+        assertEquals(300, query.getLastLatencyMillis());
+    }
+
+    @Test
+    void aFullListDropsTheFastestRequest() {
+        fill(200);
+
+        assertTrue(diagnostics.recordSlow("GET", "/rest/v1/slowest", 1000));
+
+        assertEquals(MAX_ENTRIES, diagnostics.getSlowest(Integer.MAX_VALUE).size());
+        assertEquals("/rest/v1/slowest", diagnostics.getSlowest(1).get(0).getUrl());
+    }
+
+    @Test
+    void aNewRequestDroppedStraightAwayGetsNoPlan() {
+        fill(200);
+
+        assertFalse(diagnostics.recordSlow("GET", "/rest/v1/fastest", 100));
+
+        assertEquals(MAX_ENTRIES, diagnostics.getSlowest(Integer.MAX_VALUE).size());
+        assertTrue(diagnostics.getSlowest(Integer.MAX_VALUE).stream()
+                .noneMatch(query -> query.getUrl().equals("/rest/v1/fastest")));
+    }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * Fill the list with requests slower than {@code latencyMillis}
+     */
+    private void fill(long latencyMillis) {
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            diagnostics.recordSlow("GET", "/rest/v1/t" + i, latencyMillis + i);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.programminggroupproject.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * RealtimeClient against a LocalRealtimeTransport: joins, event delivery by filter, and
+ * rejoining after a dropped connection (the first reconnect comes after one second).
+ */
+class RealtimeClientTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Boolean> connectionChanges = new LinkedBlockingQueue<>();
+
+    private LocalRealtimeTransport transport;
+    private RealtimeClient client;
+
+    @BeforeEach
+    void connectToLocalServer() {
+        transport = new LocalRealtimeTransport();
+        client = new RealtimeClient(transport);
+        client.addConnectionListener(connectionChanges::add);
+    }
+
+    @AfterEach
+    void disconnect() {
+        client.disconnect();
+    }
+
+    // ==================== SUBSCRIPTIONS ====================
+
+    @Test
+    void subscribingConnectsAndJoinsWithTheFilter() throws Exception {
+        client.subscribe("service_requests", "shop_id=eq.1", change -> { });
+
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        awaitJoinedChannels(1);
+        assertTrue(client.isConnected());
+        assertTrue(transport.getSentMessages().stream()
+                .anyMatch(message -> message.contains("\"phx_join\"") && message.contains("shop_id=eq.1")));
+    }
+
+    @Test
+    void changesReachOnlyMatchingSubscriptions() throws Exception {
+        BlockingQueue<RealtimeClient.ChangeEvent> shopOne = new LinkedBlockingQueue<>();
+        BlockingQueue<RealtimeClient.ChangeEvent> shopTwo = new LinkedBlockingQueue<>();
+        BlockingQueue<RealtimeClient.ChangeEvent> listed = new LinkedBlockingQueue<>();
+        client.subscribe("service_requests", "shop_id=eq.1", shopOne::add);
+        client.subscribe("service_requests", "shop_id=eq.2", shopTwo::add);
+        client.subscribe("service_requests", "id=in.(a,b)", listed::add);
+        awaitJoinedChannels(3);
+
+        transport.publish("service_requests", "UPDATE", row("a", "1", "Completed"));
+        transport.publish("vehicles", "INSERT", row("b", "2", null));
+
+        RealtimeClient.ChangeEvent change = shopOne.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals("service_requests", change.table());
+        assertEquals("UPDATE", change.type());
+        assertEquals("Completed", change.record().path("status").asText());
+        assertEquals("a", listed.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS).record().path("id").asText());
+        awaitDelivery();
+        assertTrue(shopOne.isEmpty());
+        assertTrue(shopTwo.isEmpty());
+        assertTrue(listed.isEmpty());
+    }
+
+    @Test
+    void closingASubscriptionLeavesItsChannel() throws Exception {
+        BlockingQueue<RealtimeClient.ChangeEvent> kept = new LinkedBlockingQueue<>();
+        BlockingQueue<RealtimeClient.ChangeEvent> closed = new LinkedBlockingQueue<>();
+        client.subscribe("service_requests", "shop_id=eq.1", kept::add);
+        RealtimeClient.Subscription subscription = client.subscribe("service_requests", "shop_id=eq.1", closed::add);
+        awaitJoinedChannels(2);
+
+        subscription.close();
+        awaitJoinedChannels(1);
+        transport.publish("service_requests", "INSERT", row("a", "1", "Pending"));
+
+        assertTrue(transport.getSentMessages().stream().anyMatch(message -> message.contains("\"phx_leave\"")));
+        assertEquals("a", kept.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS).record().path("id").asText());
+        awaitDelivery();
+        assertTrue(closed.isEmpty());
+    }
+
+    @Test
+    void closingTheLastSubscriptionDisconnects() throws Exception {
+        RealtimeClient.Subscription subscription = client.subscribe("service_requests", null, change -> { });
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        subscription.close();
+
+        assertEquals(false, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(client.isConnected());
+    }
+
+    // ==================== RECONNECTING ====================
+
+    @Test
+    void afterADropTheClientReconnectsAndRejoinsEveryChannel() throws Exception {
+        BlockingQueue<RealtimeClient.ChangeEvent> changes = new LinkedBlockingQueue<>();
+        client.subscribe("service_requests", "shop_id=eq.1", changes::add);
+        client.subscribe("service_status_updates", null, changes::add);
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        awaitJoinedChannels(2);
+
+        transport.drop();
+
+        assertEquals(false, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        awaitJoinedChannels(2);
+        assertTrue(client.isConnected());
+
+        transport.publish("service_requests", "UPDATE", row("a", "1", "In Progress"));
+        assertEquals("In Progress", changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS).record().path("status").asText());
+    }
+
+    @Test
+    void changesWhileDisconnectedAreNotDelivered() throws Exception {
+        BlockingQueue<RealtimeClient.ChangeEvent> changes = new LinkedBlockingQueue<>();
+        client.subscribe("service_requests", null, changes::add);
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        awaitJoinedChannels(1);
+
+        transport.drop();
+        assertEquals(false, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        transport.publish("service_requests", "INSERT", row("a", "1", "Pending"));
+
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        awaitJoinedChannels(1);
+        awaitDelivery();
+        assertNull(changes.poll());
+    }
+
+    // ==================== HELPERS ====================
+
+    private ObjectNode row(String id, String shopId, String status) {
+        return objectMapper.createObjectNode()
+                .put("id", id)
+                .put("shop_id", shopId)
+                .put("status", status);
+    }
+
+    private void awaitJoinedChannels(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (transport.getJoinedChannelCount() != count) {
+            if (System.nanoTime() > deadline) {
+                fail("Expected " + count + " joined channels, found " + transport.getJoinedChannelCount());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Wait until everything the server has queued so far has reached the client: a
+     * heartbeat-like frame is answered only after the messages queued before it
+     */
+    private void awaitDelivery() throws Exception {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        RealtimeTransport.Connection probe = transport.open("local", new RealtimeTransport.Listener() {
+            @Override
+            public void onOpen() {
+            }
+
+            @Override
+            public void onMessage(String text) {
+                replies.add(text);
+            }
+
+            @Override
+            public void onClosed(Throwable error) {
+            }
+        });
+        probe.send("{\"topic\":\"phoenix\",\"event\":\"heartbeat\",\"ref\":\"probe\",\"payload\":{}}");
+        assertTrue(replies.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS).contains("probe"));
+        probe.close();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.programminggroupproject.client;
+
+import com.example.programminggroupproject.model.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated to send one bulk insert body, built as a String first versus streamed by
+ * JsonRequestBody, printed per request. Both are written to a sink that discards the data,
+ * so only the cost of producing the body is counted. Not part of the normal test run; run it
+ * with {@code mvn test -Pbenchmark}. {@code -Dbenchmark.bodyRows} sets the rows per body
+ * (default 5000).
+ */
+@Tag("benchmark")
+class RequestBodyAllocationBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.bodyRows", 5000);
+    private static final int WARMUP = 20;
+    private static final int RUNS = 50;
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private final ObjectMapper objectMapper = SupabaseClient.getInstance().getObjectMapper();
+
+    @Test
+    void streamedBodiesAllocateLessThanStrings() throws Exception {
+        List<Vehicle> rows = new ArrayList<>();
+        UUID clientId = UUID.randomUUID();
+        for (int i = 0; i < ROWS; i++) {
+            Vehicle vehicle = new Vehicle(clientId, "Make" + i % 20, "Model" + i % 50, 1990 + i % 35, "P" + i);
+            vehicle.setId(UUID.randomUUID());
+            rows.add(vehicle);
+        }
+        var writer = JsonRequestBody.writerFor(objectMapper);
+
+        long asString = allocatedPerRequest(() -> RequestBody.create(objectMapper.writeValueAsString(rows), JSON));
+        long streamed = allocatedPerRequest(() -> new JsonRequestBody(writer, rows));
+
+        System.out.printf("%,d-row body: String %,.2f MB | JsonRequestBody %,.2f MB per request%n",
+                ROWS, asString / 1e6, streamed / 1e6);
+        assertTrue(streamed < asString);
+    }
+
+    private interface BodyFactory {
+        RequestBody create() throws IOException;
+    }
+
+    /**
+     * @return Bytes the current thread allocates to create a body and write it, averaged after warm-up
+     */
+    private static long allocatedPerRequest(BodyFactory factory) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        for (int i = 0; i < WARMUP; i++) {
+            send(factory);
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < RUNS; i++) {
+            send(factory);
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / RUNS;
+    }
+
+    private static void send(BodyFactory factory) throws IOException {
+        try (BufferedSink sink = Okio.buffer(Okio.blackhole())) {
+            factory.create().writeTo(sink);
+        }
+    }
+}
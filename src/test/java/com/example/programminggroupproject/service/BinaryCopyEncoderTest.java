@@ -0,0 +1,197 @@
+package com.example.programminggroupproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryCopyEncoderTest {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final int HEADER_LENGTH = SIGNATURE.length + 4 + 4;
+
+    /**
+     * numeric's wire form, as the server reads it
+     */
+    private record Numeric(int weight, int sign, int displayScale, List<Integer> digits) {
+
+        BigDecimal value() {
+            BigDecimal value = BigDecimal.ZERO;
+            for (int i = 0; i < digits.size(); i++) {
+                value = value.add(new BigDecimal(BigInteger.valueOf(digits.get(i)), 4 * (i - weight)));
+            }
+            value = value.setScale(displayScale);
+            return sign == 0x4000 ? value.negate() : value;
+        }
+    }
+
+    // ==================== FRAMING ====================
+
+    @Test
+    void dataStartsWithTheHeaderAndEndsWithTheTrailer() {
+        byte[] data = new BinaryCopyEncoder().finish();
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte[] signature = new byte[SIGNATURE.length];
+        buffer.get(signature);
+        assertArrayEquals(SIGNATURE, signature);
+        assertEquals(0, buffer.getInt()); // Flags
+        assertEquals(0, buffer.getInt()); // Header extension length
+        assertEquals(-1, buffer.getShort());
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    void eachRowStartsWithItsFieldCount() {
+        BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+        encoder.writeRow(Arrays.asList(1, null, "x"));
+        encoder.writeRow(List.of(2, 3L, "y"));
+
+        ByteBuffer buffer = ByteBuffer.wrap(encoder.finish()).position(HEADER_LENGTH);
+        assertEquals(3, buffer.getShort());
+        assertEquals(4, buffer.getInt());
+        assertEquals(1, buffer.getInt());
+        assertEquals(-1, buffer.getInt()); // NULL has no data
+        assertEquals(1, buffer.getInt());
+        assertEquals('x', buffer.get());
+        assertEquals(3, buffer.getShort());
+    }
+
+    // ==================== NUMERIC ====================
+
+    @Test
+    void numericIsSentAsBaseTenThousandDigits() {
+        Numeric numeric = numeric(new BigDecimal("12345.678"));
+
+        assertEquals(1, numeric.weight());
+        assertEquals(0, numeric.sign());
+        assertEquals(3, numeric.displayScale());
+        assertEquals(List.of(1, 2345, 6780), numeric.digits());
+    }
+
+    @Test
+    void numericDropsLeadingAndTrailingZeroDigits() {
+        assertEquals(new Numeric(-1, 0, 4, List.of(1)), numeric(new BigDecimal("0.0001")));
+        assertEquals(new Numeric(1, 0, 0, List.of(1)), numeric(new BigDecimal("10000")));
+        assertEquals(new Numeric(2, 0, 0, List.of(12)), numeric(new BigDecimal("1.2E+9")));
+    }
+
+    @Test
+    void zeroHasNoDigitsButKeepsItsScale() {
+        assertEquals(new Numeric(0, 0, 0, List.of()), numeric(BigDecimal.ZERO));
+        assertEquals(new Numeric(0, 0, 2, List.of()), numeric(new BigDecimal("0.00")));
+    }
+
+    @Test
+    void negativeNumericsSetTheSignAndEncodeTheMagnitude() {
+        Numeric numeric = numeric(new BigDecimal("-49.95"));
+
+        assertEquals(0x4000, numeric.sign());
+        assertEquals(List.of(49, 9500), numeric.digits());
+    }
+
+    @Test
+    void numericsReadBackAsTheSameValue() {
+        for (String value : List.of("1", "-1", "99.99", "1234.5", "0.5", "-0.000001", "123456789.000100",
+                "1E+3", "7000000000000000000000.0000000000001", "199.90")) {
+            BigDecimal number = new BigDecimal(value);
+            assertEquals(number.setScale(Math.max(number.scale(), 0)), numeric(number).value(), value);
+        }
+    }
+
+    // ==================== OTHER TYPES ====================
+
+    @Test
+    void timestampsAreMicrosecondsSince2000Utc() {
+        assertEquals(0, timestamp("2000-01-01T00:00:00Z"));
+        assertEquals(0, timestamp("2000-01-01T01:00:00+01:00"));
+        assertEquals(-1, timestamp("1999-12-31T23:59:59.999999Z"));
+        assertEquals(762_525_296_123_456L, timestamp("2024-02-29T12:34:56.123456Z"));
+    }
+
+    @Test
+    void uuidsAreSixteenBytesMostSignificantFirst() {
+        UUID id = UUID.fromString("0190f1d2-3c4b-7a6e-8d9c-0123456789ab");
+
+        ByteBuffer field = field(id);
+
+        assertEquals(16, field.remaining());
+        assertEquals(id.getMostSignificantBits(), field.getLong());
+        assertEquals(id.getLeastSignificantBits(), field.getLong());
+    }
+
+    @Test
+    void textIsUtf8WithItsByteLength() {
+        ByteBuffer field = field("Citroën");
+
+        byte[] bytes = new byte[field.remaining()];
+        field.get(bytes);
+        assertArrayEquals("Citroën".getBytes(StandardCharsets.UTF_8), bytes);
+        assertEquals(8, bytes.length);
+    }
+
+    @Test
+    void fixedWidthTypes() {
+        assertEquals(1, field(true).get());
+        assertEquals(0, field(false).get());
+        assertEquals(-7, field(-7).getInt());
+        assertEquals(1L << 40, field(1L << 40).getLong());
+        assertEquals(2.5, field(2.5).getDouble());
+    }
+
+    @Test
+    void typesWithoutAnEncodingAreRejected() {
+        BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.writeRow(List.of(LocalDate.of(2024, 1, 1))));
+    }
+
+    // ==================== HELPERS ====================
+
+    /**
+     * @return The data of the only field of a one-row COPY, positioned after its length
+     */
+    private static ByteBuffer field(Object value) {
+        BinaryCopyEncoder encoder = new BinaryCopyEncoder();
+        encoder.writeRow(List.of(value));
+        ByteBuffer buffer = ByteBuffer.wrap(encoder.finish()).position(HEADER_LENGTH);
+        assertEquals(1, buffer.getShort());
+        int length = buffer.getInt();
+        ByteBuffer field = buffer.slice().limit(length);
+        buffer.position(buffer.position() + length);
+        assertEquals(-1, buffer.getShort());
+        return field;
+    }
+
+    private static Numeric numeric(BigDecimal value) {
+        ByteBuffer field = field(value);
+        int count = field.getShort();
+        int weight = field.getShort();
+        int sign = field.getShort();
+        int displayScale = field.getShort();
+        List<Integer> digits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            digits.add((int) field.getShort());
+        }
+        assertEquals(0, field.remaining());
+        return new Numeric(weight, sign, displayScale, digits);
+    }
+
+    private static long timestamp(String value) {
+        ByteBuffer field = field(OffsetDateTime.parse(value));
+        assertEquals(8, field.remaining());
+        return field.getLong();
+    }
+}
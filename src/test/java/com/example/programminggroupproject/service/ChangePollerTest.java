@@ -0,0 +1,107 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.model.Vehicle;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pollers on the in-memory backend, checking every second (supabase.poller.minSeconds and
+ * maxSeconds in the test supabase.properties)
+ */
+class ChangePollerTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final BaseSupabaseService<Vehicle> FIRST = service("poller_vehicles_1");
+    private static final BaseSupabaseService<Vehicle> SECOND = service("poller_vehicles_2");
+
+    private final List<ChangePoller> pollers = new ArrayList<>();
+
+    @BeforeEach
+    void emptyTables() {
+        FIRST.deleteAll();
+        SECOND.deleteAll();
+    }
+
+    @AfterEach
+    void stopPollers() {
+        pollers.forEach(ChangePoller::stop);
+    }
+
+    // ==================== CHANGES ====================
+
+    @Test
+    void aChangeRunsTheCallbackOnceTheTokenMoves() throws Exception {
+        Semaphore changes = new Semaphore(0);
+        start(FIRST, changes::release);
+        Thread.sleep(500);
+        assertFalse(changes.tryAcquire(1500, TimeUnit.MILLISECONDS));
+
+        FIRST.create(vehicle());
+
+        assertTrue(changes.tryAcquire(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(changes.tryAcquire(1500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void aSlowCallbackDoesNotHoldUpOtherPollers() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondChanged = new CountDownLatch(1);
+        start(FIRST, () -> {
+            firstStarted.countDown();
+            await(releaseFirst);
+        });
+        start(SECOND, secondChanged::countDown);
+        Thread.sleep(500);
+
+        FIRST.create(vehicle());
+        assertTrue(firstStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        SECOND.create(vehicle());
+
+        try {
+            // Well within the time the first callback stays blocked
+            assertTrue(secondChanged.await(5, TimeUnit.SECONDS));
+        } finally {
+            releaseFirst.countDown();
+        }
+    }
+
+    // ==================== HELPERS ====================
+
+    private void start(BaseSupabaseService<Vehicle> service, Runnable onChange) {
+        ChangePoller poller = service.changePoller(Map.of(), onChange);
+        pollers.add(poller);
+        poller.start();
+    }
+
+    private static Vehicle vehicle() {
+        return new Vehicle(UUID.randomUUID(), "Ford", "Focus", 2018, UUID.randomUUID().toString());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static BaseSupabaseService<Vehicle> service(String table) {
+        return new BaseSupabaseService<Vehicle>(table, Vehicle.class, new TypeReference<List<Vehicle>>() {}) {
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.JdbcConnectionPool;
+import com.example.programminggroupproject.model.Vehicle;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.sql.SQLException;
+
+/**
+ * The JDBC implementation, against the database configured for TestDatabase; skipped
+ * when there is none
+ */
+class JdbcServiceContractTest extends ServiceContractTest {
+
+    private static JdbcConnectionPool pool;
+    private static Service<Vehicle> service;
+
+    @BeforeAll
+    static void createTable() throws SQLException {
+        pool = TestDatabase.pool();
+        TestDatabase.createVehiclesTable(pool, TABLE);
+        service = new JdbcService<>(pool, TABLE, Vehicle.class);
+    }
+
+    @AfterAll
+    static void dropTable() throws SQLException {
+        if (pool != null) {
+            TestDatabase.dropTable(pool, TABLE);
+            pool.close();
+        }
+    }
+
+    @Override
+    Service<Vehicle> service() {
+        return service;
+    }
+}
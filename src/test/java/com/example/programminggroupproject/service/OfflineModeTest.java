@@ -0,0 +1,171 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.InMemoryBackend;
+import com.example.programminggroupproject.client.InMemoryTable;
+import com.example.programminggroupproject.model.Vehicle;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes made while the server is unreachable, and their replay once it is back, with the
+ * in-memory backend taken offline in between (supabase.offline.probeSeconds is 1 in the
+ * test supabase.properties)
+ */
+class OfflineModeTest {
+
+    private static final String TABLE = "offline_vehicles";
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private static final BaseSupabaseService<Vehicle> SERVICE =
+            new BaseSupabaseService<Vehicle>(TABLE, Vehicle.class, new TypeReference<List<Vehicle>>() {}) {
+                {
+                    // Like the real services: inserts can only be queued with an id
+                    useClientGeneratedIds();
+                }
+            };
+
+    private final InMemoryBackend backend = InMemoryBackend.getInstance();
+    private final OfflineMode offlineMode = OfflineMode.getInstance();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UUID clientId = UUID.randomUUID();
+    private final BlockingQueue<Boolean> connectionChanges = new LinkedBlockingQueue<>();
+    private final BlockingQueue<List<OfflineMode.Conflict>> conflicts = new LinkedBlockingQueue<>();
+    private final Consumer<Boolean> connectionListener = connectionChanges::add;
+    private final Consumer<List<OfflineMode.Conflict>> conflictListener = conflicts::add;
+
+    @BeforeEach
+    void signIn() {
+        offlineMode.register(SERVICE);
+        offlineMode.open(UUID.randomUUID());
+        offlineMode.addConnectionListener(connectionListener);
+        offlineMode.addConflictListener(conflictListener);
+        SERVICE.deleteAll();
+    }
+
+    @AfterEach
+    void signOut() {
+        backend.setOnline(true);
+        offlineMode.removeConnectionListener(connectionListener);
+        offlineMode.removeConflictListener(conflictListener);
+        offlineMode.close();
+    }
+
+    // ==================== WORKING OFFLINE ====================
+
+    @Test
+    void writesWhileUnreachableAreAppliedLocallyAndQueued() throws Exception {
+        Vehicle focus = SERVICE.createMinimal(vehicle("Focus", "AB12CDE"));
+        SERVICE.getAll();
+        backend.setOnline(false);
+
+        assertEquals(1, SERVICE.updateWhere(Map.of("id", "eq." + focus.getId()), Map.of("model", "Fiesta")));
+        Vehicle golf = SERVICE.createMinimal(vehicle("Golf", "CD34EFG"));
+
+        assertEquals(false, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(offlineMode.isOffline());
+        assertEquals(2, offlineMode.getPendingCount());
+        assertEquals("Fiesta", SERVICE.get(focus.getId()).orElseThrow().getModel());
+        assertEquals("Golf", SERVICE.get(golf.getId()).orElseThrow().getModel());
+        assertEquals("Focus", serverRow(focus.getId()).get("model").asText());
+        assertNull(serverRow(golf.getId()));
+
+        // Drained, so no journal is left behind in the home directory
+        backend.setOnline(true);
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    // ==================== REPLAY ====================
+
+    @Test
+    void queuedWritesAreSentInOrderOnceTheServerIsBack() throws Exception {
+        Vehicle focus = SERVICE.createMinimal(vehicle("Focus", "AB12CDE"));
+        SERVICE.getAll();
+        backend.setOnline(false);
+        SERVICE.updateWhere(Map.of("id", "eq." + focus.getId()), Map.of("model", "Fiesta"));
+        Vehicle golf = SERVICE.createMinimal(vehicle("Golf", "CD34EFG"));
+        SERVICE.updateWhere(Map.of("id", "eq." + golf.getId()), Map.of("model", "Polo"));
+        assertEquals(false, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        backend.setOnline(true);
+
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(offlineMode.isOffline());
+        assertEquals(0, offlineMode.getPendingCount());
+        assertEquals("Fiesta", serverRow(focus.getId()).get("model").asText());
+        assertEquals("Polo", serverRow(golf.getId()).get("model").asText());
+        assertTrue(conflicts.isEmpty());
+    }
+
+    @Test
+    void aConditionalUpdateOfARowChangedElsewhereIsReportedAndNotApplied() throws Exception {
+        Vehicle focus = SERVICE.createMinimal(vehicle("Focus", "AB12CDE"));
+        SERVICE.getAll();
+        backend.setOnline(false);
+        Map<String, String> stillAFocus = Map.of("id", "eq." + focus.getId(), "model", "eq.Focus");
+        assertEquals(1, SERVICE.updateWhere(stillAFocus, Map.of("model", "Fiesta")));
+        assertEquals(false, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Another client changes the row while this one is offline
+        backend.getApi().table(TABLE).update(Map.of("id", "eq." + focus.getId()),
+                objectMapper.createObjectNode().put("model", "Focus ST"));
+        backend.setOnline(true);
+
+        List<OfflineMode.Conflict> reported = conflicts.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertEquals(1, reported.size());
+        OfflineMode.Conflict conflict = reported.get(0);
+        assertEquals(TABLE, conflict.table());
+        assertEquals("update", conflict.operation());
+        assertEquals(stillAFocus, conflict.filter());
+        assertEquals(1, conflict.expected());
+        assertEquals(0, conflict.applied());
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("Focus ST", serverRow(focus.getId()).get("model").asText());
+        assertEquals("Focus ST", SERVICE.get(focus.getId()).orElseThrow().getModel());
+    }
+
+    @Test
+    void insertsAlreadyOnTheServerAreNotDuplicated() throws Exception {
+        backend.setOnline(false);
+        Vehicle focus = SERVICE.createMinimal(vehicle("Focus", "AB12CDE"));
+        assertEquals(false, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // E.g. the request reached the server before the connection failed
+        ObjectNode sent = objectMapper.valueToTree(focus);
+        backend.getApi().table(TABLE).insert(List.of(sent), InMemoryTable.Conflict.ERROR);
+        backend.setOnline(true);
+
+        assertEquals(true, connectionChanges.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, SERVICE.count());
+        assertTrue(conflicts.isEmpty());
+    }
+
+    // ==================== HELPERS ====================
+
+    private Vehicle vehicle(String model, String licensePlate) {
+        return new Vehicle(clientId, "Ford", model, 2018, licensePlate);
+    }
+
+    private ObjectNode serverRow(UUID id) {
+        return backend.getApi().table(TABLE).rows().stream()
+                .filter(row -> row.path("id").asText().equals(id.toString()))
+                .findFirst()
+                .orElse(null);
+    }
+}
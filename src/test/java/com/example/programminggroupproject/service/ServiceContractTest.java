@@ -0,0 +1,265 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.model.Vehicle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour every Service&lt;T&gt; implementation shares, so one can stand in for another.
+ * Each implementation runs it through a subclass; the rows are vehicles in a table of
+ * their own, emptied before each test.
+ */
+abstract class ServiceContractTest {
+
+    static final String TABLE = "conformance_vehicles";
+
+    private final UUID clientId = UUID.randomUUID();
+
+    /**
+     * @return The implementation under test, working on TABLE
+     */
+    abstract Service<Vehicle> service();
+
+    @BeforeEach
+    void emptyTable() {
+        service().deleteAll();
+    }
+
+    // ==================== BASIC CRUD OPERATIONS ====================
+
+    @Test
+    void createReturnsTheStoredRow() {
+        Vehicle created = service().create(vehicle("Ford", "Focus", 2018, "AB12CDE"));
+
+        assertNotNull(created.getId());
+        assertNotNull(created.getCreatedAt());
+        assertEquals("Focus", created.getModel());
+        Vehicle read = service().get(created.getId()).orElseThrow();
+        assertEquals("AB12CDE", read.getLicensePlate());
+        assertEquals(2018, read.getYear());
+        assertEquals(clientId, read.getClientId());
+    }
+
+    @Test
+    void createMinimalAssignsTheIdUpFront() {
+        Vehicle created = service().createMinimal(vehicle("Ford", "Focus", 2018, "AB12CDE"));
+
+        assertNotNull(created.getId());
+        assertTrue(service().get(created.getId()).isPresent());
+    }
+
+    @Test
+    void getOfAnUnknownIdIsEmpty() {
+        assertEquals(Optional.empty(), service().get(UUID.randomUUID()));
+    }
+
+    @Test
+    void updateChangesOnlyTheGivenColumnsOfThatRow() {
+        Vehicle focus = service().create(vehicle("Ford", "Focus", 2018, "AB12CDE"));
+        Vehicle golf = service().create(vehicle("VW", "Golf", 2016, "CD34EFG"));
+
+        Vehicle changes = new Vehicle();
+        changes.setModel("Fiesta");
+        Vehicle updated = service().update(focus.getId(), changes);
+
+        assertEquals("Fiesta", updated.getModel());
+        assertEquals("Ford", updated.getMake());
+        assertEquals("Golf", service().get(golf.getId()).orElseThrow().getModel());
+    }
+
+    @Test
+    void upsertReplacesTheRowWithTheSameId() {
+        Vehicle created = service().create(vehicle("Ford", "Focus", 2018, "AB12CDE"));
+        created.setYear(2019);
+
+        service().upsert(created);
+
+        assertEquals(2019, service().get(created.getId()).orElseThrow().getYear());
+        assertEquals(1, service().count());
+    }
+
+    @Test
+    void deleteRemovesOnlyThatRow() {
+        Vehicle focus = service().create(vehicle("Ford", "Focus", 2018, "AB12CDE"));
+        Vehicle golf = service().create(vehicle("VW", "Golf", 2016, "CD34EFG"));
+
+        service().delete(focus.getId());
+
+        assertFalse(service().exists(focus.getId()));
+        assertTrue(service().exists(golf.getId()));
+    }
+
+    // ==================== FILTERING & QUERYING ====================
+
+    @Test
+    void filtersMatchLikePostgrest() {
+        createThree();
+
+        assertEquals(Set.of(2015, 2020), years(service().filter("year", "gte", 2015)));
+        assertEquals(Set.of(2010, 2015), years(service().findBy("make", "Ford")));
+        assertEquals(Set.of(2020), years(service().filterMultiple(Map.of("make", "VW", "year", 2020))));
+        assertEquals("Golf", service().findOneBy("license_plate", "GH56IJK").orElseThrow().getModel());
+        assertTrue(service().findOne(Map.of("make", "Tesla")).isEmpty());
+    }
+
+    @Test
+    void rangesIncludeBothBounds() {
+        createThree();
+
+        assertEquals(Set.of(2010, 2015), years(service().getByRange("year", 2010, 2015)));
+        assertEquals(Set.of(2015), years(service().getByRange("year", 2011, 2019)));
+        assertEquals(Set.of(), years(service().getByRange("year", 2016, 2019)));
+    }
+
+    @Test
+    void searchIgnoresCase() {
+        createThree();
+
+        assertEquals(Set.of(2010, 2015), years(service().search("model", "FOC")));
+    }
+
+    @Test
+    void orderingAndPaging() {
+        createThree();
+
+        List<Vehicle> ascending = service().getAllOrdered("year", true);
+        assertEquals(List.of(2010, 2015, 2020), ascending.stream().map(Vehicle::getYear).toList());
+        assertEquals(2, service().getAll(2, 0).size());
+        assertEquals(1, service().getAll(2, 2).size());
+        assertEquals(3, service().getAll().size());
+    }
+
+    @Test
+    void countsAndExistence() {
+        List<Vehicle> created = createThree();
+
+        assertEquals(3, service().count());
+        assertEquals(2, service().countFiltered("year", "gt", 2012));
+        assertTrue(service().exists(created.get(0).getId()));
+        assertFalse(service().exists(UUID.randomUUID()));
+        assertTrue(service().existsBy("license_plate", "GH56IJK"));
+        assertFalse(service().existsBy("license_plate", "ZZ99ZZZ"));
+    }
+
+    // ==================== BULK OPERATIONS ====================
+
+    @Test
+    void createMultipleReturnsTheRowsInInputOrder() {
+        List<Vehicle> input = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            input.add(vehicle("Ford", "Focus", 2010 + i, "PLATE" + i));
+        }
+
+        List<Vehicle> created = service().createMultiple(input);
+
+        assertEquals(List.of("PLATE0", "PLATE1", "PLATE2", "PLATE3", "PLATE4"),
+                created.stream().map(Vehicle::getLicensePlate).toList());
+        created.forEach(row -> assertNotNull(row.getCreatedAt()));
+        assertEquals(5, service().count());
+    }
+
+    @Test
+    void bulkUpdateAndDeleteReportTheRowsTheyMatched() {
+        createThree();
+
+        assertEquals(2, service().updateWhere(Map.of("make", "eq.Ford"), Map.of("model", "Ka")));
+        assertEquals(Set.of(2010, 2015), years(service().findBy("model", "Ka")));
+        assertEquals(2, service().deleteWhere(Map.of("year", "lt.2016")));
+        assertEquals(1, service().count());
+    }
+
+    @Test
+    void bulkUpdateAndDeleteRequireAFilter() {
+        assertThrows(IllegalArgumentException.class, () -> service().updateWhere(Map.of(), Map.of("model", "Ka")));
+        assertThrows(IllegalArgumentException.class, () -> service().deleteWhere(Map.of()));
+    }
+
+    @Test
+    void deleteMultipleRemovesTheGivenIds() {
+        List<Vehicle> created = createThree();
+
+        service().deleteMultiple(List.of(created.get(0).getId(), created.get(1).getId()));
+
+        assertEquals(Set.of(2020), years(service().getAll()));
+    }
+
+    // ==================== STREAMING ====================
+
+    @Test
+    void publishAllEmitsEveryRowOnce() throws Exception {
+        List<Vehicle> input = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            input.add(vehicle("Ford", "Focus", 2000 + i, "PLATE" + i));
+        }
+        Set<UUID> ids = service().createMultiple(input).stream().map(Vehicle::getId).collect(Collectors.toSet());
+
+        List<Vehicle> streamed = collect(service().publishAll(10));
+
+        assertEquals(25, streamed.size());
+        assertEquals(ids, streamed.stream().map(Vehicle::getId).collect(Collectors.toSet()));
+    }
+
+    // ==================== HELPERS ====================
+
+    private Vehicle vehicle(String make, String model, int year, String licensePlate) {
+        return new Vehicle(clientId, make, model, year, licensePlate);
+    }
+
+    private List<Vehicle> createThree() {
+        return List.of(
+                service().create(vehicle("Ford", "Focus", 2010, "AB12CDE")),
+                service().create(vehicle("Ford", "Focus ST", 2015, "CD34EFG")),
+                service().create(vehicle("VW", "Golf", 2020, "GH56IJK")));
+    }
+
+    private static Set<Integer> years(List<Vehicle> vehicles) {
+        return vehicles.stream().map(Vehicle::getYear).collect(Collectors.toSet());
+    }
+
+    /**
+     * Subscribe with unbounded demand and wait for completion
+     */
+    static <T> List<T> collect(Flow.Publisher<T> publisher) throws Exception {
+        List<T> rows = new ArrayList<>();
+        CompletableFuture<List<T>> done = new CompletableFuture<>();
+        publisher.subscribe(new Flow.Subscriber<T>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                rows.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(rows);
+            }
+        });
+        return done.get(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.JdbcConnectionPool;
+import com.example.programminggroupproject.config.SupabaseConfig;
+import com.example.programminggroupproject.model.Vehicle;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Throughput of the same bulk load, filtered reads and full scan through each Service
+ * implementation, printed as rows per second. Not part of the normal test run; run it with
+ * {@code mvn test -Pbenchmark}, and {@code -Dtest.jdbc.url=...} (see TestDatabase) to include
+ * JdbcService. {@code -Dbenchmark.rows} sets the table size (default 20000).
+ * <p>
+ * With the in-memory backend the REST figures are the client-side cost of that path
+ * (serialization, HTTP stack, caches) without network or database time.
+ */
+@Tag("benchmark")
+class ServiceThroughputBenchmarkTest {
+
+    private static final String TABLE = "benchmark_vehicles";
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+    private static final int BATCH = 500;
+    private static final int READS = 200;
+
+    @Test
+    void rest() throws Exception {
+        String backend = SupabaseConfig.getInstance().isMemoryBackend() ? "in-memory backend" : "Supabase";
+        run("REST (" + backend + ")",
+                new BaseSupabaseService<Vehicle>(TABLE, Vehicle.class, new TypeReference<List<Vehicle>>() {}) {
+                });
+    }
+
+    @Test
+    void jdbc() throws Exception {
+        JdbcConnectionPool pool = TestDatabase.pool();
+        try {
+            TestDatabase.createVehiclesTable(pool, TABLE);
+            run("JDBC", new JdbcService<>(pool, TABLE, Vehicle.class));
+        } finally {
+            TestDatabase.dropTable(pool, TABLE);
+            pool.close();
+        }
+    }
+
+    private void run(String name, Service<Vehicle> service) throws Exception {
+        service.deleteAll();
+        UUID clientId = UUID.randomUUID();
+
+        long start = System.nanoTime();
+        for (int from = 0; from < ROWS; from += BATCH) {
+            List<Vehicle> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(ROWS, from + BATCH); i++) {
+                batch.add(new Vehicle(clientId, "Make" + i % 20, "Model" + i % 50, 1990 + i % 35, "P" + i));
+            }
+            service.createMultiple(batch);
+        }
+        double insertSeconds = seconds(start);
+
+        start = System.nanoTime();
+        long read = 0;
+        for (int i = 0; i < READS; i++) {
+            read += service.filter("make", "eq", "Make" + i % 20).size();
+        }
+        double filterSeconds = seconds(start);
+
+        start = System.nanoTime();
+        int scanned = ServiceContractTest.collect(service.publishAll(1000)).size();
+        double scanSeconds = seconds(start);
+
+        assertEquals(ROWS, scanned);
+        System.out.printf("%-28s createMultiple %,10.0f rows/s | filter %,10.0f rows/s | publishAll %,10.0f rows/s%n",
+                name, ROWS / insertSeconds, read / filterSeconds, scanned / scanSeconds);
+        service.deleteAll();
+    }
+
+    private static double seconds(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.model.Vehicle;
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.util.List;
+
+/**
+ * The REST implementation, answered by the in-memory backend (supabase.backend=memory in
+ * the test supabase.properties)
+ */
+class SupabaseServiceContractTest extends ServiceContractTest {
+
+    private static final Service<Vehicle> SERVICE =
+            new BaseSupabaseService<Vehicle>(TABLE, Vehicle.class, new TypeReference<List<Vehicle>>() {}) {
+            };
+
+    @Override
+    Service<Vehicle> service() {
+        return SERVICE;
+    }
+}
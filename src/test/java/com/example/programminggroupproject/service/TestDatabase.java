@@ -0,0 +1,59 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.client.JdbcConnectionPool;
+import org.junit.jupiter.api.Assumptions;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * The PostgreSQL database JDBC tests run against, opted into with the test.jdbc.url system
+ * property or TEST_JDBC_URL environment variable (e.g. jdbc:postgresql://localhost:5432/postgres),
+ * plus test.jdbc.user / TEST_JDBC_USER (default postgres) and test.jdbc.password /
+ * TEST_JDBC_PASSWORD. Without a URL those tests are skipped.
+ */
+final class TestDatabase {
+
+    private TestDatabase() {
+    }
+
+    /**
+     * @return A pool for the test database; skips the calling test class when none is configured
+     */
+    static JdbcConnectionPool pool() {
+        String url = setting("test.jdbc.url", "TEST_JDBC_URL", "");
+        Assumptions.assumeFalse(url.isBlank(), "No test database configured (test.jdbc.url)");
+        return new JdbcConnectionPool(url, setting("test.jdbc.user", "TEST_JDBC_USER", "postgres"),
+                setting("test.jdbc.password", "TEST_JDBC_PASSWORD", ""), 4);
+    }
+
+    /**
+     * (Re)create an empty vehicles-shaped table
+     */
+    static void createVehiclesTable(JdbcConnectionPool pool, String table) throws SQLException {
+        try (JdbcConnectionPool.Lease lease = pool.borrow();
+             Statement statement = lease.connection().createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute("CREATE TABLE " + table + " ("
+                    + "id uuid PRIMARY KEY DEFAULT gen_random_uuid(), "
+                    + "client_id uuid, "
+                    + "make text NOT NULL, "
+                    + "model text NOT NULL, "
+                    + "year integer, "
+                    + "license_plate text, "
+                    + "created_at timestamptz NOT NULL DEFAULT now())");
+        }
+    }
+
+    static void dropTable(JdbcConnectionPool pool, String table) throws SQLException {
+        try (JdbcConnectionPool.Lease lease = pool.borrow();
+             Statement statement = lease.connection().createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+        }
+    }
+
+    private static String setting(String property, String variable, String defaultValue) {
+        String value = System.getProperty(property, System.getenv(variable));
+        return value != null ? value : defaultValue;
+    }
+}
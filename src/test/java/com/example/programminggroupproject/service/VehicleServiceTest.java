@@ -0,0 +1,50 @@
+package com.example.programminggroupproject.service;
+
+import com.example.programminggroupproject.model.Vehicle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VehicleServiceTest {
+
+    private final VehicleService vehicles = VehicleService.getInstance();
+
+    @BeforeEach
+    void emptyTable() {
+        vehicles.deleteAll();
+    }
+
+    // ==================== LICENSE PLATES ====================
+
+    @Test
+    void platesAreStoredInTheFormImportsUse() {
+        Vehicle registered = vehicles.registerVehicle(vehicle("ab-12 cde"));
+
+        assertEquals("AB12CDE", registered.getLicensePlate());
+        assertEquals(VehicleService.normalizePlate(" Ab12-Cde"),
+                vehicles.get(registered.getId()).orElseThrow().getLicensePlate());
+    }
+
+    @Test
+    void plateChecksIgnoreSpacingDashesAndCase() {
+        assertFalse(vehicles.licensePlateExists("AB12CDE"));
+        vehicles.registerVehicle(vehicle("AB12CDE"));
+
+        assertTrue(vehicles.licensePlateExists("ab-12 cde"));
+        assertTrue(vehicles.findByLicensePlate("ab 12 CDE").isPresent());
+        assertThrows(IllegalArgumentException.class, () -> vehicles.registerVehicle(vehicle("ab-12 cde")));
+        assertEquals(1, vehicles.count());
+    }
+
+    // ==================== HELPERS ====================
+
+    private static Vehicle vehicle(String licensePlate) {
+        return new Vehicle(UUID.randomUUID(), "Ford", "Focus", 2018, licensePlate);
+    }
+}